@@ -0,0 +1,137 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.analyses.AffineFastPath;
+import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+
+/**
+ * The closed-form computations of the AffineFastPath must yield the bounds of the general analyses.
+ */
+public class AffineFastPathTest {
+	private static final double EPSILON = 1e-9;
+
+	private static final ArrivalBoundMethod[][] AB_METHODS = new ArrivalBoundMethod[][] {
+		{ ArrivalBoundMethod.AGGR_PBOO_CONCATENATION },
+		{ ArrivalBoundMethod.AGGR_PBOO_PER_SERVER },
+		{ ArrivalBoundMethod.AGGR_PBOO_CONCATENATION, ArrivalBoundMethod.AGGR_PBOO_PER_SERVER },
+		{ ArrivalBoundMethod.AGGR_PMOO }
+	};
+
+	@Test
+	public void tfaTandem() throws Exception {
+		for (ArrivalBoundMethod[] ab_methods : AB_METHODS) {
+			assertFastPathMatches(FuncTestNetworks.createTandem(), FuncTestNetworks.createTandem(), ab_methods);
+		}
+	}
+
+	@Test
+	public void tfaFanIn() throws Exception {
+		for (ArrivalBoundMethod[] ab_methods : AB_METHODS) {
+			assertFastPathMatches(FuncTestNetworks.createFanIn(), FuncTestNetworks.createFanIn(), ab_methods);
+		}
+	}
+
+	@Test
+	public void notApplicableToOtherArrivalBoundMethods() throws Exception {
+		AnalysisConfig configuration = FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION,
+				ArrivalBoundMethod.AGGR_PMOO);
+		assertFalse(new AffineFastPath(FuncTestNetworks.createTandem(), configuration).isApplicable());
+
+		configuration = FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.SEGR_PBOO);
+		assertFalse(new AffineFastPath(FuncTestNetworks.createTandem(), configuration).isApplicable());
+	}
+
+	@Test
+	public void rebuildAfterSetServiceCurve() throws Exception {
+		ServerGraph sg_fast = FuncTestNetworks.createTandem();
+		AnalysisConfig configuration_fast = FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION);
+		configuration_fast.setUseAffineFastPath(true);
+		TotalFlowAnalysis tfa_fast = new TotalFlowAnalysis(sg_fast, configuration_fast);
+		Flow foi_fast = sg_fast.getFlow(0);
+		tfa_fast.performAnalysis(foi_fast);
+
+		ServiceCurve service_curve = Curve.getFactory().createRateLatency(8, 3);
+		sg_fast.setServiceCurve(sg_fast.getServer(1), service_curve);
+		tfa_fast.performAnalysis(foi_fast);
+
+		ServerGraph sg_general = FuncTestNetworks.createTandem();
+		sg_general.setServiceCurve(sg_general.getServer(1), service_curve);
+		TotalFlowAnalysis tfa_general = new TotalFlowAnalysis(sg_general,
+				FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION));
+		tfa_general.performAnalysis(sg_general.getFlow(0));
+
+		assertEquals(tfa_general.getDelayBound().doubleValue(), tfa_fast.getDelayBound().doubleValue(), EPSILON);
+		assertEquals(tfa_general.getBacklogBound().doubleValue(), tfa_fast.getBacklogBound().doubleValue(), EPSILON);
+	}
+
+	@Test
+	public void pmooServiceCurveClosedForm() throws Exception {
+		ServerGraph sg = FuncTestNetworks.createTandem();
+		Flow foi = sg.getFlow(0);
+		List<Flow> cross_flow_substitutes = new LinkedList<Flow>(Arrays.asList(sg.getFlow(1), sg.getFlow(2)));
+
+		// R = min(10 - 2, 20 - 2 - 4, 10 - 4) = 6, T = 1 + 2 + 1 + (4 + 8 + 2 * (1 + 2) + 4 * (2 + 1)) / 6 = 9
+		assertEquals(Curve.getFactory().createRateLatency(6, 9),
+				PmooAnalysis.getServiceCurve(foi.getPath(), cross_flow_substitutes));
+	}
+
+	private static void assertFastPathMatches(ServerGraph sg_general, ServerGraph sg_fast,
+			ArrivalBoundMethod[] ab_methods) throws Exception {
+		AnalysisConfig configuration_general = FuncTestNetworks.createAffineConfig(ab_methods);
+		AnalysisConfig configuration_fast = FuncTestNetworks.createAffineConfig(ab_methods);
+		configuration_fast.setUseAffineFastPath(true);
+		assertTrue(new AffineFastPath(sg_fast, configuration_fast).isApplicable(), Arrays.toString(ab_methods));
+
+		for (Flow foi_general : sg_general.getFlows()) {
+			Flow foi_fast = sg_fast.getFlow(foi_general.getId());
+
+			TotalFlowAnalysis tfa_general = new TotalFlowAnalysis(sg_general, configuration_general);
+			tfa_general.performAnalysis(foi_general);
+			TotalFlowAnalysis tfa_fast = new TotalFlowAnalysis(sg_fast, configuration_fast);
+			tfa_fast.performAnalysis(foi_fast);
+
+			String msg = Arrays.toString(ab_methods) + " " + foi_general;
+			assertEquals(tfa_general.getDelayBound().doubleValue(), tfa_fast.getDelayBound().doubleValue(), EPSILON, msg);
+			assertEquals(tfa_general.getBacklogBound().doubleValue(), tfa_fast.getBacklogBound().doubleValue(), EPSILON, msg);
+		}
+	}
+}
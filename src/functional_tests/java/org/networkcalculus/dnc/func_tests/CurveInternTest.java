@@ -0,0 +1,101 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.LinearSegment;
+import org.networkcalculus.num.Num;
+
+/**
+ * Interned curves are shared, they must reject any modification.
+ */
+public class CurveInternTest {
+	@Test
+	public void internIsCanonical() {
+		Curve interned = Curve.getFactory().createRateLatency(10, 1).intern();
+
+		assertTrue(interned.isInterned());
+		assertSame(interned, Curve.getFactory().createRateLatency(10, 1).intern());
+		assertSame(interned, interned.intern());
+		assertEquals(Curve.getFactory().createRateLatency(10, 1), interned);
+		assertEquals(interned, Curve.getFactory().createRateLatency(10, 1));
+	}
+
+	@Test
+	public void internedCurveIsImmutable() {
+		Curve interned = Curve.getFactory().createRateLatency(10, 1).intern();
+		LinearSegment segment = interned.getSegment(1).copy();
+
+		assertThrows(UnsupportedOperationException.class, () -> interned.addSegment(segment));
+		assertThrows(UnsupportedOperationException.class, () -> interned.addSegment(1, segment));
+		assertThrows(UnsupportedOperationException.class, () -> interned.removeSegment(1));
+		assertThrows(UnsupportedOperationException.class,
+				() -> interned.copy(Curve.getFactory().createRateLatency(20, 2)));
+		assertThrows(UnsupportedOperationException.class, () -> interned.setRL_MetaInfo(false));
+		assertThrows(UnsupportedOperationException.class,
+				() -> interned.setRL_Components(Collections.<Curve>emptyList()));
+		assertThrows(UnsupportedOperationException.class, () -> interned.setRateLateny(false));
+		assertThrows(UnsupportedOperationException.class, () -> interned.setTB_MetaInfo(false));
+
+		assertEquals(Curve.getFactory().createRateLatency(10, 1), interned);
+	}
+
+	@Test
+	public void internedSegmentsAreImmutable() {
+		Curve interned = Curve.getFactory().createTokenBucket(2, 6).intern();
+		LinearSegment segment = interned.getSegment(1);
+		Num num = Num.getFactory(Calculator.getInstance().getNumBackend()).create(3);
+
+		assertThrows(UnsupportedOperationException.class, () -> segment.setX(num));
+		assertThrows(UnsupportedOperationException.class, () -> segment.setY(num));
+		assertThrows(UnsupportedOperationException.class, () -> segment.setGrad(num));
+		assertThrows(UnsupportedOperationException.class, () -> segment.setLeftopen(false));
+
+		assertEquals(Curve.getFactory().createTokenBucket(2, 6), interned);
+	}
+
+	@Test
+	public void copyIsMutable() {
+		Curve interned = Curve.getFactory().createRateLatency(10, 1).intern();
+		Curve copy = interned.copy();
+
+		assertFalse(copy.isInterned());
+		copy.copy(Curve.getFactory().createRateLatency(20, 2));
+		copy.getSegment(1).setGrad(Num.getFactory(Calculator.getInstance().getNumBackend()).create(30));
+
+		assertEquals(Curve.getFactory().createRateLatency(30, 2), copy);
+		assertEquals(Curve.getFactory().createRateLatency(10, 1), interned);
+	}
+}
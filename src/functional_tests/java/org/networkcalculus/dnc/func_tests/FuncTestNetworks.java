@@ -0,0 +1,118 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.AnalysisConfig.MaxScEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+
+/**
+ * Token-bucket / rate-latency server graphs and configurations shared by the functional tests.
+ */
+public final class FuncTestNetworks {
+	private FuncTestNetworks() {
+	}
+
+	/**
+	 * Three servers in tandem, one flow crosses all of them, two flows cross two of them each.
+	 * <p>
+	 * Flow f1 crosses s0 and s1, flow f2 crosses s1 and s2.
+	 *
+	 * @return The server graph.
+	 * @throws Exception Creating the server graph failed.
+	 */
+	public static ServerGraph createTandem() throws Exception {
+		ServerGraph sg = new ServerGraph();
+
+		Server s0 = sg.addServer(Curve.getFactory().createRateLatency(10, 1), Multiplexing.ARBITRARY);
+		Server s1 = sg.addServer(Curve.getFactory().createRateLatency(20, 2), Multiplexing.ARBITRARY);
+		Server s2 = sg.addServer(Curve.getFactory().createRateLatency(10, 1), Multiplexing.ARBITRARY);
+
+		sg.addTurn(s0, s1);
+		sg.addTurn(s1, s2);
+
+		sg.addFlow(Curve.getFactory().createTokenBucket(1, 1), path(s0, s1, s2));
+		sg.addFlow(Curve.getFactory().createTokenBucket(2, 4), path(s0, s1));
+		sg.addFlow(Curve.getFactory().createTokenBucket(4, 8), path(s1, s2));
+
+		return sg;
+	}
+
+	/**
+	 * Two sources merge at s2 that feeds s3. Aliases contain the CSV separator.
+	 *
+	 * @return The server graph.
+	 * @throws Exception Creating the server graph failed.
+	 */
+	public static ServerGraph createFanIn() throws Exception {
+		ServerGraph sg = new ServerGraph();
+
+		Server s0 = sg.addServer("s0,source", Curve.getFactory().createRateLatency(10, 1), Multiplexing.ARBITRARY);
+		Server s1 = sg.addServer("s1,source", Curve.getFactory().createRateLatency(10, 1), Multiplexing.ARBITRARY);
+		Server s2 = sg.addServer(Curve.getFactory().createRateLatency(20, 2), Multiplexing.ARBITRARY);
+		Server s3 = sg.addServer(Curve.getFactory().createRateLatency(15, 1), Multiplexing.ARBITRARY);
+
+		sg.addTurn(s0, s2);
+		sg.addTurn(s1, s2);
+		sg.addTurn(s2, s3);
+
+		sg.addFlow("f0,\"long\"", Curve.getFactory().createTokenBucket(1, 2), path(s0, s2, s3));
+		sg.addFlow(Curve.getFactory().createTokenBucket(2, 1), path(s1, s2, s3));
+		sg.addFlow(Curve.getFactory().createTokenBucket(3, 3), path(s0, s2));
+		sg.addFlow(Curve.getFactory().createTokenBucket(1, 5), path(s1, s2));
+		sg.addFlow(Curve.getFactory().createTokenBucket(2, 2), path(s3));
+
+		return sg;
+	}
+
+	/**
+	 * @param arrival_bound_methods The arrival bound methods to use.
+	 * @return A configuration that stays within the token-bucket / rate-latency model.
+	 */
+	public static AnalysisConfig createAffineConfig(ArrivalBoundMethod... arrival_bound_methods) {
+		AnalysisConfig configuration = new AnalysisConfig();
+		configuration.enforceMultiplexing(MultiplexingEnforcement.GLOBAL_ARBITRARY);
+		configuration.enforceMaxSC(MaxScEnforcement.GLOBALLY_OFF);
+		configuration.enforceMaxScOutputRate(MaxScEnforcement.GLOBALLY_OFF);
+		configuration.clearArrivalBoundMethods();
+		for (ArrivalBoundMethod arrival_bound_method : arrival_bound_methods) {
+			configuration.addArrivalBoundMethod(arrival_bound_method);
+		}
+		return configuration;
+	}
+
+	private static List<Server> path(Server... servers) {
+		return new LinkedList<Server>(Arrays.asList(servers));
+	}
+}
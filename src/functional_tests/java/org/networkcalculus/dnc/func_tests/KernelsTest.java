@@ -0,0 +1,203 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.algebra.disco.pw_affine.Convolution_Disco_PwAffine;
+import org.networkcalculus.dnc.bounds.disco.con_pw_affine.Output_Disco_ConPwAffine;
+import org.networkcalculus.dnc.bounds.disco.pw_affine.LeftOverService_Disco_PwAffine;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.num.Num;
+
+/**
+ * The batched left-over service, fused output bound and k-way convolution kernels
+ * must yield the curves of the general, pairwise computations.
+ */
+public class KernelsTest {
+	private static ServiceCurve createConvexServiceCurve() {
+		return Curve.max(Curve.getFactory().createRateLatency(5, 1), Curve.getFactory().createRateLatency(20, 4));
+	}
+
+	private static ArrivalCurve createConcaveArrivalCurve() {
+		return Curve.min(Curve.getFactory().createTokenBucket(1, 10), Curve.getFactory().createTokenBucket(5, 2));
+	}
+
+	private static Set<ArrivalCurve> createArrivalCurves() {
+		Set<ArrivalCurve> arrival_curves = new HashSet<ArrivalCurve>();
+		arrival_curves.add(Curve.getFactory().createTokenBucket(2, 6));
+		arrival_curves.add(Curve.getFactory().createTokenBucket(3, 1));
+		arrival_curves.add(createConcaveArrivalCurve());
+		return arrival_curves;
+	}
+
+	private static List<ServiceCurve> createServiceCurves() {
+		return Arrays.asList(Curve.getFactory().createRateLatency(10, 1), createConvexServiceCurve(),
+				Curve.getFactory().createRateLatency(5, 2));
+	}
+
+	@Test
+	public void arbMuxClosedForm() {
+		// RL(R,T) with TB(r,b) left over: RL(R - r, (b + R * T) / (R - r))
+		assertSameFunction(Curve.getFactory().createRateLatency(8, 2), LeftOverService_Disco_PwAffine.arbMux(
+				Curve.getFactory().createRateLatency(10, 1), Curve.getFactory().createTokenBucket(2, 6)));
+	}
+
+	@Test
+	public void arbMuxGeneral() {
+		for (ServiceCurve beta : createServiceCurves()) {
+			for (ArrivalCurve alpha : createArrivalCurves()) {
+				assertEquals(Curve.boundAtXAxis(Curve.sub(beta, alpha)), LeftOverService_Disco_PwAffine.arbMux(beta, alpha),
+						beta + " " + alpha);
+			}
+		}
+	}
+
+	@Test
+	public void arbMuxBatched() {
+		Set<ArrivalCurve> arrival_curves = createArrivalCurves();
+		for (ServiceCurve beta : createServiceCurves()) {
+			List<Curve> betas_lo = new LinkedList<Curve>();
+			for (ArrivalCurve alpha : arrival_curves) {
+				betas_lo.add(LeftOverService_Disco_PwAffine.arbMux(beta, alpha));
+			}
+
+			assertSameCurves(betas_lo, LeftOverService_Disco_PwAffine.arbMux(beta, arrival_curves, false));
+			assertSameCurves(betas_lo, LeftOverService_Disco_PwAffine.arbMux(beta, arrival_curves, true));
+		}
+	}
+
+	@Test
+	public void fifoMuxBatched() {
+		Set<ArrivalCurve> arrival_curves = createArrivalCurves();
+		for (ServiceCurve beta : createServiceCurves()) {
+			List<Curve> betas_lo = new LinkedList<Curve>();
+			for (ArrivalCurve alpha : arrival_curves) {
+				betas_lo.add(LeftOverService_Disco_PwAffine.fifoMux(beta, alpha));
+			}
+
+			assertSameCurves(betas_lo, LeftOverService_Disco_PwAffine.fifoMux(beta, arrival_curves, false));
+			assertSameCurves(betas_lo, LeftOverService_Disco_PwAffine.fifoMux(beta, arrival_curves, true));
+		}
+	}
+
+	@Test
+	public void outputFused() throws Exception {
+		// Without maximum service curves, the output bound is computed by the fused kernel.
+		AnalysisConfig configuration = FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION);
+		Set<ArrivalCurve> arrival_curves = createArrivalCurves();
+
+		for (ServiceCurve beta : createServiceCurves()) {
+			Server server = new ServerGraph().addServer(beta);
+
+			Set<ArrivalCurve> output_bounds = Output_Disco_ConPwAffine.compute(configuration, arrival_curves, server);
+			assertEquals(arrival_curves.size(), output_bounds.size());
+			for (ArrivalCurve alpha : arrival_curves) {
+				Curve alpha_out = Calculator.getInstance().getMinPlus().deconvolve(alpha, beta);
+				assertTrue(output_bounds.stream().anyMatch(curve -> isSameFunction(alpha_out, curve)),
+						alpha_out + " not in " + output_bounds);
+			}
+		}
+	}
+
+	@Test
+	public void convolveArrivalCurves() {
+		List<ArrivalCurve> arrival_curves = new LinkedList<ArrivalCurve>(createArrivalCurves());
+		arrival_curves.add(Curve.getFactory().createTokenBucket(1, 7));
+
+		ArrivalCurve alpha_pairwise = arrival_curves.get(0);
+		for (ArrivalCurve alpha : arrival_curves.subList(1, arrival_curves.size())) {
+			alpha_pairwise = Convolution_Disco_PwAffine.convolve(alpha_pairwise, alpha);
+		}
+
+		assertEquals(alpha_pairwise, Convolution_Disco_PwAffine.convolve(new HashSet<ArrivalCurve>(arrival_curves)));
+	}
+
+	@Test
+	public void convolveServiceCurves() {
+		List<ServiceCurve> service_curves = new LinkedList<ServiceCurve>(createServiceCurves());
+		// A curve may occur multiple times.
+		service_curves.add(Curve.getFactory().createRateLatency(10, 1));
+
+		ServiceCurve beta_pairwise = service_curves.get(0);
+		for (ServiceCurve beta : service_curves.subList(1, service_curves.size())) {
+			beta_pairwise = Convolution_Disco_PwAffine.convolve(beta_pairwise, beta);
+		}
+
+		assertEquals(beta_pairwise, Convolution_Disco_PwAffine.convolve_SCs(service_curves));
+	}
+
+	private static void assertSameFunction(Curve expected, Curve actual) {
+		assertTrue(isSameFunction(expected, actual), "expected " + expected + " but was " + actual);
+	}
+
+	/**
+	 * Segments may be left-open at points of continuity or not, the curves are compared
+	 * at and right of all their breakpoints instead.
+	 */
+	private static boolean isSameFunction(Curve curve_1, Curve curve_2) {
+		List<Num> xs = new LinkedList<Num>();
+		for (Curve curve : Arrays.asList(curve_1, curve_2)) {
+			for (int i = 0; i < curve.getSegmentCount(); i++) {
+				xs.add(curve.getSegment(i).getX());
+			}
+		}
+		Num x_max = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+		for (Num x : xs) {
+			x_max = Num.getUtils(Calculator.getInstance().getNumBackend()).max(x_max, x);
+		}
+		xs.add(Num.getUtils(Calculator.getInstance().getNumBackend()).add(x_max,
+				Num.getFactory(Calculator.getInstance().getNumBackend()).create(1)));
+
+		for (Num x : xs) {
+			if (!curve_1.f(x).eq(curve_2.f(x)) || !curve_1.fLimitRight(x).eq(curve_2.fLimitRight(x))) {
+				return false;
+			}
+		}
+		return curve_1.getUltAffineRate().eq(curve_2.getUltAffineRate());
+	}
+
+	private static void assertSameCurves(List<Curve> expected, Set<? extends Curve> actual) {
+		assertEquals(new HashSet<Curve>(expected).size(), actual.size(), expected + " vs. " + actual);
+		for (Curve curve : expected) {
+			assertTrue(actual.stream().anyMatch(curve::equals), curve + " not in " + actual);
+		}
+	}
+}
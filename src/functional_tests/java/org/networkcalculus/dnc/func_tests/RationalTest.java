@@ -0,0 +1,118 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.utils.Rational;
+
+/**
+ * Rationals compute on longs and fall back to BigIntegers on overflow.
+ */
+public class RationalTest {
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+	@Test
+	public void addOverflow() {
+		Rational sum = Rational.valueOf(Long.MAX_VALUE).add(Rational.ONE);
+
+		assertEquals(Rational.valueOf(LONG_MAX.add(BigInteger.ONE), BigInteger.ONE), sum);
+		assertEquals("9223372036854775808", sum.toString());
+		assertEquals(Rational.valueOf(Long.MAX_VALUE), sum.sub(Rational.ONE));
+	}
+
+	@Test
+	public void addFractionsOverflow() {
+		Rational sum = Rational.valueOf(1, Long.MAX_VALUE).add(Rational.valueOf(1, Long.MAX_VALUE - 1));
+
+		BigInteger den_2 = LONG_MAX.subtract(BigInteger.ONE);
+		assertEquals(Rational.valueOf(LONG_MAX.add(den_2), LONG_MAX.multiply(den_2)), sum);
+	}
+
+	@Test
+	public void multOverflow() {
+		Rational product = Rational.valueOf(Long.MAX_VALUE).mult(Rational.valueOf(4));
+
+		assertEquals(Rational.valueOf(LONG_MAX.shiftLeft(2), BigInteger.ONE), product);
+		// Back within the range of longs.
+		Rational quotient = product.div(Rational.valueOf(4));
+		assertEquals(Rational.valueOf(Long.MAX_VALUE), quotient);
+		assertEquals(Rational.valueOf(Long.MAX_VALUE).hashCode(), quotient.hashCode());
+	}
+
+	@Test
+	public void negateMinValue() {
+		Rational negated = Rational.valueOf(Long.MIN_VALUE).negate();
+
+		assertEquals(Rational.valueOf(BigInteger.valueOf(Long.MIN_VALUE).negate(), BigInteger.ONE), negated);
+		assertEquals(Rational.valueOf(Long.MIN_VALUE), negated.negate());
+	}
+
+	@Test
+	public void canonicalEquality() {
+		assertEquals(Rational.valueOf(1, 2), Rational.valueOf(2, 4));
+		assertEquals(Rational.valueOf(1, 2).hashCode(), Rational.valueOf(-3, -6).hashCode());
+		assertEquals(Rational.valueOf(1, 2), Rational.valueOf(BigInteger.valueOf(3), BigInteger.valueOf(6)));
+		assertEquals(Rational.valueOf(3, 4), Rational.valueOf("3/4"));
+		assertEquals(Rational.valueOf(3, 4), Rational.valueOf("3 / 4"));
+		assertEquals("3 / 4", Rational.valueOf(6, 8).toString());
+		assertTrue(Rational.valueOf(1, 3).compareTo(Rational.valueOf(1, 2)) < 0);
+	}
+
+	@Test
+	public void doublesExact() {
+		assertEquals(Rational.valueOf(3602879701896397L, 36028797018963968L), Rational.valueOf(0.1));
+		assertNotEquals(Rational.valueOf(1, 10), Rational.valueOf(0.1));
+		assertEquals(Rational.valueOf(-11, 4), Rational.valueOf(-2.75));
+
+		double[] values = new double[] { 0.1, -2.75, 123456.789, 1e-300, -1e300, Double.MIN_VALUE, Double.MAX_VALUE,
+				(double) Long.MAX_VALUE, (double) Long.MIN_VALUE };
+		for (double value : values) {
+			Rational rational = Rational.valueOf(value);
+			assertEquals(Rational.valueOf(new BigDecimal(value)), rational, Double.toString(value));
+			assertEquals(value, rational.doubleValue(), 0.0, Double.toString(value));
+		}
+	}
+
+	@Test
+	public void specialValues() {
+		assertEquals(Rational.POSITIVE_INFINITY, Rational.valueOf(Double.POSITIVE_INFINITY));
+		assertEquals(Rational.NEGATIVE_INFINITY, Rational.valueOf(Double.NEGATIVE_INFINITY));
+		assertTrue(Rational.valueOf(Double.NaN).isNaN());
+
+		assertEquals(Rational.POSITIVE_INFINITY, Rational.POSITIVE_INFINITY.add(Rational.valueOf(Long.MAX_VALUE)));
+		assertEquals(Rational.POSITIVE_INFINITY, Rational.ONE.div(Rational.ZERO));
+		assertTrue(Rational.POSITIVE_INFINITY.add(Rational.NEGATIVE_INFINITY).isNaN());
+		assertTrue(Rational.POSITIVE_INFINITY.isInfinite());
+		assertTrue(Rational.valueOf(Long.MAX_VALUE).mult(Rational.valueOf(Long.MAX_VALUE))
+				.compareTo(Rational.POSITIVE_INFINITY) < 0);
+	}
+}
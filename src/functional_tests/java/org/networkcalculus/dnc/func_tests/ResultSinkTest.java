@@ -0,0 +1,127 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.ResultSink;
+import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+import org.networkcalculus.dnc.tandem.sinks.ColumnarResultSink;
+import org.networkcalculus.dnc.tandem.sinks.CsvResultSink;
+
+/**
+ * Bounds written to a columnar file and replayed into a CSV file must equal the bounds written to CSV directly.
+ */
+public class ResultSinkTest {
+	@Test
+	public void replayColumnar() throws Exception {
+		assertReplayMatches(false, false);
+	}
+
+	@Test
+	public void replayColumnarMemoryMapped() throws Exception {
+		assertReplayMatches(true, false);
+	}
+
+	@Test
+	public void replayColumnarToMemoryMappedCsv() throws Exception {
+		assertReplayMatches(false, true);
+	}
+
+	private static void assertReplayMatches(boolean columnar_memory_mapped, boolean csv_memory_mapped) throws Exception {
+		ServerGraph sg = FuncTestNetworks.createFanIn();
+		Path csv = Files.createTempFile("dnc_bounds", ".csv");
+		Path columnar = Files.createTempFile("dnc_bounds", ".dncr");
+		Path csv_replayed = Files.createTempFile("dnc_bounds_replayed", ".csv");
+		try {
+			try (ResultSink sink = new CsvResultSink(csv, csv_memory_mapped)) {
+				analyze(sg, sink);
+			}
+			try (ResultSink sink = new ColumnarResultSink(columnar, columnar_memory_mapped)) {
+				analyze(sg, sink);
+			}
+			try (ResultSink sink = new CsvResultSink(csv_replayed, csv_memory_mapped)) {
+				ColumnarResultSink.replay(columnar, sg, sink);
+			}
+
+			List<String> lines = readSorted(csv);
+			// Header, flow bounds of both analyses and the server bounds of the TFA.
+			assertEquals(1 + 2 * sg.numFlows() + sg.numServers(), lines.size());
+			assertTrue(lines.contains("flow,0,\"f0,\"\"long\"\"\",TotalFlowAnalysis," + getTfaDelayBound(sg) + ","
+					+ getTfaBacklogBound(sg)), lines.toString());
+			assertEquals(lines, readSorted(csv_replayed));
+		} finally {
+			Files.deleteIfExists(csv);
+			Files.deleteIfExists(columnar);
+			Files.deleteIfExists(csv_replayed);
+		}
+	}
+
+	private static AnalysisConfig createConfig() {
+		return FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION);
+	}
+
+	private static void analyze(ServerGraph sg, ResultSink sink) throws Exception {
+		TotalFlowAnalysis tfa = new TotalFlowAnalysis(sg, createConfig());
+		tfa.setResultSink(sink);
+		PmooAnalysis pmoo = new PmooAnalysis(sg, createConfig());
+		pmoo.setResultSink(sink);
+		for (Flow flow : sg.getFlows()) {
+			tfa.performAnalysis(flow);
+			pmoo.performAnalysis(flow);
+		}
+	}
+
+	private static double getTfaDelayBound(ServerGraph sg) throws Exception {
+		TotalFlowAnalysis tfa = new TotalFlowAnalysis(sg, createConfig());
+		tfa.performAnalysis(sg.getFlow(0));
+		return tfa.getDelayBound().doubleValue();
+	}
+
+	private static double getTfaBacklogBound(ServerGraph sg) throws Exception {
+		TotalFlowAnalysis tfa = new TotalFlowAnalysis(sg, createConfig());
+		tfa.performAnalysis(sg.getFlow(0));
+		return tfa.getBacklogBound().doubleValue();
+	}
+
+	private static List<String> readSorted(Path file) throws Exception {
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		Collections.sort(lines);
+		return lines;
+	}
+}
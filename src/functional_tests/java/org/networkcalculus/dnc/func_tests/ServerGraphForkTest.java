@@ -0,0 +1,147 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.func_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+
+/**
+ * A fork and the server graph it was forked from must not see each other's modifications.
+ */
+public class ServerGraphForkTest {
+	@Test
+	public void setServiceCurveInFork() throws Exception {
+		ServerGraph sg = FuncTestNetworks.createTandem();
+		Server s1 = sg.getServer(1);
+		Flow f0 = sg.getFlow(0);
+
+		ServerGraph fork = sg.fork();
+		fork.setServiceCurve(fork.getServer(1), Curve.getFactory().createRateLatency(5, 3));
+
+		// The parent keeps its objects and curves.
+		assertSame(s1, sg.getServer(1));
+		assertSame(f0, sg.getFlow(0));
+		assertEquals(Curve.getFactory().createRateLatency(20, 2), sg.getServer(1).getServiceCurve());
+		assertTrue(sg.getFlows(s1).contains(f0));
+
+		// The fork replaced the server and the flows crossing it, keeping their ids.
+		Server s1_fork = fork.getServer(1);
+		assertNotSame(s1, s1_fork);
+		assertEquals(1, s1_fork.getId());
+		assertEquals(Curve.getFactory().createRateLatency(5, 3), s1_fork.getServiceCurve());
+		Flow f0_fork = fork.getFlow(0);
+		assertNotSame(f0, f0_fork);
+		assertTrue(f0_fork.getPath().getServers().contains(s1_fork));
+		assertTrue(fork.getFlows(s1_fork).contains(f0_fork));
+		assertFalse(fork.getServers().contains(s1));
+		assertSame(sg.getServer(0), fork.getServer(0));
+
+		assertEquals(sg.numServers(), fork.numServers());
+		assertEquals(sg.numTurns(), fork.numTurns());
+		assertEquals(sg.numFlows(), fork.numFlows());
+	}
+
+	@Test
+	public void modifyParentAfterFork() throws Exception {
+		ServerGraph sg = FuncTestNetworks.createTandem();
+		ServerGraph fork = sg.fork();
+
+		Server s3 = sg.addServer(Curve.getFactory().createRateLatency(10, 1));
+		sg.addTurn(sg.getServer(2), s3);
+		sg.addFlow(Curve.getFactory().createTokenBucket(1, 1),
+				new LinkedList<Server>(Arrays.asList(sg.getServer(2), s3)));
+		sg.removeFlow(sg.getFlow(1));
+
+		assertEquals(4, sg.numServers());
+		assertEquals(3, sg.numFlows());
+		assertEquals(3, fork.numServers());
+		assertEquals(2, fork.numTurns());
+		assertEquals(3, fork.numFlows());
+		assertTrue(fork.getFlows().contains(fork.getFlow(1)));
+		assertEquals(3, fork.getFlows(fork.getServer(1)).size());
+		assertThrows(Exception.class, () -> fork.getServer(3));
+	}
+
+	@Test
+	public void modifyForkAfterFork() throws Exception {
+		ServerGraph sg = FuncTestNetworks.createTandem();
+		ServerGraph fork = sg.fork();
+
+		Server s3 = fork.addServer(Curve.getFactory().createRateLatency(10, 1));
+		fork.addTurn(fork.getServer(2), s3);
+		fork.addFlow(Curve.getFactory().createTokenBucket(1, 1),
+				new LinkedList<Server>(Arrays.asList(fork.getServer(2), s3)));
+		fork.removeFlow(fork.getFlow(2));
+
+		assertEquals(4, fork.numServers());
+		assertEquals(3, fork.numFlows());
+		assertEquals(3, sg.numServers());
+		assertEquals(2, sg.numTurns());
+		assertEquals(3, sg.numFlows());
+		assertEquals(2, sg.getFlows(sg.getServer(2)).size());
+		assertThrows(Exception.class, () -> sg.getServer(3));
+	}
+
+	@Test
+	public void analyzeForks() throws Exception {
+		ServerGraph sg = FuncTestNetworks.createTandem();
+		TotalFlowAnalysis tfa = new TotalFlowAnalysis(sg,
+				FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION));
+		tfa.performAnalysis(sg.getFlow(0));
+		double delay_bound = tfa.getDelayBound().doubleValue();
+
+		ServerGraph fork = sg.fork();
+		fork.setServiceCurve(fork.getServer(1), Curve.getFactory().createRateLatency(8, 3));
+		TotalFlowAnalysis tfa_fork = new TotalFlowAnalysis(fork,
+				FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION));
+		tfa_fork.performAnalysis(fork.getFlow(0));
+
+		ServerGraph sg_modified = FuncTestNetworks.createTandem();
+		sg_modified.setServiceCurve(sg_modified.getServer(1), Curve.getFactory().createRateLatency(8, 3));
+		TotalFlowAnalysis tfa_modified = new TotalFlowAnalysis(sg_modified,
+				FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION));
+		tfa_modified.performAnalysis(sg_modified.getFlow(0));
+		assertEquals(tfa_modified.getDelayBound().doubleValue(), tfa_fork.getDelayBound().doubleValue(), 1e-9);
+
+		tfa = new TotalFlowAnalysis(sg, FuncTestNetworks.createAffineConfig(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION));
+		tfa.performAnalysis(sg.getFlow(0));
+		assertEquals(delay_bound, tfa.getDelayBound().doubleValue(), 1e-9);
+	}
+}
@@ -31,6 +31,8 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.networkcalculus.dnc.utils.Cancellation;
+
 /**
  * This class contains configuration settings that are considered during the analysis,
  * e.g., the multiplexing behavior of servers and the arrival bounding methods to use.
@@ -54,6 +56,20 @@ public class AnalysisConfig {
 		SEGR_PBOO, SEGR_PMOO, SEGR_TM, 
 		SINKTREE_AFFINE_MINPLUS, SINKTREE_AFFINE_DIRECT, SINKTREE_AFFINE_HOMO
     }
+
+    /**
+     * Details retained in the results of an analysis after a flow was analyzed.
+     * <ul>
+     * <li>BOUNDS: delay and backlog bound only.</li>
+     * <li>SUMMARY: additionally the end-to-end left-over service curves and TFA's per-server bounds.</li>
+     * <li>FULL: additionally the per-server arrival bounds and left-over service curves.</li>
+     * </ul>
+     * Accessing discarded details throws an IllegalStateException, use FULL to access all of them
+     * or AbstractTandemAnalysis.deriveDetails(flow) to analyze a single flow again with all of them.
+     */
+    public enum ResultDetail {
+        BOUNDS, SUMMARY, FULL
+    }
     
     private MultiplexingEnforcement multiplexing_enforcement = MultiplexingEnforcement.SERVER_LOCAL;
     
@@ -74,6 +90,40 @@ public class AnalysisConfig {
     private boolean flow_prolongation = false;
     private boolean server_backlog_arrival_bound = false;
     
+    /**
+     * Whether to compute the bounds of token-bucket / rate-latency networks in closed form.
+     * Analyses fall back to the general computations if the network or the
+     * remaining settings do not permit this.
+     * Does not change the results, hence it is not considered by equals and hashCode.
+     */
+    private boolean affine_fast_path = false;
+    
+    /**
+     * Whether to bound the arrivals from a server's in-turns concurrently.
+     * Does not change the results, hence it is not considered by equals and hashCode.
+     */
+    private boolean parallel_arrival_bounding = false;
+    
+    /**
+     * Whether to evaluate alternative arrival bound methods concurrently per turn.
+     * Does not change the results, hence it is not considered by equals and hashCode.
+     */
+    private boolean parallel_arrival_bound_methods = false;
+    
+    /**
+     * Details retained in the analysis results. Does not change the bounds, hence it is not considered by equals and hashCode.
+     * If not set, the entry point decides: BOUNDS for bulk analyses, i.e., the network-wide TFA,
+     * MultiConfigAnalysis and analyses passing their bounds to a result sink, FULL otherwise.
+     */
+    private ResultDetail result_detail = null;
+    
+    /**
+     * Token to cancel the analyses using this configuration, null if they cannot be cancelled.
+     * Does not change the results, hence it is not considered by equals and hashCode.
+     * Copies share the token.
+     */
+    private Cancellation cancellation = null;
+    
     public AnalysisConfig() {
     }
     
@@ -188,22 +238,75 @@ public class AnalysisConfig {
         flow_prolongation = prolong_flows;
     }
 
+    public boolean useAffineFastPath() {
+        return affine_fast_path;
+    }
+
+    public void setUseAffineFastPath(boolean use_affine_fast_path) {
+        affine_fast_path = use_affine_fast_path;
+    }
+
+    public boolean useParallelArrivalBounding() {
+        return parallel_arrival_bounding;
+    }
+
+    public void setUseParallelArrivalBounding(boolean use_parallel_arrival_bounding) {
+        parallel_arrival_bounding = use_parallel_arrival_bounding;
+    }
+
+    public boolean useParallelArrivalBoundMethods() {
+        return parallel_arrival_bound_methods;
+    }
+
+    public void setUseParallelArrivalBoundMethods(boolean use_parallel_arrival_bound_methods) {
+        parallel_arrival_bound_methods = use_parallel_arrival_bound_methods;
+    }
+
+    /**
+     * @return The details retained in the analysis results, null if the analysis' entry point decides.
+     */
+    public ResultDetail resultDetail() {
+        return result_detail;
+    }
+
+    public void setResultDetail(ResultDetail result_detail) {
+        this.result_detail = result_detail;
+    }
+
+    public Cancellation cancellation() {
+        return cancellation;
+    }
+
+    /**
+     * @param cancellation The token checked by the analyses using this configuration, null to not check any token.
+     */
+    public void setCancellation(Cancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
     /**
      * Returns a deep copy of this analysis configuration.
      *
      * @return The copy.
      */
     public AnalysisConfig copy() { // deep copy as primitive data types are copied by value
-        return new AnalysisConfig(multiplexing_enforcement, enforce_max_sc, enforce_max_sc_output_rate, 
+        AnalysisConfig copy = new AnalysisConfig(multiplexing_enforcement, enforce_max_sc, enforce_max_sc_output_rate, 
 					        		arrival_bound_methods,
 					                convolve_alternative_arrival_bounds, arrival_bounds_caching,
 					                server_backlog_arrival_bound);
+        copy.flow_prolongation = flow_prolongation;
+        copy.affine_fast_path = affine_fast_path;
+        copy.parallel_arrival_bounding = parallel_arrival_bounding;
+        copy.parallel_arrival_bound_methods = parallel_arrival_bound_methods;
+        copy.result_detail = result_detail;
+        copy.cancellation = cancellation;
+        return copy;
     }
 
     @Override
 	public int hashCode() {
 		return Objects.hash(multiplexing_enforcement, enforce_max_sc, enforce_max_sc_output_rate, arrival_bound_methods,
-				convolve_alternative_arrival_bounds, server_backlog_arrival_bound);
+				convolve_alternative_arrival_bounds, server_backlog_arrival_bound, flow_prolongation);
 	}
 
 	@Override
@@ -221,7 +324,8 @@ public class AnalysisConfig {
 				Objects.equals(this.enforce_max_sc_output_rate, other.enforce_max_sc_output_rate) &&
 				Objects.equals(this.arrival_bound_methods, other.arrival_bound_methods) &&
 				Objects.equals(this.convolve_alternative_arrival_bounds, other.convolve_alternative_arrival_bounds) &&
-				Objects.equals(this.server_backlog_arrival_bound, other.server_backlog_arrival_bound);
+				Objects.equals(this.server_backlog_arrival_bound, other.server_backlog_arrival_bound) &&
+				Objects.equals(this.flow_prolongation, other.flow_prolongation);
 	}
 
 	@Override
@@ -256,6 +360,27 @@ public class AnalysisConfig {
             analysis_config_str.append("flow_prolongation");
         }
 
+        if (useAffineFastPath()) {
+            analysis_config_str.append(", ");
+            analysis_config_str.append("affine_fast_path");
+        }
+
+        if (useParallelArrivalBounding()) {
+            analysis_config_str.append(", ");
+            analysis_config_str.append("parallel_ABs");
+        }
+
+        if (useParallelArrivalBoundMethods()) {
+            analysis_config_str.append(", ");
+            analysis_config_str.append("parallel_AB_methods");
+        }
+
+        if (resultDetail() != null) {
+            analysis_config_str.append(", ");
+            analysis_config_str.append("result_detail ");
+            analysis_config_str.append(resultDetail());
+        }
+
         return analysis_config_str.toString();
     }
 }
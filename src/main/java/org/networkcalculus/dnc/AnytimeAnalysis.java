@@ -0,0 +1,360 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
+import org.networkcalculus.dnc.utils.Cancellation;
+import org.networkcalculus.num.Num;
+
+/**
+ * Anytime analysis over the analyses of CompFFApresets.
+ * <p>
+ * The analyses are executed from the cheapest to the most expensive one. Each analysis
+ * runs under the remaining time budget of the flow of interest and the global time budget
+ * of the current call. A memory budget can limit the heap in use. A watchdog requests
+ * cooperative cancellation once a budget is exhausted, the running analysis then aborts
+ * at its next checkpoint and the remaining analyses are skipped.
+ * <p>
+ * The first analysis, TFA with aggregate PBOO arrival bounding, is not budgeted
+ * such that every flow of interest receives a valid bound.
+ * Every bound computed is a valid bound, thus the minimum over the completed analyses is returned.
+ * <p>
+ * Each budgeted analysis runs with its own cancellation token set in its configuration,
+ * other analyses in the JVM are not affected by exhausted budgets. As the analyses of the
+ * presets keep their state, an instance executes one call at a time and the presets
+ * must not be used concurrently by other callers.
+ */
+public class AnytimeAnalysis {
+	/**
+	 * FAILED: the analysis is not applicable to the server graph, i.e., it requires arbitrary multiplexing
+	 * but FIFO multiplexing is enforced.
+	 */
+	public enum Outcome {
+		COMPLETED, CANCELLED, FAILED, SKIPPED
+	}
+
+	public static class Result {
+		private final Flow flow_of_interest;
+
+		private Num delay_bound;
+		private String delay_bound_method;
+		private Num backlog_bound;
+		private String backlog_bound_method;
+
+		private final Map<String, Outcome> map__method__outcome = new LinkedHashMap<String, Outcome>();
+
+		private Result(Flow flow_of_interest) {
+			this.flow_of_interest = flow_of_interest;
+			this.delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+			this.backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+		}
+
+		private void update(String method, Num delay_bound, Num backlog_bound) {
+			if (!delay_bound.isNaN() && (delay_bound_method == null || delay_bound.lt(this.delay_bound))) {
+				this.delay_bound = delay_bound;
+				this.delay_bound_method = method;
+			}
+			if (!backlog_bound.isNaN() && (backlog_bound_method == null || backlog_bound.lt(this.backlog_bound))) {
+				this.backlog_bound = backlog_bound;
+				this.backlog_bound_method = method;
+			}
+		}
+
+		public Flow getFlowOfInterest() {
+			return flow_of_interest;
+		}
+
+		public Num getDelayBound() {
+			return delay_bound;
+		}
+
+		/**
+		 * @return The name of the analysis that derived the delay bound, null if no analysis completed.
+		 */
+		public String getDelayBoundMethod() {
+			return delay_bound_method;
+		}
+
+		public Num getBacklogBound() {
+			return backlog_bound;
+		}
+
+		/**
+		 * @return The name of the analysis that derived the backlog bound, null if no analysis completed.
+		 */
+		public String getBacklogBoundMethod() {
+			return backlog_bound_method;
+		}
+
+		/**
+		 * @return The outcome of every analysis in order of execution.
+		 */
+		public Map<String, Outcome> getOutcomes() {
+			return Collections.unmodifiableMap(map__method__outcome);
+		}
+
+		/**
+		 * @return True if every analysis completed, i.e., no budget was exhausted.
+		 */
+		public boolean isComplete() {
+			for (Outcome outcome : map__method__outcome.values()) {
+				if (outcome == Outcome.CANCELLED || outcome == Outcome.SKIPPED) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return ("D: " + delay_bound.toString() + " (" + delay_bound_method + ") - " + "B: "
+					+ backlog_bound.toString() + " (" + backlog_bound_method + ")");
+		}
+	}
+
+	private final Object lock = new Object();
+	private static final long WATCHDOG_INTERVAL_MS = 10;
+	private static final long UNLIMITED = Long.MAX_VALUE;
+	private static final long NOT_BUDGETED = Long.MIN_VALUE;
+
+	private final CompFFApresets presets;
+	private final Map<String, TandemAnalysis> map__method__analysis = new LinkedHashMap<String, TandemAnalysis>();
+
+	private long time_budget_per_flow_ms = UNLIMITED;
+	private long time_budget_global_ms = UNLIMITED;
+	private long memory_budget_bytes = UNLIMITED;
+
+	public AnytimeAnalysis(CompFFApresets presets) {
+		this.presets = presets;
+
+		// Ordered by increasing computational effort.
+		map__method__analysis.put("TFA+aggrPBOOAB", presets.tf_analysis);
+		map__method__analysis.put("SFA+aggrPBOOAB", presets.sf_analysis);
+		map__method__analysis.put("PMOO+aggrPMOOAB", presets.pmoo_analysis);
+		map__method__analysis.put("SFA+aggrAB", presets.sfa_aggrAB);
+		map__method__analysis.put("PMOO+aggrAB", presets.pmoo_aggrAB);
+		map__method__analysis.put("TFA+segrPBOOAB", presets.tfa_segrPBOOAB);
+		map__method__analysis.put("SFA+segrPBOOAB", presets.sfa_segrPBOOAB);
+		map__method__analysis.put("PMOO+segrPMOOAB", presets.pmoo_segrPMOOAB);
+		map__method__analysis.put("SFA+MMB18AB", presets.sfa_MMB18AB);
+		map__method__analysis.put("PMOO+MMB18AB", presets.pmoo_MMB18AB);
+		map__method__analysis.put("TMA", presets.tandem_matching_analysis);
+		map__method__analysis.put("TMA+bcap", presets.tandem_matching_bcap_analysis);
+	}
+
+	public CompFFApresets getPresets() {
+		return presets;
+	}
+
+	/**
+	 * @param time_budget_ms Time budget per flow of interest in milliseconds, Long.MAX_VALUE for unlimited.
+	 */
+	public void setTimeBudgetPerFlow(long time_budget_ms) {
+		this.time_budget_per_flow_ms = time_budget_ms;
+	}
+
+	/**
+	 * @param time_budget_ms Time budget of a call to performAnalyses in milliseconds, Long.MAX_VALUE for unlimited.
+	 */
+	public void setTimeBudgetGlobal(long time_budget_ms) {
+		this.time_budget_global_ms = time_budget_ms;
+	}
+
+	/**
+	 * @param memory_budget_bytes Maximum heap in use in bytes, Long.MAX_VALUE for unlimited.
+	 */
+	public void setMemoryBudget(long memory_budget_bytes) {
+		this.memory_budget_bytes = memory_budget_bytes;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Analysis
+	// --------------------------------------------------------------------------------------------------------------
+
+	public Result performAnalysis(Flow flow_of_interest) throws Exception {
+		return performAnalyses(Collections.singleton(flow_of_interest)).get(flow_of_interest);
+	}
+
+	/**
+	 * Analyzes the flows of interest in the given order. The global time budget spans all of them.
+	 *
+	 * @param flows_of_interest The flows to analyze.
+	 * @return The tightest bounds found per flow of interest.
+	 * @throws Exception An exception raised by an analysis other than its cancellation.
+	 */
+	public Map<Flow, Result> performAnalyses(Collection<Flow> flows_of_interest) throws Exception {
+		Map<Flow, Result> map__flow__result = new LinkedHashMap<Flow, Result>();
+
+		synchronized (lock) {
+			long global_deadline = deadline(System.nanoTime(), time_budget_global_ms);
+
+			ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "AnytimeAnalysis-watchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			// Deadline and cancellation token of the analysis currently executed, read by the watchdog.
+			AtomicLong current_deadline = new AtomicLong(NOT_BUDGETED);
+			AtomicReference<Cancellation> current_cancellation = new AtomicReference<Cancellation>();
+			watchdog.scheduleAtFixedRate(() -> {
+				long deadline = current_deadline.get();
+				Cancellation cancellation = current_cancellation.get();
+				if (deadline != NOT_BUDGETED && cancellation != null
+						&& (System.nanoTime() >= deadline || exceedsMemoryBudget())) {
+					cancellation.request();
+				}
+			}, WATCHDOG_INTERVAL_MS, WATCHDOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+			try {
+				for (Flow flow_of_interest : flows_of_interest) {
+					long flow_deadline = Math.min(global_deadline,
+							deadline(System.nanoTime(), time_budget_per_flow_ms));
+					map__flow__result.put(flow_of_interest,
+							analyze(flow_of_interest, flow_deadline, current_deadline, current_cancellation));
+				}
+			} finally {
+				watchdog.shutdownNow();
+			}
+		}
+
+		return map__flow__result;
+	}
+
+	private Result analyze(Flow flow_of_interest, long deadline, AtomicLong current_deadline,
+			AtomicReference<Cancellation> current_cancellation) throws Exception {
+		Result result = new Result(flow_of_interest);
+
+		boolean first = true;
+		boolean budget_exhausted = false;
+		for (Map.Entry<String, TandemAnalysis> entry : map__method__analysis.entrySet()) {
+			String method = entry.getKey();
+			TandemAnalysis analysis = entry.getValue();
+
+			if (first) {
+				first = false;
+				analysis.performAnalysis(flow_of_interest);
+				result.update(method, analysis.getDelayBound(), analysis.getBacklogBound());
+				result.map__method__outcome.put(method, Outcome.COMPLETED);
+				continue;
+			}
+
+			if (budget_exhausted || System.nanoTime() >= deadline || exceedsMemoryBudget()) {
+				budget_exhausted = true;
+				result.map__method__outcome.put(method, Outcome.SKIPPED);
+				continue;
+			}
+
+			if (!isApplicable(analysis)) {
+				// The other analyses' bounds remain valid.
+				result.map__method__outcome.put(method, Outcome.FAILED);
+				continue;
+			}
+
+			AnalysisConfig configuration = analysis.getConfiguration();
+			Cancellation cancellation_previous = configuration.cancellation();
+			Cancellation cancellation = new Cancellation();
+			configuration.setCancellation(cancellation);
+			current_cancellation.set(cancellation);
+			current_deadline.set(deadline);
+			try {
+				analysis.performAnalysis(flow_of_interest);
+				result.update(method, analysis.getDelayBound(), analysis.getBacklogBound());
+				result.map__method__outcome.put(method, Outcome.COMPLETED);
+			} catch (CancellationException e) {
+				budget_exhausted = true;
+				result.map__method__outcome.put(method, Outcome.CANCELLED);
+			} finally {
+				current_deadline.set(NOT_BUDGETED);
+				current_cancellation.set(null);
+				configuration.setCancellation(cancellation_previous);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * PMOO and TMA as well as their arrival bounding throw an exception for FIFO multiplexing servers.
+	 * The segregated arrival bounding analyzes with the default configuration, i.e., server-local multiplexing.
+	 */
+	private boolean isApplicable(TandemAnalysis analysis) {
+		AnalysisConfig configuration = analysis.getConfiguration();
+		Set<ArrivalBoundMethod> ab_methods = configuration.arrivalBoundMethods();
+
+		boolean servers_fifo = false;
+		for (Server server : presets.getServerGraph().getServers()) {
+			servers_fifo |= server.multiplexing() == Multiplexing.FIFO;
+		}
+		if (servers_fifo && (ab_methods.contains(ArrivalBoundMethod.SEGR_PMOO) || ab_methods.contains(ArrivalBoundMethod.SEGR_TM))) {
+			return false;
+		}
+
+		if (!(analysis instanceof PmooAnalysis) && !(analysis instanceof TandemMatchingAnalysis)
+				&& !ab_methods.contains(ArrivalBoundMethod.AGGR_PMOO) && !ab_methods.contains(ArrivalBoundMethod.AGGR_TM)) {
+			return true;
+		}
+		switch (configuration.enforceMultiplexing()) {
+			case GLOBAL_ARBITRARY:
+				return true;
+			case GLOBAL_FIFO:
+				return false;
+			default:
+				return !servers_fifo;
+		}
+	}
+
+	private static long deadline(long now, long budget_ms) {
+		long budget_ns = TimeUnit.MILLISECONDS.toNanos(budget_ms); // Saturates at Long.MAX_VALUE.
+		return budget_ns > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + budget_ns;
+	}
+
+	private boolean exceedsMemoryBudget() {
+		if (memory_budget_bytes == UNLIMITED) {
+			return false;
+		}
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory() > memory_budget_bytes;
+	}
+}
@@ -27,7 +27,13 @@
 package org.networkcalculus.dnc;
 
 import org.networkcalculus.dnc.algebra.MinPlus;
+import org.networkcalculus.dnc.bounds.BoundingCurves;
+import org.networkcalculus.dnc.bounds.Bounds;
 import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.profiling.ProfiledBoundingCurves;
+import org.networkcalculus.dnc.profiling.ProfiledBounds;
+import org.networkcalculus.dnc.profiling.ProfiledMinPlus;
+import org.networkcalculus.dnc.profiling.Profiler;
 import org.networkcalculus.num.NumBackend;
 
 /**
@@ -41,6 +47,11 @@ public final class Calculator {
 	private NumBackend NUM_BACKEND = NumBackend.REAL_DOUBLE_PRECISION;
 	
 	private AlgDncBackend DNC_BACKEND = AlgDncBackend_DNC_ConPwAffine.DISCO_CONPWAFFINE;
+	
+	// Only used while the Profiler is enabled.
+	private ProfiledMinPlus profiled_minplus;
+	private ProfiledBoundingCurves profiled_bounding_curves;
+	private ProfiledBounds profiled_bounds;
 
 	protected Calculator() {
 	}
@@ -71,7 +82,39 @@ public final class Calculator {
 	}
 	
 	public MinPlus getMinPlus() {
-		return DNC_BACKEND.getMinPlus();
+		if (!Profiler.isEnabled()) {
+			return DNC_BACKEND.getMinPlus();
+		}
+		ProfiledMinPlus minplus = profiled_minplus;
+		if (minplus == null || minplus.getDelegate() != DNC_BACKEND.getMinPlus()) {
+			minplus = new ProfiledMinPlus(DNC_BACKEND.getMinPlus());
+			profiled_minplus = minplus;
+		}
+		return minplus;
+	}
+	
+	public BoundingCurves getBoundingCurves() {
+		if (!Profiler.isEnabled()) {
+			return DNC_BACKEND.getBoundingCurves();
+		}
+		ProfiledBoundingCurves bounding_curves = profiled_bounding_curves;
+		if (bounding_curves == null || bounding_curves.getDelegate() != DNC_BACKEND.getBoundingCurves()) {
+			bounding_curves = new ProfiledBoundingCurves(DNC_BACKEND.getBoundingCurves());
+			profiled_bounding_curves = bounding_curves;
+		}
+		return bounding_curves;
+	}
+	
+	public Bounds getBounds() {
+		if (!Profiler.isEnabled()) {
+			return DNC_BACKEND.getBounds();
+		}
+		ProfiledBounds bounds = profiled_bounds;
+		if (bounds == null || bounds.getDelegate() != DNC_BACKEND.getBounds()) {
+			bounds = new ProfiledBounds(DNC_BACKEND.getBounds());
+			profiled_bounds = bounds;
+		}
+		return bounds;
 	}
 
 	private void checkDependencies() {
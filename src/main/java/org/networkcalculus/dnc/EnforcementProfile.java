@@ -0,0 +1,263 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.networkcalculus.dnc.AnalysisConfig.MaxScEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.curves.MaxServiceCurve;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+
+/**
+ * The server settings of a set of servers that decide whether the multiplexing and
+ * maximum service curve enforcements of a configuration change any computation.
+ * <p>
+ * Configurations that only differ in enforcements without effect on the servers
+ * derive the same bounds. Normalizing them against the profile, see normalize(configuration),
+ * makes them equal. Normalizing against the servers upstream of a location thus tells which
+ * configurations share the arrival bounds at this location, see upstream(...).
+ * <p>
+ * Like the arrival bound caches, profiles do not notice changes of server settings
+ * that bypass the server graph.
+ */
+public final class EnforcementProfile {
+	/**
+	 * The profile of an empty set of servers, neutral element of and(...).
+	 */
+	public static final EnforcementProfile NEUTRAL = new EnforcementProfile(true, true, true, true, true, true, true, true);
+
+	private final boolean servers_arbitrary;
+	private final boolean servers_fifo;
+	private final boolean servers_max_sc_unused;
+	private final boolean servers_max_sc_used;
+	private final boolean servers_max_sc_rate_unused;
+	private final boolean servers_max_sc_rate_used;
+	private final boolean servers_stored_max_sc_neutral;
+	private final boolean servers_stored_max_sc_rate_neutral;
+
+	private EnforcementProfile(boolean servers_arbitrary, boolean servers_fifo,
+			boolean servers_max_sc_unused, boolean servers_max_sc_used,
+			boolean servers_max_sc_rate_unused, boolean servers_max_sc_rate_used,
+			boolean servers_stored_max_sc_neutral, boolean servers_stored_max_sc_rate_neutral) {
+		this.servers_arbitrary = servers_arbitrary;
+		this.servers_fifo = servers_fifo;
+		this.servers_max_sc_unused = servers_max_sc_unused;
+		this.servers_max_sc_used = servers_max_sc_used;
+		this.servers_max_sc_rate_unused = servers_max_sc_rate_unused;
+		this.servers_max_sc_rate_used = servers_max_sc_rate_used;
+		this.servers_stored_max_sc_neutral = servers_stored_max_sc_neutral;
+		this.servers_stored_max_sc_rate_neutral = servers_stored_max_sc_rate_neutral;
+	}
+
+	public static EnforcementProfile of(Server server) {
+		MaxServiceCurve max_service_curve = server.getStoredMaxSC();
+		return new EnforcementProfile(server.multiplexing() == Multiplexing.ARBITRARY,
+				server.multiplexing() == Multiplexing.FIFO,
+				!server.useMaxSC(), server.useMaxSC(),
+				!server.useMaxScRate(), server.useMaxScRate(),
+				max_service_curve.isDelayedInfiniteBurst() && max_service_curve.getLatency().eqZero(),
+				max_service_curve.isDelayedInfiniteBurst());
+	}
+
+	public static EnforcementProfile of(Collection<Server> servers) {
+		EnforcementProfile profile = NEUTRAL;
+		for (Server server : servers) {
+			profile = profile.and(of(server));
+		}
+		return profile;
+	}
+
+	/**
+	 * @param other Profile of other servers.
+	 * @return The profile of the union of both sets of servers.
+	 */
+	public EnforcementProfile and(EnforcementProfile other) {
+		return new EnforcementProfile(servers_arbitrary && other.servers_arbitrary,
+				servers_fifo && other.servers_fifo,
+				servers_max_sc_unused && other.servers_max_sc_unused,
+				servers_max_sc_used && other.servers_max_sc_used,
+				servers_max_sc_rate_unused && other.servers_max_sc_rate_unused,
+				servers_max_sc_rate_used && other.servers_max_sc_rate_used,
+				servers_stored_max_sc_neutral && other.servers_stored_max_sc_neutral,
+				servers_stored_max_sc_rate_neutral && other.servers_stored_max_sc_rate_neutral);
+	}
+
+	/**
+	 * Replaces the enforcements of the configuration that have no effect on the servers
+	 * by the global setting they are equivalent to.
+	 *
+	 * @param configuration The configuration to normalize, it is not modified.
+	 * @return A normalized copy of the configuration.
+	 */
+	public AnalysisConfig normalize(AnalysisConfig configuration) {
+		AnalysisConfig configuration_normalized = configuration.copy();
+
+		if (configuration.enforceMultiplexing() == MultiplexingEnforcement.SERVER_LOCAL) {
+			if (servers_arbitrary) {
+				configuration_normalized.enforceMultiplexing(MultiplexingEnforcement.GLOBAL_ARBITRARY);
+			} else if (servers_fifo) {
+				configuration_normalized.enforceMultiplexing(MultiplexingEnforcement.GLOBAL_FIFO);
+			}
+		}
+
+		configuration_normalized.enforceMaxSC(normalize(configuration.enforceMaxSC(),
+				servers_max_sc_unused, servers_max_sc_used, servers_stored_max_sc_neutral));
+		configuration_normalized.enforceMaxScOutputRate(normalize(configuration.enforceMaxScOutputRate(),
+				servers_max_sc_rate_unused, servers_max_sc_rate_used, servers_stored_max_sc_rate_neutral));
+
+		return configuration_normalized;
+	}
+
+	private static MaxScEnforcement normalize(MaxScEnforcement enforcement, boolean servers_unused,
+			boolean servers_used, boolean servers_stored_neutral) {
+		if (servers_stored_neutral) {
+			// Convolution with the zero-delay infinite burst curve does not change any curve.
+			return MaxScEnforcement.GLOBALLY_OFF;
+		}
+		if (enforcement == MaxScEnforcement.SERVER_LOCAL) {
+			if (servers_unused) {
+				return MaxScEnforcement.GLOBALLY_OFF;
+			}
+			if (servers_used) {
+				return MaxScEnforcement.GLOBALLY_ON;
+			}
+		}
+		return enforcement;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Upstream profiles
+	// --------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The arrivals of a server only depend on the servers that precede it in the server graph,
+	 * its departures on the server itself as well. The profiles of these servers are
+	 * derived once per revision of the server graph.
+	 *
+	 * @param server_graph The server graph.
+	 * @param server       The server.
+	 * @param inclusive    Whether to include the server itself, i.e., to profile its departures.
+	 * @return The profile of the server's upstream servers.
+	 */
+	public static EnforcementProfile upstream(ServerGraph server_graph, Server server, boolean inclusive) {
+		return server_graph.getAnalysisCache(UpstreamProfiles.class, sg -> new UpstreamProfiles())
+				.get(server_graph, server, inclusive);
+	}
+
+	private static final class UpstreamProfiles {
+		// Replaced as a whole, readers do not synchronize.
+		private volatile Snapshot snapshot = new Snapshot(-1, new HashMap<Server, EnforcementProfile>(),
+				new HashMap<Server, EnforcementProfile>());
+
+		EnforcementProfile get(ServerGraph server_graph, Server server, boolean inclusive) {
+			Snapshot snapshot = this.snapshot;
+			if (snapshot.revision != server_graph.getRevision()) {
+				snapshot = build(server_graph);
+			}
+			EnforcementProfile profile = (inclusive ? snapshot.map__server__upstream_inclusive
+					: snapshot.map__server__upstream_strict).get(server);
+			// Servers of other server graphs, e.g., of the one this fork was forked from.
+			return profile != null ? profile : of(server_graph.getServers());
+		}
+
+		private synchronized Snapshot build(ServerGraph server_graph) {
+			long revision = server_graph.getRevision();
+			if (snapshot.revision == revision) {
+				return snapshot;
+			}
+
+			Map<Server, EnforcementProfile> upstream_strict = new HashMap<Server, EnforcementProfile>();
+			Map<Server, EnforcementProfile> upstream_inclusive = new HashMap<Server, EnforcementProfile>();
+			try {
+				for (List<Server> level : server_graph.getTopologicalLevels()) {
+					for (Server server : level) {
+						EnforcementProfile profile = NEUTRAL;
+						for (Server predecessor : server_graph.getPredecessors(server)) {
+							profile = profile.and(upstream_inclusive.get(predecessor));
+						}
+						upstream_strict.put(server, profile);
+						upstream_inclusive.put(server, profile.and(of(server)));
+					}
+				}
+			} catch (Exception e) {
+				// Not feed-forward, every server may depend on every other one.
+				EnforcementProfile profile = of(server_graph.getServers());
+				for (Server server : server_graph.getServers()) {
+					upstream_strict.put(server, profile);
+					upstream_inclusive.put(server, profile);
+				}
+			}
+
+			snapshot = new Snapshot(revision, upstream_strict, upstream_inclusive);
+			return snapshot;
+		}
+	}
+
+	private static final class Snapshot {
+		private final long revision;
+		private final Map<Server, EnforcementProfile> map__server__upstream_strict;
+		private final Map<Server, EnforcementProfile> map__server__upstream_inclusive;
+
+		private Snapshot(long revision, Map<Server, EnforcementProfile> map__server__upstream_strict,
+				Map<Server, EnforcementProfile> map__server__upstream_inclusive) {
+			this.revision = revision;
+			this.map__server__upstream_strict = map__server__upstream_strict;
+			this.map__server__upstream_inclusive = map__server__upstream_inclusive;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(servers_arbitrary, servers_fifo, servers_max_sc_unused, servers_max_sc_used,
+				servers_max_sc_rate_unused, servers_max_sc_rate_used,
+				servers_stored_max_sc_neutral, servers_stored_max_sc_rate_neutral);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		EnforcementProfile other = (EnforcementProfile) obj;
+
+		return servers_arbitrary == other.servers_arbitrary && servers_fifo == other.servers_fifo
+				&& servers_max_sc_unused == other.servers_max_sc_unused
+				&& servers_max_sc_used == other.servers_max_sc_used
+				&& servers_max_sc_rate_unused == other.servers_max_sc_rate_unused
+				&& servers_max_sc_rate_used == other.servers_max_sc_rate_used
+				&& servers_stored_max_sc_neutral == other.servers_stored_max_sc_neutral
+				&& servers_stored_max_sc_rate_neutral == other.servers_stored_max_sc_rate_neutral;
+	}
+}
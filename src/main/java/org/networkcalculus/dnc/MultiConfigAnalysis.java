@@ -0,0 +1,287 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.num.Num;
+
+/**
+ * Analysis of a server graph under several configurations in a single pass over the flows of interest.
+ * <p>
+ * The configurations are normalized against the server graph first: a multiplexing or
+ * maximum service curve enforcement that does not change any server's behavior is replaced
+ * by its equivalent global setting. Configurations that coincide after normalization are
+ * analyzed only once.
+ * <p>
+ * Each flow of interest is analyzed under all remaining configurations before the next flow is,
+ * by one analysis instance per distinct configuration. The work that does not depend on the
+ * configuration is shared between these analyses:
+ * <ul>
+ * <li>Configurations that coincide when normalized against the servers up to the flow's sink
+ * (see EnforcementProfile) yield the same bounds for this flow. It is analyzed once per group,
+ * the results are copied into the other columns.</li>
+ * <li>Arrival bounds and server backlog bounds are cached keyed by the configuration normalized
+ * against the servers upstream of their location, i.e., only the settings that affect them.</li>
+ * <li>The grouping of flows per sub-path and the convolved service curves of tandems are memoized
+ * by the server graph, see ServerGraph.groupFlowsPerSubPath(...) and ServerGraph.getServiceCurve(path).
+ * The splitting servers are looked up in the server graph's index anyway.</li>
+ * </ul>
+ * Left-over service curves and the flows' end-to-end results are not shared as they depend on
+ * the enforcements at the flow's servers.
+ */
+public class MultiConfigAnalysis {
+	/**
+	 * Delay and backlog bounds indexed by flow of interest and configuration.
+	 */
+	public static class Results {
+		private final List<Flow> flows;
+		private final List<AnalysisConfig> configurations;
+		private final List<AnalysisConfig> configurations_normalized;
+		private final int[] config__column;
+
+		private final Map<Flow, Integer> map__flow__row = new HashMap<Flow, Integer>();
+
+		// [flow][distinct configuration]
+		private final Num[][] delay_bounds;
+		private final Num[][] backlog_bounds;
+		private final Exception[][] failures;
+
+		private Results(List<Flow> flows, List<AnalysisConfig> configurations,
+				List<AnalysisConfig> configurations_normalized, int[] config__column) {
+			this.flows = flows;
+			this.configurations = configurations;
+			this.configurations_normalized = configurations_normalized;
+			this.config__column = config__column;
+
+			for (int i = 0; i < flows.size(); i++) {
+				map__flow__row.put(flows.get(i), i);
+			}
+
+			delay_bounds = new Num[flows.size()][configurations_normalized.size()];
+			backlog_bounds = new Num[flows.size()][configurations_normalized.size()];
+			failures = new Exception[flows.size()][configurations_normalized.size()];
+		}
+
+		public List<Flow> getFlows() {
+			return Collections.unmodifiableList(flows);
+		}
+
+		public List<AnalysisConfig> getConfigurations() {
+			return Collections.unmodifiableList(configurations);
+		}
+
+		/**
+		 * @param config_idx Index of the configuration in the list given to the analysis.
+		 * @return The configuration the bounds were derived with.
+		 */
+		public AnalysisConfig getNormalizedConfiguration(int config_idx) {
+			return configurations_normalized.get(config__column[config_idx]);
+		}
+
+		/**
+		 * @return The number of configurations that were actually analyzed.
+		 */
+		public int numDistinctConfigurations() {
+			return configurations_normalized.size();
+		}
+
+		/**
+		 * @param flow_of_interest  The flow of interest.
+		 * @param config_idx Index of the configuration in the list given to the analysis.
+		 * @return The delay bound, NaN if the analysis failed.
+		 */
+		public Num getDelayBound(Flow flow_of_interest, int config_idx) {
+			return delay_bounds[row(flow_of_interest)][config__column[config_idx]];
+		}
+
+		/**
+		 * @param flow_of_interest  The flow of interest.
+		 * @param config_idx Index of the configuration in the list given to the analysis.
+		 * @return The backlog bound, NaN if the analysis failed.
+		 */
+		public Num getBacklogBound(Flow flow_of_interest, int config_idx) {
+			return backlog_bounds[row(flow_of_interest)][config__column[config_idx]];
+		}
+
+		/**
+		 * @param flow_of_interest  The flow of interest.
+		 * @param config_idx Index of the configuration in the list given to the analysis.
+		 * @return The exception raised by the analysis, null if it succeeded.
+		 */
+		public Exception getFailure(Flow flow_of_interest, int config_idx) {
+			return failures[row(flow_of_interest)][config__column[config_idx]];
+		}
+
+		private int row(Flow flow_of_interest) {
+			Integer row = map__flow__row.get(flow_of_interest);
+			if (row == null) {
+				throw new IllegalArgumentException("Flow " + flow_of_interest.getAlias() + " was not analyzed");
+			}
+			return row;
+		}
+
+		@Override
+		public String toString() {
+			StringBuffer results_str = new StringBuffer();
+			for (int i = 0; i < configurations.size(); i++) {
+				results_str.append("[" + i + "] " + configurations.get(i).toString() + "\n");
+			}
+			for (Flow flow : flows) {
+				results_str.append(flow.getAlias());
+				for (int i = 0; i < configurations.size(); i++) {
+					results_str.append("\t[" + i + "] D: " + getDelayBound(flow, i).toString()
+							+ " B: " + getBacklogBound(flow, i).toString());
+				}
+				results_str.append("\n");
+			}
+			return results_str.toString();
+		}
+	}
+
+	private final ServerGraph server_graph;
+	private final TandemAnalysis.Analyses analysis;
+	private final List<AnalysisConfig> configurations;
+
+	private final List<AnalysisConfig> configurations_normalized = new ArrayList<AnalysisConfig>();
+	private final int[] config__column;
+
+	public MultiConfigAnalysis(ServerGraph server_graph, TandemAnalysis.Analyses analysis,
+			List<AnalysisConfig> configurations) {
+		this.server_graph = server_graph;
+		this.analysis = analysis;
+		this.configurations = new ArrayList<AnalysisConfig>(configurations);
+		this.config__column = new int[configurations.size()];
+
+		Map<AnalysisConfig, Integer> map__config__column = new LinkedHashMap<AnalysisConfig, Integer>();
+		for (int i = 0; i < this.configurations.size(); i++) {
+			AnalysisConfig config_normalized = normalize(server_graph, this.configurations.get(i));
+			// Only the bounds are collected, the details are not needed unless requested.
+			if (config_normalized.resultDetail() == null) {
+				config_normalized.setResultDetail(ResultDetail.BOUNDS);
+			}
+			Integer column = map__config__column.get(config_normalized);
+			if (column == null) {
+				column = configurations_normalized.size();
+				configurations_normalized.add(config_normalized);
+				map__config__column.put(config_normalized, column);
+			}
+			config__column[i] = column;
+		}
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	public List<AnalysisConfig> getConfigurations() {
+		return Collections.unmodifiableList(configurations);
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Normalization
+	// --------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Replaces the enforcements of the configuration that have no effect in the server graph
+	 * by the global setting they are equivalent to.
+	 *
+	 * @param server_graph  The server graph to analyze.
+	 * @param configuration The configuration to normalize, it is not modified.
+	 * @return A normalized copy of the configuration.
+	 */
+	public static AnalysisConfig normalize(ServerGraph server_graph, AnalysisConfig configuration) {
+		return EnforcementProfile.of(server_graph.getServers()).normalize(configuration);
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Analysis
+	// --------------------------------------------------------------------------------------------------------------
+
+	public Results performAnalyses() {
+		return performAnalyses(server_graph.getFlows());
+	}
+
+	/**
+	 * Analyzes the flows of interest in the given order, each one under all configurations.
+	 * An analysis that fails for a configuration, e.g., TMA with FIFO multiplexing,
+	 * results in NaN bounds for this configuration only.
+	 *
+	 * @param flows_of_interest The flows to analyze.
+	 * @return The bounds per flow of interest and configuration.
+	 */
+	public Results performAnalyses(Collection<Flow> flows_of_interest) {
+		List<TandemAnalysis> analyses = new ArrayList<TandemAnalysis>(configurations_normalized.size());
+		for (AnalysisConfig configuration : configurations_normalized) {
+			analyses.add(TandemAnalysis.createAnalysis(analysis, server_graph, configuration));
+		}
+
+		Results results = new Results(new ArrayList<Flow>(flows_of_interest), configurations,
+				configurations_normalized, config__column);
+		Num nan = Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN();
+
+		int row = 0;
+		for (Flow flow_of_interest : results.flows) {
+			// The flow's bounds only depend on the servers up to its sink.
+			EnforcementProfile profile_foi = EnforcementProfile.upstream(server_graph, flow_of_interest.getSink(), true);
+			Map<AnalysisConfig, Integer> map__config_foi__column = new HashMap<AnalysisConfig, Integer>();
+
+			for (int column = 0; column < analyses.size(); column++) {
+				Integer column_analyzed = map__config_foi__column.putIfAbsent(
+						profile_foi.normalize(configurations_normalized.get(column)), column);
+				if (column_analyzed != null) {
+					results.delay_bounds[row][column] = results.delay_bounds[row][column_analyzed];
+					results.backlog_bounds[row][column] = results.backlog_bounds[row][column_analyzed];
+					results.failures[row][column] = results.failures[row][column_analyzed];
+					continue;
+				}
+
+				TandemAnalysis tandem_analysis = analyses.get(column);
+				try {
+					tandem_analysis.performAnalysis(flow_of_interest);
+					results.delay_bounds[row][column] = tandem_analysis.getDelayBound();
+					results.backlog_bounds[row][column] = tandem_analysis.getBacklogBound();
+				} catch (Exception e) {
+					results.delay_bounds[row][column] = nan;
+					results.backlog_bounds[row][column] = nan;
+					results.failures[row][column] = e;
+				}
+			}
+			row++;
+		}
+
+		return results;
+	}
+}
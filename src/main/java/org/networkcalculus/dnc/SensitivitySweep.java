@@ -0,0 +1,340 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.dnc.utils.ForkJoinUtils;
+import org.networkcalculus.num.Num;
+
+/**
+ * What-if analysis of a server graph over a range of service curve parameters.
+ * <p>
+ * For every parameter value, the service curves of the selected servers are replaced
+ * and the flows of interest are analyzed. Only the cached arrival bounds at and downstream
+ * of the selected servers are invalidated between sweep points, and only flows crossing
+ * these servers are analyzed again. The bounds of all other flows do not depend on
+ * the parameter, they are derived once.
+ * <p>
+ * The service curves are replaced in forks of the server graph, see ServerGraph.fork(),
+ * the server graph itself is not modified. The sweep points can be distributed over
+ * several forks that are analyzed in parallel.
+ */
+public class SensitivitySweep {
+	/**
+	 * Derives the service curve of a server for a parameter value.
+	 */
+	public interface Parameterization {
+		ServiceCurve getServiceCurve(Server server, ServiceCurve service_curve_original, Num value) throws Exception;
+	}
+
+	/**
+	 * Sweeps the rate of rate-latency service curves, the latency is retained.
+	 */
+	public static final Parameterization RATE = (server, service_curve_original, value) -> Curve.getFactory()
+			.createRateLatency(value, service_curve_original.getLatency());
+
+	/**
+	 * Sweeps the latency of rate-latency service curves, the rate is retained.
+	 */
+	public static final Parameterization LATENCY = (server, service_curve_original, value) -> Curve.getFactory()
+			.createRateLatency(service_curve_original.getUltAffineRate(), value);
+
+	/**
+	 * Delay and backlog bounds indexed by parameter value and flow of interest.
+	 */
+	public static class Table {
+		private final List<Num> values;
+		private final List<Flow> flows;
+
+		private final Map<Flow, Integer> map__flow__column = new HashMap<Flow, Integer>();
+
+		// [value][flow]
+		private final Num[][] delay_bounds;
+		private final Num[][] backlog_bounds;
+		private final Exception[][] failures;
+
+		private int flows_analyzed = 0;
+
+		private Table(List<Num> values, List<Flow> flows) {
+			this.values = values;
+			this.flows = flows;
+
+			for (int i = 0; i < flows.size(); i++) {
+				map__flow__column.put(flows.get(i), i);
+			}
+
+			delay_bounds = new Num[values.size()][flows.size()];
+			backlog_bounds = new Num[values.size()][flows.size()];
+			failures = new Exception[values.size()][flows.size()];
+		}
+
+		public List<Num> getValues() {
+			return Collections.unmodifiableList(values);
+		}
+
+		public List<Flow> getFlows() {
+			return Collections.unmodifiableList(flows);
+		}
+
+		/**
+		 * @param value_idx        Index of the parameter value.
+		 * @param flow_of_interest The flow of interest.
+		 * @return The delay bound, NaN if the analysis failed.
+		 */
+		public Num getDelayBound(int value_idx, Flow flow_of_interest) {
+			return delay_bounds[value_idx][column(flow_of_interest)];
+		}
+
+		/**
+		 * @param value_idx        Index of the parameter value.
+		 * @param flow_of_interest The flow of interest.
+		 * @return The backlog bound, NaN if the analysis failed.
+		 */
+		public Num getBacklogBound(int value_idx, Flow flow_of_interest) {
+			return backlog_bounds[value_idx][column(flow_of_interest)];
+		}
+
+		/**
+		 * @param value_idx        Index of the parameter value.
+		 * @param flow_of_interest The flow of interest.
+		 * @return The exception raised by the analysis, null if it succeeded.
+		 */
+		public Exception getFailure(int value_idx, Flow flow_of_interest) {
+			return failures[value_idx][column(flow_of_interest)];
+		}
+
+		/**
+		 * @param flow_of_interest The flow of interest.
+		 * @return The delay bounds of the flow in the order of the parameter values.
+		 */
+		public List<Num> getDelayBounds(Flow flow_of_interest) {
+			int column = column(flow_of_interest);
+			List<Num> delay_bounds_flow = new ArrayList<Num>(values.size());
+			for (int v = 0; v < values.size(); v++) {
+				delay_bounds_flow.add(delay_bounds[v][column]);
+			}
+			return delay_bounds_flow;
+		}
+
+		/**
+		 * @return The number of flow analyses executed, at most the number of values times the number of flows.
+		 */
+		public int numFlowsAnalyzed() {
+			return flows_analyzed;
+		}
+
+		private int column(Flow flow_of_interest) {
+			Integer column = map__flow__column.get(flow_of_interest);
+			if (column == null) {
+				throw new IllegalArgumentException("Flow " + flow_of_interest.getAlias() + " was not analyzed");
+			}
+			return column;
+		}
+
+		@Override
+		public String toString() {
+			StringBuffer table_str = new StringBuffer();
+			table_str.append("value");
+			for (Flow flow : flows) {
+				table_str.append("\t" + flow.getAlias());
+			}
+			table_str.append("\n");
+			for (int v = 0; v < values.size(); v++) {
+				table_str.append(values.get(v).toString());
+				for (int i = 0; i < flows.size(); i++) {
+					table_str.append("\tD: " + delay_bounds[v][i].toString() + " B: " + backlog_bounds[v][i].toString());
+				}
+				table_str.append("\n");
+			}
+			return table_str.toString();
+		}
+	}
+
+	private final ServerGraph server_graph;
+	private final TandemAnalysis.Analyses analysis;
+	private final AnalysisConfig configuration;
+
+	private int parallelism = 1;
+
+	public SensitivitySweep(ServerGraph server_graph, TandemAnalysis.Analyses analysis, AnalysisConfig configuration) {
+		this.server_graph = server_graph;
+		this.analysis = analysis;
+		this.configuration = configuration;
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	/**
+	 * @param parallelism Number of server graph forks analyzed in parallel,
+	 *                    1 to sweep sequentially on a single fork.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Sweep
+	// --------------------------------------------------------------------------------------------------------------
+
+	public Table sweep(Collection<Server> servers, List<Num> values, Parameterization parameterization) throws Exception {
+		return sweep(servers, values, parameterization, server_graph.getFlows());
+	}
+
+	/**
+	 * Analyzes the flows of interest for every parameter value.
+	 *
+	 * @param servers           The servers whose service curves are parameterized.
+	 * @param values            The parameter values.
+	 * @param parameterization  Derives the service curves for a parameter value.
+	 * @param flows_of_interest The flows to analyze.
+	 * @return The bounds per parameter value and flow of interest.
+	 * @throws Exception A service curve could not be derived.
+	 */
+	public Table sweep(Collection<Server> servers, List<Num> values, Parameterization parameterization,
+			Collection<Flow> flows_of_interest) throws Exception {
+		Table table = new Table(new ArrayList<Num>(values), new ArrayList<Flow>(flows_of_interest));
+		List<Server> servers_list = new ArrayList<Server>(servers);
+
+		int segments = Math.min(parallelism, values.size());
+		if (segments <= 1) {
+			ServerGraph server_graph_fork = server_graph.fork();
+			try {
+				table.flows_analyzed = sweepSegment(server_graph_fork, servers_list, table.flows, parameterization, table, 0, values.size());
+			} finally {
+				ArrivalBoundDispatch.clearCaches(server_graph_fork);
+			}
+			return table;
+		}
+
+		List<ForkJoinTask<Integer>> segment_tasks = new ArrayList<ForkJoinTask<Integer>>();
+		for (int segment = 0; segment < segments; segment++) {
+			int first = segment * values.size() / segments;
+			int last = (segment + 1) * values.size() / segments;
+
+			// Forked before any segment starts, the server graph is not modified concurrently.
+			ServerGraph server_graph_fork = server_graph.fork();
+
+			segment_tasks.add(ForkJoinTask.adapt(() -> {
+				try {
+					return sweepSegment(server_graph_fork, servers_list, table.flows, parameterization, table, first, last);
+				} finally {
+					ArrivalBoundDispatch.clearCaches(server_graph_fork);
+				}
+			}));
+		}
+		for (int flows_analyzed : ForkJoinUtils.invokeAll(segment_tasks)) {
+			table.flows_analyzed += flows_analyzed;
+		}
+
+		return table;
+	}
+
+	/**
+	 * Sweeps the values [first, last) on a fork of the server graph.
+	 * Servers and flows are looked up by id as the fork replaces the servers whose service curve is set.
+	 *
+	 * @return The number of flow analyses executed.
+	 */
+	private int sweepSegment(ServerGraph server_graph, List<Server> servers, List<Flow> flows,
+			Parameterization parameterization, Table table, int first, int last) throws Exception {
+		TandemAnalysis tandem_analysis = TandemAnalysis.createAnalysis(analysis, server_graph, configuration);
+
+		Map<Integer, ServiceCurve> map__server_id__service_curve = new HashMap<Integer, ServiceCurve>();
+		BitSet flow_ids_affected = new BitSet();
+		for (Server server : servers) {
+			map__server_id__service_curve.put(server.getId(), server_graph.getServer(server.getId()).getServiceCurve());
+			// Flows not crossing a downstream server are independent of the parameter.
+			for (Server server_downstream : server_graph.getDownstreamServers(server_graph.getServer(server.getId()))) {
+				flow_ids_affected.or(server_graph.getFlowIds(server_downstream));
+			}
+		}
+
+		int flows_analyzed = 0;
+		for (int v = first; v < last; v++) {
+			for (Server server : servers) {
+				Server server_current = server_graph.getServer(server.getId());
+				server_graph.setServiceCurve(server_current, parameterization.getServiceCurve(server_current,
+						map__server_id__service_curve.get(server.getId()), table.values.get(v)));
+			}
+			ArrivalBoundDispatch.invalidateCaches(server_graph, getDownstreamServers(server_graph, servers));
+
+			for (int i = 0; i < flows.size(); i++) {
+				if (v == first || flow_ids_affected.get(flows.get(i).getId())) {
+					analyze(tandem_analysis, server_graph.getFlow(flows.get(i).getId()), table, v, i);
+					flows_analyzed++;
+				} else {
+					table.delay_bounds[v][i] = table.delay_bounds[v - 1][i];
+					table.backlog_bounds[v][i] = table.backlog_bounds[v - 1][i];
+					table.failures[v][i] = table.failures[v - 1][i];
+				}
+			}
+		}
+
+		return flows_analyzed;
+	}
+
+	private static Set<Server> getDownstreamServers(ServerGraph server_graph, List<Server> servers) throws Exception {
+		Set<Server> servers_downstream = new HashSet<Server>();
+		for (Server server : servers) {
+			servers_downstream.addAll(server_graph.getDownstreamServers(server_graph.getServer(server.getId())));
+		}
+		return servers_downstream;
+	}
+
+	private static void analyze(TandemAnalysis tandem_analysis, Flow flow_of_interest, Table table, int v, int i) {
+		try {
+			tandem_analysis.performAnalysis(flow_of_interest);
+			table.delay_bounds[v][i] = tandem_analysis.getDelayBound();
+			table.backlog_bounds[v][i] = tandem_analysis.getBacklogBound();
+		} catch (Exception e) {
+			Num nan = Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN();
+			table.delay_bounds[v][i] = nan;
+			table.backlog_bounds[v][i] = nan;
+			table.failures[v][i] = e;
+		}
+	}
+}
@@ -25,6 +25,7 @@
 
 package org.networkcalculus.dnc.algebra;
 
+import java.util.List;
 import java.util.Set;
 
 import org.networkcalculus.dnc.curves.ArrivalCurve;
@@ -44,6 +45,22 @@ public interface MinPlus {
 	Set<ServiceCurve> convolve(Set<ServiceCurve> service_curves_1, Set<ServiceCurve> service_curves_2)
 			throws Exception;
 
+	/**
+	 * Convolution of a sequence of service curves, e.g., the ones of a path's servers.
+	 * Implementations may convolve all curves at once instead of pairwise.
+	 * 
+	 * @param service_curves The service curves, a curve may occur multiple times.
+	 * @return The convolved service curve.
+	 * @throws Exception Convolution failed.
+	 */
+	default ServiceCurve convolve_SCs(List<ServiceCurve> service_curves) throws Exception {
+		ServiceCurve service_curve_result = Curve.getFactory().createZeroDelayInfiniteBurst();
+		for (ServiceCurve service_curve : service_curves) {
+			service_curve_result = convolve(service_curve_result, service_curve);
+		}
+		return service_curve_result;
+	}
+
 	// Arrival Curves
 	ArrivalCurve convolve(ArrivalCurve arrival_curve_1, ArrivalCurve arrival_curve_2) throws Exception;
 
@@ -25,6 +25,7 @@
 
 package org.networkcalculus.dnc.algebra.disco;
 
+import java.util.List;
 import java.util.Set;
 
 import org.networkcalculus.dnc.algebra.MinPlus;
@@ -64,6 +65,14 @@ public enum MinPlus_Disco_ConPwAffine implements MinPlus {
 		return Convolution_Disco_PwAffine.convolve(service_curves_1, service_curves_2);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.networkcalculus.dnc.algebra.MinPlus#convolve_SCs(java.util.List)
+	 */
+	@Override
+	public ServiceCurve convolve_SCs(List<ServiceCurve> service_curves) throws Exception {
+		return Convolution_Disco_PwAffine.convolve_SCs(service_curves);
+	}
+
 	// Arrival Curves
 	/* (non-Javadoc)
 	 * @see org.networkcalculus.dnc.algebra.IMinPlus#convolve(org.networkcalculus.dnc.curves.ArrivalCurve, org.networkcalculus.dnc.curves.ArrivalCurve)
@@ -27,7 +27,10 @@
 
 package org.networkcalculus.dnc.algebra.disco.pw_affine;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.networkcalculus.dnc.Calculator;
@@ -159,6 +162,130 @@ public abstract class Convolution_Disco_PwAffine {
         return result;
     }
 
+    /**
+     * Returns the convolution of all the given curves, which must be convex.
+     * <p>
+     * Instead of folding the curves pairwise, the segments of all curves are
+     * merged in the order of their gradients, using a heap over the curves'
+     * current segments.
+     *
+     * @param service_curves The curves to convolve, a curve may occur multiple times.
+     * @return The convolved curve.
+     */
+    public static ServiceCurve convolve_SCs(List<ServiceCurve> service_curves) {
+        // Custom null and empty checks for this single argument method.
+        if (service_curves == null || service_curves.isEmpty()) {
+            return Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+        }
+        if (service_curves.size() == 1 && service_curves.get(0) != null) {
+            return service_curves.get(0).copy();
+        }
+
+        // Delayed infinite bursts only add their latency to the result.
+        Num latency = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        List<ServiceCurve> curves = new ArrayList<ServiceCurve>(service_curves.size());
+        int dib_count = 0;
+        for (ServiceCurve sc : service_curves) {
+            if (sc == null) {
+                continue;
+            }
+            if (sc.isDelayedInfiniteBurst()) {
+                latency = Num.getUtils(Calculator.getInstance().getNumBackend()).add(latency, sc.getLatency());
+                dib_count++;
+            } else {
+                curves.add(sc);
+            }
+        }
+        if (curves.isEmpty()) {
+            if (dib_count == 0) {
+                return Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+            }
+            return Curve.getFactory().createDelayedInfiniteBurst(latency);
+        }
+
+        ServiceCurve zero_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+        for (ServiceCurve sc : curves) {
+            if (sc.equals(zero_service)) {
+                return zero_service;
+            }
+        }
+
+        ServiceCurve result;
+        if (curves.size() == 1) {
+            result = curves.get(0);
+        } else {
+            result = convolve_SCs_merge(curves);
+        }
+
+        return Curve.getFactory().createServiceCurve(Curve.shiftRight(result, latency));
+    }
+
+    private static ServiceCurve convolve_SCs_merge(List<ServiceCurve> curves) {
+        List<LinearSegment> result = new ArrayList<LinearSegment>();
+
+        Num x = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        Num y = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(); // Functions pass though the origin
+        Num grad = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        LinearSegment s = LinearSegment.createLinearSegment(x, y, grad, false);
+        result.add(s);
+
+        int[] i = new int[curves.size()];
+        boolean discontinuity = false;
+        Num y_0 = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        for (int k = 0; k < curves.size(); k++) {
+            if (curves.get(k).isRealDiscontinuity(0)) {
+                i[k] = 1;
+                discontinuity = true;
+            }
+            y_0 = Num.getUtils(Calculator.getInstance().getNumBackend()).add(y_0,
+                    curves.get(k).fLimitRight(Num.getFactory(Calculator.getInstance().getNumBackend()).getZero()));
+        }
+        if (discontinuity) {
+            s = LinearSegment.createLinearSegment(Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(),
+                    y_0, Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(), true);
+            result.add(s);
+        }
+
+        // Curves ordered by the gradient of their current segment.
+        PriorityQueue<Integer> heap = new PriorityQueue<Integer>(curves.size(), (k1, k2) -> {
+            Num grad_1 = curves.get(k1).getSegment(i[k1]).getGrad();
+            Num grad_2 = curves.get(k2).getSegment(i[k2]).getGrad();
+            return grad_1.lt(grad_2) ? -1 : (grad_1.gt(grad_2) ? 1 : 0);
+        });
+        for (int k = 0; k < curves.size(); k++) {
+            heap.add(k);
+        }
+
+        LinearSegment last;
+        while (!heap.isEmpty()) {
+            int k = heap.poll();
+            ServiceCurve sc = curves.get(k);
+            last = result.get(result.size() - 1);
+            if (i[k] + 1 >= sc.getSegmentCount()) {
+                // The first infinite segment determines the remainder of the result.
+                last.setGrad(sc.getSegment(i[k]).getGrad());
+                break;
+            }
+
+            x = Num.getUtils(Calculator.getInstance().getNumBackend()).add(last.getX(),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).sub(sc.getSegment(i[k] + 1).getX(),
+                            sc.getSegment(i[k]).getX()));
+            y = Num.getUtils(Calculator.getInstance().getNumBackend()).add(last.getY(),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).sub(sc.getSegment(i[k] + 1).getY(),
+                            sc.getSegment(i[k]).getY()));
+            grad = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+            s = LinearSegment.createLinearSegment(x, y, grad, true);
+
+            last.setGrad(sc.getSegment(i[k]).getGrad());
+            result.add(s);
+
+            i[k]++;
+            heap.add(k);
+        }
+
+        return Curve.getFactory().createServiceCurve(Curve.getFactory().createCurve(result));
+    }
+
     public static Set<ServiceCurve> convolve(Set<ServiceCurve> service_curves_1, Set<ServiceCurve> service_curves_2) {
         Set<ServiceCurve> results = new HashSet<ServiceCurve>();
 
@@ -258,7 +385,12 @@ public abstract class Convolution_Disco_PwAffine {
             return arrival_curves.iterator().next().copy();
         }
 
-        ArrivalCurve arrival_curve_result = Curve_ConstantPool.INFINITE_ARRIVAL_CURVE.get();
+        ArrivalCurve arrival_curve_result = convolve_concave(arrival_curves);
+        if (arrival_curve_result != null) {
+            return arrival_curve_result;
+        }
+
+        arrival_curve_result = Curve_ConstantPool.INFINITE_ARRIVAL_CURVE.get();
         for (ArrivalCurve arrival_curve_2 : arrival_curves) {
             arrival_curve_result = convolve(arrival_curve_result, arrival_curve_2);
         }
@@ -266,6 +398,127 @@ public abstract class Convolution_Disco_PwAffine {
         return arrival_curve_result;
     }
 
+    /**
+     * Convolution of arrival curves that are concave in (0, +infinity), i.e., their
+     * minimum. In this interval, each curve is the minimum of its segments' lines
+     * and so is the result. The lines of all curves are merged in decreasing
+     * gradient order with a heap over the curves and their lower envelope is kept
+     * on a stack.
+     *
+     * @param arrival_curves The arrival curves.
+     * @return The convolved arrival curve or <code>null</code> if not all curves are concave in (0, +infinity).
+     */
+    private static ArrivalCurve convolve_concave(Set<ArrivalCurve> arrival_curves) {
+        ArrivalCurve zero_arrival = Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get();
+        ArrivalCurve infinite_arrivals = Curve_ConstantPool.INFINITE_ARRIVAL_CURVE.get();
+
+        // Intercepts at x = 0 and gradients of the curves' lines, in decreasing gradient order.
+        List<Num[]> intercepts = new ArrayList<Num[]>(arrival_curves.size());
+        List<Num[]> grads = new ArrayList<Num[]>(arrival_curves.size());
+        for (ArrivalCurve ac : arrival_curves) {
+            if (ac == null || ac.equals(infinite_arrivals)) {
+                continue;
+            }
+            if (ac.equals(zero_arrival)) {
+                return zero_arrival;
+            }
+            if (!ac.getBurst().isFinite()) {
+                return null;
+            }
+
+            List<Num> ac_intercepts = new ArrayList<Num>(ac.getSegmentCount());
+            List<Num> ac_grads = new ArrayList<Num>(ac.getSegmentCount());
+            for (int i = 0; i < ac.getSegmentCount(); i++) {
+                LinearSegment segment = ac.getSegment(i);
+                if (i + 1 < ac.getSegmentCount() && ac.getSegment(i + 1).getX().eqZero()) {
+                    continue; // The origin of a curve with burst.
+                }
+                if (i > 0 && !segment.getX().eqZero()) {
+                    LinearSegment prev_segment = ac.getSegment(i - 1);
+                    if (segment.getGrad().gt(prev_segment.getGrad())
+                            || !prev_segment.f(segment.getX()).eq(segment.getY())) {
+                        return null;
+                    }
+                }
+                ac_intercepts.add(Num.getUtils(Calculator.getInstance().getNumBackend()).sub(segment.getY(),
+                        Num.getUtils(Calculator.getInstance().getNumBackend()).mult(segment.getGrad(), segment.getX())));
+                ac_grads.add(segment.getGrad());
+            }
+            intercepts.add(ac_intercepts.toArray(new Num[ac_intercepts.size()]));
+            grads.add(ac_grads.toArray(new Num[ac_grads.size()]));
+        }
+        if (grads.isEmpty()) {
+            return infinite_arrivals;
+        }
+
+        int[] i = new int[grads.size()];
+        PriorityQueue<Integer> heap = new PriorityQueue<Integer>(grads.size(), (k1, k2) -> {
+            Num grad_1 = grads.get(k1)[i[k1]];
+            Num grad_2 = grads.get(k2)[i[k2]];
+            return grad_1.gt(grad_2) ? -1 : (grad_1.lt(grad_2) ? 1 : 0);
+        });
+        for (int k = 0; k < grads.size(); k++) {
+            heap.add(k);
+        }
+
+        // Lower envelope in [0, +infinity): increasing intercepts, decreasing gradients.
+        List<Num> envelope_intercepts = new ArrayList<Num>();
+        List<Num> envelope_grads = new ArrayList<Num>();
+        List<Num> envelope_xs = new ArrayList<Num>();
+        while (!heap.isEmpty()) {
+            int k = heap.poll();
+            Num b = intercepts.get(k)[i[k]];
+            Num m = grads.get(k)[i[k]];
+            i[k]++;
+            if (i[k] < grads.get(k).length) {
+                heap.add(k);
+            }
+
+            Num x_start = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+            while (!envelope_grads.isEmpty()) {
+                int top = envelope_grads.size() - 1;
+                if (!b.gt(envelope_intercepts.get(top))) {
+                    // Not above the top line in [0, +infinity) as the gradient is not larger either.
+                    envelope_intercepts.remove(top);
+                    envelope_grads.remove(top);
+                    envelope_xs.remove(top);
+                    continue;
+                }
+                if (!m.lt(envelope_grads.get(top))) {
+                    x_start = null; // Parallel line above the top one.
+                    break;
+                }
+                x_start = Num.getUtils(Calculator.getInstance().getNumBackend()).div(
+                        Num.getUtils(Calculator.getInstance().getNumBackend()).sub(b, envelope_intercepts.get(top)),
+                        Num.getUtils(Calculator.getInstance().getNumBackend()).sub(envelope_grads.get(top), m));
+                if (!x_start.gt(envelope_xs.get(top))) {
+                    envelope_intercepts.remove(top);
+                    envelope_grads.remove(top);
+                    envelope_xs.remove(top);
+                    x_start = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+                    continue;
+                }
+                break;
+            }
+            if (x_start != null) {
+                envelope_intercepts.add(b);
+                envelope_grads.add(m);
+                envelope_xs.add(x_start);
+            }
+        }
+
+        List<LinearSegment> result = new ArrayList<LinearSegment>(envelope_grads.size() + 1);
+        result.add(LinearSegment.createHorizontalLine(0.0));
+        for (int j = 0; j < envelope_grads.size(); j++) {
+            Num x = envelope_xs.get(j);
+            Num y = Num.getUtils(Calculator.getInstance().getNumBackend()).add(envelope_intercepts.get(j),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).mult(envelope_grads.get(j), x));
+            result.add(LinearSegment.createLinearSegment(x, y, envelope_grads.get(j), j == 0));
+        }
+
+        return Curve.getFactory().createArrivalCurve(Curve.getFactory().createCurve(result));
+    }
+
     // ------------------------------------------------------------
     // Maximum Service Curves
     // ------------------------------------------------------------
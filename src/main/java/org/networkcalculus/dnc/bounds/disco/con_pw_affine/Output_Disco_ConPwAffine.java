@@ -26,6 +26,7 @@
 
 package org.networkcalculus.dnc.bounds.disco.con_pw_affine;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -34,9 +35,13 @@ import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.algebra.MinPlus;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.LinearSegment;
+import org.networkcalculus.dnc.curves.MaxServiceCurve;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.num.Num;
 
 /**
  * The output bound makes use of the deconvolution. Therefore, it inherits the restrictions 
@@ -50,85 +55,274 @@ public final class Output_Disco_ConPwAffine {
 
     public static Set<ArrivalCurve> compute(AnalysisConfig configuration, Set<ArrivalCurve> arrival_curves,
                                             Server server, Set<ServiceCurve> betas_lo) throws Exception {
-        Set<ArrivalCurve> output_bound = new HashSet<ArrivalCurve>();
-
-        MinPlus minplus_alg = Calculator.getInstance().getMinPlus();
-        
+        MaxServiceCurve max_sc;
         switch(configuration.enforceMaxSC()) {
 	    	case GLOBALLY_ON:
-	    		output_bound = minplus_alg.deconvolve_almostConcCs_SCs(
-	    				minplus_alg.convolve_ACs_MaxSC(arrival_curves, server.getStoredMaxSC()), betas_lo);
+	    		max_sc = server.getStoredMaxSC();
 	    		break;
 	    		
 	    	case GLOBALLY_OFF:	
-	    		output_bound = minplus_alg.deconvolve(arrival_curves, betas_lo);
+	    		max_sc = null;
 	    		break;
 	    		
 			case SERVER_LOCAL:
 			default:
-				output_bound = minplus_alg.deconvolve_almostConcCs_SCs(
-						minplus_alg.convolve_ACs_MaxSC(arrival_curves, server.getMaxServiceCurve()), betas_lo);
+				max_sc = server.getMaxServiceCurve();
 				break;
 	    }
         
+        MaxServiceCurve max_sc_rate;
         switch(configuration.enforceMaxScOutputRate()) {
 	    	case GLOBALLY_ON:
-	    		output_bound = minplus_alg.convolve_ACs_MaxScRate(output_bound, server.getStoredMaxScRate());
+	    		max_sc_rate = server.getStoredMaxScRate();
 	    		break;
 	    		
 	    	case GLOBALLY_OFF:	
-	    		// Do nothing
+	    		max_sc_rate = null;
 	    		break;
 	    		
 			case SERVER_LOCAL:
 			default:
 				// Server's flag will be checked in server.getMaxScRate()
-				output_bound = minplus_alg.convolve_ACs_MaxScRate(output_bound, server.getMaxScRate());
+				max_sc_rate = server.getMaxScRate();
 				break;
 	    }
 
-        return output_bound;
+        return compute(arrival_curves, betas_lo, max_sc, max_sc_rate);
     }
 
     public static Set<ArrivalCurve> compute(AnalysisConfig configuration, 
     										Set<ArrivalCurve> arrival_curves, Path path, Set<ServiceCurve> betas_lo) throws Exception {
-    	Set<ArrivalCurve> output_bound = new HashSet<ArrivalCurve>();
-
-    	MinPlus minplus_alg = Calculator.getInstance().getMinPlus();
-        
+        MaxServiceCurve max_sc;
         switch(configuration.enforceMaxSC()) {
 	    	case GLOBALLY_ON:
-	    		output_bound = minplus_alg.deconvolve_almostConcCs_SCs(
-	    				minplus_alg.convolve_ACs_MaxSC(arrival_curves, path.getStoredMaxSC()), betas_lo);
+	    		max_sc = path.getStoredMaxSC();
 	    		break;
 	    		
 	    	case GLOBALLY_OFF:	
-	    		output_bound = minplus_alg.deconvolve(arrival_curves, betas_lo);
+	    		max_sc = null;
 	    		break;
 	    		
 			case SERVER_LOCAL:
 			default:
-				output_bound = minplus_alg.deconvolve_almostConcCs_SCs(
-						minplus_alg.convolve_ACs_MaxSC(arrival_curves, path.getMaxServiceCurve()), betas_lo);
+				max_sc = path.getMaxServiceCurve();
 				break;
 	    }
         
+        MaxServiceCurve max_sc_rate;
         switch(configuration.enforceMaxScOutputRate()) {
 	    	case GLOBALLY_ON:
-	    		output_bound = minplus_alg.convolve_ACs_MaxScRate(output_bound, path.getStoredMaxScRate());
+	    		max_sc_rate = path.getStoredMaxScRate();
 	    		break;
 	    		
 	    	case GLOBALLY_OFF:	
-	    		// Do nothing
+	    		max_sc_rate = null;
 	    		break;
 	    		
 			case SERVER_LOCAL:
 			default:
 				// Server's flag will be checked in path.getMaxScRate()
-				output_bound = minplus_alg.convolve_ACs_MaxScRate(output_bound, path.getMaxScRate());
+				max_sc_rate = path.getMaxScRate();
 				break;
 	    }
 
+        return compute(arrival_curves, betas_lo, max_sc, max_sc_rate);
+    }
+
+    /**
+     * @param arrival_curves The arrival curves.
+     * @param betas_lo       The left-over service curves.
+     * @param max_sc         The maximum service curve, <code>null</code> if it is not enforced.
+     * @param max_sc_rate    The maximum service curve rate, <code>null</code> if it is not enforced.
+     * @return The output bounds.
+     * @throws Exception Min-plus operation failed.
+     */
+    private static Set<ArrivalCurve> compute(Set<ArrivalCurve> arrival_curves, Set<ServiceCurve> betas_lo,
+                                             MaxServiceCurve max_sc, MaxServiceCurve max_sc_rate) throws Exception {
+        MinPlus minplus_alg = Calculator.getInstance().getMinPlus();
+
+        Set<ArrivalCurve> output_bound = null;
+        // The common case of no maximum service curve (or only its latency) is computed in a single sweep.
+        if (max_sc == null || max_sc.isDelayedInfiniteBurst()) {
+            output_bound = computeFused(arrival_curves, betas_lo, max_sc == null ? null : max_sc.getLatency());
+        }
+        if (output_bound == null) {
+            if (max_sc == null) {
+                output_bound = minplus_alg.deconvolve(arrival_curves, betas_lo);
+            } else {
+                output_bound = minplus_alg.deconvolve_almostConcCs_SCs(
+                        minplus_alg.convolve_ACs_MaxSC(arrival_curves, max_sc), betas_lo);
+            }
+        }
+
+        // Convolution with the zero-delay infinite burst does not change the curves.
+        if (max_sc_rate != null
+                && !(max_sc_rate.isDelayedInfiniteBurst() && max_sc_rate.getLatency().eqZero())) {
+            output_bound = minplus_alg.convolve_ACs_MaxScRate(output_bound, max_sc_rate);
+        }
+
         return output_bound;
     }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Fused kernel
+    // --------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Computes the output bounds of (almost) concave arrival curves and convex
+     * left-over service curves, shifted right by the latency of a maximum service
+     * curve that is a delayed infinite burst.
+     *
+     * @param arrival_curves The arrival curves.
+     * @param betas_lo       The left-over service curves.
+     * @param max_sc_latency The maximum service curve's latency, <code>null</code> if it is not enforced.
+     * @return The output bounds or <code>null</code> if the curves do not qualify.
+     */
+    private static Set<ArrivalCurve> computeFused(Set<ArrivalCurve> arrival_curves, Set<ServiceCurve> betas_lo,
+                                                  Num max_sc_latency) {
+        // Empty sets are taken care of by the min-plus implementation's checks.
+        if (arrival_curves == null || betas_lo == null || arrival_curves.isEmpty() || betas_lo.isEmpty()) {
+            return null;
+        }
+        for (ServiceCurve beta : betas_lo) {
+            if (!beta.isConvex() || beta.isDelayedInfiniteBurst() || !beta.getLatency().isFinite()
+                    || !beta.getUltAffineRate().gtZero()) {
+                return null;
+            }
+        }
+        for (ArrivalCurve alpha : arrival_curves) {
+            if (!alpha.getBurst().isFinite() || !isConcaveRightOfOrigin(getSegments(alpha))) {
+                return null;
+            }
+        }
+
+        Num shift = (max_sc_latency == null) ? Num.getFactory(Calculator.getInstance().getNumBackend()).createZero()
+                : max_sc_latency;
+        if (!shift.isFinite()) {
+            return null;
+        }
+
+        Set<ArrivalCurve> output_bound = new HashSet<ArrivalCurve>();
+        for (ServiceCurve beta : betas_lo) {
+            LinearSegment[] beta_segments = getSegments(beta);
+            for (ArrivalCurve alpha : arrival_curves) {
+                if (alpha.getUltAffineRate().gt(beta.getUltAffineRate())) {
+                    // Violation of the stability constraint, let the min-plus implementation decide.
+                    return null;
+                }
+                output_bound.add(deconvolveShiftRight(getSegments(alpha), beta_segments, shift));
+            }
+        }
+        return output_bound;
+    }
+
+    /**
+     * Computes (alpha deconvolved with beta) shifted right by <code>shift</code>
+     * directly from the curves' segments.
+     * <p>
+     * For t &gt; 0, (alpha deconvolved with beta)(t) = sup_{u &gt;= 0} alpha(t+u) - beta(u)
+     * is concave as alpha is (almost) concave and beta is convex. At t = 0+ the
+     * supremum is attained at the first u where alpha's gradient does not exceed
+     * beta's one. With increasing t, the result either follows alpha's segments
+     * (the optimal u is fixed at a breakpoint of beta) or beta's segments in
+     * reverse order (t+u is fixed at a breakpoint of alpha). Both gradient sequences
+     * are decreasing and the result is their merge.
+     *
+     * @param alpha The segments of the (almost) concave arrival curve.
+     * @param beta  The segments of the convex service curve.
+     * @param shift The offset to shift the result.
+     * @return The shifted deconvolution, an arrival curve.
+     */
+    private static ArrivalCurve deconvolveShiftRight(LinearSegment[] alpha, LinearSegment[] beta, Num shift) {
+        // Find the maximum vertical deviation of alpha's right limits and beta.
+        Num u = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        int i_alpha = getSegmentRightOf(alpha, u, 0);
+        int i_beta = getSegmentRightOf(beta, u, 0);
+        while (alpha[i_alpha].getGrad().gt(beta[i_beta].getGrad())) {
+            u = Num.getUtils(Calculator.getInstance().getNumBackend()).min(getNextX(alpha, i_alpha), getNextX(beta, i_beta));
+            i_alpha = getSegmentRightOf(alpha, u, i_alpha);
+            i_beta = getSegmentRightOf(beta, u, i_beta);
+        }
+        Num y = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(alpha[i_alpha].f(u), beta[i_beta].f(u));
+
+        // The segment of beta left of u.
+        while (i_beta >= 0 && !beta[i_beta].getX().lt(u)) {
+            i_beta--;
+        }
+
+        ArrayList<LinearSegment> result = new ArrayList<LinearSegment>();
+        result.add(LinearSegment.createHorizontalLine(0.0));
+
+        Num x = shift;
+        Num p = u; // The position t+u in alpha.
+        Num grad, length;
+        boolean leftopen = true;
+        while (true) {
+            if (i_beta >= 0 && beta[i_beta].getGrad().gt(alpha[i_alpha].getGrad())) {
+                grad = beta[i_beta].getGrad();
+                length = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(u, beta[i_beta].getX());
+                u = beta[i_beta].getX();
+                i_beta--;
+            } else {
+                grad = alpha[i_alpha].getGrad();
+                if (i_alpha + 1 >= alpha.length) {
+                    result.add(LinearSegment.createLinearSegment(x, y, grad, leftopen));
+                    break;
+                }
+                length = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(alpha[i_alpha + 1].getX(), p);
+                p = alpha[i_alpha + 1].getX();
+                i_alpha++;
+            }
+            result.add(LinearSegment.createLinearSegment(x, y, grad, leftopen));
+            leftopen = false;
+
+            x = Num.getUtils(Calculator.getInstance().getNumBackend()).add(x, length);
+            y = Num.getUtils(Calculator.getInstance().getNumBackend()).add(y,
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).mult(grad, length));
+        }
+
+        return Curve.getFactory().createArrivalCurve(Curve.getFactory().createCurve(result));
+    }
+
+    private static LinearSegment[] getSegments(Curve curve) {
+        LinearSegment[] segments = new LinearSegment[curve.getSegmentCount()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = curve.getSegment(i);
+        }
+        return segments;
+    }
+
+    /**
+     * In contrast to isAlmostConcave(), a horizontal part at the beginning is not allowed
+     * as it may be followed by a discontinuity, e.g., in shifted arrival curves.
+     *
+     * @return Whether the curve is continuous and concave in (0, +infinity).
+     */
+    private static boolean isConcaveRightOfOrigin(LinearSegment[] segments) {
+        for (int i = 1; i < segments.length; i++) {
+            if (segments[i].getX().eqZero()) {
+                continue;
+            }
+            if (segments[i].getGrad().gt(segments[i - 1].getGrad())
+                    || !segments[i - 1].f(segments[i].getX()).eq(segments[i].getY())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The index of the segment defining the curve in (x, x+epsilon), starting the search at index i.
+     */
+    private static int getSegmentRightOf(LinearSegment[] segments, Num x, int i) {
+        while (i + 1 < segments.length && segments[i + 1].getX().leq(x)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Num getNextX(LinearSegment[] segments, int i) {
+        return (i + 1 < segments.length) ? segments[i + 1].getX()
+                : Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+    }
 }
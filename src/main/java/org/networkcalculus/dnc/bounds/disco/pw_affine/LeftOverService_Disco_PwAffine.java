@@ -27,9 +27,12 @@
 
 package org.networkcalculus.dnc.bounds.disco.pw_affine;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 
 import org.apache.commons.math3.util.Pair;
 
@@ -41,8 +44,10 @@ import org.networkcalculus.dnc.bounds.disco.BoundingCurves_Disco_Configuration;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
+import org.networkcalculus.dnc.curves.LinearSegment;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.utils.ForkJoinUtils;
 import org.networkcalculus.num.Num;
 
 public final class LeftOverService_Disco_PwAffine {
@@ -51,29 +56,46 @@ public final class LeftOverService_Disco_PwAffine {
         if (configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO
                 || (configuration.enforceMultiplexing() == MultiplexingEnforcement.SERVER_LOCAL
                 && server.multiplexing() == Multiplexing.FIFO)) {
-            return fifoMux(server.getServiceCurve(), arrival_curves);
+            return fifoMux(server.getServiceCurve(), arrival_curves, configuration.useParallelArrivalBounding());
         } else {
-            return LeftOverService_Disco_PwAffine.arbMux(server.getServiceCurve(), arrival_curves);
+            return LeftOverService_Disco_PwAffine.arbMux(server.getServiceCurve(), arrival_curves,
+                    configuration.useParallelArrivalBounding());
         }
     }
 
     public static Set<ServiceCurve> compute(AnalysisConfig configuration, ServiceCurve service_curve,
                                             Set<ArrivalCurve> arrival_curves) {
         if (configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO) {
-            return LeftOverService_Disco_PwAffine.fifoMux(service_curve, arrival_curves);
+            return LeftOverService_Disco_PwAffine.fifoMux(service_curve, arrival_curves,
+                    configuration.useParallelArrivalBounding());
         } else {
-            return LeftOverService_Disco_PwAffine.arbMux(service_curve, arrival_curves);
+            return LeftOverService_Disco_PwAffine.arbMux(service_curve, arrival_curves,
+                    configuration.useParallelArrivalBounding());
         }
     }
 
     public static Set<ServiceCurve> fifoMux(ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves) {
-        Set<ServiceCurve> results = new HashSet<ServiceCurve>();
+        return fifoMux(service_curve, arrival_curves, false);
+    }
 
-        for (ArrivalCurve alpha : arrival_curves) {
-            results.add(fifoMux(service_curve, alpha));
+    /**
+     * Computes the left-over FIFO service curves for all the given cross-traffic
+     * arrival curves. The service curve's segments are extracted once and shared
+     * by all computations.
+     *
+     * @param service_curve  The server's service curve
+     * @param arrival_curves The alternative arrival curves of cross-traffic
+     * @param parallel       Compute the alternatives in parallel
+     * @return The FIFO service curves
+     */
+    public static Set<ServiceCurve> fifoMux(ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves,
+                                            boolean parallel) {
+        if (BoundingCurves_Disco_Configuration.getInstance().exec_fifo_mux_checks() && !service_curve.isConvex()) {
+            throw new IllegalArgumentException("Service curve must be convex.");
         }
 
-        return results;
+        PreprocessedServiceCurve beta = new PreprocessedServiceCurve(service_curve);
+        return computeAll(arrival_curves, parallel, alpha -> fifoMux(beta, alpha));
     }
 
     /**
@@ -93,41 +115,56 @@ public final class LeftOverService_Disco_PwAffine {
      * @return The FIFO service curve
      */
     public static ServiceCurve fifoMux(ServiceCurve service_curve, ArrivalCurve arrival_curve) {
-    	Pair<Boolean,ServiceCurve> special_cases = computeSpecialValues(service_curve, arrival_curve);
+        if (BoundingCurves_Disco_Configuration.getInstance().exec_fifo_mux_checks() && !service_curve.isConvex()) {
+            throw new IllegalArgumentException("Service curve must be convex.");
+        }
+
+        return fifoMux(new PreprocessedServiceCurve(service_curve), arrival_curve);
+    }
+
+    private static ServiceCurve fifoMux(PreprocessedServiceCurve beta, ArrivalCurve arrival_curve) {
+    	Pair<Boolean,ServiceCurve> special_cases = computeSpecialValues(beta.service_curve, arrival_curve);
     	
     	if(special_cases.getFirst().booleanValue() == true) {
     		return special_cases.getSecond(); 
     	}
     	
-        if (BoundingCurves_Disco_Configuration.getInstance().exec_fifo_mux_checks()) {
-            if (!arrival_curve.isConcave()) {
-                throw new IllegalArgumentException("Arrival curve must be concave.");
-            }
-
-            if (!service_curve.isConvex()) {
-                throw new IllegalArgumentException("Service curve must be convex.");
-            }
+        if (BoundingCurves_Disco_Configuration.getInstance().exec_fifo_mux_checks() && !arrival_curve.isConcave()) {
+            throw new IllegalArgumentException("Arrival curve must be concave.");
         }
 
-        List<Num> ycoords = Curve.computeInflectionPointsY(arrival_curve, service_curve);
-        for (int i = 0; i < ycoords.size(); i++) {
-            Num ip_y = (ycoords.get(i));
-            if (ip_y.lt(arrival_curve.getBurst())) {
+        Num burst = arrival_curve.getBurst();
+        LinearSegment[] arrival_segments = getSegments(arrival_curve);
+
+        // Merge of the curves' y-coordinates, see Curve.computeInflectionPointsY(...).
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < arrival_segments.length || i2 < beta.segments.length) {
+            Num y1 = (i1 < arrival_segments.length) ? arrival_segments[i1].getY() : INFINITY();
+            Num y2 = (i2 < beta.segments.length) ? beta.segments[i2].getY() : INFINITY();
+            Num ip_y;
+            if (y1.lt(y2)) {
+                ip_y = y1;
+                i1++;
+            } else if (y1.gt(y2)) {
+                ip_y = y2;
+                i2++;
+            } else {
+                ip_y = y1;
+                i1++;
+                i2++;
+            }
+            if (ip_y.lt(burst)) {
                 continue;
             }
 
             Num x_alpha = arrival_curve.f_inv(ip_y, false);
-            Num x_beta = service_curve.f_inv(ip_y, true);
-
-            if (arrival_curve.getGradientLimitRight(x_alpha).leq(service_curve.getGradientLimitRight(x_beta))) {
+            Num x_beta = beta.service_curve.f_inv(ip_y, true);
 
+            if (arrival_curve.getGradientLimitRight(x_alpha).leq(beta.service_curve.getGradientLimitRight(x_beta))) {
                 Num theta = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(x_beta, x_alpha);
-                ServiceCurve beta_fifo = Curve.getFactory()
-                        .createServiceCurve(Curve.boundAtXAxis(Curve.min(
-                                Curve.sub(service_curve,
-                                        Curve.shiftRight(arrival_curve, theta)),
-                                Curve.getFactory().createDelayedInfiniteBurst(x_beta))));
-                return beta_fifo;
+                // The minimum with the infinite burst delayed by x_beta is zero up to x_beta.
+                return subBoundAtXAxis(beta, getSegments(Curve.shiftRight(arrival_curve, theta)), x_beta);
             }
         }
 
@@ -136,13 +173,23 @@ public final class LeftOverService_Disco_PwAffine {
     }
 
     public static Set<ServiceCurve> arbMux(ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves) {
-        Set<ServiceCurve> results = new HashSet<ServiceCurve>();
-
-        for (ArrivalCurve alpha : arrival_curves) {
-            results.add(arbMux(service_curve, alpha));
-        }
+        return arbMux(service_curve, arrival_curves, false);
+    }
 
-        return results;
+    /**
+     * Computes the left-over service curves under arbitrary multiplexing for all
+     * the given cross-traffic arrival curves. The service curve's segments are
+     * extracted once and shared by all computations.
+     *
+     * @param service_curve  The server's service curve
+     * @param arrival_curves The alternative arrival curves of cross-traffic
+     * @param parallel       Compute the alternatives in parallel
+     * @return The arbitrary multiplexing service curves
+     */
+    public static Set<ServiceCurve> arbMux(ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves,
+                                           boolean parallel) {
+        PreprocessedServiceCurve beta = new PreprocessedServiceCurve(service_curve);
+        return computeAll(arrival_curves, parallel, alpha -> arbMux(beta, alpha));
     }
 
     /**
@@ -155,15 +202,162 @@ public final class LeftOverService_Disco_PwAffine {
      * @return The FIFO service curve
      */
     public static ServiceCurve arbMux(ServiceCurve service_curve, ArrivalCurve arrival_curve) {
-    	Pair<Boolean,ServiceCurve> special_cases = computeSpecialValues(service_curve, arrival_curve);
+        return arbMux(new PreprocessedServiceCurve(service_curve), arrival_curve);
+    }
+
+    private static ServiceCurve arbMux(PreprocessedServiceCurve beta, ArrivalCurve arrival_curve) {
+    	Pair<Boolean,ServiceCurve> special_cases = computeSpecialValues(beta.service_curve, arrival_curve);
     	
     	if(special_cases.getFirst().booleanValue() == true) {
     		return special_cases.getSecond(); 
     	} else {
-            return Curve.getFactory().createServiceCurve(Curve.boundAtXAxis(Curve.sub(service_curve, arrival_curve)));
+            return subBoundAtXAxis(beta, getSegments(arrival_curve),
+                    Num.getFactory(Calculator.getInstance().getNumBackend()).createZero());
     	}
     }
-    
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Batched kernels
+    // --------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The service curve's segments, copied once instead of per access.
+     */
+    private static final class PreprocessedServiceCurve {
+        private final ServiceCurve service_curve;
+        private final LinearSegment[] segments;
+
+        private PreprocessedServiceCurve(ServiceCurve service_curve) {
+            this.service_curve = service_curve;
+            this.segments = getSegments(service_curve);
+        }
+    }
+
+    private static LinearSegment[] getSegments(Curve curve) {
+        LinearSegment[] segments = new LinearSegment[curve.getSegmentCount()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = curve.getSegment(i);
+        }
+        return segments;
+    }
+
+    private static Num INFINITY() {
+        return Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+    }
+
+    private static Set<ServiceCurve> computeAll(Set<ArrivalCurve> arrival_curves, boolean parallel,
+                                                Function<ArrivalCurve, ServiceCurve> kernel) {
+        Set<ServiceCurve> results = new HashSet<ServiceCurve>();
+
+        if (!parallel || arrival_curves.size() < 2) {
+            for (ArrivalCurve alpha : arrival_curves) {
+                results.add(kernel.apply(alpha));
+            }
+            return results;
+        }
+
+        List<ForkJoinTask<ServiceCurve>> tasks = new ArrayList<ForkJoinTask<ServiceCurve>>(arrival_curves.size());
+        for (ArrivalCurve alpha : arrival_curves) {
+            tasks.add(ForkJoinTask.adapt(() -> kernel.apply(alpha)));
+        }
+        try {
+            results.addAll(ForkJoinUtils.invokeAll(tasks));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // The kernels do not throw checked exceptions.
+            throw new RuntimeException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Computes boundAtXAxis(min(service_curve - arrival_curve, delayed infinite burst(from_x)))
+     * in a single merge of the curves' segments, i.e., without intermediate curves.
+     * Segments are created exactly like Curve.sub(...) followed by Curve.boundAtXAxis(...) does.
+     *
+     * @param beta             The preprocessed service curve.
+     * @param arrival_segments The segments of the arrival curve to subtract.
+     * @param from_x           The result is zero up to (and including) this x-coordinate if it is positive.
+     * @return The left-over service curve.
+     */
+    private static ServiceCurve subBoundAtXAxis(PreprocessedServiceCurve beta, LinearSegment[] arrival_segments,
+                                                Num from_x) {
+        ArrayList<LinearSegment> result = new ArrayList<LinearSegment>();
+        LinearSegment x_axis = Curve.getXAxis();
+        boolean cut = from_x.gtZero();
+        if (cut) {
+            result.add(LinearSegment.createHorizontalLine(0.0));
+        }
+
+        LinearSegment[] service_segments = beta.segments;
+        Num x = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < service_segments.length || i2 < arrival_segments.length) {
+            Num x_next1 = (i1 + 1 < service_segments.length) ? service_segments[i1 + 1].getX() : INFINITY();
+            Num x_next2 = (i2 + 1 < arrival_segments.length) ? arrival_segments[i2 + 1].getX() : INFINITY();
+            Num x_next = Num.getUtils(Calculator.getInstance().getNumBackend()).min(x_next1, x_next2);
+
+            if (!cut || from_x.lt(x_next)) {
+                boolean leftopen;
+                Num x_start;
+                if (cut && from_x.geq(x)) {
+                    x_start = from_x;
+                    leftopen = true;
+                } else {
+                    x_start = x;
+                    leftopen = service_segments[i1].isLeftopen() || arrival_segments[i2].isLeftopen();
+                }
+                addBoundAtXAxis(result,
+                        LinearSegment.sub(service_segments[i1], arrival_segments[i2], x_start, leftopen),
+                        x_next, x_axis);
+            }
+
+            if (x_next1.equals(x_next)) {
+                i1++;
+            }
+            if (x_next2.equals(x_next)) {
+                i2++;
+            }
+            x = x_next;
+        }
+
+        return Curve.getFactory().createServiceCurve(Curve.getFactory().createCurve(result));
+    }
+
+    private static void addBoundAtXAxis(List<LinearSegment> result, LinearSegment s, Num x_next,
+                                        LinearSegment x_axis) {
+        LinearSegment s_zero;
+        if (s.getY().gtZero()) {
+            result.add(s);
+
+            if (s.getGrad().ltZero()) {
+                Num x_cross = s.getXIntersectionWith(x_axis);
+                if (x_cross.lt(x_next)) {
+                    s_zero = LinearSegment.createHorizontalLine(0.0);
+                    s_zero.setX(x_cross);
+                    result.add(s_zero);
+                }
+            }
+        } else {
+            s_zero = LinearSegment.createHorizontalLine(0.0);
+            s_zero.setX(s.getX());
+            s_zero.setLeftopen(s.isLeftopen());
+            result.add(s_zero);
+
+            if (s.getGrad().gtZero()) {
+                Num x_cross = s.getXIntersectionWith(x_axis);
+                if (x_cross.lt(x_next)) {
+                    s_zero = LinearSegment.createHorizontalLine(0.0);
+                    s_zero.setX(x_cross);
+                    s_zero.setGrad(s.getGrad());
+                    result.add(s_zero);
+                }
+            }
+        }
+    }
+
     /**
      * Try to compute the left-over service curve for special arrival or service curve values like zero or infinite.
      * In case we find infinite service and infinite arrivals, 
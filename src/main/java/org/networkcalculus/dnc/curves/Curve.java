@@ -154,6 +154,11 @@ public interface Curve {
     }
 
     static void beautify(Curve c) {
+        // Interned curves are beautified already and must not be modified.
+        if (c.isInterned()) {
+            return;
+        }
+
         // Remove unreal discontinuity.
         for (int i = 0; i < c.getSegmentCount() - 1; i++) {
             if (c.isUnrealDiscontinuity(i)) {
@@ -829,6 +834,21 @@ public interface Curve {
 
     boolean isConvexIn(Num a, Num b);
 
+    // Hash-consing
+    /**
+     * Returns the canonical and immutable representative of this curve.
+     * Backends that do not hash-cons their curves return the curve itself.
+     *
+     * @return The interned curve.
+     */
+    default Curve intern() {
+        return this;
+    }
+
+    default boolean isInterned() {
+        return false;
+    }
+
     // ------------------------------------------------------------
     // Methods to override
     // ------------------------------------------------------------
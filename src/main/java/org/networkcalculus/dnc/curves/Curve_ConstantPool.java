@@ -25,8 +25,8 @@
 
 package org.networkcalculus.dnc.curves;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.networkcalculus.dnc.AlgDncBackend;
 import org.networkcalculus.dnc.Calculator;
@@ -34,6 +34,8 @@ import org.networkcalculus.dnc.Calculator;
 /**
  * Constant pool for {@link Curve}. Stores constants based on {@link NumBackend} 
  * and [{@link AlgDncBackend}.
+ * The constants are interned, see {@link Curve#intern()}, so comparisons
+ * against them do not need to copy them.
  * 
  * @author matyesz
  *
@@ -71,10 +73,13 @@ public enum Curve_ConstantPool {
         }
     };
     
-    private final Map<String, Curve> pool = new HashMap<>();
+    private final Map<String, Curve> pool = new ConcurrentHashMap<>();
 
     /**
      * Returns the value of the constant from the pool.
+     * <p>
+     * The constant is interned and shared, modifying it throws an
+     * UnsupportedOperationException. Modify a copy instead, e.g., get().copy().
      * @return T the constant casted to type T
      */
     @SuppressWarnings("unchecked")
@@ -82,7 +87,7 @@ public enum Curve_ConstantPool {
         final String key = getKey();
         Curve result = pool.get(key);
         if (result == null) {
-            result = createCurve();
+            result = createCurve().intern();
             pool.put(key, result);
          }
        return (T) result;
@@ -82,6 +82,11 @@ public class ArrivalCurve_Disco_PwAffine extends Curve_Disco_PwAffine implements
         return ac_copy;
     }
 
+    @Override
+    public ArrivalCurve_Disco_PwAffine intern() {
+        return (ArrivalCurve_Disco_PwAffine) super.intern();
+    }
+
     @Override
     public boolean equals(Object obj) {
         return (obj instanceof ArrivalCurve_Disco_PwAffine) && super.equals(obj);
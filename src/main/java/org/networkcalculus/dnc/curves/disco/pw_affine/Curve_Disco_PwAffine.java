@@ -27,10 +27,15 @@
 
 package org.networkcalculus.dnc.curves.disco.pw_affine;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.Curve;
@@ -53,6 +58,10 @@ import org.networkcalculus.num.Num;
  * indicate that the inflection point is excluded from the second segment.<br>
  * All arithmetic operations on a curve return a new instance of class
  * <code>Curve</code>.<br>
+ * Curves can be hash-consed with <code>intern()</code>. Interned curves are
+ * beautified, immutable, and unique per class and number backend. Their hash
+ * code and their classification (zero, infinite, token bucket, rate latency)
+ * are computed once.<br>
  */
 public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	private static Curve_Disco_PwAffine instance = new Curve_Disco_PwAffine();
@@ -69,6 +78,14 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	protected boolean has_token_bucket_meta_info = false;
 	protected List<Curve_Disco_PwAffine> token_buckets = new LinkedList<Curve_Disco_PwAffine>();
 
+	// Weak keys and values, interned curves that are not referenced anymore are evicted by the garbage collector.
+	private static final Map<String,Map<Curve_Disco_PwAffine,WeakReference<Curve_Disco_PwAffine>>> map__key__intern_table = new ConcurrentHashMap<String,Map<Curve_Disco_PwAffine,WeakReference<Curve_Disco_PwAffine>>>();
+
+	private boolean is_interned = false;
+	private int interned_hash_code;
+	private boolean is_zero = false;
+	private boolean is_infinite = false;
+
 	/**
 	 * Creates a <code>CurveDNC</code> instance with a single segment on the x-axis.
 	 */
@@ -114,6 +131,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setRL_MetaInfo(boolean has_rate_latency_meta_info) {
+		checkMutable();
 		this.has_rate_latency_meta_info = has_rate_latency_meta_info;
 	}
 
@@ -130,6 +148,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setRL_Components(List<Curve> rate_latencies) {
+		checkMutable();
 		List<Curve_Disco_PwAffine> tmp = new LinkedList<>();
 		for (int i = 0; i < rate_latencies.size(); i++) {
 			tmp.add((Curve_Disco_PwAffine) rate_latencies.get(i));
@@ -142,6 +161,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setTB_MetaInfo(boolean has_token_bucket_meta_info) {
+		checkMutable();
 		this.has_token_bucket_meta_info = has_token_bucket_meta_info;
 	}
 
@@ -154,6 +174,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setTB_Components(List<Curve> token_buckets) {
+		checkMutable();
 		List<Curve_Disco_PwAffine> tmp = new LinkedList<>();
 		for (int i = 0; i < token_buckets.size(); i++) {
 			tmp.add((Curve_Disco_PwAffine) token_buckets.get(i));
@@ -255,6 +276,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 
 	@Override
 	public void copy(Curve curve) {
+		checkMutable();
 		LinearSegment_Disco[] segments = new LinearSegment_Disco[curve.getSegmentCount()];
 
 		if (curve instanceof Curve_Disco_PwAffine) {
@@ -356,6 +378,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setSegment(int pos, LinearSegment s) {
+		checkMutable();
 		if (pos < 0 || pos >= segments.length) {
 			throw new IndexOutOfBoundsException("Index out of bounds (pos=" + pos + ")!");
 		}
@@ -375,6 +398,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	protected void setSegments(LinearSegment[] segments) {
+		checkMutable();
 		if (segments instanceof LinearSegment_Disco[]) {
 			this.segments = (LinearSegment_Disco[]) segments;
 		} else {
@@ -412,6 +436,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	 *            the segment to be added.
 	 */
 	public void addSegment(int pos, LinearSegment s) {
+		checkMutable();
 		if (pos < 0 || pos > segments.length) {
 			throw new IndexOutOfBoundsException("Index out of bounds (pos=" + pos + ")!");
 		}
@@ -446,6 +471,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	 *            the index of the segment to be removed.
 	 */
 	public void removeSegment(int pos) {
+		checkMutable();
 		if (pos < 0 || pos >= segments.length) {
 			throw new IndexOutOfBoundsException("Index out of bounds (pos=" + pos + ")!");
 		}
@@ -650,7 +676,11 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 		if (obj == null || !(obj instanceof Curve_Disco_PwAffine)) {
 			return false;
 		}
+		if (this == obj) {
+			return true;
+		}
 
+		// Interned curves are compared like any other curve, only identity is a shortcut.
 		Curve_Disco_PwAffine this_cpy = this.copy();
 		Curve_Disco_PwAffine other_cpy = ((Curve_Disco_PwAffine) obj).copy();
 
@@ -681,9 +711,106 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 
 	@Override
 	public int hashCode() {
+		if (is_interned) {
+			return interned_hash_code;
+		}
 		return Arrays.hashCode(segments);
 	}
 
+	// ------------------------------------------------------------
+	// Hash-consing
+	// ------------------------------------------------------------
+
+	/**
+	 * Returns the interned representative of this curve. It is a beautified,
+	 * immutable copy that is shared by all equal curves of the same class.
+	 * Copies of an interned curve can be modified again.
+	 *
+	 * @return the interned curve.
+	 */
+	@Override
+	public Curve_Disco_PwAffine intern() {
+		if (is_interned) {
+			return this;
+		}
+
+		Curve_Disco_PwAffine canonical = copy();
+		Curve.beautify(canonical);
+		canonical.freeze();
+
+		Map<Curve_Disco_PwAffine,WeakReference<Curve_Disco_PwAffine>> intern_table = map__key__intern_table.computeIfAbsent(
+				Calculator.getInstance().getNumBackend().toString() + getClass().getName(),
+				key -> Collections.synchronizedMap(new WeakHashMap<Curve_Disco_PwAffine,WeakReference<Curve_Disco_PwAffine>>()));
+		synchronized (intern_table) {
+			WeakReference<Curve_Disco_PwAffine> interned_ref = intern_table.get(canonical);
+			Curve_Disco_PwAffine interned = interned_ref == null ? null : interned_ref.get();
+			if (interned != null) {
+				return interned;
+			}
+			intern_table.put(canonical, new WeakReference<Curve_Disco_PwAffine>(canonical));
+			return canonical;
+		}
+	}
+
+	@Override
+	public boolean isInterned() {
+		return is_interned;
+	}
+
+	/**
+	 * Interned curves are evicted once they are not referenced anymore, clearing the
+	 * table is not necessary to release them. Already interned instances stay valid.
+	 */
+	public static void clearInternTable() {
+		map__key__intern_table.clear();
+	}
+
+	private void freeze() {
+		// The decompositions are cached eagerly. Interned curves are shared, also between threads.
+		isRateLatency();
+		isTokenBucket();
+		is_zero = computeIsZero();
+		is_infinite = computeIsInfinite();
+
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new InternedSegment(segments[i]);
+		}
+		interned_hash_code = Arrays.hashCode(segments);
+		is_interned = true;
+	}
+
+	private void checkMutable() {
+		if (is_interned) {
+			throw new UnsupportedOperationException("Interned curves are immutable. Modify a copy instead.");
+		}
+	}
+
+	private static final class InternedSegment extends LinearSegment_Disco {
+		private InternedSegment(LinearSegment segment) {
+			super(segment);
+		}
+
+		@Override
+		public void setX(Num x) {
+			throw new UnsupportedOperationException("Segments of interned curves are immutable.");
+		}
+
+		@Override
+		public void setY(Num y) {
+			throw new UnsupportedOperationException("Segments of interned curves are immutable.");
+		}
+
+		@Override
+		public void setGrad(Num grad) {
+			throw new UnsupportedOperationException("Segments of interned curves are immutable.");
+		}
+
+		@Override
+		public void setLeftopen(boolean leftopen) {
+			throw new UnsupportedOperationException("Segments of interned curves are immutable.");
+		}
+	}
+
 	/**
 	 * Returns a string representation of this curve.
 	 *
@@ -895,6 +1022,55 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 		return is_delayed_infinite_burst;
 	}
 
+	/**
+	 * Tests whether the curve is 0 for all x &gt;= 0.
+	 *
+	 * @return whether the curve is the zero function.
+	 */
+	public boolean isZero() {
+		if (is_interned) {
+			return is_zero;
+		}
+		return computeIsZero();
+	}
+
+	private boolean computeIsZero() {
+		for (int i = 0; i < segments.length; i++) {
+			if (!segments[i].getY().eqZero()) {
+				return false;
+			}
+			// The gradient of a segment without extent does not define any function value.
+			if (!segments[i].getGrad().eqZero() && !isDiscontinuity(i)) {
+				return false;
+			}
+		}
+		return segments.length > 0;
+	}
+
+	/**
+	 * Tests whether the curve is 0 in the origin and infinite for all x &gt; 0,
+	 * i.e., whether it is a zero-delay infinite burst.
+	 *
+	 * @return whether the curve is infinite.
+	 */
+	public boolean isInfinite() {
+		if (is_interned) {
+			return is_infinite;
+		}
+		return computeIsInfinite();
+	}
+
+	private boolean computeIsInfinite() {
+		if (segments.length < 2 || !segments[0].getX().eqZero() || !segments[0].getY().eqZero()) {
+			return false;
+		}
+		int i = 0;
+		while (i + 1 < segments.length && segments[i + 1].getX().eqZero()) {
+			i++;
+		}
+		return i > 0 && segments[i].getY().equals(Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity());
+	}
+
 	// Rate latency
 	public boolean getRL_Property() {
 		decomposeIntoRateLatencies();
@@ -902,6 +1078,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setRateLateny(boolean is_rate_latency) {
+		checkMutable();
 		this.is_rate_latency = is_rate_latency;
 	}
 
@@ -968,6 +1145,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	}
 
 	public void setTokenBucket(boolean is_token_bucket) {
+		checkMutable();
 		this.is_token_bucket = is_token_bucket;
 	}
 
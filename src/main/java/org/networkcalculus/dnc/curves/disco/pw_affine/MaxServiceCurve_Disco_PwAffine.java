@@ -81,6 +81,11 @@ public class MaxServiceCurve_Disco_PwAffine extends Curve_Disco_PwAffine impleme
         return msc_copy;
     }
 
+    @Override
+    public MaxServiceCurve_Disco_PwAffine intern() {
+        return (MaxServiceCurve_Disco_PwAffine) super.intern();
+    }
+
     @Override
     public boolean equals(Object obj) {
         return (obj instanceof MaxServiceCurve_Disco_PwAffine) && super.equals(obj);
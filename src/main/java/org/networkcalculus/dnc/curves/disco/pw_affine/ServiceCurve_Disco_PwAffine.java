@@ -78,6 +78,11 @@ public class ServiceCurve_Disco_PwAffine extends Curve_Disco_PwAffine implements
         return sc_copy;
     }
 
+    @Override
+    public ServiceCurve_Disco_PwAffine intern() {
+        return (ServiceCurve_Disco_PwAffine) super.intern();
+    }
+
     @Override
     public boolean equals(Object obj) {
         return (obj instanceof ServiceCurve_Disco_PwAffine) && super.equals(obj);
@@ -26,19 +26,41 @@
 
 package org.networkcalculus.dnc.feedforward;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.networkcalculus.dnc.AlgDncBackend_DNC_Affine;
 import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.num.Num;
 
 public abstract class AbstractArrivalBound implements ArrivalBound {
     protected ServerGraph server_graph;
     protected AnalysisConfig configuration;
 
+    // The session that created this strategy, null for the reconfigured singletons.
+    protected ArrivalBoundSession ab_session;
+
+    protected AbstractArrivalBound() {
+    }
+
+    protected AbstractArrivalBound(ArrivalBoundSession ab_session) {
+        this.ab_session = ab_session;
+        this.server_graph = ab_session.getServerGraph();
+        this.configuration = ab_session.getConfiguration();
+    }
+
     public ServerGraph getServerGraph() {
         return server_graph;
     }
 
     public void setServerGraph(ServerGraph server_graph) {
         this.server_graph = server_graph;
+        this.ab_session = null;
     }
 
     public AnalysisConfig getConfiguration() {
@@ -47,5 +69,48 @@ public abstract class AbstractArrivalBound implements ArrivalBound {
 
     public void setConfiguration(AnalysisConfig configuration) {
         this.configuration = configuration;
+        this.ab_session = null;
+    }
+
+    /**
+     * @return The session to derive nested arrival bounds in, shares this strategy with them.
+     */
+    protected ArrivalBoundSession getArrivalBoundSession() {
+        if (ab_session != null) {
+            return ab_session;
+        }
+        return new ArrivalBoundSession(server_graph, configuration);
+    }
+
+    /**
+     * Caps the burstiness of arrival bounds at the backlog bound of the server they leave,
+     * see AnalysisConfig.serverBacklogArrivalBound().
+     * The limitation: it disregards the potential shift in inflection points.
+     *
+     * @param server The server the arrival bounds leave.
+     * @param arrival_bounds The arrival bounds to cap.
+     * @return The capped arrival bounds.
+     * @throws Exception Potential exception raised when bounding the server's backlog.
+     */
+    protected Set<ArrivalCurve> capBurstsAtServerBacklog(Server server, Set<ArrivalCurve> arrival_bounds) throws Exception {
+        Num backlog_bound = ServerBacklogBounds.getBacklogBound(server_graph, configuration, server);
+
+        Set<ArrivalCurve> arrival_bounds_capped = new HashSet<ArrivalCurve>();
+        for (ArrivalCurve arrival_bound : arrival_bounds) {
+            if (!arrival_bound.getBurst().gt(backlog_bound)) {
+                arrival_bounds_capped.add(arrival_bound);
+            } else if (Calculator.getInstance().getDncBackend() == AlgDncBackend_DNC_Affine.DISCO_AFFINE) {
+                // If the burst is >0 then there are at least two segments and the second holds the burst as its y-axis value.
+                ArrivalCurve arrival_bound_capped = arrival_bound.copy();
+                arrival_bound_capped.getSegment(1).setY(backlog_bound);
+                arrival_bounds_capped.add(arrival_bound_capped);
+            } else {
+                // Capping the burst of every token bucket of a concave curve is equivalent
+                // to the minimum with a token bucket of the curve's ultimate rate.
+                arrival_bounds_capped.add(Curve.min(arrival_bound,
+                        Curve.getFactory().createTokenBucket(arrival_bound.getUltAffineRate(), backlog_bound)));
+            }
+        }
+        return arrival_bounds_capped;
     }
 }
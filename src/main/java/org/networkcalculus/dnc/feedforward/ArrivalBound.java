@@ -26,6 +26,7 @@
 
 package org.networkcalculus.dnc.feedforward;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import org.networkcalculus.dnc.AnalysisConfig;
@@ -47,4 +48,15 @@ public interface ArrivalBound {
     public void setConfiguration(AnalysisConfig configuration);
 
     Set<ArrivalCurve> computeArrivalBound(Turn turn, Flow flow_of_interest) throws Exception;
+
+    Set<ArrivalCurve> computeArrivalBound(Turn turn, Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception;
+
+    /**
+     * @param inputs The method-independent inputs of the turn, shared by all methods bounding it.
+     * @return The arrival bounds.
+     * @throws Exception Potential exception raised in the arrival bounding.
+     */
+    default Set<ArrivalCurve> computeArrivalBound(TurnArrivalBoundInputs inputs) throws Exception {
+        return computeArrivalBound(inputs.getTurn(), new HashSet<Flow>(inputs.getFlowsToBound()), inputs.getFlowOfInterest());
+    }
 }
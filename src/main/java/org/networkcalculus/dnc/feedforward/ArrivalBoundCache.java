@@ -26,9 +26,12 @@
 
 package org.networkcalculus.dnc.feedforward;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -39,15 +42,52 @@ import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.Turn;
 
+/**
+ * Entries are keyed by the ids of servers, turns and flows. A fork of the server graph replaces
+ * the servers whose service curve it sets, together with their turns and the flows crossing them,
+ * see ServerGraph.fork(). The entries of unaffected locations remain valid for the replacements.
+ */
 public class ArrivalBoundCache {
-	private Map<Server,Set<CacheEntryServer>> map__server__entries = new HashMap<Server,Set<CacheEntryServer>>();
-	private Map<Turn,Set<CacheEntryTurn>> map__turn__entries = new HashMap<Turn,Set<CacheEntryTurn>>();
+	private Map<Integer,Set<CacheEntryServer>> map__server__entries = new HashMap<Integer,Set<CacheEntryServer>>();
+	private Map<List<Integer>,Set<CacheEntryTurn>> map__turn__entries = new HashMap<List<Integer>,Set<CacheEntryTurn>>();
 	
 	protected ArrivalBoundCache() {};
 	
-	protected void clearCache() {
-		map__server__entries = new HashMap<Server,Set<CacheEntryServer>>();
-		map__turn__entries = new HashMap<Turn,Set<CacheEntryTurn>>();
+	protected synchronized void clearCache() {
+		map__server__entries = new HashMap<Integer,Set<CacheEntryServer>>();
+		map__turn__entries = new HashMap<List<Integer>,Set<CacheEntryTurn>>();
+	}
+	
+	// Turns are identified by their source and destination like in Turn.equals(...), dummy turns have no id.
+	private static List<Integer> turnKey( Turn turn ) {
+		return Arrays.asList( turn.getSource().getId(), turn.getDest().getId() );
+	}
+	
+	// Null if a flow has no id, e.g., a dummy flow, such bounds are not cached.
+	private static BitSet flowIds( Set<Flow> flows ) {
+		BitSet flow_ids = new BitSet();
+		for ( Flow flow : flows ) {
+			if ( flow.getId() < 0 ) {
+				return null;
+			}
+			flow_ids.set( flow.getId() );
+		}
+		return flow_ids;
+	}
+	
+	/**
+	 * Removes the entries that depend on the service of the given servers,
+	 * i.e., the arrival bounds at these servers and at their outgoing turns.
+	 * 
+	 * @param servers The servers whose service changed and all servers downstream of them.
+	 */
+	protected synchronized void invalidate( Set<Server> servers ) {
+		Set<Integer> server_ids = new HashSet<Integer>();
+		for ( Server server : servers ) {
+			server_ids.add( server.getId() );
+		}
+		map__server__entries.keySet().removeAll( server_ids );
+		map__turn__entries.keySet().removeIf( turn_key -> server_ids.contains( turn_key.get( 0 ) ) );
 	}
 
 	/**
@@ -65,7 +105,7 @@ public class ArrivalBoundCache {
 	 * @return
 	 * @throws Exception
 	 */
-	protected void addArrivalBounds( AnalysisConfig configuration,
+	protected synchronized void addArrivalBounds( AnalysisConfig configuration,
 												  Server server,
 												  Set<Flow> bounded_flows,
 												  Flow flow_of_interest,
@@ -76,29 +116,44 @@ public class ArrivalBoundCache {
 			return;
 		}
 		
+		BitSet bounded_flow_ids = flowIds( bounded_flows );
+		if( bounded_flow_ids == null ) {
+			return;
+		}
+		
 		// Remove possible old entry
 		CacheEntryServer entry = getCacheEntry( configuration, server, bounded_flows, flow_of_interest ); 
 		if ( entry != null ) {
 			// get(...) cannot return null as the entry was already confirmed to exist.
-			map__server__entries.get( server ).remove( entry );
+			map__server__entries.get( server.getId() ).remove( entry );
 		}
 		
 		Set<ArrivalCurve> arrival_bounds_stored;
 		
 		// Create arrival bound to store
 		if( configuration.convolveAlternativeArrivalBounds() ) {	// Convolve given bounds into one.
-			arrival_bounds_stored = Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ) );
+			arrival_bounds_stored = Collections.singleton( (ArrivalCurve) Calculator.getInstance().getMinPlus().convolve( arrival_bounds ).intern() );
 		} else { 													// Take them as they are.
-			arrival_bounds_stored = new HashSet<ArrivalCurve>( arrival_bounds );
+			arrival_bounds_stored = intern( arrival_bounds );
 		}
-		entry = new CacheEntryServer( configuration.copy(), server, new HashSet<Flow>( bounded_flows ), flow_of_interest, arrival_bounds_stored );
+		entry = new CacheEntryServer( configuration.copy(), server, bounded_flow_ids, flow_of_interest, arrival_bounds_stored );
 		
 		// No need to check if the maps has entries for the server or the flow of interest.
 		// If missing they were created by the call to getCacheEntry(...) above.
-		map__server__entries.get( server ).add( entry );
+		map__server__entries.get( server.getId() ).add( entry );
+	}
+	
+	// Cached bounds are handed out repeatedly. Interning them makes
+	// the callers' set operations and special-value checks cheap.
+	protected static Set<ArrivalCurve> intern( Set<ArrivalCurve> arrival_bounds ) {
+		Set<ArrivalCurve> arrival_bounds_interned = new HashSet<ArrivalCurve>();
+		for( ArrivalCurve arrival_bound : arrival_bounds ) {
+			arrival_bounds_interned.add( (ArrivalCurve) arrival_bound.intern() );
+		}
+		return arrival_bounds_interned;
 	}
 	
-	protected Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+	protected synchronized Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
 		CacheEntryServer entry = getCacheEntry( configuration, server, bounded_flows, flow_of_interest );
 		if ( entry == null ) {
 			return new HashSet<ArrivalCurve>();
@@ -120,28 +175,26 @@ public class ArrivalBoundCache {
 	 * @param flow_of_interest
 	 * @return
 	 */
-	protected CacheEntryServer getCacheEntry( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+	protected synchronized CacheEntryServer getCacheEntry( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
 		// Most important feature is an efficient search
 		boolean return_null = false;
-		Set<CacheEntryServer> entries_s = map__server__entries.get( server );
+		Set<CacheEntryServer> entries_s = map__server__entries.get( server.getId() );
 		if ( entries_s == null ) {
-			map__server__entries.put( server, new HashSet<CacheEntryServer>() );
+			map__server__entries.put( server.getId(), new HashSet<CacheEntryServer>() );
 			return_null = true;
 		}
 		
-		if ( return_null ) {
+		BitSet bounded_flow_ids = flowIds( bounded_flows );
+		if ( return_null || bounded_flow_ids == null ) {
 			return null;
 		}
 
-		Set<CacheEntryServer> candidates = new HashSet<CacheEntryServer>( entries_s );
-
-		for ( CacheEntryServer entry : candidates ) {
+		for ( CacheEntryServer entry : entries_s ) {
 			if( entry.configuration.enforceMultiplexing() == configuration.enforceMultiplexing()
 				&& entry.configuration.enforceMaxSC() == configuration.enforceMaxSC()
 				&& entry.configuration.enforceMaxScOutputRate() == configuration.enforceMaxScOutputRate()
-				&& entry.bounded_flows.size() == bounded_flows.size()
 				&& entry.flow_of_interest.getId() == flow_of_interest.getId()
-				&& entry.bounded_flows.containsAll( bounded_flows ) // should be the most expensive operation so do it last 
+				&& entry.bounded_flow_ids.equals( bounded_flow_ids ) // should be the most expensive operation so do it last 
 			) {
 				return entry;
 			}
@@ -164,7 +217,7 @@ public class ArrivalBoundCache {
 	 * @return
 	 * @throws Exception
 	 */
-	protected void addArrivalBounds( AnalysisConfig configuration,
+	protected synchronized void addArrivalBounds( AnalysisConfig configuration,
 												  Turn turn,
 												  Set<Flow> bounded_flows,
 												  Flow flow_of_interest,
@@ -175,27 +228,32 @@ public class ArrivalBoundCache {
 			return;
 		}
 		
+		BitSet bounded_flow_ids = flowIds( bounded_flows );
+		if( bounded_flow_ids == null ) {
+			return;
+		}
+		
 		// Remove possible old entry
 		CacheEntryTurn entry = getCacheEntry( configuration, turn, bounded_flows, flow_of_interest ); 
 		if ( entry != null ) {
 			// get(...) cannot return null as the entry was already confirmed to exist.
-			map__turn__entries.get( turn ).remove( entry );
+			map__turn__entries.get( turnKey( turn ) ).remove( entry );
 		}
 		
 		Set<ArrivalCurve> arrival_bounds_stored;
 		
 		// Create arrival bound to store
 		if( configuration.convolveAlternativeArrivalBounds() ) {	// Convolve given bounds into one.
-			arrival_bounds_stored = Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ) );
+			arrival_bounds_stored = Collections.singleton( (ArrivalCurve) Calculator.getInstance().getMinPlus().convolve( arrival_bounds ).intern() );
 		} else { 													// Take them as they are.
-			arrival_bounds_stored = new HashSet<ArrivalCurve>( arrival_bounds );
+			arrival_bounds_stored = intern( arrival_bounds );
 		}
-		entry = new CacheEntryTurn(configuration, turn, new HashSet<Flow>( bounded_flows ), flow_of_interest, arrival_bounds_stored );
+		entry = new CacheEntryTurn( configuration.copy(), turn, bounded_flow_ids, flow_of_interest, arrival_bounds_stored );
 		
-		map__turn__entries.get( turn ).add( entry );
+		map__turn__entries.get( turnKey( turn ) ).add( entry );
 	}
 	
-	protected Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+	protected synchronized Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
 		CacheEntryTurn entry = getCacheEntry( configuration, turn, bounded_flows, flow_of_interest );
 		if ( entry == null ) {
 			return new HashSet<ArrivalCurve>();
@@ -204,28 +262,27 @@ public class ArrivalBoundCache {
 		}
 	}
 	
-	protected CacheEntryTurn getCacheEntry( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+	protected synchronized CacheEntryTurn getCacheEntry( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
 		// Most important feature is an efficient search
 		boolean return_null = false;
-		Set<CacheEntryTurn> entries_l = map__turn__entries.get( turn );
+		List<Integer> turn_key = turnKey( turn );
+		Set<CacheEntryTurn> entries_l = map__turn__entries.get( turn_key );
 		if ( entries_l == null ) {
-			map__turn__entries.put( turn, new HashSet<CacheEntryTurn>() );
+			map__turn__entries.put( turn_key, new HashSet<CacheEntryTurn>() );
 			return_null = true;
 		}
 		
-		if ( return_null ) {
+		BitSet bounded_flow_ids = flowIds( bounded_flows );
+		if ( return_null || bounded_flow_ids == null ) {
 			return null;
 		}
 
-		Set<CacheEntryTurn> candidates = new HashSet<CacheEntryTurn>( entries_l );
-
-		for ( CacheEntryTurn entry : candidates ) {
+		for ( CacheEntryTurn entry : entries_l ) {
 			if( entry.configuration.enforceMultiplexing() == configuration.enforceMultiplexing()
 				&& entry.configuration.enforceMaxSC() == configuration.enforceMaxSC()
 				&& entry.configuration.enforceMaxScOutputRate() == configuration.enforceMaxScOutputRate()
-				&& entry.bounded_flows.size() == bounded_flows.size()
 				&& entry.flow_of_interest.getId() == flow_of_interest.getId()
-				&& entry.bounded_flows.containsAll( bounded_flows ) // should be the most expensive operation so do it last 
+				&& entry.bounded_flow_ids.equals( bounded_flow_ids ) // should be the most expensive operation so do it last 
 			) {
 				return entry;
 			}
@@ -236,16 +293,16 @@ public class ArrivalBoundCache {
 	// Cache entry types
 	class CacheEntry {
 		protected AnalysisConfig configuration;
-		protected Set<Flow> bounded_flows;
+		protected BitSet bounded_flow_ids;
 		protected Flow flow_of_interest;
 		protected Set<ArrivalCurve> arrival_bounds;
 		
 		protected CacheEntry( AnalysisConfig configuration,
-							  Set<Flow> bounded_flows,
+							  BitSet bounded_flow_ids,
 							  Flow flow_of_interest,
 							  Set<ArrivalCurve> arrival_bounds ) {
 			this.configuration = configuration;
-			this.bounded_flows = bounded_flows;
+			this.bounded_flow_ids = bounded_flow_ids;
 			this.flow_of_interest = flow_of_interest;
 			this.arrival_bounds = arrival_bounds;
 		}
@@ -255,8 +312,8 @@ public class ArrivalBoundCache {
 			String result = "CacheEntry(";
 			
 			result += ";\n";
-			if ( bounded_flows != null ) {
-				result += bounded_flows.toString();
+			if ( bounded_flow_ids != null ) {
+				result += bounded_flow_ids.toString();
 			} else {
 				result += "null_flows";
 			}
@@ -285,10 +342,10 @@ public class ArrivalBoundCache {
 		
 		protected CacheEntryServer( AnalysisConfig configuration,
 									Server server,
-									Set<Flow> bounded_flows,
+									BitSet bounded_flow_ids,
 									Flow flow_of_interest,
 									Set<ArrivalCurve> arrival_bounds ) {
-			super( configuration, bounded_flows, flow_of_interest, arrival_bounds );
+			super( configuration, bounded_flow_ids, flow_of_interest, arrival_bounds );
 			this.server = server;
 		}
 		
@@ -312,8 +369,8 @@ public class ArrivalBoundCache {
 	class CacheEntryTurn extends CacheEntry {
 		protected Turn turn;
 		
-		protected CacheEntryTurn( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest, Set<ArrivalCurve> arrival_bounds ) {
-			super( configuration, bounded_flows, flow_of_interest, arrival_bounds );
+		protected CacheEntryTurn( AnalysisConfig configuration, Turn turn, BitSet bounded_flow_ids, Flow flow_of_interest, Set<ArrivalCurve> arrival_bounds ) {
+			super( configuration, bounded_flow_ids, flow_of_interest, arrival_bounds );
 			this.turn = turn;
 		}
 		
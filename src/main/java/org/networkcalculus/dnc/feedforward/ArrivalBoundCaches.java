@@ -0,0 +1,116 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+
+/**
+ * The arrival bound caches of a single server graph, attached to it via
+ * ServerGraph.getAnalysisCache(...) by ArrivalBoundDispatch.
+ */
+final class ArrivalBoundCaches {
+	private final Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches = new HashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache>();
+	
+	// Single flow results of the segregated arrival bounding methods.
+	private final SegregatedArrivalBoundCache segr_cache;
+	
+	// Turn arrival bounds currently computed by some thread.
+	// Concurrent requests for the same bound join the existing task instead of computing it again.
+	private final Map<List<Object>,ForkJoinTask<Set<ArrivalCurve>>> in_flight_turn_abs = new ConcurrentHashMap<List<Object>,ForkJoinTask<Set<ArrivalCurve>>>();
+	
+	// Keyed by the precomputation's copy of the configuration.
+	private final Map<AnalysisConfig,ArrivalBoundPrecomputation> precomputations = new ConcurrentHashMap<AnalysisConfig,ArrivalBoundPrecomputation>();
+	
+	ArrivalBoundCaches( ServerGraph server_graph ) {
+		segr_cache = new SegregatedArrivalBoundCache( server_graph );
+	}
+	
+	static ArrivalBoundCaches of( ServerGraph server_graph ) {
+		return server_graph.getAnalysisCache( ArrivalBoundCaches.class, ArrivalBoundCaches::new );
+	}
+	
+	synchronized ArrivalBoundCache getCache( Set<ArrivalBoundMethod> ab_methods ) {
+		for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache> cache_entry : ab_caches.entrySet() ) {
+			if( cache_entry.getKey().size() == ab_methods.size()
+					&& cache_entry.getKey().containsAll( ab_methods ) ) {
+				return cache_entry.getValue();
+			}
+		}
+		
+		// Reaching this code here means that there is
+		// no cache for this set of ab_methods in the set of caches yet.
+		// So we create one, add it to the map and return it.
+		ArrivalBoundCache new_ab_cache = new ArrivalBoundCache();
+		ab_caches.put( ab_methods, new_ab_cache );
+		
+		return new_ab_cache;
+	}
+	
+	SegregatedArrivalBoundCache getSegregatedCache() {
+		return segr_cache;
+	}
+	
+	Map<List<Object>,ForkJoinTask<Set<ArrivalCurve>>> getInFlightTurnArrivalBounds() {
+		return in_flight_turn_abs;
+	}
+	
+	ArrivalBoundPrecomputation getPrecomputation( AnalysisConfig configuration ) {
+		return precomputations.get( configuration );
+	}
+	
+	void putPrecomputation( ArrivalBoundPrecomputation precomputation ) {
+		precomputations.put( precomputation.getConfiguration(), precomputation );
+	}
+	
+	void removePrecomputation( ArrivalBoundPrecomputation precomputation ) {
+		precomputations.remove( precomputation.getConfiguration(), precomputation );
+	}
+	
+	void clearPrecomputations() {
+		precomputations.clear();
+	}
+	
+	synchronized void invalidate( Set<Server> servers ) {
+		// Each precomputation covers the entire server graph.
+		precomputations.clear();
+
+		for ( ArrivalBoundCache ab_cache : ab_caches.values() ) {
+			ab_cache.invalidate( servers );
+		}
+		segr_cache.invalidate( servers );
+	}
+}
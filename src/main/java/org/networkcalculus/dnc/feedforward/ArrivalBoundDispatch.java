@@ -26,16 +26,20 @@
 
 package org.networkcalculus.dnc.feedforward;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinTask;
 
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.EnforcementProfile;
 import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
 import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
@@ -43,45 +47,203 @@ import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePboo_Concatenation;
-import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePboo_PerServer;
-import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePmoo;
-import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregateTandemMatching;
 import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.profiling.Profiler;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
 import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.SeparateFlowAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
+import org.networkcalculus.dnc.utils.Cancellation;
+import org.networkcalculus.dnc.utils.ForkJoinUtils;
 import org.networkcalculus.dnc.utils.SetUtils;
 
 public abstract class ArrivalBoundDispatch {
 	// --------------------------------------------------------------------------------------------------------------
 	// Arrival Bound Cache
 	// --------------------------------------------------------------------------------------------------------------
-	protected static Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches = new HashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache>();
+	// Attached to the server graph, see ArrivalBoundCaches and ServerBacklogBounds. Forks start with empty caches.
 	
-	private static ArrivalBoundCache getCache( Set<ArrivalBoundMethod> ab_methods ) {
-		for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache> cache_entry : ab_caches.entrySet() ) {
-			if( cache_entry.getKey().size() == ab_methods.size()
-					&& cache_entry.getKey().containsAll( ab_methods ) ) {
-				return cache_entry.getValue();
+	/**
+	 * Removes the cached results of all server graphs.
+	 */
+	public static void clearAllCaches() {
+		ServerGraph.clearAllAnalysisCaches();
+	}
+	
+	/**
+	 * Removes the cached results that depend on the service of the given servers,
+	 * e.g., after ServerGraph.setServiceCurve(...). Results of other servers remain cached.
+	 * 
+	 * @param server_graph
+	 *            The server graph the servers belong to.
+	 * @param servers
+	 *            The servers whose service changed and all servers downstream of them.
+	 */
+	public static void invalidateCaches( ServerGraph server_graph, Set<Server> servers ) {
+		ArrivalBoundCaches ab_caches = server_graph.getAnalysisCacheIfPresent( ArrivalBoundCaches.class );
+		if ( ab_caches != null ) {
+			ab_caches.invalidate( servers );
+		}
+		ServerBacklogBounds.invalidate( server_graph, servers );
+	}
+	
+	/**
+	 * Removes all cached results of the server graph, e.g., before it is discarded.
+	 * 
+	 * @param server_graph
+	 *            The server graph.
+	 */
+	public static void clearCaches( ServerGraph server_graph ) {
+		invalidateCaches( server_graph, server_graph.getServers() );
+		server_graph.clearAnalysisCaches();
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Parallel Arrival Bounding
+	// --------------------------------------------------------------------------------------------------------------
+
+	private static Set<ArrivalCurve> joinArrivalBounds( ForkJoinTask<Set<ArrivalCurve>> ab_task, boolean invoke ) throws Exception {
+		return ForkJoinUtils.join( ab_task, invoke );
+	}
+
+	private static Set<ArrivalCurve> computeInTurnArrivalBoundsParallel(ArrivalBoundSession ab_session, Server server,
+			Set<Flow> f_xfcaller_server, Flow flow_of_interest, Set<ArrivalCurve> arrival_bounds) throws Exception {
+		ServerGraph server_graph = ab_session.getServerGraph();
+		
+		// Fixed order of in-turns makes the merging below deterministic.
+		List<Turn> in_turns = new ArrayList<Turn>(server_graph.getInTurns(server));
+		in_turns.sort(Comparator.comparingInt(Turn::getId));
+		
+		List<ForkJoinTask<Set<ArrivalCurve>>> in_turn_tasks = new ArrayList<ForkJoinTask<Set<ArrivalCurve>>>();
+		for (Turn in_l : in_turns) {
+			Set<Flow> f_xfcaller_in_l = server_graph.getFlowsIntersection(in_l, f_xfcaller_server);
+			f_xfcaller_in_l.remove(flow_of_interest);
+
+			if (f_xfcaller_in_l.isEmpty()) { // Do not check turns without flows of interest
+				continue;
 			}
+			in_turn_tasks.add(ForkJoinTask.adapt(() -> computeArrivalBounds(ab_session, in_l, f_xfcaller_in_l, flow_of_interest)));
 		}
 		
-		// Reaching this code here means that there is
-		// no cache for this set of ab_methods in the set of caches yet.
-		// So we create one, add it to the map and return it.
-		ArrivalBoundCache new_ab_cache = new ArrivalBoundCache();
-		ab_caches.put( ab_methods, new_ab_cache );
+		// The current thread bounds the last in-turn itself.
+		for (int i = 0; i < in_turn_tasks.size() - 1; i++) {
+			in_turn_tasks.get(i).fork();
+		}
+
+		Set<ArrivalCurve> arrival_bounds_turn_permutations = new HashSet<ArrivalCurve>();
+		for (int i = 0; i < in_turn_tasks.size(); i++) {
+			Set<ArrivalCurve> arrival_bounds_turn = joinArrivalBounds(in_turn_tasks.get(i), i == in_turn_tasks.size() - 1);
+
+			for (ArrivalCurve arrival_bound_turn : arrival_bounds_turn) {
+				// Cached curves may be shared with other threads, beautify a copy.
+				ArrivalCurve arrival_bound_turn_cpy = arrival_bound_turn.copy();
+				Curve.beautify(arrival_bound_turn_cpy);
+
+				for (ArrivalCurve arrival_bound_exiting : arrival_bounds) {
+					arrival_bounds_turn_permutations.add(Curve.add(arrival_bound_turn_cpy, arrival_bound_exiting));
+				}
+			}
+
+			arrival_bounds.clear();
+			arrival_bounds.addAll(arrival_bounds_turn_permutations);
+			arrival_bounds_turn_permutations.clear();
+		}
 		
-		return new_ab_cache;
+		return arrival_bounds;
 	}
 	
-	public static void clearAllCaches() {
-		ab_caches.clear();
+	// --------------------------------------------------------------------------------------------------------------
+	// Precomputed Arrival Bounds
+	// --------------------------------------------------------------------------------------------------------------
+	/**
+	 * Derives the aggregate arrival bounds of all flows at every server and every turn of
+	 * the feed-forward server graph in a single sweep in topological order. Servers of the
+	 * same level are bounded in parallel. Subsequent requests without a flow of interest,
+	 * e.g., by TFA or for the cross-traffic of SFA and PMOO, are served from the result
+	 * as long as server graph and configuration match. The result is kept per server graph
+	 * and configuration until the server graph's caches are invalidated.
+	 *
+	 * @param server_graph
+	 *            The server graph to bound.
+	 * @param configuration
+	 *            The configuration of the analyses to run on the precomputed bounds.
+	 * @return The precomputed arrival bounds.
+	 * @throws Exception
+	 *             The server graph is not feed-forward or arrival bounding failed.
+	 */
+	public static ArrivalBoundPrecomputation precomputeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration) throws Exception {
+		ArrivalBoundPrecomputation precomputation = new ArrivalBoundPrecomputation(server_graph, configuration);
+		
+		// Servers of a level are bounded concurrently, the strategies must not share their state.
+		AnalysisConfig configuration_sweep = precomputation.getConfiguration().copy();
+		configuration_sweep.setUseParallelArrivalBounding(true);
+		ArrivalBoundSession ab_session = new ArrivalBoundSession(server_graph, configuration_sweep);
+
+		// Results of earlier levels are looked up by the recursion while the sweep proceeds.
+		ArrivalBoundCaches ab_caches = ArrivalBoundCaches.of(server_graph);
+		ab_caches.putPrecomputation(precomputation);
+		try {
+			for (List<Server> level : server_graph.getTopologicalLevels()) {
+				List<ForkJoinTask<Set<ArrivalCurve>>> level_tasks = new ArrayList<ForkJoinTask<Set<ArrivalCurve>>>();
+				for (Server server : level) {
+					level_tasks.add(ForkJoinTask.adapt(() -> precomputeArrivalBounds(ab_session, server, precomputation)));
+				}
+				for (int i = 0; i < level_tasks.size() - 1; i++) {
+					level_tasks.get(i).fork();
+				}
+				for (int i = 0; i < level_tasks.size(); i++) {
+					joinArrivalBounds(level_tasks.get(i), i == level_tasks.size() - 1);
+				}
+			}
+		} catch (Exception e) {
+			ab_caches.removePrecomputation(precomputation);
+			throw e;
+		}
+		
+		return precomputation;
 	}
-	
+
+	private static Set<ArrivalCurve> precomputeArrivalBounds(ArrivalBoundSession ab_session, Server server,
+			ArrivalBoundPrecomputation precomputation) throws Exception {
+		ServerGraph server_graph = ab_session.getServerGraph();
+		Set<Flow> f_server = server_graph.getFlows(server);
+		Set<ArrivalCurve> arrival_bounds_server = computeArrivalBounds(ab_session, server, new HashSet<Flow>(f_server), Flow.NULL_FLOW);
+		precomputation.addArrivalBounds(server, f_server, arrival_bounds_server);
+
+		for (Turn out_l : server_graph.getOutTurns(server)) {
+			Set<Flow> f_out_l = server_graph.getFlows(out_l);
+			if (f_out_l.isEmpty()) {
+				continue;
+			}
+			precomputation.addArrivalBounds(out_l, f_out_l,
+					computeArrivalBounds(ab_session, out_l, new HashSet<Flow>(f_out_l), Flow.NULL_FLOW));
+		}
+		
+		return arrival_bounds_server;
+	}
+
+	/**
+	 * @param server_graph
+	 *            The precomputed server graph.
+	 * @param configuration
+	 *            The configuration the arrival bounds were precomputed for.
+	 * @return The precomputed arrival bounds or null if there are none.
+	 */
+	public static ArrivalBoundPrecomputation getPrecomputedArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration) {
+		ArrivalBoundCaches ab_caches = server_graph.getAnalysisCacheIfPresent(ArrivalBoundCaches.class);
+		return ab_caches == null ? null : ab_caches.getPrecomputation(configuration);
+	}
+
+	public static void clearPrecomputedArrivalBounds(ServerGraph server_graph) {
+		ArrivalBoundCaches ab_caches = server_graph.getAnalysisCacheIfPresent(ArrivalBoundCaches.class);
+		if (ab_caches != null) {
+			ab_caches.clearPrecomputations();
+		}
+	}
+
 	// --------------------------------------------------------------------------------------------------------------
 	// Arrival Bound Dispatching
 	// --------------------------------------------------------------------------------------------------------------
@@ -91,6 +253,10 @@ public abstract class ArrivalBoundDispatch {
 		return computeArrivalBounds(server_graph, configuration, server, server_graph.getFlows(server), Flow.NULL_FLOW);
 	}
 
+	public static Set<ArrivalCurve> computeArrivalBounds(ArrivalBoundSession ab_session, Server server) throws Exception {
+		return computeArrivalBounds(ab_session, server, ab_session.getServerGraph().getFlows(server), Flow.NULL_FLOW);
+	}
+
 	/**
 	 * The flow_of_interest low priority supersedes the wish to bound all flows in
 	 * flows_to_bound, i.e., if flow_of_interest will be removed from flows_to_bound
@@ -113,6 +279,39 @@ public abstract class ArrivalBoundDispatch {
 	 */
 	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Server server,
 															Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		return computeArrivalBounds(new ArrivalBoundSession(server_graph, configuration), server, flows_to_bound, flow_of_interest);
+	}
+
+	/**
+	 * See computeArrivalBounds(server_graph, configuration, server, flows_to_bound, flow_of_interest).
+	 * The strategies of the session's arrival bound methods are reused by all nested arrival bounds.
+	 *
+	 * @param ab_session
+	 *            The session of the analysis, binds server graph and configuration.
+	 * @param server
+	 *            The server seeing the arrival bound.
+	 * @param flows_to_bound
+	 *            The flows to be bounded.
+	 * @param flow_of_interest
+	 *            The flow of interest to get a lower priority.
+	 * @return The arrival bound.
+	 * @throws Exception
+	 *             Potential exception raised by the arrival bound methods.
+	 */
+	public static Set<ArrivalCurve> computeArrivalBounds(ArrivalBoundSession ab_session, Server server,
+			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		int phase = Profiler.begin(Phase.ARRIVAL_BOUND_SERVER);
+		try {
+			return deriveArrivalBounds(ab_session, server, flows_to_bound, flow_of_interest);
+		} finally {
+			Profiler.end(Phase.ARRIVAL_BOUND_SERVER, phase);
+		}
+	}
+
+	private static Set<ArrivalCurve> deriveArrivalBounds(ArrivalBoundSession ab_session, Server server,
+			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		ServerGraph server_graph = ab_session.getServerGraph();
+		AnalysisConfig configuration = ab_session.getConfiguration();
 		flows_to_bound.remove(flow_of_interest);
 		Set<ArrivalCurve> arrival_bounds = new HashSet<ArrivalCurve>(
 				Collections.singleton(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()));
@@ -120,18 +319,29 @@ public abstract class ArrivalBoundDispatch {
 			return arrival_bounds;
 		}
 
-		Set<Flow> f_server = server_graph.getFlows(server);
-		Set<Flow> f_xfcaller_server = SetUtils.getIntersection(f_server, flows_to_bound);
+		Set<Flow> f_xfcaller_server = server_graph.getFlowsIntersection(server, flows_to_bound);
 		if (f_xfcaller_server.isEmpty()) {
 			return arrival_bounds;
 		}
 		
+		ArrivalBoundPrecomputation precomputation = getPrecomputedArrivalBounds( server_graph, configuration );
+		if( precomputation != null ) {
+			Set<ArrivalCurve> arrival_bounds_precomputed = precomputation.getArrivalBounds( server_graph, configuration, server, f_xfcaller_server, flow_of_interest );
+			if( arrival_bounds_precomputed != null ) {
+				Profiler.count(Phase.ARRIVAL_BOUND_PRECOMPUTED_HIT);
+				return arrival_bounds_precomputed;
+			}
+		}
+		
+		// Configurations that only differ in enforcements without effect upstream share the arrival bounds.
+		AnalysisConfig configuration_cache = EnforcementProfile.upstream( server_graph, server, false ).normalize( configuration );
 		if( configuration.useArrivalBoundsCache() 
-				&& configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
-			ArrivalBoundCache.CacheEntryServer entry = getCache( configuration.arrivalBoundMethods() ).getCacheEntry( configuration, server, flows_to_bound, flow_of_interest );
+				&& configuration_cache.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
+			ArrivalBoundCache.CacheEntryServer entry = ArrivalBoundCaches.of( server_graph ).getCache( configuration.arrivalBoundMethods() ).getCacheEntry( configuration_cache, server, flows_to_bound, flow_of_interest );
 			if( entry != null && !entry.arrival_bounds.isEmpty()
 					&& !(entry.arrival_bounds.size() > 1 && configuration.convolveAlternativeArrivalBounds()) // Inconsistency between current cache content and current setting.
 					) {
+				Profiler.count(Phase.ARRIVAL_BOUND_CACHE_HIT);
 				// Be cautious here! By using the original cache entry instead of the getArrivalBounds function, we need to repack the result in a new set manually!
 				return new HashSet<ArrivalCurve>( entry.arrival_bounds );
 			}
@@ -151,37 +361,42 @@ public abstract class ArrivalBoundDispatch {
 		}
 
 		// Get cross-traffic from each predecessor. Call per turn in order to get
-		// splitting points.
-		Set<ArrivalCurve> arrival_bounds_turn;
-		Set<ArrivalCurve> arrival_bounds_turn_permutations = new HashSet<ArrivalCurve>();
-
-		Iterator<Turn> in_turn_iter = server_graph.getInTurns(server).iterator();
-		while (in_turn_iter.hasNext()) {
-
-			Turn in_l = in_turn_iter.next();
-			Set<Flow> f_xfcaller_in_l = SetUtils.getIntersection(server_graph.getFlows(in_l), f_xfcaller_server);
-			f_xfcaller_in_l.remove(flow_of_interest);
-
-			if (f_xfcaller_in_l.isEmpty()) { // Do not check turns without flows of interest
-				continue;
-			}
+		// splitting points. Concurrently evaluated methods may share the turns' cached curves,
+		// only the parallel variant does not beautify them in place.
+		if( configuration.useParallelArrivalBounding() || configuration.useParallelArrivalBoundMethods() ) {
+			arrival_bounds = computeInTurnArrivalBoundsParallel(ab_session, server, f_xfcaller_server, flow_of_interest, arrival_bounds);
+		} else {
+			Set<ArrivalCurve> arrival_bounds_turn;
+			Set<ArrivalCurve> arrival_bounds_turn_permutations = new HashSet<ArrivalCurve>();
+
+			Iterator<Turn> in_turn_iter = server_graph.getInTurns(server).iterator();
+			while (in_turn_iter.hasNext()) {
+
+				Turn in_l = in_turn_iter.next();
+				Set<Flow> f_xfcaller_in_l = server_graph.getFlowsIntersection(in_l, f_xfcaller_server);
+				f_xfcaller_in_l.remove(flow_of_interest);
+
+				if (f_xfcaller_in_l.isEmpty()) { // Do not check turns without flows of interest
+					continue;
+				}
 
-			arrival_bounds_turn = computeArrivalBounds(server_graph, configuration, in_l, f_xfcaller_in_l, flow_of_interest);
+				arrival_bounds_turn = computeArrivalBounds(ab_session, in_l, f_xfcaller_in_l, flow_of_interest);
 
-			// Add the new bounds to the others:
-			// * Consider all the permutations of different bounds per in turn.
-			// * Care about the configuration.convolveAlternativeArrivalBounds()-flag later.
-			for (ArrivalCurve arrival_bound_turn : arrival_bounds_turn) {
-				Curve.beautify(arrival_bound_turn);
+				// Add the new bounds to the others:
+				// * Consider all the permutations of different bounds per in turn.
+				// * Care about the configuration.convolveAlternativeArrivalBounds()-flag later.
+				for (ArrivalCurve arrival_bound_turn : arrival_bounds_turn) {
+					Curve.beautify(arrival_bound_turn);
 
-				for (ArrivalCurve arrival_bound_exiting : arrival_bounds) {
-					arrival_bounds_turn_permutations.add(Curve.add(arrival_bound_turn, arrival_bound_exiting));
+					for (ArrivalCurve arrival_bound_exiting : arrival_bounds) {
+						arrival_bounds_turn_permutations.add(Curve.add(arrival_bound_turn, arrival_bound_exiting));
+					}
 				}
-			}
 
-			arrival_bounds.clear();
-			arrival_bounds.addAll(arrival_bounds_turn_permutations);
-			arrival_bounds_turn_permutations.clear();
+				arrival_bounds.clear();
+				arrival_bounds.addAll(arrival_bounds_turn_permutations);
+				arrival_bounds_turn_permutations.clear();
+			}
 		}
 
 		if( configuration.convolveAlternativeArrivalBounds() ) {
@@ -189,10 +404,10 @@ public abstract class ArrivalBoundDispatch {
 		} 
 		
 		if( configuration.useArrivalBoundsCache() 
-				&& configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
+				&& configuration_cache.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
 			
 			// As we checked for an existing cache entry at the beginning (and returned it of present), we do not hav to care about the potential overwriting of a cache entry here. 
-			getCache( configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, server, flows_to_bound, flow_of_interest, arrival_bounds );
+			ArrivalBoundCaches.of( server_graph ).getCache( configuration.arrivalBoundMethods() ).addArrivalBounds( configuration_cache, server, flows_to_bound, flow_of_interest, arrival_bounds );
 		}
 		
 		return new HashSet<ArrivalCurve>( arrival_bounds );
@@ -200,16 +415,77 @@ public abstract class ArrivalBoundDispatch {
 
 	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Turn turn,
 			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		return computeArrivalBounds(new ArrivalBoundSession(server_graph, configuration), turn, flows_to_bound, flow_of_interest);
+	}
+
+	/**
+	 * See computeArrivalBounds(ab_session, server, flows_to_bound, flow_of_interest).
+	 */
+	public static Set<ArrivalCurve> computeArrivalBounds(ArrivalBoundSession ab_session, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		ServerGraph server_graph = ab_session.getServerGraph();
+		AnalysisConfig configuration = ab_session.getConfiguration();
+		
 		flows_to_bound.remove(flow_of_interest);
 		if (flows_to_bound.isEmpty()) {
 			return new HashSet<ArrivalCurve>(Collections.singleton(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()));
 		}
 		
-		if( configuration.useArrivalBoundsCache() && configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables.
-			ArrivalBoundCache.CacheEntryTurn entry = getCache( configuration.arrivalBoundMethods() ).getCacheEntry( configuration, turn, flows_to_bound, flow_of_interest );
+		ArrivalBoundPrecomputation precomputation = getPrecomputedArrivalBounds( server_graph, configuration );
+		if( precomputation != null ) {
+			Set<ArrivalCurve> arrival_bounds_precomputed = precomputation.getArrivalBounds( server_graph, configuration, turn, flows_to_bound, flow_of_interest );
+			if( arrival_bounds_precomputed != null ) {
+				Profiler.count(Phase.ARRIVAL_BOUND_PRECOMPUTED_HIT);
+				return arrival_bounds_precomputed;
+			}
+		}
+		
+		if( !configuration.useParallelArrivalBounding() && !configuration.useParallelArrivalBoundMethods() ) {
+			return deriveArrivalBounds(ab_session, turn, flows_to_bound, flow_of_interest);
+		}
+		
+		// Turn arrival bounds currently computed by some thread of this server graph.
+		// Concurrent requests for the same bound join the existing task instead of computing it again.
+		Map<List<Object>,ForkJoinTask<Set<ArrivalCurve>>> in_flight_turn_abs = ArrivalBoundCaches.of(server_graph).getInFlightTurnArrivalBounds();
+		AnalysisConfig configuration_cache = EnforcementProfile.upstream(server_graph, turn.getSource(), true).normalize(configuration);
+		List<Object> in_flight_key = Arrays.asList(configuration_cache, turn, new HashSet<Flow>(flows_to_bound), flow_of_interest.getId());
+		ForkJoinTask<Set<ArrivalCurve>> ab_task = ForkJoinTask.adapt(() -> deriveArrivalBounds(ab_session, turn, flows_to_bound, flow_of_interest));
+		ForkJoinTask<Set<ArrivalCurve>> ab_task_in_flight = in_flight_turn_abs.putIfAbsent(in_flight_key, ab_task);
+		if( ab_task_in_flight != null ) {
+			return new HashSet<ArrivalCurve>( joinArrivalBounds(ab_task_in_flight, false) );
+		}
+		
+		try {
+			return new HashSet<ArrivalCurve>( joinArrivalBounds(ab_task, true) );
+		} finally {
+			// The arrival bound cache takes over from here.
+			in_flight_turn_abs.remove(in_flight_key, ab_task);
+		}
+	}
+
+	private static Set<ArrivalCurve> deriveArrivalBounds(ArrivalBoundSession ab_session, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		int phase = Profiler.begin(Phase.ARRIVAL_BOUND_TURN);
+		try {
+			return dispatchArrivalBoundMethods(ab_session, turn, flows_to_bound, flow_of_interest);
+		} finally {
+			Profiler.end(Phase.ARRIVAL_BOUND_TURN, phase);
+		}
+	}
+
+	private static Set<ArrivalCurve> dispatchArrivalBoundMethods(ArrivalBoundSession ab_session, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		ServerGraph server_graph = ab_session.getServerGraph();
+		AnalysisConfig configuration = ab_session.getConfiguration();
+		
+		// Configurations that only differ in enforcements without effect upstream share the arrival bounds.
+		AnalysisConfig configuration_cache = EnforcementProfile.upstream( server_graph, turn.getSource(), true ).normalize( configuration );
+		if( configuration.useArrivalBoundsCache() && configuration_cache.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables.
+			ArrivalBoundCache.CacheEntryTurn entry = ArrivalBoundCaches.of( server_graph ).getCache( configuration.arrivalBoundMethods() ).getCacheEntry( configuration_cache, turn, flows_to_bound, flow_of_interest );
 			if( entry != null && !entry.arrival_bounds.isEmpty()
 					&& !(entry.arrival_bounds.size() > 1 && configuration.convolveAlternativeArrivalBounds()) // Inconsistency between current cache content and current setting.
 					) {
+				Profiler.count(Phase.ARRIVAL_BOUND_CACHE_HIT);
 				// Be cautious here! By using the original cache entry instead of the getArrivalBounds function, we need to repack the result in a new set manually!
 				return new HashSet<ArrivalCurve>( entry.arrival_bounds );
 			}
@@ -217,103 +493,129 @@ public abstract class ArrivalBoundDispatch {
 
 		Set<ArrivalCurve> arrival_bounds_xfcaller = new HashSet<ArrivalCurve>();
 		
-		for (AnalysisConfig.ArrivalBoundMethod arrival_bound_method : configuration.arrivalBoundMethods()) {
-			Set<ArrivalCurve> arrival_bounds_tmp = new HashSet<ArrivalCurve>();
-
-			switch (arrival_bound_method) {
-			case AGGR_PBOO_PER_SERVER:
-				AggregatePboo_PerServer aggr_pboo_per_server = AggregatePboo_PerServer.getInstance();
-				aggr_pboo_per_server.setServerGraph(server_graph);
-				aggr_pboo_per_server.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_pboo_per_server.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			case AGGR_PBOO_CONCATENATION:
-				AggregatePboo_Concatenation aggr_pboo_concatenation = AggregatePboo_Concatenation.getInstance();
-				aggr_pboo_concatenation.setServerGraph(server_graph);
-				aggr_pboo_concatenation.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_pboo_concatenation.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			case AGGR_PMOO:
-				AggregatePmoo aggr_pmoo = AggregatePmoo.getInstance();
-				aggr_pmoo.setServerGraph(server_graph);
-				aggr_pmoo.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_pmoo.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			/* 
-			 * There are no functional tests for Tandem Matching-based arrival bounding
-			 * or segregate arrival bounding methods. 
-			 */
-				
-			case AGGR_TM:
-				AggregateTandemMatching aggr_tm = AggregateTandemMatching.getInstance();
-				aggr_tm.setServerGraph(server_graph);
-				aggr_tm.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_tm.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			// This arrival bound is known to be inferior to PMOO and the PBOO_* variants.
-			case SEGR_PBOO:
-				for (Flow flow : flows_to_bound) {
-					SeparateFlowAnalysis sfa = new SeparateFlowAnalysis(server_graph);
-					sfa.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
+		List<ArrivalBoundMethod> arrival_bound_methods = new ArrayList<ArrivalBoundMethod>(configuration.arrivalBoundMethods());
+		
+		// Flow grouping, splitting server and left-over prefix are the same for all methods, derive them once.
+		TurnArrivalBoundInputs inputs = new TurnArrivalBoundInputs(ab_session, turn, flows_to_bound, flow_of_interest);
+		if( configuration.useParallelArrivalBoundMethods() && arrival_bound_methods.size() > 1 ) {
+			// Concurrently evaluated methods bounding the same sub-turns join the in-flight computations, see computeArrivalBounds.
+			List<ForkJoinTask<Set<ArrivalCurve>>> method_tasks = new ArrayList<ForkJoinTask<Set<ArrivalCurve>>>();
+			for (ArrivalBoundMethod arrival_bound_method : arrival_bound_methods) {
+				method_tasks.add(ForkJoinTask.adapt(() -> dispatchArrivalBoundMethod(ab_session, arrival_bound_method, inputs)));
+			}
+			for (Set<ArrivalCurve> arrival_bounds_method : ForkJoinUtils.invokeAll(method_tasks)) {
+				arrival_bounds_xfcaller.addAll( arrival_bounds_method );
+			}
+		} else {
+			for (ArrivalBoundMethod arrival_bound_method : arrival_bound_methods) {
+				arrival_bounds_xfcaller.addAll( dispatchArrivalBoundMethod(ab_session, arrival_bound_method, inputs) );
+			}
+		}
+		
+		if( configuration.convolveAlternativeArrivalBounds() ) {
+			arrival_bounds_xfcaller = new HashSet<ArrivalCurve>( Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds_xfcaller ) ) );
+		}
+		
+		if( configuration.useArrivalBoundsCache() 
+				&& configuration_cache.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
+			
+			// As we checked for an existing cache entry before the for-loop (and returned it of present), we do not hav to care about the potential overwriting of a cache entry here. 
+			ArrivalBoundCaches.of( server_graph ).getCache( configuration.arrivalBoundMethods() ).addArrivalBounds( configuration_cache, turn, flows_to_bound, flow_of_interest, arrival_bounds_xfcaller );
+		}
+		
+		return arrival_bounds_xfcaller;
+	}
 
+	private static Set<ArrivalCurve> dispatchArrivalBoundMethod(ArrivalBoundSession ab_session, ArrivalBoundMethod arrival_bound_method,
+			TurnArrivalBoundInputs inputs) throws Exception {
+		ServerGraph server_graph = ab_session.getServerGraph();
+		AnalysisConfig configuration = ab_session.getConfiguration();
+		Turn turn = inputs.getTurn();
+		Set<Flow> flows_to_bound = inputs.getFlowsToBound();
+		Flow flow_of_interest = inputs.getFlowOfInterest();
+		
+		Cancellation.checkpoint(configuration.cancellation());
+		
+		// The aggregate methods and any other registered strategy.
+		ArrivalBound arrival_bound = ab_session.getArrivalBound(arrival_bound_method);
+		if (arrival_bound != null) {
+			return arrival_bound.computeArrivalBound(inputs);
+		}
+		
+		Set<ArrivalCurve> arrival_bounds_tmp = new HashSet<ArrivalCurve>();
+		
+		// The single flow results do not depend on the given configuration, the segregated methods analyze with the default one.
+		SegregatedArrivalBoundCache segr_cache = configuration.useArrivalBoundsCache() ? ArrivalBoundCaches.of(server_graph).getSegregatedCache() : null;
+
+		/* 
+		 * There are no functional tests for Tandem Matching-based arrival bounding
+		 * or segregate arrival bounding methods. 
+		 */
+		switch (arrival_bound_method) {
+		// This arrival bound is known to be inferior to PMOO and the PBOO_* variants.
+		case SEGR_PBOO:
+			for (Flow flow : flows_to_bound) {
+				Cancellation.checkpoint(configuration.cancellation());
+				if (segr_cache != null) {
 					arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
-							singleFlowABs(configuration, flow.getArrivalCurve(), sfa.getLeftOverServiceCurves()));
+							segr_cache.getArrivalBounds(arrival_bound_method, flow, turn.getSource()));
+					continue;
 				}
-				break;
-
-			// This arrival bound can yield better results than PMOO and the PBOO_* variants. See:
-			/*
-			 * Catching Corner Cases in Network Calculus - Flow Segregation Can Improve Accuracy.
-			 * Steffen Bondorf, Paul Nikolaus and Jens B. Schmitt,
-			 * In Proceedings of 19th International GI/ITG Conference on 
-			 * Measurement, Modelling and Evaluation of Computing Systems (MMB), 2018.
-			 */
-			case SEGR_PMOO:
-				for (Flow flow : flows_to_bound) {
-					PmooAnalysis pmoo = new PmooAnalysis(server_graph);
-					pmoo.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
+				SeparateFlowAnalysis sfa = new SeparateFlowAnalysis(server_graph);
+				sfa.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
 
+				arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
+						singleFlowABs(configuration, flow.getArrivalCurve(), sfa.getLeftOverServiceCurves()));
+			}
+			break;
+
+		// This arrival bound can yield better results than PMOO and the PBOO_* variants. See:
+		/*
+		 * Catching Corner Cases in Network Calculus - Flow Segregation Can Improve Accuracy.
+		 * Steffen Bondorf, Paul Nikolaus and Jens B. Schmitt,
+		 * In Proceedings of 19th International GI/ITG Conference on 
+		 * Measurement, Modelling and Evaluation of Computing Systems (MMB), 2018.
+		 */
+		case SEGR_PMOO:
+			for (Flow flow : flows_to_bound) {
+				Cancellation.checkpoint(configuration.cancellation());
+				if (segr_cache != null) {
 					arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
-							singleFlowABs(configuration, flow.getArrivalCurve(), pmoo.getLeftOverServiceCurves()));
+							segr_cache.getArrivalBounds(arrival_bound_method, flow, turn.getSource()));
+					continue;
 				}
-				break;
+				PmooAnalysis pmoo = new PmooAnalysis(server_graph);
+				pmoo.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
 
-			case SEGR_TM:
-				for (Flow flow : flows_to_bound) {
-					TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph);
-					tma.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
+				arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
+						singleFlowABs(configuration, flow.getArrivalCurve(), pmoo.getLeftOverServiceCurves()));
+			}
+			break;
 
+		case SEGR_TM:
+			for (Flow flow : flows_to_bound) {
+				Cancellation.checkpoint(configuration.cancellation());
+				if (segr_cache != null) {
 					arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
-							singleFlowABs(configuration, flow.getArrivalCurve(), tma.getLeftOverServiceCurves()));
+							segr_cache.getArrivalBounds(arrival_bound_method, flow, turn.getSource()));
+					continue;
 				}
-				break;
+				TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph);
+				tma.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
 
-			default:
-				System.out.println("Executing default arrival bounding: AGGR_PBOO_CONCATENATION");
-				AggregatePboo_Concatenation default_ab = new AggregatePboo_Concatenation(server_graph, configuration);
-				arrival_bounds_tmp = default_ab.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
+				arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
+						singleFlowABs(configuration, flow.getArrivalCurve(), tma.getLeftOverServiceCurves()));
 			}
+			break;
 
-			arrival_bounds_xfcaller.addAll( arrival_bounds_tmp );
+		default:
+			System.out.println("Executing default arrival bounding: AGGR_PBOO_CONCATENATION");
+			AggregatePboo_Concatenation default_ab = new AggregatePboo_Concatenation(ab_session);
+			arrival_bounds_tmp = default_ab.computeArrivalBound(inputs);
+			break;
 		}
-		
-		if( configuration.convolveAlternativeArrivalBounds() ) {
-			arrival_bounds_xfcaller = new HashSet<ArrivalCurve>( Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds_xfcaller ) ) );
-		}
-		
-		if( configuration.useArrivalBoundsCache() 
-				&& configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
-			
-			// As we checked for an existing cache entry before the for-loop (and returned it of present), we do not hav to care about the potential overwriting of a cache entry here. 
-			getCache( configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, turn, flows_to_bound, flow_of_interest, arrival_bounds_xfcaller );
-		}
-		
-		return arrival_bounds_xfcaller;
+
+		return arrival_bounds_tmp;
 	}
 
 	private static Set<ArrivalCurve> singleFlowABs(AnalysisConfig configuration, ArrivalCurve alpha,
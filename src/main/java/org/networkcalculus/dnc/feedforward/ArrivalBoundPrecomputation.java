@@ -0,0 +1,123 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+
+/**
+ * Aggregate arrival bounds of all flows at every server and turn of a server graph,
+ * derived in a single sweep in topological order by
+ * ArrivalBoundDispatch.precomputeArrivalBounds(server_graph, configuration).
+ * <p>
+ * The bounds are derived without a flow of interest. They are thus only handed out for
+ * requests with Flow.NULL_FLOW that bound exactly the flows present at precomputation time.
+ * Kept with the server graph's arrival bound caches, precompute again after modifying the server graph.
+ */
+public class ArrivalBoundPrecomputation {
+	private final ServerGraph server_graph;
+	private final AnalysisConfig configuration;
+
+	private Map<Server,Set<Flow>> map__server__flows = new ConcurrentHashMap<Server,Set<Flow>>();
+	private Map<Server,Set<ArrivalCurve>> map__server__arrival_bounds = new ConcurrentHashMap<Server,Set<ArrivalCurve>>();
+	private Map<Turn,Set<Flow>> map__turn__flows = new ConcurrentHashMap<Turn,Set<Flow>>();
+	private Map<Turn,Set<ArrivalCurve>> map__turn__arrival_bounds = new ConcurrentHashMap<Turn,Set<ArrivalCurve>>();
+
+	protected ArrivalBoundPrecomputation( ServerGraph server_graph, AnalysisConfig configuration ) {
+		this.server_graph = server_graph;
+		this.configuration = configuration.copy();
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	public AnalysisConfig getConfiguration() {
+		return configuration;
+	}
+
+	public int numServers() {
+		return map__server__arrival_bounds.size();
+	}
+
+	public int numTurns() {
+		return map__turn__arrival_bounds.size();
+	}
+
+	// Both maps of a location are written before the bounds become visible.
+	// The bounds are interned as they are handed out to every matching request.
+	protected void addArrivalBounds( Server server, Set<Flow> bounded_flows, Set<ArrivalCurve> arrival_bounds ) {
+		map__server__flows.put( server, new HashSet<Flow>( bounded_flows ) );
+		map__server__arrival_bounds.put( server, ArrivalBoundCache.intern( arrival_bounds ) );
+	}
+
+	protected void addArrivalBounds( Turn turn, Set<Flow> bounded_flows, Set<ArrivalCurve> arrival_bounds ) {
+		map__turn__flows.put( turn, new HashSet<Flow>( bounded_flows ) );
+		map__turn__arrival_bounds.put( turn, ArrivalBoundCache.intern( arrival_bounds ) );
+	}
+
+	/**
+	 * @return The precomputed arrival bounds or null if there are none for this request.
+	 */
+	protected Set<ArrivalCurve> getArrivalBounds( ServerGraph server_graph, AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+		if( !matches( server_graph, configuration, flow_of_interest ) ) {
+			return null;
+		}
+		Set<ArrivalCurve> arrival_bounds = map__server__arrival_bounds.get( server );
+		if( arrival_bounds == null || !map__server__flows.get( server ).equals( bounded_flows ) ) {
+			return null;
+		}
+		return new HashSet<ArrivalCurve>( arrival_bounds );
+	}
+
+	/**
+	 * @return The precomputed arrival bounds or null if there are none for this request.
+	 */
+	protected Set<ArrivalCurve> getArrivalBounds( ServerGraph server_graph, AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+		if( !matches( server_graph, configuration, flow_of_interest ) ) {
+			return null;
+		}
+		Set<ArrivalCurve> arrival_bounds = map__turn__arrival_bounds.get( turn );
+		if( arrival_bounds == null || !map__turn__flows.get( turn ).equals( bounded_flows ) ) {
+			return null;
+		}
+		return new HashSet<ArrivalCurve>( arrival_bounds );
+	}
+
+	private boolean matches( ServerGraph server_graph, AnalysisConfig configuration, Flow flow_of_interest ) {
+		return this.server_graph == server_graph
+				&& flow_of_interest.getId() == Flow.NULL_FLOW.getId()
+				&& this.configuration.equals( configuration );
+	}
+}
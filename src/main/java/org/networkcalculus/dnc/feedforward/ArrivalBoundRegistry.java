@@ -0,0 +1,88 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePboo_Concatenation;
+import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePboo_PerServer;
+import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePmoo;
+import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregateTandemMatching;
+
+/**
+ * Arrival bound strategies per ArrivalBoundMethod, instantiated by ArrivalBoundSession.
+ * <p>
+ * The aggregate methods are registered by default. Methods without a registered strategy,
+ * i.e., the segregated ones, are executed by ArrivalBoundDispatch directly.
+ * Registering a strategy for them replaces that default behavior.
+ */
+public final class ArrivalBoundRegistry {
+	@FunctionalInterface
+	public interface Factory {
+		/**
+		 * @param ab_session The session binding server graph and configuration.
+		 * @return A strategy bound to the session's server graph and configuration
+		 *         that can be called from multiple threads concurrently.
+		 */
+		ArrivalBound create(ArrivalBoundSession ab_session);
+	}
+
+	private static final Map<ArrivalBoundMethod, Factory> map__method__factory = new EnumMap<ArrivalBoundMethod, Factory>(ArrivalBoundMethod.class);
+
+	static {
+		map__method__factory.put(ArrivalBoundMethod.AGGR_PBOO_PER_SERVER, AggregatePboo_PerServer::new);
+		map__method__factory.put(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION, AggregatePboo_Concatenation::new);
+		map__method__factory.put(ArrivalBoundMethod.AGGR_PMOO, AggregatePmoo::new);
+		map__method__factory.put(ArrivalBoundMethod.AGGR_TM, AggregateTandemMatching::new);
+	}
+
+	private ArrivalBoundRegistry() {
+	}
+
+	/**
+	 * Registers the strategy of an arrival bound method. Affects sessions created afterwards.
+	 * Clear the arrival bound caches if the new strategy derives different bounds.
+	 *
+	 * @param arrival_bound_method The arrival bound method.
+	 * @param factory              The factory of the method's strategy, null to remove it.
+	 */
+	public static synchronized void register(ArrivalBoundMethod arrival_bound_method, Factory factory) {
+		if (factory == null) {
+			map__method__factory.remove(arrival_bound_method);
+		} else {
+			map__method__factory.put(arrival_bound_method, factory);
+		}
+	}
+
+	/**
+	 * @param arrival_bound_method The arrival bound method.
+	 * @return The factory of the method's strategy, null if none is registered.
+	 */
+	public static synchronized Factory getFactory(ArrivalBoundMethod arrival_bound_method) {
+		return map__method__factory.get(arrival_bound_method);
+	}
+}
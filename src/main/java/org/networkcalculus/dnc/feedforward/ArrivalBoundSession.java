@@ -0,0 +1,101 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+
+/**
+ * Binds arrival bound strategies to a server graph and an analysis configuration.
+ * <p>
+ * Strategies are created once per method via the ArrivalBoundRegistry
+ * and never reconfigured, thus a session can be used by multiple threads concurrently
+ * and different sessions do not interfere.
+ * <p>
+ * An analysis creates its session once and passes it to ArrivalBoundDispatch. The strategies
+ * pass it on to the nested arrival bounds they derive, i.e., they are shared by the entire run.
+ */
+public class ArrivalBoundSession {
+	private final ServerGraph server_graph;
+	private final AnalysisConfig configuration;
+
+	private final Map<ArrivalBoundMethod, ArrivalBound> map__method__arrival_bound = new ConcurrentHashMap<ArrivalBoundMethod, ArrivalBound>();
+
+	public ArrivalBoundSession(ServerGraph server_graph, AnalysisConfig configuration) {
+		this.server_graph = server_graph;
+		this.configuration = configuration;
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	public AnalysisConfig getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * @param arrival_bound_method The arrival bound method.
+	 * @return The session's strategy of the method, null if none is registered.
+	 */
+	public ArrivalBound getArrivalBound(ArrivalBoundMethod arrival_bound_method) {
+		ArrivalBound arrival_bound = map__method__arrival_bound.get(arrival_bound_method);
+		if (arrival_bound != null) {
+			return arrival_bound;
+		}
+
+		ArrivalBoundRegistry.Factory factory = ArrivalBoundRegistry.getFactory(arrival_bound_method);
+		if (factory == null) {
+			return null;
+		}
+		return map__method__arrival_bound.computeIfAbsent(arrival_bound_method,
+				method -> factory.create(this));
+	}
+
+	/**
+	 * @param arrival_bound_method The arrival bound method.
+	 * @param turn                 The turn to bound the arrivals at.
+	 * @param flows_to_bound       The flows to bound.
+	 * @param flow_of_interest     The flow of interest to assign lowest priority to.
+	 * @return The arrival bounds.
+	 * @throws Exception No strategy is registered for the method or the bounding failed.
+	 */
+	public Set<ArrivalCurve> computeArrivalBound(ArrivalBoundMethod arrival_bound_method, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		ArrivalBound arrival_bound = getArrivalBound(arrival_bound_method);
+		if (arrival_bound == null) {
+			throw new Exception("No arrival bound registered for " + arrival_bound_method);
+		}
+		return arrival_bound.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.SeparateFlowAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
+
+/**
+ * Left-over service curves and output bounds of single flows on prefixes of their paths,
+ * as derived by the segregated arrival bounding methods.
+ * <p>
+ * A flow's prefix is the sub-path from its source to the server it leaves. The same
+ * prefixes recur for every downstream turn and every flow of interest. They are
+ * analyzed with the default configuration, independent of the analysis that bounds arrivals.
+ * <p>
+ * SFA derives a prefix's left-over service curves by convolving the prefix one server
+ * shorter with the left-over service curves at the additional server, i.e., prefixes
+ * are extended incrementally. The PMOO and TMA left-over service of a prefix does not
+ * decompose like this, these prefixes are analyzed as a whole and memoized.
+ */
+public class SegregatedArrivalBoundCache {
+	private final ServerGraph server_graph;
+
+	private final Map<List<Object>, Set<ServiceCurve>> map__prefix__betas_lo = new ConcurrentHashMap<List<Object>, Set<ServiceCurve>>();
+	private final Map<List<Object>, Set<ArrivalCurve>> map__prefix__alphas = new ConcurrentHashMap<List<Object>, Set<ArrivalCurve>>();
+
+	public SegregatedArrivalBoundCache(ServerGraph server_graph) {
+		this.server_graph = server_graph;
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	// By id, the flows replaced in a fork of the server graph keep the prefixes ending upstream of the replaced servers.
+	private static List<Object> key(ArrivalBoundMethod arrival_bound_method, Flow flow, Server prefix_sink) {
+		return Arrays.asList(arrival_bound_method, flow.getId(), prefix_sink.getId());
+	}
+
+	/**
+	 * @param arrival_bound_method SEGR_PBOO, SEGR_PMOO or SEGR_TM.
+	 * @param flow                 The flow to bound.
+	 * @param prefix_sink          The last server of the flow's prefix.
+	 * @return Copies of the flow's output bounds of its prefix.
+	 * @throws Exception Unknown method or the analysis of the prefix failed.
+	 */
+	public Set<ArrivalCurve> getArrivalBounds(ArrivalBoundMethod arrival_bound_method, Flow flow, Server prefix_sink) throws Exception {
+		List<Object> key = key(arrival_bound_method, flow, prefix_sink);
+
+		Set<ArrivalCurve> alphas = map__prefix__alphas.get(key);
+		if (alphas == null) {
+			alphas = new HashSet<ArrivalCurve>();
+			for (ServiceCurve beta_lo : getLeftOverServiceCurves(arrival_bound_method, flow, prefix_sink)) {
+				alphas.add(Calculator.getInstance().getMinPlus().deconvolve(flow.getArrivalCurve(), beta_lo));
+			}
+			alphas = Collections.unmodifiableSet(alphas);
+
+			Set<ArrivalCurve> alphas_concurrent = map__prefix__alphas.putIfAbsent(key, alphas);
+			if (alphas_concurrent != null) {
+				alphas = alphas_concurrent;
+			}
+		}
+
+		// The callers may beautify their curves.
+		Set<ArrivalCurve> alphas_copy = new HashSet<ArrivalCurve>();
+		for (ArrivalCurve alpha : alphas) {
+			alphas_copy.add(alpha.copy());
+		}
+		return alphas_copy;
+	}
+
+	/**
+	 * @param arrival_bound_method SEGR_PBOO, SEGR_PMOO or SEGR_TM.
+	 * @param flow                 The flow to serve.
+	 * @param prefix_sink          The last server of the flow's prefix.
+	 * @return The flow's left-over service curves on its prefix, not to be modified.
+	 * @throws Exception Unknown method or the analysis of the prefix failed.
+	 */
+	public Set<ServiceCurve> getLeftOverServiceCurves(ArrivalBoundMethod arrival_bound_method, Flow flow, Server prefix_sink) throws Exception {
+		Set<ServiceCurve> betas_lo = map__prefix__betas_lo.get(key(arrival_bound_method, flow, prefix_sink));
+		if (betas_lo != null) {
+			return betas_lo;
+		}
+
+		switch (arrival_bound_method) {
+		case SEGR_PBOO:
+			return extendSfaPrefix(flow, prefix_sink);
+
+		case SEGR_PMOO:
+			PmooAnalysis pmoo = new PmooAnalysis(server_graph);
+			pmoo.performAnalysis(flow, flow.getSubPath(flow.getSource(), prefix_sink));
+			return put(arrival_bound_method, flow, prefix_sink, pmoo.getLeftOverServiceCurves());
+
+		case SEGR_TM:
+			TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph);
+			tma.performAnalysis(flow, flow.getSubPath(flow.getSource(), prefix_sink));
+			return put(arrival_bound_method, flow, prefix_sink, tma.getLeftOverServiceCurves());
+
+		default:
+			throw new Exception("No segregated arrival bounding method: " + arrival_bound_method);
+		}
+	}
+
+	private Set<ServiceCurve> extendSfaPrefix(Flow flow, Server prefix_sink) throws Exception {
+		Path path = flow.getPath();
+		List<Server> servers = path.getServers();
+		int sink_idx = servers.indexOf(prefix_sink);
+		if (sink_idx < 0) {
+			throw new Exception("Server " + prefix_sink.toShortString() + " is not on the path of flow " + flow.getAlias());
+		}
+
+		// The longest prefix derived before.
+		int prefix_idx = sink_idx;
+		Set<ServiceCurve> betas_lo = null;
+		while (prefix_idx >= 0
+				&& (betas_lo = map__prefix__betas_lo.get(key(ArrivalBoundMethod.SEGR_PBOO, flow, servers.get(prefix_idx)))) == null) {
+			prefix_idx--;
+		}
+
+		AnalysisConfig configuration = new AnalysisConfig();
+		Set<Flow> flows_to_serve = Collections.singleton(flow);
+		for (int i = prefix_idx + 1; i <= sink_idx; i++) {
+			Server server = servers.get(i);
+			Set<ServiceCurve> betas_lo_server = SeparateFlowAnalysis.tandemAnalysis(server_graph, flow,
+					path.getSubPath(server, server), flows_to_serve, configuration).getBetasE2E();
+
+			betas_lo = (betas_lo == null) ? new HashSet<ServiceCurve>(betas_lo_server)
+					: Calculator.getInstance().getMinPlus().convolve(betas_lo, betas_lo_server);
+			betas_lo = put(ArrivalBoundMethod.SEGR_PBOO, flow, server, betas_lo);
+		}
+		return betas_lo;
+	}
+
+	private Set<ServiceCurve> put(ArrivalBoundMethod arrival_bound_method, Flow flow, Server prefix_sink, Set<ServiceCurve> betas_lo) {
+		Set<ServiceCurve> betas_lo_unmodifiable = Collections.unmodifiableSet(betas_lo);
+		Set<ServiceCurve> betas_lo_concurrent = map__prefix__betas_lo.putIfAbsent(key(arrival_bound_method, flow, prefix_sink), betas_lo_unmodifiable);
+		return betas_lo_concurrent != null ? betas_lo_concurrent : betas_lo_unmodifiable;
+	}
+
+	/**
+	 * Removes the prefixes ending at the given servers, their results depend on the servers' service.
+	 *
+	 * @param servers The servers whose service changed and all servers downstream of them.
+	 */
+	public void invalidate(Set<Server> servers) {
+		Set<Integer> server_ids = new HashSet<Integer>();
+		for (Server server : servers) {
+			server_ids.add(server.getId());
+		}
+		map__prefix__betas_lo.keySet().removeIf(key -> server_ids.contains(key.get(2)));
+		map__prefix__alphas.keySet().removeIf(key -> server_ids.contains(key.get(2)));
+	}
+
+	public void clear() {
+		map__prefix__betas_lo.clear();
+		map__prefix__alphas.clear();
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.EnforcementProfile;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+import org.networkcalculus.num.Num;
+
+/**
+ * Memoized TFA backlog bounds of single servers that cap the burstiness of arrival bounds,
+ * see AnalysisConfig.serverBacklogArrivalBound().
+ * <p>
+ * A server's backlog bound depends on the server graph and the configuration but not on
+ * the flow of interest. It is thus shared by all arrival bound derivations. The bounds are
+ * attached to their server graph and keyed by its revision, i.e., bounds derived before
+ * a modification of servers, flows or service curves are not handed out anymore.
+ * Invalidated together with the arrival bound caches by ArrivalBoundDispatch.
+ */
+public final class ServerBacklogBounds {
+	private final Map<List<Object>,Num> map__key__backlog_bound = new ConcurrentHashMap<List<Object>,Num>();
+
+	private ServerBacklogBounds() {}
+
+	public static Num getBacklogBound( ServerGraph server_graph, AnalysisConfig configuration, Server server ) throws Exception {
+		Map<List<Object>,Num> map__key__backlog_bound = server_graph.getAnalysisCache( ServerBacklogBounds.class, sg -> new ServerBacklogBounds() ).map__key__backlog_bound;
+		long revision = server_graph.getRevision();
+
+		// Configurations that only differ in enforcements without effect up to the server share the bound.
+		// The normalized configuration is a copy, the given one may be modified later on.
+		AnalysisConfig configuration_key = EnforcementProfile.upstream( server_graph, server, true ).normalize( configuration );
+
+		Num backlog_bound = map__key__backlog_bound.get( getKey( configuration_key, revision, server ) );
+		if( backlog_bound != null ) {
+			return backlog_bound;
+		}
+
+		// Not computed inside the map, the TFA recursively requests the backlog bounds of upstream servers.
+		TotalFlowAnalysis tfa = new TotalFlowAnalysis( server_graph, configuration );
+		backlog_bound = tfa.deriveBoundsAtServer( server ).getSecond();
+
+		Num backlog_bound_concurrent = map__key__backlog_bound.putIfAbsent( getKey( configuration_key, revision, server ), backlog_bound );
+		return backlog_bound_concurrent == null ? backlog_bound : backlog_bound_concurrent;
+	}
+
+	/**
+	 * @param server_graph The server graph the servers belong to.
+	 * @param servers      The servers whose service changed and all servers downstream of them.
+	 */
+	public static void invalidate( ServerGraph server_graph, Set<Server> servers ) {
+		ServerBacklogBounds backlog_bounds = server_graph.getAnalysisCacheIfPresent( ServerBacklogBounds.class );
+		if( backlog_bounds != null ) {
+			backlog_bounds.map__key__backlog_bound.keySet().removeIf( key -> servers.contains( key.get( 2 ) ) );
+		}
+	}
+
+	private static List<Object> getKey( AnalysisConfig configuration, long revision, Server server ) {
+		return Arrays.asList( configuration, revision, server );
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.utils.ForkJoinUtils;
+
+/**
+ * The inputs of bounding a turn's arrivals that do not depend on the arrival bound method:
+ * the flows to bound that cross the turn's destination, their common sub-path starting at the turn
+ * and the arrival bound of the flows at this sub-path's source, i.e., the left-over prefix.
+ * <p>
+ * ArrivalBoundDispatch derives them once per turn and passes them to every method.
+ * The prefix arrival bound is derived by the first method asking for it, the others join.
+ */
+public class TurnArrivalBoundInputs {
+	private final ArrivalBoundSession ab_session;
+	private final Turn turn;
+	private final Set<Flow> flows_to_bound;
+	private final Flow flow_of_interest;
+
+	private final Set<Flow> f_xfcaller_dest;
+	private final Path common_subpath;
+
+	private final AtomicReference<ForkJoinTask<Set<ArrivalCurve>>> alpha_xfcaller_src_task = new AtomicReference<ForkJoinTask<Set<ArrivalCurve>>>();
+
+	public TurnArrivalBoundInputs(ArrivalBoundSession ab_session, Turn turn, Set<Flow> flows_to_bound,
+			Flow flow_of_interest) throws Exception {
+		this.ab_session = ab_session;
+		this.turn = turn;
+		this.flows_to_bound = flows_to_bound == null ? Collections.emptySet()
+				: Collections.unmodifiableSet(new HashSet<Flow>(flows_to_bound));
+		this.flow_of_interest = flow_of_interest;
+
+		ServerGraph server_graph = ab_session.getServerGraph();
+		Set<Flow> f_xfcaller_dest = server_graph.getFlowsIntersection(turn.getDest(), this.flows_to_bound);
+		f_xfcaller_dest.remove(flow_of_interest);
+		this.f_xfcaller_dest = Collections.unmodifiableSet(f_xfcaller_dest);
+
+		this.common_subpath = f_xfcaller_dest.isEmpty() ? null
+				: server_graph.findCommonSubPath(turn, f_xfcaller_dest);
+	}
+
+	public Turn getTurn() {
+		return turn;
+	}
+
+	/**
+	 * @return The flows to bound, unmodifiable.
+	 */
+	public Set<Flow> getFlowsToBound() {
+		return flows_to_bound;
+	}
+
+	public Flow getFlowOfInterest() {
+		return flow_of_interest;
+	}
+
+	/**
+	 * @return The flows to bound that cross the turn's destination without the flow of interest, unmodifiable.
+	 */
+	public Set<Flow> getFlowsToBoundAtDest() {
+		return f_xfcaller_dest;
+	}
+
+	/**
+	 * @return The common sub-path of the flows to bound at the destination, null if there are none.
+	 */
+	public Path getCommonSubPath() {
+		return common_subpath;
+	}
+
+	/**
+	 * @return The arrival bounds of the flows to bound at the common sub-path's source.
+	 * @throws Exception Potential exception raised in the arrival bounding.
+	 */
+	public Set<ArrivalCurve> getArrivalBoundsAtCommonSubPathSrc() throws Exception {
+		Server common_subpath_src = common_subpath.getSource();
+		ForkJoinTask<Set<ArrivalCurve>> task = ForkJoinTask.adapt(() -> ArrivalBoundDispatch.computeArrivalBounds(ab_session,
+				common_subpath_src, new HashSet<Flow>(flows_to_bound), flow_of_interest));
+		boolean owner = alpha_xfcaller_src_task.compareAndSet(null, task);
+		
+		// Every method gets its own set, the curves themselves are not modified.
+		return new HashSet<ArrivalCurve>(ForkJoinUtils.join(alpha_xfcaller_src_task.get(), owner));
+	}
+}
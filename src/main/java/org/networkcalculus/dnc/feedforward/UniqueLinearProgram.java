@@ -35,11 +35,15 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.math3.util.Pair;
@@ -91,6 +95,9 @@ import org.networkcalculus.num.Num;
  *   	In Proceedings of the IEEE International Workshop on Computer Aided Modeling and Design of Communication Links and Networks (CAMAD), 2018.
  *  
  *  (TODO investigate effect of CPLEX parameter settings for integrality tolerance, optimality tolerance, etc.)
+ *  
+ * The constraints only depend on the flow of interest's path, the flow itself only appears in the objective.
+ * UniqueLinearProgramGenerator makes use of this to create the ULPs of many flows.
  */
 public class UniqueLinearProgram {
 	boolean debug = false;
@@ -130,10 +137,22 @@ public class UniqueLinearProgram {
 	Server explicit_src;
 	Path empty_path;
 	
+	// Arguments to deriveConstraints per path to trace and suffix, shared by the ULPs of a UniqueLinearProgramGenerator.
+	Map<List<Path>,List<Pair<Server,Path>>> map__ptt_suffix__server_pis;
+	
 	@SuppressWarnings("unused")
 	private UniqueLinearProgram() {}
 	
 	public UniqueLinearProgram( ServerGraph network, Flow flow_of_interest ) throws Exception {
+		this( network, flow_of_interest, null );
+	}
+	
+	/**
+	 * @param map__ptt_suffix__server_pis	Memoized pi enumeration of ULPs in the same server graph, <code>null</code> to not memoize.
+	 * 										Must be thread-safe if shared by ULPs created concurrently.
+	 */
+	UniqueLinearProgram( ServerGraph network, Flow flow_of_interest, Map<List<Path>,List<Pair<Server,Path>>> map__ptt_suffix__server_pis ) throws Exception {
+		this.map__ptt_suffix__server_pis = map__ptt_suffix__server_pis;
 		this.server_graph = network;
 		this.flow_of_interest = flow_of_interest;
 		sink_of_interest = flow_of_interest.getSink();
@@ -339,8 +358,63 @@ public class UniqueLinearProgram {
 		}
 	}
 
+	/**
+	 * Creates the ULP of another flow on the same path as the template's flow of interest.
+	 * The constraints are shared with the template, they are not modified after its construction.
+	 */
+	UniqueLinearProgram( UniqueLinearProgram template, Flow flow_of_interest ) throws Exception {
+		if( !flow_of_interest.getPath().equals( template.flow_of_interest.getPath() ) ) {
+			throw new Exception( "The ULP template was created for a different path" );
+		}
+		
+		this.server_graph = template.server_graph;
+		this.flow_of_interest = flow_of_interest;
+		this.sink_of_interest = template.sink_of_interest;
+		this.explicit_src = template.explicit_src;
+		this.empty_path = template.empty_path;
+		this.map__ptt_suffix__server_pis = template.map__ptt_suffix__server_pis;
+		
+		this.map__j__jpi = template.map__j__jpi;
+		this.map__j__pair_jpi_pi = template.map__j__pair_jpi_pi;
+		this.pi_flow = template.pi_flow;
+		this.pi_flow_server = template.pi_flow_server;
+		
+		this.temp_constraints = template.temp_constraints;
+		this.temp_constraints_transClosed = template.temp_constraints_transClosed;
+		this.map__path__temp_constraints_transClosed = template.map__path__temp_constraints_transClosed;
+		
+		this.s2c_constraints = template.s2c_constraints;
+		this.startBP_constraints = template.startBP_constraints;
+		this.flow_constr_hdr = template.flow_constr_hdr;
+		this.flow_constraints = template.flow_constraints;
+		this.flow_constraints_hdr = template.flow_constraints_hdr;
+		this.nonDecreasing_constraints = template.nonDecreasing_constraints;
+		this.nonDecreasingAtSource_constraints = template.nonDecreasingAtSource_constraints;
+		this.arrival_constraints = template.arrival_constraints;
+	}
+
 	private void derivePi( Flow flow_to_trace, Server tracing_start, Path suffix ) throws Exception {
-		Path path_to_trace = flow_to_trace.getSubPath( flow_to_trace.getSource(), tracing_start );
+		for( Pair<Server,Path> server_pi : tracePi( flow_to_trace, flow_to_trace.getSubPath( flow_to_trace.getSource(), tracing_start ), suffix ) ) {
+			deriveConstraints( server_pi.getFirst(), server_pi.getSecond() );
+		}
+	}
+	
+	/**
+	 * Traces the flows backwards from the end of <code>path_to_trace</code>.
+	 * The result only depends on <code>path_to_trace</code> and <code>suffix</code>,
+	 * it is memoized if map__ptt_suffix__server_pis is set.
+	 * 
+	 * @return The arguments to call deriveConstraints with, in the order of the depth-first search.
+	 */
+	private List<Pair<Server,Path>> tracePi( Flow flow_to_trace, Path path_to_trace, Path suffix ) throws Exception {
+		List<Path> ptt_suffix = Arrays.asList( path_to_trace, suffix );
+		if( map__ptt_suffix__server_pis != null ) {
+			List<Pair<Server,Path>> server_pis = map__ptt_suffix__server_pis.get( ptt_suffix );
+			if( server_pis != null ) {
+				return server_pis;
+			}
+		}
+		List<Pair<Server,Path>> server_pis = new ArrayList<Pair<Server,Path>>();
 		
 		if( debug ) {
 			System.out.println( "ftt\t" + flow_to_trace.getAlias() );
@@ -356,7 +430,7 @@ public class UniqueLinearProgram {
 		for ( Iterator<Server> servers_reverse_iter = path_to_trace.getServers().descendingIterator(); servers_reverse_iter.hasNext(); ) {
 			current_server = servers_reverse_iter.next();
 
-			deriveConstraints( current_server, suffix_new ); // Need to use suffix_new because it gets updated in the loop.
+			server_pis.add( new Pair<Server,Path>( current_server, suffix_new ) ); // Need to use suffix_new because it gets updated in the loop.
 
 			// Given flow to trace.
 			suffix_ftt_servers = suffix_new.getServers();
@@ -375,9 +449,16 @@ public class UniqueLinearProgram {
 				}
 			}
 			for ( Flow new_flow_to_trace : flows_to_trace_next ) {
-				derivePi( new_flow_to_trace, new_flow_to_trace.getPath().getPrecedingServer(current_server), suffix_new );
+				server_pis.addAll( tracePi( new_flow_to_trace,
+						new_flow_to_trace.getSubPath( new_flow_to_trace.getSource(), new_flow_to_trace.getPath().getPrecedingServer(current_server) ),
+						suffix_new ) );
 			}
 		}
+		
+		if( map__ptt_suffix__server_pis != null ) {
+			map__ptt_suffix__server_pis.putIfAbsent( ptt_suffix, Collections.unmodifiableList( server_pis ) );
+		}
+		return server_pis;
 	}
 	
 	/**
@@ -0,0 +1,152 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.commons.math3.util.Pair;
+
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.utils.ForkJoinUtils;
+
+/**
+ * Creates the unique linear programs (ULPs) of many flows in a server graph.
+ * <p>
+ * A ULP's constraints only depend on the flow of interest's path. They are derived once per path,
+ * the ULPs of further flows on the path share them and only differ in the objective.
+ * Moreover, all ULPs share the enumeration of the pi paths, i.e.,
+ * ULPs of flows with a common sink and overlapping interference reuse the flows traced for each other.
+ * <p>
+ * The ULPs of different paths can be derived in parallel, see setParallelism(int).
+ * The server graph must not be modified while ULPs are generated.
+ */
+public class UniqueLinearProgramGenerator {
+	private ServerGraph server_graph;
+	private int parallelism = 1;
+
+	private Map<List<Path>, List<Pair<Server, Path>>> map__ptt_suffix__server_pis = new ConcurrentHashMap<List<Path>, List<Pair<Server, Path>>>();
+
+	public UniqueLinearProgramGenerator(ServerGraph server_graph) {
+		this.server_graph = server_graph;
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	/**
+	 * @param parallelism Number of ULPs derived in parallel, 1 to derive them sequentially.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Generation
+	// --------------------------------------------------------------------------------------------------------------
+
+	public UniqueLinearProgram generate(Flow flow_of_interest) throws Exception {
+		return generate(Collections.singleton(flow_of_interest)).get(flow_of_interest);
+	}
+
+	/**
+	 * @param flows_of_interest The flows to create a ULP for.
+	 * @return The ULPs in the iteration order of <code>flows_of_interest</code>.
+	 * @throws Exception The first exception raised while deriving the constraints.
+	 */
+	public Map<Flow, UniqueLinearProgram> generate(Collection<Flow> flows_of_interest) throws Exception {
+		Map<Path, List<Flow>> map__path__flows = new LinkedHashMap<Path, List<Flow>>();
+		for (Flow flow : flows_of_interest) {
+			map__path__flows.computeIfAbsent(flow.getPath(), path -> new LinkedList<Flow>()).add(flow);
+		}
+
+		List<Flow> template_flows = new ArrayList<Flow>(map__path__flows.size());
+		for (List<Flow> flows_on_path : map__path__flows.values()) {
+			template_flows.add(flows_on_path.get(0));
+		}
+		UniqueLinearProgram[] templates = new UniqueLinearProgram[template_flows.size()];
+
+		int segments = Math.min(parallelism, templates.length);
+		if (segments <= 1) {
+			generateSegment(template_flows, templates, 0, templates.length);
+		} else {
+			List<ForkJoinTask<Void>> segment_tasks = new ArrayList<ForkJoinTask<Void>>();
+			for (int segment = 0; segment < segments; segment++) {
+				int first = segment * templates.length / segments;
+				int last = (segment + 1) * templates.length / segments;
+
+				segment_tasks.add(ForkJoinTask.adapt(() -> {
+					generateSegment(template_flows, templates, first, last);
+					return null;
+				}));
+			}
+			ForkJoinUtils.invokeAll(segment_tasks);
+		}
+
+		Map<Path, UniqueLinearProgram> map__path__template = new LinkedHashMap<Path, UniqueLinearProgram>();
+		for (int i = 0; i < templates.length; i++) {
+			map__path__template.put(template_flows.get(i).getPath(), templates[i]);
+		}
+
+		Map<Flow, UniqueLinearProgram> map__flow__ulp = new LinkedHashMap<Flow, UniqueLinearProgram>();
+		for (Flow flow : flows_of_interest) {
+			UniqueLinearProgram template = map__path__template.get(flow.getPath());
+			if (template.flow_of_interest == flow) {
+				map__flow__ulp.put(flow, template);
+			} else {
+				map__flow__ulp.put(flow, new UniqueLinearProgram(template, flow));
+			}
+		}
+		return map__flow__ulp;
+	}
+
+	private void generateSegment(List<Flow> template_flows, UniqueLinearProgram[] templates, int first, int last)
+			throws Exception {
+		for (int i = first; i < last; i++) {
+			templates[i] = new UniqueLinearProgram(server_graph, template_flows.get(i), map__ptt_suffix__server_pis);
+		}
+	}
+
+	/**
+	 * Drops the memoized pi enumeration, e.g., after the server graph was modified.
+	 */
+	public void clear() {
+		map__ptt_suffix__server_pis.clear();
+	}
+}
@@ -26,11 +26,11 @@
 
 package org.networkcalculus.dnc.feedforward.arrivalbounds;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.networkcalculus.dnc.AlgDncBackend_DNC_Affine;
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
@@ -40,14 +40,13 @@ import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.feedforward.AbstractArrivalBound;
 import org.networkcalculus.dnc.feedforward.ArrivalBound;
 import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundSession;
+import org.networkcalculus.dnc.feedforward.TurnArrivalBoundInputs;
 import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
-import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
-import org.networkcalculus.dnc.utils.SetUtils;
-import org.networkcalculus.num.Num;
 
 public class AggregatePboo_Concatenation extends AbstractArrivalBound implements ArrivalBound {
 	private static AggregatePboo_Concatenation instance = new AggregatePboo_Concatenation();
@@ -55,11 +54,15 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 	private AggregatePboo_Concatenation() {
 	}
 
-	public AggregatePboo_Concatenation(ServerGraph server_graph, AnalysisConfig configuration) {
-		this.server_graph = server_graph;
-		this.configuration = configuration;
+	public AggregatePboo_Concatenation(ArrivalBoundSession ab_session) {
+		super(ab_session);
 	}
 
+	/**
+	 * @return A singleton shared by all callers that is reconfigured via setServerGraph and setConfiguration.
+	 * @deprecated Not safe for concurrent or nested use, use an instance bound to an ArrivalBoundSession.
+	 */
+	@Deprecated
 	public static AggregatePboo_Concatenation getInstance() {
 		return instance;
 	}
@@ -70,6 +73,13 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 
 	public Set<ArrivalCurve> computeArrivalBound(Turn turn, Set<Flow> f_xfcaller, Flow flow_of_interest)
 			throws Exception {
+		return computeArrivalBound(new TurnArrivalBoundInputs(getArrivalBoundSession(), turn, f_xfcaller, flow_of_interest));
+	}
+
+	public Set<ArrivalCurve> computeArrivalBound(TurnArrivalBoundInputs inputs) throws Exception {
+		Turn turn = inputs.getTurn();
+		Set<Flow> f_xfcaller = inputs.getFlowsToBound();
+		Flow flow_of_interest = inputs.getFlowOfInterest();
 		Set<ArrivalCurve> alphas_xfcaller = new HashSet<ArrivalCurve>(
 				Collections.singleton(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()));
 		if (f_xfcaller == null || f_xfcaller.isEmpty()) {
@@ -77,11 +87,8 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 		}
 
 		// Get the servers on common sub-path of f_xfcaller flows crossing turn
-		// loi == location of interference
-		Server loi = turn.getDest();
-		Set<Flow> f_loi = server_graph.getFlows(loi);
-		Set<Flow> f_xfcaller_loi = SetUtils.getIntersection(f_loi, f_xfcaller);
-		f_xfcaller_loi.remove(flow_of_interest);
+		// loi == location of interference, the turn's destination
+		Set<Flow> f_xfcaller_loi = inputs.getFlowsToBoundAtDest();
 		if (f_xfcaller_loi.size() == 0) {
 			return alphas_xfcaller;
 		}
@@ -91,10 +98,8 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 		// There's not a big potential to increase performance as the PBOO arrival bound
 		// implicitly handles this situation by only iterating over one server in the
 		// for loop.
-		Server common_subpath_src = server_graph.findSplittingServer(loi, f_xfcaller_loi);
-		Server common_subpath_dest = turn.getSource();
-		Flow f_representative = f_xfcaller_loi.iterator().next();
-		Path common_subpath = f_representative.getSubPath(common_subpath_src, common_subpath_dest);
+		Path common_subpath = inputs.getCommonSubPath();
+		Server common_subpath_src = common_subpath.getSource();
 
 		// Calculate the left-over service curves on this sub-path by convolution of the
 		// individual left over service curves
@@ -102,6 +107,8 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 		Set<ServiceCurve> betas_lo_s;
 		Turn turn_from_prev_s;
 		Path foi_path = flow_of_interest.getPath();
+		BitSet f_xfcaller_foi_ids = server_graph.getFlowIds(f_xfcaller);
+		f_xfcaller_foi_ids.or(server_graph.getFlowIds(Collections.singleton(flow_of_interest)));
 		for (Server server : common_subpath.getServers()) {
 			try {
 				turn_from_prev_s = server_graph.findTurn(foi_path.getPrecedingServer(server), server);
@@ -109,22 +116,25 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 				turn_from_prev_s = null; // reset to null
 			}
 
-			Set<Flow> f_xxfcaller_server = server_graph.getFlows(server);
-			f_xxfcaller_server.removeAll(f_xfcaller);
-			f_xxfcaller_server.remove(flow_of_interest);
+			// Split the cross-traffic on flow ids, only the results are converted to sets of flows.
+			BitSet f_xxfcaller_server_ids = server_graph.getFlowIds(server);
+			f_xxfcaller_server_ids.andNot(f_xfcaller_foi_ids);
 
-			Set<Flow> f_xxfcaller_server_path = SetUtils.getIntersection(f_xxfcaller_server,
-					server_graph.getFlows(turn_from_prev_s));
+			BitSet f_xxfcaller_server_path_ids = server_graph.retainFlowIds(turn_from_prev_s,
+					(BitSet) f_xxfcaller_server_ids.clone());
 
 			// Convert f_xfoi_server to f_xfoi_server_offpath
-			f_xxfcaller_server.removeAll(f_xxfcaller_server_path);
+			f_xxfcaller_server_ids.andNot(f_xxfcaller_server_path_ids);
+
+			Set<Flow> f_xxfcaller_server_path = server_graph.getFlows(f_xxfcaller_server_path_ids);
+			Set<Flow> f_xxfcaller_server = server_graph.getFlows(f_xxfcaller_server_ids);
 
 			// If we are off the path of interest, flow_of_interest is Flow.NULL_FLOW
 			// already.
-			Set<ArrivalCurve> alpha_xxfcaller_path = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
+			Set<ArrivalCurve> alpha_xxfcaller_path = ArrivalBoundDispatch.computeArrivalBounds(getArrivalBoundSession(),
 					server, f_xxfcaller_server_path, flow_of_interest);
-			Set<ArrivalCurve> alpha_xxfcaller_offpath = ArrivalBoundDispatch.computeArrivalBounds(server_graph,
-					configuration, server, f_xxfcaller_server, Flow.NULL_FLOW);
+			Set<ArrivalCurve> alpha_xxfcaller_offpath = ArrivalBoundDispatch.computeArrivalBounds(getArrivalBoundSession(),
+					server, f_xxfcaller_server, Flow.NULL_FLOW);
 
 			Set<ArrivalCurve> alphas_xxfcaller_s = new HashSet<ArrivalCurve>();
 			for (ArrivalCurve arrival_curve_path : alpha_xxfcaller_path) {
@@ -134,7 +144,7 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 			}
 
 			// Calculate the left-over service curve for this single server
-			betas_lo_s = Calculator.getInstance().getDncBackend().getBoundingCurves().leftOverService(configuration, server, alphas_xxfcaller_s);
+			betas_lo_s = Calculator.getInstance().getBoundingCurves().leftOverService(configuration, server, alphas_xxfcaller_s);
 
 			// Check if there's any service left on this path. If not, the set only contains
 			// a null-service curve.
@@ -156,40 +166,13 @@ public class AggregatePboo_Concatenation extends AbstractArrivalBound implements
 		// deconvolve it with beta_lo_s to get the arrival bound of the sub-path.
 		// Note that flows f_xfcaller that originate in 'common_subpath_src' are covered
 		// by this call of computeArrivalBound.
-		Set<ArrivalCurve> alpha_xfcaller_src = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-				common_subpath_src, f_xfcaller, flow_of_interest);
-		alphas_xfcaller = Calculator.getInstance().getDncBackend().getBoundingCurves().output(configuration, alpha_xfcaller_src, common_subpath, betas_lo_subpath);
+		Set<ArrivalCurve> alpha_xfcaller_src = inputs.getArrivalBoundsAtCommonSubPathSrc();
+		alphas_xfcaller = Calculator.getInstance().getBoundingCurves().output(configuration, alpha_xfcaller_src, common_subpath, betas_lo_subpath);
 
-		// TODO This implementation only works for token-bucket arrivals. 
 		if (configuration.serverBacklogArrivalBound()) {
-			if(Calculator.getInstance().getDncBackend() == AlgDncBackend_DNC_Affine.DISCO_AFFINE) {
-				Server last_hop_xtx = turn.getSource();
-				// For the DNC, it is easiest to use TFA to compute the server's backlog bound. 
-				TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph, configuration);
-				tfa.deriveBoundsAtServer(last_hop_xtx);
-	
-				Set<Num> tfa_backlog_bounds = tfa.getServerBacklogBoundMap().get(last_hop_xtx);
-				Num tfa_backlog_bound_min = Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity();
-	
-				for (Num tfa_backlog_bound : tfa_backlog_bounds) {
-					if (tfa_backlog_bound.leq(tfa_backlog_bound_min)) {
-						tfa_backlog_bound_min = tfa_backlog_bound;
-					}
-				}
-	
-				// Reduce the burst: Here's the limitation.
-				// It disregards the potential shift in inflection points not present in this burst cap variant.
-				for (ArrivalCurve alpha_xfcaller : alphas_xfcaller) {
-					if (alpha_xfcaller.getBurst().gt(tfa_backlog_bound_min)) {
-						// If the burst is >0 then there are at least two segments and the second holds the burst as its y-axis value.
-						alpha_xfcaller.getSegment(1).setY(tfa_backlog_bound_min);
-					}
-				}
-			} else {
-				System.out.println("INFO: Capping output burstiness was not executed as it currently only works for DISCO_AFFINE curves.");
-			}
+			alphas_xfcaller = capBurstsAtServerBacklog(turn.getSource(), alphas_xfcaller);
 		}
-
+		
 		return alphas_xfcaller;
 	}
 }
@@ -42,13 +42,14 @@ import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.feedforward.AbstractArrivalBound;
 import org.networkcalculus.dnc.feedforward.ArrivalBound;
 import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundSession;
+import org.networkcalculus.dnc.feedforward.TurnArrivalBoundInputs;
 import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
 import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
-import org.networkcalculus.dnc.utils.SetUtils;
 
 public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound {
 	private static AggregatePmoo instance = new AggregatePmoo();
@@ -56,11 +57,15 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 	private AggregatePmoo() {
 	}
 
-	public AggregatePmoo(ServerGraph server_graph, AnalysisConfig configuration) {
-		this.server_graph = server_graph;
-		this.configuration = configuration;
+	public AggregatePmoo(ArrivalBoundSession ab_session) {
+		super(ab_session);
 	}
 
+	/**
+	 * @return A singleton shared by all callers that is reconfigured via setServerGraph and setConfiguration.
+	 * @deprecated Not safe for concurrent or nested use, use an instance bound to an ArrivalBoundSession.
+	 */
+	@Deprecated
 	public static AggregatePmoo getInstance() {
 		return instance;
 	}
@@ -91,6 +96,13 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 	 */
 	public Set<ArrivalCurve> computeArrivalBound(Turn turn, Set<Flow> f_xfcaller, Flow flow_of_interest)
 			throws Exception {
+		return computeArrivalBound(new TurnArrivalBoundInputs(getArrivalBoundSession(), turn, f_xfcaller, flow_of_interest));
+	}
+
+	public Set<ArrivalCurve> computeArrivalBound(TurnArrivalBoundInputs inputs) throws Exception {
+		Turn turn = inputs.getTurn();
+		Set<Flow> f_xfcaller = inputs.getFlowsToBound();
+		Flow flow_of_interest = inputs.getFlowOfInterest();
 
 		Set<ArrivalCurve> alphas_xfcaller = new HashSet<ArrivalCurve>(Collections.singleton(Curve.getFactory().createZeroArrivals()));
 		if (f_xfcaller == null || f_xfcaller.isEmpty()) {
@@ -98,11 +110,8 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 		}
 
 		// Get the common sub-path of f_xfcaller flows crossing the given turn
-		// soi == server of interference
-		Server soi = turn.getDest();
-		Set<Flow> f_soi = server_graph.getFlows(soi);
-		Set<Flow> f_xfcaller_soi = SetUtils.getIntersection(f_soi, f_xfcaller);
-		f_xfcaller_soi.remove(flow_of_interest);
+		// soi == server of interference, the turn's destination
+		Set<Flow> f_xfcaller_soi = inputs.getFlowsToBoundAtDest();
 		if (f_xfcaller_soi.isEmpty()) {
 			return new HashSet<ArrivalCurve>(Collections.singleton(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()));
 		}
@@ -113,25 +122,22 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 			throw new Exception("PMOO arrival bounding is not available for FIFO multiplexing nodes");
 		}
 
-		Server common_subpath_src = server_graph.findSplittingServer(soi, f_xfcaller_soi);
-		Server common_subpath_dest = turn.getSource();
-		Path common_subpath;
+		Path common_subpath = inputs.getCommonSubPath();
+		Server common_subpath_src = common_subpath.getSource();
 		Set<ServiceCurve> betas_loxfcaller_subpath = new HashSet<ServiceCurve>();
 
-		common_subpath = f_xfcaller_soi.iterator().next().getPath().getSubPath(common_subpath_src, common_subpath_dest);
-
 		if (common_subpath.numServers() == 1) {
 			common_subpath = new Path(common_subpath_src);
 
 			Set<Flow> f_xxfcaller = server_graph.getFlows(common_subpath_src);
 			f_xxfcaller.removeAll(f_xfcaller_soi);
 			f_xxfcaller.remove(flow_of_interest);
-			Set<ArrivalCurve> alphas_xxfcaller = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
+			Set<ArrivalCurve> alphas_xxfcaller = ArrivalBoundDispatch.computeArrivalBounds(getArrivalBoundSession(),
 					common_subpath_src, f_xxfcaller, flow_of_interest);
 
 			ServiceCurve null_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
 
-			for (ServiceCurve beta_loxfcaller_subpath : Calculator.getInstance().getDncBackend().getBoundingCurves().leftOverServiceARB(common_subpath_src.getServiceCurve(),
+			for (ServiceCurve beta_loxfcaller_subpath : Calculator.getInstance().getBoundingCurves().leftOverServiceARB(common_subpath_src.getServiceCurve(),
 					alphas_xxfcaller)) {
 				if (!beta_loxfcaller_subpath.equals(null_service)) {
 					// Adding to the set, not adding up the curves
@@ -159,9 +165,8 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 		// bound of the sub-path
 		// Note that flows f_xfcaller that originate in 'common_subpath_src' are covered
 		// by this call of computeArrivalBound
-		Set<ArrivalCurve> alpha_xfcaller_src = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-				common_subpath_src, f_xfcaller, flow_of_interest);
-		alphas_xfcaller = Calculator.getInstance().getDncBackend().getBoundingCurves().output(configuration, alpha_xfcaller_src, common_subpath, betas_loxfcaller_subpath);
+		Set<ArrivalCurve> alpha_xfcaller_src = inputs.getArrivalBoundsAtCommonSubPathSrc();
+		alphas_xfcaller = Calculator.getInstance().getBoundingCurves().output(configuration, alpha_xfcaller_src, common_subpath, betas_loxfcaller_subpath);
 
 		return alphas_xfcaller;
 	}
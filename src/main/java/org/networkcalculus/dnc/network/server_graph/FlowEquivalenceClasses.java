@@ -0,0 +1,252 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+
+/**
+ * Groups the flows of a server graph into equivalence classes of flows with
+ * identical path and arrival curve. The flows of a class are indistinguishable,
+ * thus every analysis derives the same bounds for each of them.
+ * <p>
+ * The reduced server graph contains the same servers and turns. Each class is
+ * represented by one flow that can be analyzed, plus one aggregate flow for the
+ * class's other members that only acts as cross-traffic. Analyses therefore
+ * scale with the number of classes instead of the number of flows. Aggregating
+ * flows with identical paths is sound. Segregated arrival bounding
+ * may derive tighter bounds for the aggregate than for its members bounded individually.
+ * <p>
+ * Flows on different paths are not grouped, even if the server graph is symmetric.
+ * Their bounds only coincide if an automorphism of the entire server graph maps
+ * one flow onto the other.
+ */
+public class FlowEquivalenceClasses {
+	/**
+	 * An analysis of a flow of interest in a server graph.
+	 *
+	 * @param <R> Type of the analysis result.
+	 */
+	@FunctionalInterface
+	public interface FlowAnalysis<R> {
+		R analyze(ServerGraph server_graph, Flow flow_of_interest) throws Exception;
+	}
+
+	private final ServerGraph server_graph;
+	private final ServerGraph reduced_server_graph;
+
+	private final Map<Flow, List<Flow>> map__representative__class = new LinkedHashMap<Flow, List<Flow>>();
+	private final Map<Flow, Flow> map__flow__representative = new HashMap<Flow, Flow>();
+	private final Map<Flow, Flow> map__representative__reduced_flow = new HashMap<Flow, Flow>();
+
+	public FlowEquivalenceClasses(ServerGraph server_graph) throws Exception {
+		this.server_graph = server_graph;
+
+		// Classes in ascending flow id order of their representatives, members in ascending id order.
+		List<Flow> flows = new ArrayList<Flow>(server_graph.getFlows());
+		flows.sort((f1, f2) -> Integer.compare(f1.getId(), f2.getId()));
+
+		Set<Path> paths_done = new HashSet<Path>();
+		for (Flow f : flows) {
+			if (map__flow__representative.containsKey(f) || !paths_done.add(f.getPath())) {
+				continue;
+			}
+
+			List<Flow> flows_path = new ArrayList<Flow>(server_graph.getFlowsByPath(f.getPath()));
+			flows_path.sort((f1, f2) -> Integer.compare(f1.getId(), f2.getId()));
+
+			// Keyed by the interned curves. They are beautified, i.e., equal curves share their hash code.
+			Map<ArrivalCurve, List<Flow>> map__arrival_curve__class = new LinkedHashMap<ArrivalCurve, List<Flow>>();
+			for (Flow f_path : flows_path) {
+				map__arrival_curve__class.computeIfAbsent((ArrivalCurve) f_path.getArrivalCurve().intern(),
+						ac -> new ArrayList<Flow>()).add(f_path);
+			}
+			for (List<Flow> flow_class : map__arrival_curve__class.values()) {
+				Flow representative = flow_class.get(0);
+				map__representative__class.put(representative, Collections.unmodifiableList(flow_class));
+				for (Flow member : flow_class) {
+					map__flow__representative.put(member, representative);
+				}
+			}
+		}
+
+		reduced_server_graph = createReducedServerGraph();
+	}
+
+	private ServerGraph createReducedServerGraph() throws Exception {
+		ServerGraph sg_new = new ServerGraph();
+
+		// Servers and turns are copied like in ServerGraph.copy().
+		Map<Server, Server> map__s_old__s_new = new HashMap<Server, Server>();
+		for (Server s_old : server_graph.getServers()) {
+			map__s_old__s_new.put(s_old, sg_new.addServer(s_old.getAlias(), s_old.getServiceCurve().copy(),
+					s_old.getMaxServiceCurve().copy(), s_old.multiplexing(), s_old.useMaxSC(),
+					s_old.useMaxScRate()));
+		}
+
+		Map<Turn, Turn> map__t_old__t_new = new HashMap<Turn, Turn>();
+		for (Turn t_old : server_graph.getTurns()) {
+			map__t_old__t_new.put(t_old, sg_new.addTurn(t_old.getAlias(), map__s_old__s_new.get(t_old.getSource()),
+					map__s_old__s_new.get(t_old.getDest())));
+		}
+
+		for (Map.Entry<Flow, List<Flow>> entry : map__representative__class.entrySet()) {
+			Flow representative = entry.getKey();
+			Path path_old = representative.getPath();
+
+			List<Server> path_new_s = new LinkedList<Server>();
+			for (Server s : path_old.getServers()) {
+				path_new_s.add(map__s_old__s_new.get(s));
+			}
+			List<Turn> path_new_t = new LinkedList<Turn>();
+			for (Turn t : path_old.getTurns()) {
+				path_new_t.add(map__t_old__t_new.get(t));
+			}
+			Path path_new = new Path(path_new_s, path_new_t);
+
+			map__representative__reduced_flow.put(representative,
+					sg_new.addFlow(representative.getAlias(), representative.getArrivalCurve(), path_new));
+
+			int others = entry.getValue().size() - 1;
+			if (others > 0) {
+				sg_new.addFlow(representative.getAlias() + "_x" + others,
+						multiply(representative.getArrivalCurve(), others), path_new);
+			}
+		}
+
+		return sg_new;
+	}
+
+	/**
+	 * @return The sum of n copies of the arrival curve, computed by doubling.
+	 */
+	private static ArrivalCurve multiply(ArrivalCurve arrival_curve, int n) {
+		ArrivalCurve result = null;
+		ArrivalCurve power = arrival_curve;
+		while (n > 0) {
+			if ((n & 1) == 1) {
+				result = (result == null) ? power : Curve.add(result, power);
+			}
+			n >>= 1;
+			if (n > 0) {
+				power = Curve.add(power, power);
+			}
+		}
+		return result;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Getters
+	// --------------------------------------------------------------------------------------------------------------
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	public ServerGraph getReducedServerGraph() {
+		return reduced_server_graph;
+	}
+
+	public int numClasses() {
+		return map__representative__class.size();
+	}
+
+	public Set<Flow> getRepresentatives() {
+		return Collections.unmodifiableSet(map__representative__class.keySet());
+	}
+
+	/**
+	 * @param flow A flow of the original server graph.
+	 * @return The flows of the given flow's class, ordered by id.
+	 */
+	public List<Flow> getEquivalenceClass(Flow flow) {
+		return map__representative__class.get(map__flow__representative.get(flow));
+	}
+
+	/**
+	 * @param flow A flow of the original server graph.
+	 * @return The flow representing the given flow's class in the reduced server graph.
+	 */
+	public Flow getReducedFlow(Flow flow) {
+		return map__representative__reduced_flow.get(map__flow__representative.get(flow));
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Analysis
+	// --------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Analyzes every class of the given flows once in the reduced server graph
+	 * and maps the result back to all of the given flows of the class.
+	 *
+	 * @param <R>               Type of the analysis result.
+	 * @param flows_of_interest Flows of the original server graph.
+	 * @param analysis          The analysis to execute per class.
+	 * @return The results of the given flows.
+	 * @throws Exception Unknown flow of interest or the analysis failed.
+	 */
+	public <R> Map<Flow, R> analyze(Set<Flow> flows_of_interest, FlowAnalysis<R> analysis) throws Exception {
+		Map<Flow, R> map__representative__result = new HashMap<Flow, R>();
+		Map<Flow, R> map__flow__result = new HashMap<Flow, R>();
+
+		for (Flow flow : flows_of_interest) {
+			Flow representative = map__flow__representative.get(flow);
+			if (representative == null) {
+				throw new Exception("Flow " + flow.getAlias() + " is not part of the server graph");
+			}
+
+			R result = map__representative__result.get(representative);
+			if (result == null && !map__representative__result.containsKey(representative)) {
+				result = analysis.analyze(reduced_server_graph, map__representative__reduced_flow.get(representative));
+				map__representative__result.put(representative, result);
+			}
+			map__flow__result.put(flow, result);
+		}
+
+		return map__flow__result;
+	}
+
+	/**
+	 * Analyzes all flows of the original server graph, see analyze(Set, FlowAnalysis).
+	 *
+	 * @param <R>      Type of the analysis result.
+	 * @param analysis The analysis to execute per class.
+	 * @return The results of all flows.
+	 * @throws Exception The analysis failed.
+	 */
+	public <R> Map<Flow, R> analyze(FlowAnalysis<R> analysis) throws Exception {
+		return analyze(server_graph.getFlows(), analysis);
+	}
+}
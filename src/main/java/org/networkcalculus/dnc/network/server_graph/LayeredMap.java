@@ -0,0 +1,216 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Hash map that shares the entries of a frozen base map, see ServerGraph.fork().
+ * <p>
+ * Modifications are recorded in a layer on top of the base, the base is never modified.
+ * Forking freezes the current layer and stacks a new, empty layer on it for both the map
+ * and its fork. Forks thus cost time and memory in the number of modifications since
+ * the last fork, not in the size of the map. Stacks deeper than MAX_DEPTH are flattened
+ * into a single layer to bound the cost of lookups.
+ * <p>
+ * Values may be shared with other maps. They must not be modified in place unless
+ * retrieved with getForUpdate(...). A frozen base can be read concurrently.
+ * Forking may run concurrently with reads of the map: freezing publishes the new base
+ * before the new layer, readers access the layer before the base. Forks and
+ * modifications of the same map need to be synchronized by the caller.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values, null values are not supported.
+ */
+final class LayeredMap<K, V> extends AbstractMap<K, V> {
+	private static final int MAX_DEPTH = 8;
+
+	private volatile LayeredMap<K, V> base;
+	private volatile HashMap<K, V> layer;
+	private volatile HashSet<Object> keys_removed_from_base;
+
+	private int size;
+	private int depth;
+
+	LayeredMap() {
+		this(null);
+	}
+
+	private LayeredMap(LayeredMap<K, V> base) {
+		this.base = base;
+		this.layer = new HashMap<K, V>();
+		this.keys_removed_from_base = new HashSet<Object>();
+		this.size = base == null ? 0 : base.size;
+		this.depth = base == null ? 0 : base.depth + 1;
+	}
+
+	@Override
+	public V get(Object key) {
+		V value = layer.get(key);
+		if (value != null) {
+			return value;
+		}
+		LayeredMap<K, V> base = this.base;
+		if (base == null || keys_removed_from_base.contains(key)) {
+			return null;
+		}
+		return base.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		V value_old = get(key);
+		layer.put(key, value);
+		keys_removed_from_base.remove(key);
+		if (value_old == null) {
+			size++;
+		}
+		return value_old;
+	}
+
+	@Override
+	public V remove(Object key) {
+		V value_old = get(key);
+		if (value_old == null) {
+			return null;
+		}
+		layer.remove(key);
+		if (base != null && base.containsKey(key)) {
+			keys_removed_from_base.add(key);
+		}
+		size--;
+		return value_old;
+	}
+
+	@Override
+	public void clear() {
+		base = null;
+		layer = new HashMap<K, V>();
+		keys_removed_from_base = new HashSet<Object>();
+		size = 0;
+		depth = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the value of the key to be modified in place. A value shared with
+	 * the base is replaced by a copy first.
+	 *
+	 * @param key  The key.
+	 * @param copy Creates a copy of a value.
+	 * @return The value owned by this map, null if there is no mapping for the key.
+	 */
+	V getForUpdate(K key, UnaryOperator<V> copy) {
+		V value = layer.get(key);
+		if (value != null) {
+			return value;
+		}
+		value = get(key);
+		if (value == null) {
+			return null;
+		}
+		value = copy.apply(value);
+		layer.put(key, value);
+		return value;
+	}
+
+	/**
+	 * @return A map with the same entries that shares them with this map.
+	 */
+	LayeredMap<K, V> fork() {
+		freeze();
+		return new LayeredMap<K, V>(base);
+	}
+
+	// Turns the current layer into the frozen base of a new, empty layer.
+	private void freeze() {
+		if (layer.isEmpty() && keys_removed_from_base.isEmpty()) {
+			return;
+		}
+
+		LayeredMap<K, V> frozen = new LayeredMap<K, V>(base);
+		frozen.layer = layer;
+		frozen.keys_removed_from_base = keys_removed_from_base;
+		frozen.size = size;
+		if (frozen.depth >= MAX_DEPTH) {
+			frozen = frozen.flatten();
+		}
+
+		base = frozen;
+		layer = new HashMap<K, V>();
+		keys_removed_from_base = new HashSet<Object>();
+		depth = frozen.depth + 1;
+	}
+
+	private LayeredMap<K, V> flatten() {
+		LayeredMap<K, V> flat = new LayeredMap<K, V>();
+		flat.layer = new HashMap<K, V>(this);
+		flat.size = size;
+		return flat;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				HashMap<K, V> layer = LayeredMap.this.layer;
+				LayeredMap<K, V> base = LayeredMap.this.base;
+				HashSet<Object> keys_removed_from_base = LayeredMap.this.keys_removed_from_base;
+
+				Stream<Entry<K, V>> entries = layer.entrySet().stream();
+				if (base != null) {
+					entries = Stream.concat(entries, base.entrySet().stream()
+							.filter(entry -> !layer.containsKey(entry.getKey())
+									&& !keys_removed_from_base.contains(entry.getKey()))
+							.map(entry -> new AbstractMap.SimpleImmutableEntry<K, V>(entry)));
+				}
+				return entries.iterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+}
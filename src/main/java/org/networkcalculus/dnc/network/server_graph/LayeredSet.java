@@ -0,0 +1,93 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * Hash set that shares its elements with the set it was forked from, see LayeredMap.
+ *
+ * @param <E> Type of the elements.
+ */
+final class LayeredSet<E> extends AbstractSet<E> {
+	private final LayeredMap<E, Boolean> map;
+
+	LayeredSet() {
+		this(new LayeredMap<E, Boolean>());
+	}
+
+	private LayeredSet(LayeredMap<E, Boolean> map) {
+		this.map = map;
+	}
+
+	@Override
+	public boolean add(E element) {
+		return map.put(element, Boolean.TRUE) == null;
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		return map.remove(element) != null;
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		return map.containsKey(element);
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Iterator<E> keys = map.keySet().iterator();
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return keys.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return keys.next();
+			}
+		};
+	}
+
+	/**
+	 * @return A set with the same elements that shares them with this set.
+	 */
+	LayeredSet<E> fork() {
+		return new LayeredSet<E>(map.fork());
+	}
+}
@@ -26,6 +26,7 @@
 
 package org.networkcalculus.dnc.network.server_graph;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -196,12 +197,16 @@ public class Path {
     }
 
     private ServiceCurve getServiceCurve(Collection<Server> servers) throws Exception {
-        ServiceCurve service_curve_total = Curve.getFactory().createZeroDelayInfiniteBurstMSC();
+        if (servers.isEmpty()) {
+            return Curve.getFactory().createZeroDelayInfiniteBurstMSC();
+        }
+
+        List<ServiceCurve> service_curves = new ArrayList<ServiceCurve>(servers.size());
         for (Server s : servers) {
-            service_curve_total = Calculator.getInstance().getMinPlus().convolve(service_curve_total, s.getServiceCurve());
+            service_curves.add(s.getServiceCurve());
         }
 
-        return service_curve_total;
+        return Calculator.getInstance().getMinPlus().convolve_SCs(service_curves);
     }
 
     /**
@@ -123,6 +123,16 @@ public class Server {
  		return explicit_snk;
  	}
 
+    /**
+     * @return A copy with the same id, replaces this server in a forked server graph.
+     */
+    Server copy() {
+        Server copy = new Server(id, alias, service_curve.copy(), max_service_curve.copy(), multiplexing,
+                use_max_sc, use_max_sc_output_rate);
+        copy.max_service_curve_flag = max_service_curve_flag;
+        return copy;
+    }
+
     public int getId() {
         return id;
     }
@@ -30,7 +30,12 @@ import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -38,6 +43,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.apache.commons.math3.util.Pair;
 import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
@@ -70,50 +78,142 @@ import org.networkcalculus.dnc.utils.SetUtils;
  * ServiceCurve.createZeroDelayBurst() ).
  */
 public class ServerGraph {
-	private Set<Server> servers;
-	private Set<Turn> turns;
-	private Set<Flow> flows;
+	// Layered to share the entries with forks, see fork().
+	private LayeredSet<Server> servers;
+	private LayeredSet<Turn> turns;
+	private LayeredSet<Flow> flows;
 
-	private Map<Server, Set<Turn>> map__server__in_turns;
-	private Map<Server, Set<Turn>> map__server__out_turns;
+	private LayeredMap<Server, Set<Turn>> map__server__in_turns;
+	private LayeredMap<Server, Set<Turn>> map__server__out_turns;
 
-	private Map<Server, Set<Flow>> map__server__flows;
-	private Map<Server, Set<Flow>> map__server__source_flows;
+	private LayeredMap<Server, Set<Flow>> map__server__flows;
+	private LayeredMap<Server, Set<Flow>> map__server__source_flows;
 
-	private Map<Turn, Set<Flow>> map__turn__flows;
+	private LayeredMap<Turn, Set<Flow>> map__turn__flows;
+
+	// Flow ids of the above maps' sets for intersections without copying the sets.
+	private LayeredMap<Server, BitSet> map__server__flow_ids;
+	private LayeredMap<Turn, BitSet> map__turn__flow_ids;
+
+	// A fork shares the servers, their turns and flows with the server graph it was forked from.
+	// Servers created or replaced in the fork are not shared.
+	private boolean forked = false;
+	private Set<Server> servers_owned = new HashSet<Server>();
+
+	// Built on demand, discarded on modification.
+	private volatile SplittingServerIndex splitting_server_index;
+
+	// Built on demand, discarded on modification. Keyed by path and flows to group.
+	private final Map<List<Object>, Map<Path, Set<Flow>>> map__key__flows_per_sub_path = new ConcurrentHashMap<List<Object>, Map<Path, Set<Flow>>>();
+	private final Map<List<Object>, Map<Pair<Turn, Path>, Set<Flow>>> map__key__flows_per_inturn_sub_path = new ConcurrentHashMap<List<Object>, Map<Pair<Turn, Path>, Set<Flow>>>();
+
+	// Built on demand, discarded on modification and by setServiceCurve(...).
+	private final Map<List<Server>, ServiceCurve> map__servers__service_curve = new ConcurrentHashMap<List<Server>, ServiceCurve>();
+
+	// Incremented by setServiceCurve(...), derived data of the servers' curves is outdated on change.
+	private volatile long service_curve_revision = 0;
+
+	// Incremented by every modification of servers, turns, flows or service curves.
+	private volatile long revision = 0;
+
+	// Results the analyses derived from this server graph, see getAnalysisCache(...).
+	// Neither shared with forks nor copied, they become unreachable together with the server graph.
+	private final Map<Class<?>, Object> map__type__analysis_cache = new ConcurrentHashMap<Class<?>, Object>();
+	private static final Set<ServerGraph> server_graphs_cached = Collections.newSetFromMap(new WeakHashMap<ServerGraph, Boolean>());
 
 	private String server_default_name_prefix = "s";
 	private int server_id_counter = 0;
-	private Map<Integer, Server> map__id__server;
+	private LayeredMap<Integer, Server> map__id__server;
 
 	private String turn_default_name_prefix = "t";
 	private int turn_id_counter = 0;
 
 	private String flow_default_name_prefix = "f";
 	private int flow_id_counter = 0;
-	private Map<Integer, Flow> map__id__flow;
+	private LayeredMap<Integer, Flow> map__id__flow;
 
 	public ServerGraph() {
-		servers = new HashSet<Server>();
-		turns = new HashSet<Turn>();
-		flows = new HashSet<Flow>();
+		servers = new LayeredSet<Server>();
+		turns = new LayeredSet<Turn>();
+		flows = new LayeredSet<Flow>();
 
-		map__id__server = new HashMap<Integer, Server>();
-		map__id__flow = new HashMap<Integer, Flow>();
+		map__id__server = new LayeredMap<Integer, Server>();
+		map__id__flow = new LayeredMap<Integer, Flow>();
 
-		map__server__in_turns = new HashMap<Server, Set<Turn>>();
-		map__server__out_turns = new HashMap<Server, Set<Turn>>();
+		map__server__in_turns = new LayeredMap<Server, Set<Turn>>();
+		map__server__out_turns = new LayeredMap<Server, Set<Turn>>();
 
-		map__server__flows = new HashMap<Server, Set<Flow>>();
-		map__server__source_flows = new HashMap<Server, Set<Flow>>();
+		map__server__flows = new LayeredMap<Server, Set<Flow>>();
+		map__server__source_flows = new LayeredMap<Server, Set<Flow>>();
 
-		map__turn__flows = new HashMap<Turn, Set<Flow>>();
+		map__turn__flows = new LayeredMap<Turn, Set<Flow>>();
+
+		map__server__flow_ids = new LayeredMap<Server, BitSet>();
+		map__turn__flow_ids = new LayeredMap<Turn, BitSet>();
+	}
+
+	// Shares all entries with the parent, see fork().
+	private ServerGraph(ServerGraph parent) {
+		servers = parent.servers.fork();
+		turns = parent.turns.fork();
+		flows = parent.flows.fork();
+
+		map__id__server = parent.map__id__server.fork();
+		map__id__flow = parent.map__id__flow.fork();
+
+		map__server__in_turns = parent.map__server__in_turns.fork();
+		map__server__out_turns = parent.map__server__out_turns.fork();
+
+		map__server__flows = parent.map__server__flows.fork();
+		map__server__source_flows = parent.map__server__source_flows.fork();
+
+		map__turn__flows = parent.map__turn__flows.fork();
+
+		map__server__flow_ids = parent.map__server__flow_ids.fork();
+		map__turn__flow_ids = parent.map__turn__flow_ids.fork();
+
+		server_default_name_prefix = parent.server_default_name_prefix;
+		server_id_counter = parent.server_id_counter;
+		turn_default_name_prefix = parent.turn_default_name_prefix;
+		turn_id_counter = parent.turn_id_counter;
+		flow_default_name_prefix = parent.flow_default_name_prefix;
+		flow_id_counter = parent.flow_id_counter;
+		service_curve_revision = parent.service_curve_revision;
+		revision = parent.revision;
+
+		forked = true;
+	}
+
+	/**
+	 * Creates a copy of this server graph that shares servers, turns, flows and the
+	 * internal data structures with it. Forking and subsequent modifications of either
+	 * server graph take time and memory in the number of modifications, not in the size of
+	 * the server graph. The server graphs can be analyzed concurrently once forked.
+	 * <p>
+	 * The shared servers, turns and flows must not be modified directly. A shared server whose
+	 * service curve is set via setServiceCurve(...) in the fork is replaced by a copy with the same
+	 * id in the fork, together with its turns and the flows crossing it. Servers, turns and flows
+	 * are thus to be retrieved by id from a fork. This server graph keeps its objects, i.e.,
+	 * references to them remain valid. It must not be modified while its forks are in use
+	 * as the modifications of shared objects would be visible in the forks.
+	 * <p>
+	 * In contrast, copy() creates new servers, turns and flows.
+	 * <p>
+	 * Forking is synchronized, i.e., multiple threads may fork a server graph and analyze it
+	 * concurrently. The replacement of shared servers in a fork is synchronized as well.
+	 *
+	 * @return The fork.
+	 */
+	public synchronized ServerGraph fork() {
+		return new ServerGraph(this);
 	}
 
 	private void remove(Set<Server> servers_to_remove, Set<Turn> turns_to_remove, Set<Flow> flows_to_remove) {
 		// Make sure that you do not remove a map's key before the according entries:
 		// (flows before servers and turns) & (turns before servers)
 
+		modified();
+
 		// prevent ConcurrentModificationException
 		Set<Flow> flows_to_remove_cpy = new HashSet<Flow>(flows_to_remove);
 
@@ -122,14 +222,16 @@ public class ServerGraph {
 			map__id__flow.remove(f.getId());
 
 			for (Turn t : f.getPath().getTurns()) {
-				map__turn__flows.get(t).remove(f);
+				map__turn__flows.getForUpdate(t, HashSet::new).remove(f);
+				map__turn__flow_ids.getForUpdate(t, ServerGraph::copyFlowIds).clear(f.getId());
 			}
 
 			for (Server s : f.getPath().getServers()) {
-				map__server__flows.get(s).remove(f);
+				map__server__flows.getForUpdate(s, HashSet::new).remove(f);
+				map__server__flow_ids.getForUpdate(s, ServerGraph::copyFlowIds).clear(f.getId());
 			}
 
-			map__server__source_flows.get(f.getSource()).remove(f);
+			map__server__source_flows.getForUpdate(f.getSource(), HashSet::new).remove(f);
 		}
 
 		// prevent ConcurrentModificationException
@@ -139,8 +241,9 @@ public class ServerGraph {
 			turns.remove(t);
 
 			map__turn__flows.remove(t);
-			map__server__in_turns.get(t.getDest()).remove(t);
-			map__server__out_turns.get(t.getSource()).remove(t);
+			map__turn__flow_ids.remove(t);
+			map__server__in_turns.getForUpdate(t.getDest(), HashSet::new).remove(t);
+			map__server__out_turns.getForUpdate(t.getSource(), HashSet::new).remove(t);
 		}
 
 		// prevent ConcurrentModificationException
@@ -152,6 +255,7 @@ public class ServerGraph {
 			map__id__server.remove(s.getId());
 
 			map__server__flows.remove(s);
+			map__server__flow_ids.remove(s);
 
 			map__server__in_turns.remove(s);
 			map__server__out_turns.remove(s);
@@ -247,13 +351,17 @@ public class ServerGraph {
 	}
 
 	private void updateServerAdditionInternally(Server new_server) {
+		modified();
+
 		map__server__in_turns.put(new_server, new HashSet<Turn>());
 		map__server__out_turns.put(new_server, new HashSet<Turn>());
 
 		map__server__flows.put(new_server, new HashSet<Flow>());
+		map__server__flow_ids.put(new_server, new BitSet());
 		map__server__source_flows.put(new_server, new HashSet<Flow>());
 
 		servers.add(new_server);
+		servers_owned.add(new_server);
 
 		Integer integer_object = Integer.valueOf(server_id_counter);
 		map__id__server.put(integer_object, new_server);
@@ -269,6 +377,221 @@ public class ServerGraph {
 		remove(Collections.singleton(s), getIncidentTurns(s), map__server__flows.get(s));
 	}
 
+	/**
+	 * Replaces the service curve of a server. In contrast to Server.setServiceCurve(...),
+	 * the change is reflected by the service curve revision of the server graph.
+	 * Cached arrival bounds of the returned servers need to be invalidated by the caller.
+	 * <p>
+	 * In a fork, a server shared with the server graph it was forked from is replaced
+	 * by a copy with the same id, see fork().
+	 *
+	 * @param s
+	 *            The server whose service curve is replaced.
+	 * @param service_curve
+	 *            The new service curve.
+	 * @return The servers whose bounds depend on the service curve, see getDownstreamServers(s).
+	 * @throws Exception
+	 *             The server is not in this server graph.
+	 */
+	public Set<Server> setServiceCurve(Server s, ServiceCurve service_curve) throws Exception {
+		if (!servers.contains(s)) {
+			throw new Exception("Server is not in this server graph's list of servers");
+		}
+
+		Server server = ownServer(s);
+		server.setServiceCurve(service_curve);
+		map__servers__service_curve.clear();
+		service_curve_revision++;
+		revision++;
+		return getDownstreamServers(server);
+	}
+
+	/**
+	 * Returns a server that is not shared with the server graph this fork was forked from.
+	 * A shared server is replaced by a copy, as are its turns and the flows crossing it
+	 * since they refer to the server.
+	 *
+	 * @param s
+	 *            The server.
+	 * @return The server or its replacement.
+	 */
+	private synchronized Server ownServer(Server s) {
+		if (!forked || servers_owned.contains(s)) {
+			return s;
+		}
+
+		modified();
+
+		Server s_new = s.copy();
+		servers_owned.add(s_new);
+		servers.remove(s);
+		servers.add(s_new);
+		map__id__server.put(s_new.getId(), s_new);
+
+		map__server__in_turns.put(s_new, new HashSet<Turn>(map__server__in_turns.remove(s)));
+		map__server__out_turns.put(s_new, new HashSet<Turn>(map__server__out_turns.remove(s)));
+		map__server__flows.put(s_new, new HashSet<Flow>(map__server__flows.remove(s)));
+		map__server__source_flows.put(s_new, new HashSet<Flow>(map__server__source_flows.remove(s)));
+		map__server__flow_ids.put(s_new, copyFlowIds(map__server__flow_ids.remove(s)));
+
+		Map<Turn, Turn> map__t_old__t_new = new HashMap<Turn, Turn>();
+		Set<Turn> turns_incident = new HashSet<Turn>(map__server__in_turns.get(s_new));
+		turns_incident.addAll(map__server__out_turns.get(s_new));
+		for (Turn t : turns_incident) {
+			Turn t_new = new Turn(t.getId(), t.getAlias(), t.getSource() == s ? s_new : t.getSource(),
+					t.getDest() == s ? s_new : t.getDest());
+			map__t_old__t_new.put(t, t_new);
+
+			turns.remove(t);
+			turns.add(t_new);
+			map__turn__flows.put(t_new, new HashSet<Flow>(map__turn__flows.remove(t)));
+			map__turn__flow_ids.put(t_new, copyFlowIds(map__turn__flow_ids.remove(t)));
+
+			Set<Turn> in_turns_dest = map__server__in_turns.getForUpdate(t_new.getDest(), HashSet::new);
+			in_turns_dest.remove(t);
+			in_turns_dest.add(t_new);
+			Set<Turn> out_turns_src = map__server__out_turns.getForUpdate(t_new.getSource(), HashSet::new);
+			out_turns_src.remove(t);
+			out_turns_src.add(t_new);
+		}
+
+		// The flow ids remain the same, only the sets of flows need to be updated.
+		for (Flow f : new HashSet<Flow>(map__server__flows.get(s_new))) {
+			List<Server> f_path_new_s = new LinkedList<Server>();
+			for (Server server : f.getPath().getServers()) {
+				f_path_new_s.add(server == s ? s_new : server);
+			}
+			List<Turn> f_path_new_t = new LinkedList<Turn>();
+			for (Turn t : f.getPath().getTurns()) {
+				f_path_new_t.add(map__t_old__t_new.getOrDefault(t, t));
+			}
+			Flow f_new = new Flow(f.getId(), f.getAlias(), f.getArrivalCurve(), new Path(f_path_new_s, f_path_new_t));
+
+			flows.remove(f);
+			flows.add(f_new);
+			map__id__flow.put(f_new.getId(), f_new);
+
+			Set<Flow> source_flows = map__server__source_flows.getForUpdate(f_new.getSource(), HashSet::new);
+			source_flows.remove(f);
+			source_flows.add(f_new);
+			for (Server server : f_path_new_s) {
+				Set<Flow> server_flows = map__server__flows.getForUpdate(server, HashSet::new);
+				server_flows.remove(f);
+				server_flows.add(f_new);
+			}
+			for (Turn t : f_path_new_t) {
+				Set<Flow> turn_flows = map__turn__flows.getForUpdate(t, HashSet::new);
+				turn_flows.remove(f);
+				turn_flows.add(f_new);
+			}
+		}
+
+		return s_new;
+	}
+
+	private static BitSet copyFlowIds(BitSet flow_ids) {
+		return (BitSet) flow_ids.clone();
+	}
+
+	/**
+	 * @return The number of service curve changes via setServiceCurve(...).
+	 */
+	public long getServiceCurveRevision() {
+		return service_curve_revision;
+	}
+
+	/**
+	 * @return The number of modifications of this server graph, i.e., of added or removed
+	 *         servers, turns and flows as well as service curve changes via setServiceCurve(...).
+	 */
+	public long getRevision() {
+		return revision;
+	}
+
+	// Discards the data derived from the structure of this server graph.
+	private void modified() {
+		splitting_server_index = null;
+		map__key__flows_per_sub_path.clear();
+		map__key__flows_per_inturn_sub_path.clear();
+		map__servers__service_curve.clear();
+		revision++;
+	}
+
+	/**
+	 * Returns the analysis cache of the given type attached to this server graph and
+	 * creates it on first access. The cache is reachable as long as this server graph is.
+	 * Forks and copies start without caches.
+	 *
+	 * @param type
+	 *            The type of the cache, one cache per type.
+	 * @param factory
+	 *            Creates the cache for this server graph.
+	 * @return The cache.
+	 */
+	public <T> T getAnalysisCache(Class<T> type, Function<ServerGraph, T> factory) {
+		Object cache = map__type__analysis_cache.get(type);
+		if (cache == null) {
+			synchronized (server_graphs_cached) {
+				server_graphs_cached.add(this);
+			}
+			cache = map__type__analysis_cache.computeIfAbsent(type, t -> factory.apply(this));
+		}
+		return type.cast(cache);
+	}
+
+	/**
+	 * @param type
+	 *            The type of the cache.
+	 * @return The analysis cache of the given type or null if there is none yet.
+	 */
+	public <T> T getAnalysisCacheIfPresent(Class<T> type) {
+		return type.cast(map__type__analysis_cache.get(type));
+	}
+
+	/**
+	 * Removes all analysis caches of this server graph.
+	 */
+	public void clearAnalysisCaches() {
+		map__type__analysis_cache.clear();
+	}
+
+	/**
+	 * Removes the analysis caches of all server graphs that are still reachable.
+	 */
+	public static void clearAllAnalysisCaches() {
+		List<ServerGraph> server_graphs;
+		synchronized (server_graphs_cached) {
+			server_graphs = new ArrayList<ServerGraph>(server_graphs_cached);
+			server_graphs_cached.clear();
+		}
+		for (ServerGraph server_graph : server_graphs) {
+			server_graph.clearAnalysisCaches();
+		}
+	}
+
+	/**
+	 * Returns the server and all servers reachable from it via turns. In a feed-forward
+	 * server graph, these are the servers whose arrivals and outputs depend on the server.
+	 *
+	 * @param s
+	 *            The server.
+	 * @return A new set of the downstream servers including s.
+	 */
+	public Set<Server> getDownstreamServers(Server s) {
+		Set<Server> downstream = new HashSet<Server>();
+		LinkedList<Server> to_visit = new LinkedList<Server>();
+		to_visit.add(s);
+		while (!to_visit.isEmpty()) {
+			Server server = to_visit.removeFirst();
+			if (downstream.add(server)) {
+				for (Turn t : map__server__out_turns.get(server)) {
+					to_visit.add(t.getDest());
+				}
+			}
+		}
+		return downstream;
+	}
+
 	public Set<Flow> getSourceFlows(Server source) {
 		return new HashSet<Flow>(map__server__source_flows.get(source));
 	}
@@ -441,6 +764,53 @@ public class ServerGraph {
 		return successors;
 	}
 
+	/**
+	 * Returns the servers sorted topologically and grouped by level, i.e., the
+	 * first level holds the sources of the graph and every server is located one
+	 * level after the last of its predecessors. Servers of a level do not depend on
+	 * each other and are ordered by their id.
+	 *
+	 * @return The topological levels of the servers.
+	 * @throws Exception
+	 *             The server graph is not feed-forward.
+	 */
+	public List<List<Server>> getTopologicalLevels() throws Exception {
+		Map<Server, Integer> map__server__in_degree = new HashMap<Server, Integer>();
+		List<Server> level = new ArrayList<Server>();
+		for (Server s : servers) {
+			int in_degree = inDegree(s);
+			map__server__in_degree.put(s, in_degree);
+			if (in_degree == 0) {
+				level.add(s);
+			}
+		}
+
+		List<List<Server>> levels = new ArrayList<List<Server>>();
+		int servers_sorted = 0;
+		while (!level.isEmpty()) {
+			level.sort(Comparator.comparingInt(Server::getId));
+			levels.add(level);
+			servers_sorted += level.size();
+
+			List<Server> next_level = new ArrayList<Server>();
+			for (Server s : level) {
+				for (Turn t : getOutTurns(s)) {
+					int in_degree = map__server__in_degree.get(t.getDest()) - 1;
+					map__server__in_degree.put(t.getDest(), in_degree);
+					if (in_degree == 0) {
+						next_level.add(t.getDest());
+					}
+				}
+			}
+			level = next_level;
+		}
+
+		if (servers_sorted != servers.size()) {
+			throw new Exception("The server graph is not feed-forward, there is no topological order of its servers");
+		}
+		return levels;
+	}
+
 	// --------------------------------------------------------------------------------------------
 	// Turns
 	// --------------------------------------------------------------------------------------------
@@ -467,10 +837,13 @@ public class ServerGraph {
 			Turn new_turn = new Turn(turn_id_counter, alias, source, destination);
 			turn_id_counter++;
 
+			modified();
+
 			map__turn__flows.put(new_turn, new HashSet<Flow>());
+			map__turn__flow_ids.put(new_turn, new BitSet());
 
-			map__server__in_turns.get(destination).add(new_turn);
-			map__server__out_turns.get(source).add(new_turn);
+			map__server__in_turns.getForUpdate(destination, HashSet::new).add(new_turn);
+			map__server__out_turns.getForUpdate(source, HashSet::new).add(new_turn);
 
 			turns.add(new_turn);
 			return new_turn;
@@ -533,6 +906,10 @@ public class ServerGraph {
 		return addFlowToServerGraph(alias, arrival_curve, path);
 	}
 
+	protected Flow addFlow(String alias, ArrivalCurve arrival_curve, Path path) throws Exception {
+		return addFlowToServerGraph(alias, arrival_curve, path);
+	}
+
 	/**
 	 * Creates a flow and adds it to the server graph.
 	 *
@@ -650,18 +1027,22 @@ public class ServerGraph {
 			}
 		}
 
+		modified();
+
 		Flow new_flow = new Flow(flow_id_counter, alias, arrival_curve.copy(), path);
 		flows.add(new_flow);
 		map__id__flow.put(Integer.valueOf(flow_id_counter), new_flow);
 		flow_id_counter++;
 		
-		map__server__source_flows.get(path.getSource()).add(new_flow);
+		map__server__source_flows.getForUpdate(path.getSource(), HashSet::new).add(new_flow);
 
 		for (Turn t : path.getTurns()) {
-			map__turn__flows.get(t).add(new_flow);
+			map__turn__flows.getForUpdate(t, HashSet::new).add(new_flow);
+			map__turn__flow_ids.getForUpdate(t, ServerGraph::copyFlowIds).set(new_flow.getId());
 		}
 		for (Server s : path.getServers()) {
-			map__server__flows.get(s).add(new_flow);
+			map__server__flows.getForUpdate(s, HashSet::new).add(new_flow);
+			map__server__flow_ids.getForUpdate(s, ServerGraph::copyFlowIds).set(new_flow.getId());
 		}
 
 		return new_flow;
@@ -718,6 +1099,163 @@ public class ServerGraph {
 		}
 	}
 
+	/**
+	 * Returns the flows of the given set that cross turn t. In contrast to
+	 * intersecting with getFlows(t), the turn's flows are not copied but looked
+	 * up by their ids.
+	 * 
+	 * @param t
+	 *            The turn.
+	 * @param flows
+	 *            The flows to check.
+	 * @return The flows of the given set that cross turn t.
+	 */
+	public Set<Flow> getFlowsIntersection(Turn t, Set<Flow> flows) {
+		return getFlowsIntersection(t, flows, new HashSet<Flow>());
+	}
+
+	/**
+	 * Adds the flows of the given set that cross turn t to the set target.
+	 * 
+	 * @param t
+	 *            The turn.
+	 * @param flows
+	 *            The flows to check.
+	 * @param target
+	 *            The set to add the flows to.
+	 * @return The set target.
+	 */
+	public Set<Flow> getFlowsIntersection(Turn t, Set<Flow> flows, Set<Flow> target) {
+		if (t == null) {
+			return target;
+		}
+		return SetUtils.getIntersection(flows, map__turn__flow_ids.get(t), this::getFlowIdInternal, target);
+	}
+
+	/**
+	 * Returns the flows of the given set that cross server s. In contrast to
+	 * intersecting with getFlows(s), the server's flows are not copied but looked
+	 * up by their ids.
+	 * 
+	 * @param s
+	 *            The server.
+	 * @param flows
+	 *            The flows to check.
+	 * @return The flows of the given set that cross server s.
+	 */
+	public Set<Flow> getFlowsIntersection(Server s, Set<Flow> flows) {
+		return getFlowsIntersection(s, flows, new HashSet<Flow>());
+	}
+
+	/**
+	 * Adds the flows of the given set that cross server s to the set target.
+	 * 
+	 * @param s
+	 *            The server.
+	 * @param flows
+	 *            The flows to check.
+	 * @param target
+	 *            The set to add the flows to.
+	 * @return The set target.
+	 */
+	public Set<Flow> getFlowsIntersection(Server s, Set<Flow> flows, Set<Flow> target) {
+		if (s == null) {
+			return target;
+		}
+		return SetUtils.getIntersection(flows, map__server__flow_ids.get(s), this::getFlowIdInternal, target);
+	}
+
+	/**
+	 * Ids are only unique within a server graph and its forks. A flow that is not part of this
+	 * server graph, e.g., one replaced after forking, must not match the flow that now has its id.
+	 * 
+	 * @param f
+	 *            The flow.
+	 * @return The flow's id if it is part of this server graph, -1 otherwise.
+	 */
+	private int getFlowIdInternal(Flow f) {
+		int id = f.getId();
+		if (id < 0 || map__id__flow.get(Integer.valueOf(id)) != f) {
+			return -1;
+		}
+		return id;
+	}
+
+	/**
+	 * @param t
+	 *            The turn.
+	 * @return A copy of the ids of the flows crossing turn t.
+	 */
+	public BitSet getFlowIds(Turn t) {
+		BitSet flow_ids = map__turn__flow_ids.get(t);
+		return flow_ids == null ? new BitSet() : (BitSet) flow_ids.clone();
+	}
+
+	/**
+	 * @param s
+	 *            The server.
+	 * @return A copy of the ids of the flows crossing server s.
+	 */
+	public BitSet getFlowIds(Server s) {
+		BitSet flow_ids = map__server__flow_ids.get(s);
+		return flow_ids == null ? new BitSet() : (BitSet) flow_ids.clone();
+	}
+
+	/**
+	 * @param s
+	 *            The server.
+	 * @return The ids of the flows crossing server s, not to be modified.
+	 */
+	BitSet getFlowIdsInternal(Server s) {
+		BitSet flow_ids = map__server__flow_ids.get(s);
+		return flow_ids == null ? new BitSet() : flow_ids;
+	}
+
+	/**
+	 * @param flows
+	 *            The flows.
+	 * @return The ids of those flows that are part of this server graph.
+	 */
+	public BitSet getFlowIds(Collection<Flow> flows) {
+		return SetUtils.getIds(flows, this::getFlowIdInternal);
+	}
+
+	/**
+	 * Intersects the given flow ids with the ids of the flows crossing turn t
+	 * without copying the turn's flows.
+	 * 
+	 * @param t
+	 *            The turn, null if there is none.
+	 * @param flow_ids
+	 *            The flow ids, modified in place.
+	 * @return The given flow ids.
+	 */
+	public BitSet retainFlowIds(Turn t, BitSet flow_ids) {
+		BitSet flow_ids_t = t == null ? null : map__turn__flow_ids.get(t);
+		if (flow_ids_t == null) {
+			flow_ids.clear();
+		} else {
+			flow_ids.and(flow_ids_t);
+		}
+		return flow_ids;
+	}
+
+	/**
+	 * @param flow_ids
+	 *            The flow ids.
+	 * @return The flows with the given ids, ids of removed flows are skipped.
+	 */
+	public Set<Flow> getFlows(BitSet flow_ids) {
+		Set<Flow> flows = new HashSet<Flow>(Math.max(16, flow_ids.cardinality() * 2));
+		for (int id = flow_ids.nextSetBit(0); id >= 0; id = flow_ids.nextSetBit(id + 1)) {
+			Flow f = map__id__flow.get(Integer.valueOf(id));
+			if (f != null) {
+				flows.add(f);
+			}
+		}
+		return flows;
+	}
+
 	public Set<Flow> getFlows(Set<Turn> turns) {
 		HashSet<Flow> flows = new HashSet<Flow>();
 
@@ -866,7 +1404,30 @@ public class ServerGraph {
 		return map__path__set_flows;
 	}
 
+	/**
+	 * Groups the flows by the sub-path of p they cross, i.e., by the servers they join and leave p at.
+	 * The grouping only depends on the structure of this server graph. It is memoized until the
+	 * next modification and shared by all analyses, e.g., of different configurations.
+	 *
+	 * @param p
+	 *            The path.
+	 * @param flows_to_group
+	 *            The flows to group.
+	 * @return A map from sub-paths to the flows crossing them, owned by the caller.
+	 * @throws Exception
+	 *             Sub-path creation failed.
+	 */
 	public Map<Path, Set<Flow>> groupFlowsPerSubPath(Path p, Set<Flow> flows_to_group) throws Exception {
+		List<Object> key = Arrays.asList(p, new HashSet<Flow>(flows_to_group));
+		Map<Path, Set<Flow>> map__path__set_flows = map__key__flows_per_sub_path.get(key);
+		if (map__path__set_flows == null) {
+			map__path__set_flows = computeFlowsPerSubPath(p, flows_to_group);
+			map__key__flows_per_sub_path.put(key, map__path__set_flows);
+		}
+		return copyGrouping(map__path__set_flows);
+	}
+
+	private Map<Path, Set<Flow>> computeFlowsPerSubPath(Path p, Set<Flow> flows_to_group) throws Exception {
 		Map<Path, Set<Flow>> map__path__set_flows = new HashMap<Path, Set<Flow>>();
 
 		Map<Server, Set<Flow>> map__s_i__joining_flows_tmp = getServerJoiningFlowsMap(p);
@@ -905,7 +1466,7 @@ public class ServerGraph {
 						map__server__leaving_flows.get(s_j_egress)); // Intersection with the remaining joining_flows
 				// prevents rejoining flows to be considered
 				// multiple times
-				s_i_ingress__s_j_egress.retainAll(flows_to_group);
+				// s_i_ingress only contains flows_to_group, see above.
 
 				if (s_i_ingress__s_j_egress.isEmpty()) { // No such flows to bound
 					continue;
@@ -955,7 +1516,7 @@ public class ServerGraph {
 	 			Server s_j_egress = servers.get( j );
 	 			
 	 			Set<Flow> s_i_ingress__s_j_egress = SetUtils.getIntersection( s_i_ingress, map__server__leaving_flows.get( s_j_egress ) ); // Intersection with the remaining joining_flows prevents rejoining flows to be considered multiple times
-	 			s_i_ingress__s_j_egress.retainAll( flows_to_group );
+	 			// s_i_ingress only contains flows_to_group, see above.
 	 			
 	 			if ( s_i_ingress__s_j_egress.isEmpty() ) { // No such flows to bound
 	 				continue;
@@ -973,13 +1534,24 @@ public class ServerGraph {
 	}
 	
 	/**
+	 * Memoized like groupFlowsPerSubPath(p, flows_to_group).
 	 * 
 	 * @param p
 	 * @param flows_to_group
-	 * @return
+	 * @return A map from in-turns and sub-paths to the flows crossing them, owned by the caller.
 	 * @throws Exception
 	 */
 	public Map<Pair<Turn,Path>,Set<Flow>> groupFlowsPerInturnSubPath( Path p, Set<Flow> flows_to_group ) throws Exception {
+		List<Object> key = Arrays.asList( p, new HashSet<Flow>( flows_to_group ) );
+		Map<Pair<Turn,Path>,Set<Flow>> results_set = map__key__flows_per_inturn_sub_path.get( key );
+		if( results_set == null ) {
+			results_set = computeFlowsPerInturnSubPath( p, flows_to_group );
+			map__key__flows_per_inturn_sub_path.put( key, results_set );
+		}
+		return copyGrouping( results_set );
+	}
+
+	private Map<Pair<Turn,Path>,Set<Flow>> computeFlowsPerInturnSubPath( Path p, Set<Flow> flows_to_group ) throws Exception {
 		Map<Pair<Server,Path>,Set<Flow>> starting_set = groupFlowsPerSubPathInternal( p, flows_to_group );
 		Map<Pair<Turn,Path>,Set<Flow>> results_set = new HashMap<Pair<Turn,Path>,Set<Flow>>();
 		
@@ -989,10 +1561,10 @@ public class ServerGraph {
 			flows_on_turn_grouped.clear(); // Reusing this set reference works because the getDifference below creates a new set to return.
 			for( Turn on_t : getInTurns(  entry.getKey().getFirst() ) ) {
 				
-				flows_on_t = SetUtils.getIntersection( getFlows( on_t ), entry.getValue() );
+				flows_on_t = getFlowsIntersection( on_t, entry.getValue() );
 				if( !flows_on_t.isEmpty() ) {
 					results_set.put( new Pair<Turn,Path>( on_t, entry.getKey().getSecond() ), flows_on_t );
-					flows_on_turn_grouped.addAll( new HashSet<Flow>( flows_on_t ) );
+					flows_on_turn_grouped.addAll( flows_on_t );
 				}
 			}
 			
@@ -1007,6 +1579,36 @@ public class ServerGraph {
 		return results_set;
 	}
 
+	private static <K> Map<K, Set<Flow>> copyGrouping(Map<K, Set<Flow>> grouping) {
+		Map<K, Set<Flow>> grouping_copy = new HashMap<K, Set<Flow>>();
+		for (Entry<K, Set<Flow>> entry : grouping.entrySet()) {
+			grouping_copy.put(entry.getKey(), new HashSet<Flow>(entry.getValue()));
+		}
+		return grouping_copy;
+	}
+
+	/**
+	 * Convolves the service curves of the path's servers, see Path.getServiceCurve().
+	 * The convolution is memoized per sequence of servers until the next modification.
+	 * Like the arrival bound caches, it relies on service curves to be changed via
+	 * setServiceCurve(...).
+	 *
+	 * @param p
+	 *            The path.
+	 * @return The convolved service curve, owned by the caller.
+	 * @throws Exception
+	 *             The convolution failed.
+	 */
+	public ServiceCurve getServiceCurve(Path p) throws Exception {
+		List<Server> path_servers = p.getServers();
+		ServiceCurve service_curve = map__servers__service_curve.get(path_servers);
+		if (service_curve == null) {
+			service_curve = p.getServiceCurve();
+			map__servers__service_curve.put(path_servers, service_curve);
+		}
+		return service_curve.copy();
+	}
+
 	/**
 	 * Returns an aggregate arrival curve for all flows originating in
 	 * <code>source</code>.
@@ -1303,33 +1905,33 @@ public class ServerGraph {
 	 *             No splitting point prior to the common destination found.
 	 */
 	public Server findSplittingServer(Server server_common_dest, Set<Flow> flows_of_interest) throws Exception {
-		Flow f = flows_of_interest.iterator().next();
-
-		if (flows_of_interest.size() == 1) {
-			return f.getSource();
-		}
-
-		Path f_path = f.getPath();
-		int common_dest_index_f = f_path.getServers().indexOf(server_common_dest);
-
-		Server split = server_common_dest;
-		// Iterate in reverse order starting from server_common_dest, stop as soon as at
-		// least one of the flows of interest is missing
-		for (int i = common_dest_index_f - 1; i >= 0; i--) { // -1 excludes server_common_dest
-			Server split_candidate = f_path.getServers().get(i);
+		return getSplittingServerIndex().findSplittingServer(server_common_dest, flows_of_interest);
+	}
 
-			if (getFlows(split_candidate).containsAll(flows_of_interest)) {
-				split = split_candidate;
-			} else {
-				break;
-			}
-		}
+	/**
+	 * Returns the common subpath of the flows in <code>flows_of_interest</code>
+	 * from their splitting server to the source of the turn, see findSplittingServer.
+	 * The subpath is taken from the path of the flow returned first by the set's iterator.
+	 *
+	 * @param turn
+	 *            The turn crossed by all flows, its destination is the common destination.
+	 * @param flows_of_interest
+	 *            The flows whose common subpath is computed.
+	 * @return The common subpath.
+	 * @throws Exception
+	 *             No splitting point prior to the common destination found.
+	 */
+	public Path findCommonSubPath(Turn turn, Set<Flow> flows_of_interest) throws Exception {
+		return getSplittingServerIndex().findCommonSubPath(turn, flows_of_interest);
+	}
 
-		if (split == server_common_dest) { // No splitting point found
-			throw new Exception("No splitting point prior to the common destination found");
-		} else {
-			return split;
+	private SplittingServerIndex getSplittingServerIndex() {
+		SplittingServerIndex index = splitting_server_index;
+		if (index == null) {
+			index = new SplittingServerIndex(this);
+			splitting_server_index = index;
 		}
+		return index;
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -1337,7 +1939,8 @@ public class ServerGraph {
 	// --------------------------------------------------------------------------------------------
 
 	/**
-	 * Creates a deep copy of this server graph.
+	 * Creates a deep copy of this server graph, see fork() for a copy that shares
+	 * the unmodified parts with this server graph.
 	 *
 	 * @return The copy.
 	 * @throws Exception
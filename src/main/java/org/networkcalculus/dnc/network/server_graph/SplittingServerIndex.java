@@ -0,0 +1,138 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.utils.SetUtils;
+
+/**
+ * Index of the splitting servers and common sub-paths of flow sets, see ServerGraph.findSplittingServer.
+ * <p>
+ * Stores every flow's path as an array of servers with the flow id bitsets of these
+ * servers, such that walking backwards from the common destination tests whether a
+ * server is crossed by all flows of the set with a few word operations instead of
+ * copying the server's flow set. Results are memoized per destination, representative
+ * flow and flow id bitset, repeated queries of the arrival bounding are answered in
+ * constant time.
+ * <p>
+ * The index refers to the server graph's live flow id bitsets. The server graph
+ * discards it when it is modified.
+ */
+final class SplittingServerIndex {
+	private final ServerGraph server_graph;
+
+	private final Map<Flow, Server[]> map__flow__path_servers = new ConcurrentHashMap<Flow, Server[]>();
+	private final Map<Flow, BitSet[]> map__flow__path_flow_ids = new ConcurrentHashMap<Flow, BitSet[]>();
+
+	private final Map<List<Object>, Server> map__query__splitting_server = new ConcurrentHashMap<List<Object>, Server>();
+	private final Map<List<Object>, Path> map__query__common_subpath = new ConcurrentHashMap<List<Object>, Path>();
+
+	SplittingServerIndex(ServerGraph server_graph) {
+		this.server_graph = server_graph;
+	}
+
+	private Server[] getPathServers(Flow f) {
+		Server[] path_servers = map__flow__path_servers.get(f);
+		if (path_servers == null) {
+			path_servers = f.getPath().getServers().toArray(new Server[0]);
+
+			BitSet[] path_flow_ids = new BitSet[path_servers.length];
+			for (int i = 0; i < path_servers.length; i++) {
+				path_flow_ids[i] = server_graph.getFlowIdsInternal(path_servers[i]);
+			}
+			map__flow__path_flow_ids.put(f, path_flow_ids);
+			map__flow__path_servers.put(f, path_servers);
+		}
+		return path_servers;
+	}
+
+	Server findSplittingServer(Server server_common_dest, Set<Flow> flows_of_interest) throws Exception {
+		Flow f = flows_of_interest.iterator().next();
+
+		if (flows_of_interest.size() == 1) {
+			return f.getSource();
+		}
+
+		BitSet flow_ids = SetUtils.getIds(flows_of_interest, Flow::getId);
+		List<Object> query = Arrays.asList(server_common_dest, f, flow_ids);
+		Server split = map__query__splitting_server.get(query);
+		if (split != null) {
+			return split;
+		}
+
+		Server[] path_servers = getPathServers(f);
+		BitSet[] path_flow_ids = map__flow__path_flow_ids.get(f);
+
+		int common_dest_index_f = -1;
+		for (int i = 0; i < path_servers.length; i++) {
+			if (path_servers[i] == server_common_dest) {
+				common_dest_index_f = i;
+				break;
+			}
+		}
+
+		// Iterate in reverse order starting from server_common_dest, stop as soon as at
+		// least one of the flows of interest is missing
+		int split_index = common_dest_index_f;
+		BitSet flow_ids_missing = new BitSet();
+		for (int i = common_dest_index_f - 1; i >= 0; i--) { // -1 excludes server_common_dest
+			flow_ids_missing.clear();
+			flow_ids_missing.or(flow_ids);
+			flow_ids_missing.andNot(path_flow_ids[i]);
+
+			if (flow_ids_missing.isEmpty()) {
+				split_index = i;
+			} else {
+				break;
+			}
+		}
+
+		if (split_index == common_dest_index_f) { // No splitting point found
+			throw new Exception("No splitting point prior to the common destination found");
+		}
+
+		split = path_servers[split_index];
+		map__query__splitting_server.put(query, split);
+		return split;
+	}
+
+	Path findCommonSubPath(Turn turn, Set<Flow> flows_of_interest) throws Exception {
+		Flow f = flows_of_interest.iterator().next();
+
+		List<Object> query = Arrays.asList(turn, f, SetUtils.getIds(flows_of_interest, Flow::getId));
+		Path common_subpath = map__query__common_subpath.get(query);
+		if (common_subpath == null) {
+			common_subpath = f.getSubPath(findSplittingServer(turn.getDest(), flows_of_interest), turn.getSource());
+			map__query__common_subpath.put(query, common_subpath);
+		}
+		return common_subpath;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.profiling;
+
+import java.util.Set;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.bounds.BoundingCurves;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
+
+/**
+ * Times the operations of a bounding curves backend. Handed out by the Calculator while profiling is enabled.
+ */
+public class ProfiledBoundingCurves implements BoundingCurves {
+	private final BoundingCurves bounding_curves;
+
+	public ProfiledBoundingCurves(BoundingCurves bounding_curves) {
+		this.bounding_curves = bounding_curves;
+	}
+
+	public BoundingCurves getDelegate() {
+		return bounding_curves;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// left-over Service
+	// --------------------------------------------------------------------------------------------------------------
+	@Override
+	public Set<ServiceCurve> leftOverService(AnalysisConfig configuration, Server server, Set<ArrivalCurve> arrival_curves) {
+		int phase = Profiler.begin(Phase.LEFT_OVER_SERVICE);
+		try {
+			return bounding_curves.leftOverService(configuration, server, arrival_curves);
+		} finally {
+			Profiler.end(Phase.LEFT_OVER_SERVICE, phase);
+		}
+	}
+
+	@Override
+	public Set<ServiceCurve> leftOverService(AnalysisConfig configuration, ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves) {
+		int phase = Profiler.begin(Phase.LEFT_OVER_SERVICE);
+		try {
+			return bounding_curves.leftOverService(configuration, service_curve, arrival_curves);
+		} finally {
+			Profiler.end(Phase.LEFT_OVER_SERVICE, phase);
+		}
+	}
+
+	@Override
+	public Set<ServiceCurve> leftOverServiceFIFO(ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves) {
+		int phase = Profiler.begin(Phase.LEFT_OVER_SERVICE);
+		try {
+			return bounding_curves.leftOverServiceFIFO(service_curve, arrival_curves);
+		} finally {
+			Profiler.end(Phase.LEFT_OVER_SERVICE, phase);
+		}
+	}
+
+	@Override
+	public ServiceCurve leftOverServiceFIFO(ServiceCurve service_curve, ArrivalCurve arrival_curve) {
+		int phase = Profiler.begin(Phase.LEFT_OVER_SERVICE);
+		try {
+			return bounding_curves.leftOverServiceFIFO(service_curve, arrival_curve);
+		} finally {
+			Profiler.end(Phase.LEFT_OVER_SERVICE, phase);
+		}
+	}
+
+	@Override
+	public Set<ServiceCurve> leftOverServiceARB(ServiceCurve service_curve, Set<ArrivalCurve> arrival_curves) {
+		int phase = Profiler.begin(Phase.LEFT_OVER_SERVICE);
+		try {
+			return bounding_curves.leftOverServiceARB(service_curve, arrival_curves);
+		} finally {
+			Profiler.end(Phase.LEFT_OVER_SERVICE, phase);
+		}
+	}
+
+	@Override
+	public ServiceCurve leftOverServiceARB(ServiceCurve service_curve, ArrivalCurve arrival_curve) {
+		int phase = Profiler.begin(Phase.LEFT_OVER_SERVICE);
+		try {
+			return bounding_curves.leftOverServiceARB(service_curve, arrival_curve);
+		} finally {
+			Profiler.end(Phase.LEFT_OVER_SERVICE, phase);
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Output
+	// --------------------------------------------------------------------------------------------------------------
+	@Override
+	public Set<ArrivalCurve> output(AnalysisConfig configuration, Set<ArrivalCurve> arrival_curves, Server server) throws Exception {
+		int phase = Profiler.begin(Phase.OUTPUT_BOUND);
+		try {
+			return bounding_curves.output(configuration, arrival_curves, server);
+		} finally {
+			Profiler.end(Phase.OUTPUT_BOUND, phase);
+		}
+	}
+
+	@Override
+	public Set<ArrivalCurve> output(AnalysisConfig configuration, Set<ArrivalCurve> arrival_curves, Server server, Set<ServiceCurve> betas_lo) throws Exception {
+		int phase = Profiler.begin(Phase.OUTPUT_BOUND);
+		try {
+			return bounding_curves.output(configuration, arrival_curves, server, betas_lo);
+		} finally {
+			Profiler.end(Phase.OUTPUT_BOUND, phase);
+		}
+	}
+
+	@Override
+	public Set<ArrivalCurve> output(AnalysisConfig configuration, Set<ArrivalCurve> arrival_curves, Path path, Set<ServiceCurve> betas_lo) throws Exception {
+		int phase = Profiler.begin(Phase.OUTPUT_BOUND);
+		try {
+			return bounding_curves.output(configuration, arrival_curves, path, betas_lo);
+		} finally {
+			Profiler.end(Phase.OUTPUT_BOUND, phase);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.profiling;
+
+import org.networkcalculus.dnc.bounds.Bounds;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
+import org.networkcalculus.num.Num;
+
+/**
+ * Times the operations of a bounds backend. Handed out by the Calculator while profiling is enabled.
+ */
+public class ProfiledBounds implements Bounds {
+	private final Bounds bounds;
+
+	public ProfiledBounds(Bounds bounds) {
+		this.bounds = bounds;
+	}
+
+	public Bounds getDelegate() {
+		return bounds;
+	}
+
+	@Override
+	public Num backlog(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+		int phase = Profiler.begin(Phase.BACKLOG_BOUND);
+		try {
+			return bounds.backlog(arrival_curve, service_curve);
+		} finally {
+			Profiler.end(Phase.BACKLOG_BOUND, phase);
+		}
+	}
+
+	@Override
+	public Num delayARB(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+		int phase = Profiler.begin(Phase.DELAY_BOUND);
+		try {
+			return bounds.delayARB(arrival_curve, service_curve);
+		} finally {
+			Profiler.end(Phase.DELAY_BOUND, phase);
+		}
+	}
+
+	@Override
+	public Num delayFIFO(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+		int phase = Profiler.begin(Phase.DELAY_BOUND);
+		try {
+			return bounds.delayFIFO(arrival_curve, service_curve);
+		} finally {
+			Profiler.end(Phase.DELAY_BOUND, phase);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.profiling;
+
+import java.util.List;
+import java.util.Set;
+
+import org.networkcalculus.dnc.algebra.MinPlus;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.MaxServiceCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
+
+/**
+ * Times the operations of a MinPlus backend. Handed out by the Calculator while profiling is enabled.
+ */
+public class ProfiledMinPlus implements MinPlus {
+	private final MinPlus minplus;
+
+	public ProfiledMinPlus(MinPlus minplus) {
+		this.minplus = minplus;
+	}
+
+	public MinPlus getDelegate() {
+		return minplus;
+	}
+
+	// ------------------------------------------------------------
+	// Convolution
+	// ------------------------------------------------------------
+	@Override
+	public ServiceCurve convolve(ServiceCurve service_curve_1, ServiceCurve service_curve_2) throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve(service_curve_1, service_curve_2);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public Set<ServiceCurve> convolve(Set<ServiceCurve> service_curves_1, Set<ServiceCurve> service_curves_2)
+			throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve(service_curves_1, service_curves_2);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public ServiceCurve convolve_SCs(List<ServiceCurve> service_curves) throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve_SCs(service_curves);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public ArrivalCurve convolve(ArrivalCurve arrival_curve_1, ArrivalCurve arrival_curve_2) throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve(arrival_curve_1, arrival_curve_2);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public ArrivalCurve convolve(Set<ArrivalCurve> arrival_curves) throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve(arrival_curves);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public MaxServiceCurve convolve(MaxServiceCurve max_service_curve_1, MaxServiceCurve max_service_curve_2)
+			throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve(max_service_curve_1, max_service_curve_2);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public Set<Curve> convolve_ACs_MaxSC(Set<ArrivalCurve> arrival_curves, MaxServiceCurve maximum_service_curve)
+			throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve_ACs_MaxSC(arrival_curves, maximum_service_curve);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public Set<ArrivalCurve> convolve_ACs_MaxScRate(Set<ArrivalCurve> arrival_curves, MaxServiceCurve extra_gamma_curve)
+			throws Exception {
+		int phase = Profiler.begin(Phase.CONVOLUTION);
+		try {
+			return minplus.convolve_ACs_MaxScRate(arrival_curves, extra_gamma_curve);
+		} finally {
+			Profiler.end(Phase.CONVOLUTION, phase);
+		}
+	}
+
+	// ------------------------------------------------------------
+	// Deconvolution
+	// ------------------------------------------------------------
+	@Override
+	public Set<ArrivalCurve> deconvolve(Set<ArrivalCurve> arrival_curves, ServiceCurve service_curve) throws Exception {
+		int phase = Profiler.begin(Phase.DECONVOLUTION);
+		try {
+			return minplus.deconvolve(arrival_curves, service_curve);
+		} finally {
+			Profiler.end(Phase.DECONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public Set<ArrivalCurve> deconvolve(Set<ArrivalCurve> arrival_curves, Set<ServiceCurve> service_curves)
+			throws Exception {
+		int phase = Profiler.begin(Phase.DECONVOLUTION);
+		try {
+			return minplus.deconvolve(arrival_curves, service_curves);
+		} finally {
+			Profiler.end(Phase.DECONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public ArrivalCurve deconvolve(ArrivalCurve arrival_curve, ServiceCurve service_curve) throws Exception {
+		int phase = Profiler.begin(Phase.DECONVOLUTION);
+		try {
+			return minplus.deconvolve(arrival_curve, service_curve);
+		} finally {
+			Profiler.end(Phase.DECONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public ArrivalCurve deconvolve(ArrivalCurve arrival_curve, ServiceCurve service_curve, boolean tb_rl_optimized)
+			throws Exception {
+		int phase = Profiler.begin(Phase.DECONVOLUTION);
+		try {
+			return minplus.deconvolve(arrival_curve, service_curve, tb_rl_optimized);
+		} finally {
+			Profiler.end(Phase.DECONVOLUTION, phase);
+		}
+	}
+
+	@Override
+	public Set<ArrivalCurve> deconvolve_almostConcCs_SCs(Set<Curve> curves, Set<ServiceCurve> service_curves)
+			throws Exception {
+		int phase = Profiler.begin(Phase.DECONVOLUTION);
+		try {
+			return minplus.deconvolve_almostConcCs_SCs(curves, service_curves);
+		} finally {
+			Profiler.end(Phase.DECONVOLUTION, phase);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight counters and timers for the phases of the analysis pipeline.
+ * <p>
+ * Disabled by default. A disabled profiler costs a single volatile read per instrumented call,
+ * the MinPlus and bounds backends are not even wrapped then.
+ * <p>
+ * Every phase records its inclusive time and its self time, i.e., the time not spent in nested
+ * phases. Self times add up to the profiled wall-clock time of a thread even if phases recurse,
+ * e.g., arrival bounding. Allocated bytes are recorded the same way if allocation tracking is
+ * enabled and supported by the JVM.
+ * <p>
+ * Totals are kept across all threads, see {@link #snapshot()}. In addition, each tandem analysis
+ * attaches the phases executed on its thread to the results of its flow of interest.
+ * Work forked to other threads by parallel arrival bounding only shows in the totals. Worse, a
+ * thread joining forked work may execute other flows' tasks meanwhile, their phases then count
+ * for the joining thread's flow. Such records are marked, see {@link ProfilingRecord#isReliable()}.
+ */
+public final class Profiler {
+	public enum Phase {
+		// Tandem analyses
+		TFA, SFA, PMOO, TMA,
+		// Arrival bound dispatching
+		ARRIVAL_BOUND_SERVER, ARRIVAL_BOUND_TURN, ARRIVAL_BOUND_CACHE_HIT, ARRIVAL_BOUND_PRECOMPUTED_HIT,
+		// Bounding curves backend
+		LEFT_OVER_SERVICE, OUTPUT_BOUND,
+		// MinPlus backend
+		CONVOLUTION, DECONVOLUTION,
+		// Bounds backend
+		BACKLOG_BOUND, DELAY_BOUND
+	}
+	
+	private static volatile boolean enabled = false;
+	private static volatile boolean track_allocations = false;
+	private static final com.sun.management.ThreadMXBean thread_mx_bean = getThreadMXBean();
+
+	private static final int NUM_PHASES = Phase.values().length;
+	private static final LongAdder[] counts = createAdders();
+	private static final LongAdder[] nanos = createAdders();
+	private static final LongAdder[] nanos_self = createAdders();
+	private static final LongAdder[] bytes = createAdders();
+	private static final LongAdder[] bytes_self = createAdders();
+	
+	private static final List<ProfilingListener> listeners = new CopyOnWriteArrayList<ProfilingListener>();
+	
+	private static final ThreadLocal<ThreadState> thread_state = ThreadLocal.withInitial(ThreadState::new);
+	
+	private Profiler() {}
+	
+	private static LongAdder[] createAdders() {
+		LongAdder[] adders = new LongAdder[NUM_PHASES];
+		for (int i = 0; i < NUM_PHASES; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+	
+	private static com.sun.management.ThreadMXBean getThreadMXBean() {
+		try {
+			java.lang.management.ThreadMXBean thread_mx_bean = ManagementFactory.getThreadMXBean();
+			if (thread_mx_bean instanceof com.sun.management.ThreadMXBean
+					&& ((com.sun.management.ThreadMXBean) thread_mx_bean).isThreadAllocatedMemorySupported()) {
+				return (com.sun.management.ThreadMXBean) thread_mx_bean;
+			}
+		} catch (Throwable e) { // The management API is not present in every runtime.
+		}
+		return null;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Configuration
+	// --------------------------------------------------------------------------------------------------------------
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	public static boolean tracksAllocations() {
+		return track_allocations;
+	}
+
+	/**
+	 * @param track
+	 *            Record the bytes allocated per phase, too.
+	 * @return false if the JVM does not support allocation tracking.
+	 */
+	public static boolean setTrackAllocations(boolean track) {
+		if (track && thread_mx_bean == null) {
+			track_allocations = false;
+			return false;
+		}
+		if (track && !thread_mx_bean.isThreadAllocatedMemoryEnabled()) {
+			thread_mx_bean.setThreadAllocatedMemoryEnabled(true);
+		}
+		track_allocations = track;
+		return true;
+	}
+
+	public static void addListener(ProfilingListener listener) {
+		listeners.add(listener);
+	}
+
+	public static void removeListener(ProfilingListener listener) {
+		listeners.remove(listener);
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Recording
+	// --------------------------------------------------------------------------------------------------------------
+	/**
+	 * Starts timing a phase on the current thread. Always pair with {@link #end(Phase, int)} in a finally block.
+	 *
+	 * @param phase
+	 *            The phase to time.
+	 * @return The token to end the phase with, 0 if the profiler is disabled.
+	 */
+	public static int begin(Phase phase) {
+		if (!enabled) {
+			return 0;
+		}
+		ThreadState state = thread_state.get();
+		state.push(System.nanoTime(), allocatedBytes());
+		return state.depth;
+	}
+
+	public static void end(Phase phase, int token) {
+		if (token == 0) {
+			return;
+		}
+		long nanos_end = System.nanoTime();
+		long bytes_end = allocatedBytes();
+
+		ThreadState state = thread_state.get();
+		if (state.depth < token) {
+			return;
+		}
+		state.depth = token - 1;
+		int i = state.depth;
+
+		long nanos_phase = nanos_end - state.begin_nanos[i];
+		long bytes_phase = state.begin_bytes[i] == 0 ? 0 : bytes_end - state.begin_bytes[i];
+		long nanos_phase_self = nanos_phase - state.child_nanos[i];
+		long bytes_phase_self = bytes_phase - state.child_bytes[i];
+		if (i > 0) {
+			state.child_nanos[i - 1] += nanos_phase;
+			state.child_bytes[i - 1] += bytes_phase;
+		}
+
+		record(state, phase, nanos_phase, nanos_phase_self, bytes_phase, bytes_phase_self);
+	}
+
+	/**
+	 * Counts an event without timing it, e.g., a cache hit.
+	 *
+	 * @param phase
+	 *            The phase to count.
+	 */
+	public static void count(Phase phase) {
+		if (!enabled) {
+			return;
+		}
+		record(thread_state.get(), phase, 0, 0, 0, 0);
+	}
+
+	private static void record(ThreadState state, Phase phase, long nanos_phase, long nanos_phase_self, long bytes_phase, long bytes_phase_self) {
+		int p = phase.ordinal();
+		counts[p].increment();
+		nanos[p].add(nanos_phase);
+		nanos_self[p].add(nanos_phase_self);
+		bytes[p].add(bytes_phase);
+		bytes_self[p].add(bytes_phase_self);
+
+		for (ProfilingRecord flow_record = state.flow_record; flow_record != null; flow_record = flow_record.parent) {
+			flow_record.add(phase, 1, nanos_phase, nanos_phase_self, bytes_phase, bytes_phase_self);
+		}
+
+		for (ProfilingListener listener : listeners) {
+			listener.phaseCompleted(phase, nanos_phase, nanos_phase_self, bytes_phase, bytes_phase_self);
+		}
+	}
+
+	private static long allocatedBytes() {
+		if (!track_allocations) {
+			return 0;
+		}
+		return thread_mx_bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Per-flow records
+	// --------------------------------------------------------------------------------------------------------------
+	/**
+	 * Opens a record collecting all phases on the current thread until it is closed.
+	 * Records nest, the phases of an inner record also count for the outer ones.
+	 *
+	 * @return The new record, null if the profiler is disabled.
+	 */
+	public static ProfilingRecord openFlowRecord() {
+		return openFlowRecord(true);
+	}
+
+	/**
+	 * Opens a record like {@link #openFlowRecord()}. A record opened by a fork/join worker thread
+	 * is never reliable as the thread executes unrelated tasks while joining.
+	 *
+	 * @param reliable
+	 *            false if the analysis joins forked work, e.g., in parallel arrival bounding.
+	 * @return The new record, null if the profiler is disabled.
+	 */
+	public static ProfilingRecord openFlowRecord(boolean reliable) {
+		if (!enabled) {
+			return null;
+		}
+		ThreadState state = thread_state.get();
+		ProfilingRecord flow_record = new ProfilingRecord(reliable && !ForkJoinTask.inForkJoinPool());
+		flow_record.parent = state.flow_record;
+		state.flow_record = flow_record;
+		return flow_record;
+	}
+
+	public static ProfilingRecord closeFlowRecord(ProfilingRecord flow_record) {
+		if (flow_record == null) {
+			return null;
+		}
+		ThreadState state = thread_state.get();
+		if (state.flow_record == flow_record) {
+			state.flow_record = flow_record.parent;
+		}
+		flow_record.parent = null;
+		return flow_record;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Export
+	// --------------------------------------------------------------------------------------------------------------
+	/**
+	 * @return The totals recorded by all threads since the last reset.
+	 */
+	public static ProfilingRecord snapshot() {
+		ProfilingRecord totals = new ProfilingRecord();
+		for (Phase phase : Phase.values()) {
+			int p = phase.ordinal();
+			totals.add(phase, counts[p].sum(), nanos[p].sum(), nanos_self[p].sum(), bytes[p].sum(), bytes_self[p].sum());
+		}
+		return totals;
+	}
+
+	public static void reset() {
+		for (int p = 0; p < NUM_PHASES; p++) {
+			counts[p].reset();
+			nanos[p].reset();
+			nanos_self[p].reset();
+			bytes[p].reset();
+			bytes_self[p].reset();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Per-thread phase stack
+	// --------------------------------------------------------------------------------------------------------------
+	private static final class ThreadState {
+		private long[] begin_nanos = new long[16];
+		private long[] child_nanos = new long[16];
+		private long[] begin_bytes = new long[16];
+		private long[] child_bytes = new long[16];
+		private int depth = 0;
+		private ProfilingRecord flow_record = null;
+
+		private void push(long nanos_begin, long bytes_begin) {
+			if (depth == begin_nanos.length) {
+				begin_nanos = Arrays.copyOf(begin_nanos, 2 * depth);
+				child_nanos = Arrays.copyOf(child_nanos, 2 * depth);
+				begin_bytes = Arrays.copyOf(begin_bytes, 2 * depth);
+				child_bytes = Arrays.copyOf(child_bytes, 2 * depth);
+			}
+			begin_nanos[depth] = nanos_begin;
+			child_nanos[depth] = 0;
+			begin_bytes[depth] = bytes_begin;
+			child_bytes[depth] = 0;
+			depth++;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.profiling;
+
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
+
+/**
+ * Receives every recorded phase, e.g., to forward it to JFR events or a metrics registry.
+ * Called synchronously on the profiled thread, implementations must be thread-safe and cheap.
+ */
+public interface ProfilingListener {
+	/**
+	 * Counted events like cache hits are reported with zero time and bytes.
+	 *
+	 * @param phase
+	 *            The completed phase.
+	 * @param nanos
+	 *            Time spent in the phase, including nested phases.
+	 * @param nanos_self
+	 *            Time spent in the phase, excluding nested phases.
+	 * @param bytes
+	 *            Allocated bytes including nested phases, 0 if not tracked.
+	 * @param bytes_self
+	 *            Allocated bytes excluding nested phases, 0 if not tracked.
+	 */
+	void phaseCompleted(Phase phase, long nanos, long nanos_self, long bytes, long bytes_self);
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.profiling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
+
+/**
+ * Counts, times and allocated bytes per phase, either of a single flow's analysis
+ * or the totals returned by {@link Profiler#snapshot()}.
+ */
+public class ProfilingRecord {
+	private final long[] counts = new long[Phase.values().length];
+	private final long[] nanos = new long[Phase.values().length];
+	private final long[] nanos_self = new long[Phase.values().length];
+	private final long[] bytes = new long[Phase.values().length];
+	private final long[] bytes_self = new long[Phase.values().length];
+
+	private final boolean reliable;
+
+	// Enclosing record of the same thread while this one is open.
+	ProfilingRecord parent;
+
+	protected ProfilingRecord() {
+		this(true);
+	}
+
+	protected ProfilingRecord(boolean reliable) {
+		this.reliable = reliable;
+	}
+
+	/**
+	 * @return false if phases of other flows' analyses may have been attributed to this record,
+	 *         see {@link Profiler}.
+	 */
+	public boolean isReliable() {
+		return reliable;
+	}
+
+	void add(Phase phase, long count, long nanos_phase, long nanos_phase_self, long bytes_phase, long bytes_phase_self) {
+		int p = phase.ordinal();
+		counts[p] += count;
+		nanos[p] += nanos_phase;
+		nanos_self[p] += nanos_phase_self;
+		bytes[p] += bytes_phase;
+		bytes_self[p] += bytes_phase_self;
+	}
+
+	public long getCount(Phase phase) {
+		return counts[phase.ordinal()];
+	}
+
+	/**
+	 * @param phase
+	 *            The phase.
+	 * @return Time spent in the phase, including nested phases.
+	 */
+	public long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	/**
+	 * @param phase
+	 *            The phase.
+	 * @return Time spent in the phase, excluding nested phases.
+	 */
+	public long getSelfNanos(Phase phase) {
+		return nanos_self[phase.ordinal()];
+	}
+
+	public long getAllocatedBytes(Phase phase) {
+		return bytes[phase.ordinal()];
+	}
+
+	public long getSelfAllocatedBytes(Phase phase) {
+		return bytes_self[phase.ordinal()];
+	}
+
+	/**
+	 * Flat export for metrics registries. Keys are &lt;phase&gt;.count, &lt;phase&gt;.nanos,
+	 * &lt;phase&gt;.nanos_self, &lt;phase&gt;.bytes and &lt;phase&gt;.bytes_self
+	 * for every phase that occurred.
+	 *
+	 * @return The metrics in phase order.
+	 */
+	public Map<String, Long> toMap() {
+		Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+		for (Phase phase : Phase.values()) {
+			int p = phase.ordinal();
+			if (counts[p] == 0) {
+				continue;
+			}
+			String prefix = phase.name().toLowerCase();
+			metrics.put(prefix + ".count", counts[p]);
+			metrics.put(prefix + ".nanos", nanos[p]);
+			metrics.put(prefix + ".nanos_self", nanos_self[p]);
+			metrics.put(prefix + ".bytes", bytes[p]);
+			metrics.put(prefix + ".bytes_self", bytes_self[p]);
+		}
+		return metrics;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer record_str = new StringBuffer("{");
+		if (!reliable) {
+			record_str.append("unreliable, ");
+		}
+		for (Phase phase : Phase.values()) {
+			int p = phase.ordinal();
+			if (counts[p] == 0) {
+				continue;
+			}
+			record_str.append(phase.name());
+			record_str.append("=[n:");
+			record_str.append(counts[p]);
+			record_str.append(", ms:");
+			record_str.append(nanos[p] / 1e6);
+			record_str.append(", ms_self:");
+			record_str.append(nanos_self[p] / 1e6);
+			if (bytes[p] != 0) {
+				record_str.append(", bytes_self:");
+				record_str.append(bytes_self[p]);
+			}
+			record_str.append("], ");
+		}
+		if (record_str.length() > 1) {
+			record_str.delete(record_str.length() - 2, record_str.length()); // Remove the trailing blank space and comma.
+		}
+		record_str.append("}");
+		return record_str.toString();
+	}
+}
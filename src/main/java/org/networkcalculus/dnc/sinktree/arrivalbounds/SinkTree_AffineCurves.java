@@ -40,7 +40,6 @@ import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
 import org.networkcalculus.dnc.sinktree.arrivalbounds.SinkTree_AffineCurves;
-import org.networkcalculus.dnc.utils.SetUtils;
 
 public class SinkTree_AffineCurves {
     private static SinkTree_AffineCurves instance = new SinkTree_AffineCurves();
@@ -77,7 +76,7 @@ public class SinkTree_AffineCurves {
     public ArrivalCurve computeArrivalBoundMinPlusBackend(Turn turn, Set<Flow> f_xfcaller, Flow flow_of_interest)
             throws Exception {
         // Get flows of interest
-        Set<Flow> f_xfcaller_server = SetUtils.getIntersection(f_xfcaller, server_graph.getFlows(turn));
+        Set<Flow> f_xfcaller_server = server_graph.getFlowsIntersection(turn, f_xfcaller);
         f_xfcaller_server.remove(flow_of_interest);
 
         if (f_xfcaller_server.isEmpty()) {
@@ -117,7 +116,7 @@ public class SinkTree_AffineCurves {
     public ArrivalCurve computeArrivalBoundDirect(Turn turn, Set<Flow> f_xfcaller, Flow flow_of_interest)
             throws Exception {
         // Get flows of interest
-        Set<Flow> f_xfcaller_server = SetUtils.getIntersection(f_xfcaller, server_graph.getFlows(turn));
+        Set<Flow> f_xfcaller_server = server_graph.getFlowsIntersection(turn, f_xfcaller);
         f_xfcaller_server.remove(flow_of_interest);
         if (f_xfcaller_server.isEmpty()) {
             return Calculator.getInstance().getCurveFactory().createZeroArrivals();
@@ -175,7 +174,7 @@ public class SinkTree_AffineCurves {
             throws Exception {
 
         // Get flows of interest
-        Set<Flow> f_xfcaller_server = SetUtils.getIntersection(f_xfcaller, server_graph.getFlows(turn));
+        Set<Flow> f_xfcaller_server = server_graph.getFlowsIntersection(turn, f_xfcaller);
         f_xfcaller_server.remove(flow_of_interest);
         if (f_xfcaller_server.size() == 0) {
             return Calculator.getInstance().getCurveFactory().createZeroArrivals();
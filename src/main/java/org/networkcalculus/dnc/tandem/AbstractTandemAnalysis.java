@@ -27,24 +27,227 @@
 
 package org.networkcalculus.dnc.tandem;
 
+import java.io.IOException;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundSession;
+import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.profiling.Profiler;
+import org.networkcalculus.dnc.profiling.ProfilingRecord;
+import org.networkcalculus.dnc.tandem.analyses.AffineFastPath;
 import org.networkcalculus.num.Num;
 
 public abstract class AbstractTandemAnalysis implements TandemAnalysis {
     protected ServerGraph server_graph;
     protected AnalysisConfig configuration;
     protected TandemAnalysisResults result;
+    private AffineFastPath affine_fast_path;
+    private volatile ArrivalBoundSession ab_session;
+
+    private ResultSink result_sink;
+    // Set while deriveDetails(...) analyzes a flow again.
+    private ResultDetail result_detail_override;
+    // Servers whose bounds were passed to the result sink, by id.
+    private final BitSet servers_emitted = new BitSet();
 
     public ServerGraph getServerGraph() {
         return server_graph;
     }
 
+    public AnalysisConfig getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns the closed-form computations for token-bucket / rate-latency networks
+     * if they are enabled in the configuration and applicable to the server graph.
+     *
+     * @return The affine fast path or <code>null</code> if the general analysis needs to be executed.
+     */
+    protected AffineFastPath getAffineFastPath() {
+        if (!configuration.useAffineFastPath()) {
+            return null;
+        }
+        if (affine_fast_path == null || affine_fast_path.getServerGraph() != server_graph
+                || affine_fast_path.getRevision() != server_graph.getRevision()) {
+            affine_fast_path = new AffineFastPath(server_graph, configuration);
+        }
+        return affine_fast_path.isApplicable() ? affine_fast_path : null;
+    }
+
+    /**
+     * Returns the arrival bound session of this analysis. It is created once per server graph and
+     * configuration and shared by all arrival bounds derived for the analysis.
+     *
+     * @return The arrival bound session.
+     */
+    protected ArrivalBoundSession getArrivalBoundSession() {
+        ArrivalBoundSession session = ab_session;
+        if (session == null || session.getServerGraph() != server_graph || session.getConfiguration() != configuration) {
+            session = new ArrivalBoundSession(server_graph, configuration);
+            ab_session = session;
+        }
+        return session;
+    }
+
+    /**
+     * @param result_sink The sink to receive the bounds of subsequent analyses, null for none.
+     */
+    public void setResultSink(ResultSink result_sink) {
+        this.result_sink = result_sink;
+        resetServerBoundsEmitted();
+    }
+
+    public ResultSink getResultSink() {
+        return result_sink;
+    }
+
+    /**
+     * Passes the bounds of the flow of interest to the result sink, if any.
+     * To be called after the flow of interest was analyzed successfully.
+     *
+     * @param flow_of_interest
+     *            The flow of interest.
+     * @throws IOException
+     *             The result sink failed.
+     */
+    protected void emitFlowBounds(Flow flow_of_interest) throws IOException {
+        if (result_sink == null) {
+            return;
+        }
+        result_sink.flowBounds(toString(), flow_of_interest, result.getDelayBound(), result.getBacklogBound());
+    }
+
+    /**
+     * Passes the server-local bounds to the result sink, if any, once per server.
+     *
+     * @param server
+     *            The server.
+     * @param delay_bound
+     *            The server's delay bound.
+     * @param backlog_bound
+     *            The server's backlog bound.
+     * @throws IOException
+     *             The result sink failed.
+     */
+    protected void emitServerBounds(Server server, Num delay_bound, Num backlog_bound) throws IOException {
+        if (result_sink == null) {
+            return;
+        }
+        synchronized (servers_emitted) {
+            if (servers_emitted.get(server.getId())) {
+                return;
+            }
+            servers_emitted.set(server.getId());
+        }
+        result_sink.serverBounds(toString(), server, delay_bound, backlog_bound);
+    }
+
+    /**
+     * Forgets which servers' bounds were passed to the result sink, e.g., after the bounds were derived again.
+     */
+    protected void resetServerBoundsEmitted() {
+        synchronized (servers_emitted) {
+            servers_emitted.clear();
+        }
+    }
+
+    /**
+     * @return The details retained in the results, the configuration's level if set.
+     */
+    public ResultDetail getResultDetail() {
+        if (result_detail_override != null) {
+            return result_detail_override;
+        }
+        ResultDetail result_detail = configuration.resultDetail();
+        return result_detail != null ? result_detail : getDefaultResultDetail();
+    }
+
+    /**
+     * @return The details retained if the configuration does not set them:
+     *         BOUNDS if the bounds are passed to a result sink, FULL otherwise.
+     */
+    protected ResultDetail getDefaultResultDetail() {
+        return result_sink != null ? ResultDetail.BOUNDS : ResultDetail.FULL;
+    }
+
+    /**
+     * Drops the result details not requested by the result detail level, see getResultDetail().
+     * To be called after the flow of interest was analyzed successfully.
+     */
+    protected void retainResultDetails() {
+        result.discardDetails(getResultDetail());
+    }
+
+    /**
+     * Analyzes the flow of interest again and retains all details of the results, independent of
+     * the result detail level. The bounds are not passed to the result sink again.
+     *
+     * @param flow_of_interest
+     *            The flow of interest.
+     * @throws Exception
+     *             The analysis failed.
+     */
+    public void deriveDetails(Flow flow_of_interest) throws Exception {
+        ResultSink result_sink = this.result_sink;
+        this.result_sink = null;
+        result_detail_override = ResultDetail.FULL;
+        try {
+            performAnalysis(flow_of_interest);
+        } finally {
+            result_detail_override = null;
+            this.result_sink = result_sink;
+        }
+    }
+
+    /**
+     * Checks that the results retain the requested details. Discarded details are not derived again.
+     *
+     * @param result_detail
+     *            The details needed.
+     * @throws IllegalStateException
+     *             The configuration's result detail level discarded the requested details.
+     */
+    protected void requireResultDetail(ResultDetail result_detail) {
+        if (result.getResultDetail().compareTo(result_detail) < 0) {
+            throw new IllegalStateException("The results retain " + result.getResultDetail() + " details only, "
+                    + "derive them with deriveDetails(flow) or analyze with AnalysisConfig.setResultDetail(ResultDetail.FULL)");
+        }
+    }
+
+    /**
+     * Opens the profiling record of the flow to analyze. Parallel arrival bounding joins forked work,
+     * the joining thread may execute other flows' tasks meanwhile. The record is marked unreliable then.
+     *
+     * @return The record to pass to endProfiling, null if the profiler is disabled.
+     */
+    protected ProfilingRecord openFlowRecord() {
+        return Profiler.openFlowRecord(!configuration.useParallelArrivalBounding()
+                && !configuration.useParallelArrivalBoundMethods());
+    }
+
+    /**
+     * Closes the profiling record of the analyzed flow and attaches it to the results.
+     *
+     * @param phase
+     *            The phase of the analysis.
+     * @param phase_token
+     *            The token returned by Profiler.begin(phase).
+     * @param flow_record
+     *            The record returned by openFlowRecord().
+     */
+    protected void endProfiling(Profiler.Phase phase, int phase_token, ProfilingRecord flow_record) {
+        Profiler.end(phase, phase_token);
+        result.setProfilingRecord(Profiler.closeFlowRecord(flow_record));
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName();
@@ -82,10 +285,16 @@ public abstract class AbstractTandemAnalysis implements TandemAnalysis {
      * @return Mapping from the server to the server's arrival bound
      */
     public Map<Server, Set<ArrivalCurve>> getServerAlphasMap() {
+        requireResultDetail(ResultDetail.FULL);
         return result.map__server__alphas;
     }
 
     public String getServerAlphasMapString() {
+        requireResultDetail(ResultDetail.FULL);
         return result.getServerAlphasMapString();
     }
+
+    public ProfilingRecord getProfilingRecord() {
+        return result.getProfilingRecord();
+    }
 }
\ No newline at end of file
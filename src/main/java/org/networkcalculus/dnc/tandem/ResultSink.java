@@ -0,0 +1,70 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.num.Num;
+
+/**
+ * Receives the bounds of an analysis as soon as they are derived, see AbstractTandemAnalysis.setResultSink(...).
+ * Analyses with a result sink retain the bounds only unless the configuration sets another
+ * AnalysisConfig.ResultDetail, i.e., the analysis of a large server graph does not accumulate
+ * results on the heap.
+ * <p>
+ * A sink may be shared by analyses running concurrently, implementations must be thread-safe.
+ */
+public interface ResultSink extends Closeable {
+    /**
+     * @param analysis         The name of the analysis.
+     * @param flow_of_interest The analyzed flow.
+     * @param delay_bound      The flow's delay bound.
+     * @param backlog_bound    The flow's backlog bound.
+     * @throws IOException Writing the bounds failed.
+     */
+    void flowBounds(String analysis, Flow flow_of_interest, Num delay_bound, Num backlog_bound) throws IOException;
+
+    /**
+     * Server-local bounds of all flows crossing the server, derived by the TFA once per server.
+     *
+     * @param analysis      The name of the analysis.
+     * @param server        The server.
+     * @param delay_bound   The server's delay bound.
+     * @param backlog_bound The server's backlog bound.
+     * @throws IOException Writing the bounds failed.
+     */
+    void serverBounds(String analysis, Server server, Num delay_bound, Num backlog_bound) throws IOException;
+
+    /**
+     * Writes all bounds received so far and releases the sink's resources.
+     *
+     * @throws IOException Writing the bounds failed.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -38,6 +38,7 @@ import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.SeparateFlowAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
 import org.networkcalculus.num.Num;
 
@@ -49,6 +50,21 @@ public interface TandemAnalysis {
     // ----------------------------------------------------------------------------------------------------
     // Convenience methods to start tandem analyses.
     // ----------------------------------------------------------------------------------------------------
+    static TandemAnalysis createAnalysis(Analyses analysis, ServerGraph server_graph, AnalysisConfig configuration) {
+        switch (analysis) {
+            case TFA:
+                return new TotalFlowAnalysis(server_graph, configuration);
+            case SFA:
+                return new SeparateFlowAnalysis(server_graph, configuration);
+            case PMOO:
+                return new PmooAnalysis(server_graph, configuration);
+            case TMA:
+                return new TandemMatchingAnalysis(server_graph, configuration);
+            default:
+                throw new IllegalArgumentException("Unknown analysis " + analysis);
+        }
+    }
+
     static TotalFlowAnalysis performTfaEnd2End(ServerGraph server_graph, Flow flow_of_interest) throws Exception {
         TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph);
         tfa.performAnalysis(flow_of_interest);
@@ -95,6 +111,8 @@ public interface TandemAnalysis {
 
     void performAnalysis(Flow flow_of_interest, Path path) throws Exception;
 
+    void deriveDetails(Flow flow_of_interest) throws Exception;
+
     // ----------------------------------------------------------------------------------------------------
     // Convenience methods to access results and the server graph.
     // ----------------------------------------------------------------------------------------------------
@@ -107,4 +125,6 @@ public interface TandemAnalysis {
     String getServerAlphasMapString();
     
     ServerGraph getServerGraph();
+
+    AnalysisConfig getConfiguration();
 }
\ No newline at end of file
@@ -32,15 +32,19 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.profiling.ProfilingRecord;
 import org.networkcalculus.num.Num;
 
 public class TandemAnalysisResults {
 	public Map<Server, Set<ArrivalCurve>> map__server__alphas;
 	protected Num delay_bound;
 	protected Num backlog_bound;
+	protected ProfilingRecord profiling_record;
+	protected ResultDetail result_detail = ResultDetail.FULL;
 
 	public TandemAnalysisResults() {
 		this.delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN();
@@ -74,6 +78,37 @@ public class TandemAnalysisResults {
 		this.backlog_bound = backlog_bound;
 	}
 
+	/**
+	 * @return The phases profiled during the analysis of the flow of interest, null if the Profiler was disabled.
+	 */
+	public ProfilingRecord getProfilingRecord() {
+		return profiling_record;
+	}
+
+	protected void setProfilingRecord(ProfilingRecord profiling_record) {
+		this.profiling_record = profiling_record;
+	}
+
+	/**
+	 * @return The details retained in these results.
+	 */
+	public ResultDetail getResultDetail() {
+		return result_detail;
+	}
+
+	/**
+	 * Drops the details beyond the given level such that they can be garbage collected.
+	 * Results reused for the next flow of interest are filled again by the analysis.
+	 *
+	 * @param result_detail The details to retain.
+	 */
+	protected void discardDetails(ResultDetail result_detail) {
+		if (result_detail != ResultDetail.FULL) {
+			map__server__alphas = new HashMap<Server, Set<ArrivalCurve>>();
+		}
+		this.result_detail = result_detail;
+	}
+
 	public String getServerAlphasMapString() {
 		if (map__server__alphas.isEmpty()) {
 			return "{}";
@@ -0,0 +1,662 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.analyses;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.commons.math3.util.Pair;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.AnalysisConfig.MaxScEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.Curve_ConstantPool;
+import org.networkcalculus.dnc.curves.MaxServiceCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.utils.Rational;
+import org.networkcalculus.num.Num;
+
+/**
+ * Closed-form analysis of server graphs that consist of token-bucket arrival curves
+ * and rate-latency service curves only.
+ * <p>
+ * In such networks, all intermediate results of TFA, SFA and PMOO as well as of
+ * aggregate PBOO and PMOO arrival bounding remain token buckets and rate-latency curves.
+ * This class therefore operates on their parameters, i.e.,
+ * token buckets are stored as <code>{rate, burst}</code> and
+ * rate-latency curves as <code>{rate, latency}</code>,
+ * instead of computing with entire curves like the MinPlus and Bounds backends do.
+ * Curves are only created when results are handed back to the analyses.
+ * <p>
+ * Parameters are exact rational numbers (see <code>Rational</code>), read from the curves'
+ * Num values and converted back into the Calculator's Num backend. Results are thus exact
+ * for rational Num backends and rounded only once for floating-point backends.
+ * <p>
+ * The analyses use this code path if it is enabled in their configuration
+ * (see <code>AnalysisConfig.setUseAffineFastPath(boolean)</code>) and
+ * <code>isApplicable()</code> holds. Otherwise they fall back to their general implementation.
+ * The parameters are taken from the server graph upon instantiation,
+ * i.e., an instance does not notice later modifications of the server graph.
+ * The analyses therefore replace it once the server graph's revision changed.
+ */
+public class AffineFastPath {
+    private static final Rational[] ZERO_ARRIVALS = new Rational[]{Rational.ZERO, Rational.ZERO};
+    private static final Rational[] INFINITE_ARRIVALS = new Rational[]{Rational.POSITIVE_INFINITY, Rational.POSITIVE_INFINITY};
+    private static final Rational[] ZERO_SERVICE = new Rational[]{Rational.ZERO, Rational.POSITIVE_INFINITY};
+    private static final Rational[] INFINITE_SERVICE = new Rational[]{Rational.POSITIVE_INFINITY, Rational.ZERO};
+
+    private ServerGraph server_graph;
+    private AnalysisConfig configuration;
+    private AnalysisConfig configuration_snapshot;
+    private long revision;
+
+    private boolean affine_network = true;
+    private boolean servers_arbitrary = true;
+    private boolean servers_max_sc_unused = true;
+    private boolean servers_max_sc_rate_unused = true;
+    private boolean servers_stored_max_sc_neutral = true;
+    private boolean servers_stored_max_sc_rate_neutral = true;
+
+    private Map<Server, Rational[]> map__server__rl = new HashMap<Server, Rational[]>();
+    private Map<Flow, Rational[]> map__flow__tb = new HashMap<Flow, Rational[]>();
+
+    private Map<List<Object>, Rational[]> map__ab_key__tb = new HashMap<List<Object>, Rational[]>();
+    private Map<Server, Rational[]> map__server__alpha = new HashMap<Server, Rational[]>();
+    private Map<Server, Pair<Num, Num>> map__server__D_B = new HashMap<Server, Pair<Num, Num>>();
+
+    public AffineFastPath(ServerGraph server_graph, AnalysisConfig configuration) {
+        this.server_graph = server_graph;
+        this.configuration = configuration;
+        this.configuration_snapshot = configuration.copy();
+        this.revision = server_graph.getRevision();
+
+        for (Server server : server_graph.getServers()) {
+            ServiceCurve service_curve = server.getServiceCurve();
+            if (service_curve.isDelayedInfiniteBurst() || service_curve.getRL_ComponentCount() != 1) {
+                affine_network = false;
+                return;
+            }
+            map__server__rl.put(server, new Rational[]{Rational.valueOf(service_curve.getUltAffineRate()),
+                    Rational.valueOf(service_curve.getLatency())});
+
+            servers_arbitrary &= server.multiplexing() == Multiplexing.ARBITRARY;
+            servers_max_sc_unused &= !server.useMaxSC();
+            servers_max_sc_rate_unused &= !server.useMaxScRate();
+
+            MaxServiceCurve max_service_curve = server.getStoredMaxSC();
+            servers_stored_max_sc_rate_neutral &= max_service_curve.isDelayedInfiniteBurst();
+            servers_stored_max_sc_neutral &= max_service_curve.isDelayedInfiniteBurst()
+                    && max_service_curve.getLatency().eqZero();
+        }
+
+        for (Flow flow : server_graph.getFlows()) {
+            ArrivalCurve arrival_curve = flow.getArrivalCurve();
+            if (arrival_curve.getTB_ComponentCount() != 1) {
+                affine_network = false;
+                return;
+            }
+            map__flow__tb.put(flow, new Rational[]{Rational.valueOf(arrival_curve.getUltAffineRate()),
+                    Rational.valueOf(arrival_curve.getBurst())});
+        }
+    }
+
+    public ServerGraph getServerGraph() {
+        return server_graph;
+    }
+
+    /**
+     * @return The server graph's revision the parameters were taken from.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Checks if the server graph fits the token-bucket / rate-latency model and
+     * if the current configuration only requires computations that stay within it.
+     *
+     * @return Whether the closed-form computations yield the same bounds as the general analyses.
+     */
+    public boolean isApplicable() {
+        if (!affine_network) {
+            return false;
+        }
+
+        switch (configuration.enforceMultiplexing()) {
+            case GLOBAL_ARBITRARY:
+                break;
+            case SERVER_LOCAL:
+                if (!servers_arbitrary) {
+                    return false;
+                }
+                break;
+            default:
+                return false;
+        }
+
+        if (!maxScNeutral(configuration.enforceMaxSC(), servers_max_sc_unused, servers_stored_max_sc_neutral)
+                || !maxScNeutral(configuration.enforceMaxScOutputRate(), servers_max_sc_rate_unused, servers_stored_max_sc_rate_neutral)) {
+            return false;
+        }
+
+        // The burst cap and flow prolongation leave the parameter space.
+        if (configuration.serverBacklogArrivalBound() || configuration.useFlowProlongation()) {
+            return false;
+        }
+
+        // The aggregate PBOO variants coincide for token buckets and rate-latency curves
+        // whereas alternative PBOO and PMOO bounds would need to be convolved into a non-affine curve.
+        Set<ArrivalBoundMethod> ab_methods = configuration.arrivalBoundMethods();
+        if (ab_methods.equals(Collections.singleton(ArrivalBoundMethod.AGGR_PMOO))) {
+            return true;
+        }
+        ab_methods.remove(ArrivalBoundMethod.AGGR_PBOO_PER_SERVER);
+        ab_methods.remove(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION);
+        return ab_methods.isEmpty();
+    }
+
+    private static boolean maxScNeutral(MaxScEnforcement enforcement, boolean servers_unused, boolean servers_stored_neutral) {
+        switch (enforcement) {
+            case GLOBALLY_OFF:
+                return true;
+            case SERVER_LOCAL:
+                return servers_unused;
+            default:
+                return servers_stored_neutral;
+        }
+    }
+
+    private void checkConfiguration() {
+        if (!configuration_snapshot.equals(configuration)) {
+            configuration_snapshot = configuration.copy();
+            map__ab_key__tb.clear();
+            map__server__alpha.clear();
+            map__server__D_B.clear();
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Analyses
+    // --------------------------------------------------------------------------------------------------------------
+
+    protected Pair<Num, Num> deriveBoundsAtServer(Server server, TotalFlowResults result) throws Exception {
+        checkConfiguration();
+
+        Rational[] alpha;
+        Pair<Num, Num> D_B = map__server__D_B.get(server);
+        if (D_B != null) {
+            alpha = map__server__alpha.get(server);
+        } else {
+            alpha = computeArrivalBound(server, server_graph.getFlows(server), Flow.NULL_FLOW);
+            Rational[] beta = map__server__rl.get(server);
+
+            Rational delay;
+            if (server_graph.getFlows(server).size() == 1) { // FIFO per micro flow holds.
+                delay = delayFIFO(alpha, beta);
+            } else {
+                delay = delayARB(alpha, beta);
+            }
+            D_B = new Pair<Num, Num>(createNum(delay), createNum(backlog(alpha, beta)));
+            map__server__alpha.put(server, alpha);
+            map__server__D_B.put(server, D_B);
+        }
+
+        result.map__server__alphas.put(server, new HashSet<ArrivalCurve>(Collections.singleton(createArrivalCurve(alpha))));
+        result.map__server__D_server.put(server, new HashSet<Num>(Collections.singleton(D_B.getFirst())));
+        result.map__server__B_server.put(server, new HashSet<Num>(Collections.singleton(D_B.getSecond())));
+
+        return D_B;
+    }
+
+    protected void performSeparateFlowAnalysis(Flow flow_of_interest, Path path, SeparateFlowResults result) throws Exception {
+        checkConfiguration();
+
+        Rational[] beta_e2e = INFINITE_SERVICE;
+        for (Server server : path.getServers()) {
+            Rational[] alpha_xfoi = computeInterference(server, Collections.singleton(flow_of_interest), flow_of_interest);
+            Rational[] beta_lo = leftOverServiceARB(map__server__rl.get(server), alpha_xfoi);
+
+            result.map__server__alphas.put(server, Collections.singleton(createArrivalCurve(alpha_xfoi)));
+            result.map__server__betas_lo.put(server, new HashSet<ServiceCurve>(Collections.singleton(createServiceCurve(beta_lo))));
+
+            beta_e2e = convolve(beta_e2e, beta_lo);
+        }
+        result.betas_e2e = new HashSet<ServiceCurve>(Collections.singleton(createServiceCurve(beta_e2e)));
+
+        Rational[] alpha_foi = map__flow__tb.get(flow_of_interest);
+        result.setDelayBound(createNum(delayFIFO(alpha_foi, beta_e2e)));
+        result.setBacklogBound(createNum(backlog(alpha_foi, beta_e2e)));
+    }
+
+    protected void performPmooAnalysis(Flow flow_of_interest, Path path, PmooResults result) throws Exception {
+        checkConfiguration();
+
+        Rational[] beta_e2e = computePmooLeftOverService(flow_of_interest, path, Collections.singleton(flow_of_interest),
+                result.map__server__alphas);
+        result.betas_e2e = new HashSet<ServiceCurve>(Collections.singleton(createServiceCurve(beta_e2e)));
+
+        Rational[] alpha_foi = map__flow__tb.get(flow_of_interest);
+        result.setDelayBound(createNum(delayFIFO(alpha_foi, beta_e2e)));
+        result.setBacklogBound(createNum(backlog(alpha_foi, beta_e2e)));
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Arrival Bounding
+    // --------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Counterpart of <code>ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server, flows_to_bound, flow_of_interest)</code>.
+     */
+    private Rational[] computeArrivalBound(Server server, Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+        Set<Flow> f_xfcaller_server = server_graph.getFlowsIntersection(server, flows_to_bound);
+        f_xfcaller_server.remove(flow_of_interest);
+        if (f_xfcaller_server.isEmpty()) {
+            return ZERO_ARRIVALS;
+        }
+
+        List<Object> ab_key = Arrays.asList(server, flow_of_interest, f_xfcaller_server);
+        Rational[] alpha = map__ab_key__tb.get(ab_key);
+        if (alpha != null) {
+            return alpha;
+        }
+
+        alpha = ZERO_ARRIVALS;
+        for (Flow f : f_xfcaller_server) {
+            if (f.getSource() == server) {
+                alpha = add(alpha, map__flow__tb.get(f));
+            }
+        }
+        for (Turn in_l : server_graph.getInTurns(server)) {
+            Set<Flow> f_xfcaller_in_l = server_graph.getFlowsIntersection(in_l, f_xfcaller_server);
+            if (f_xfcaller_in_l.isEmpty()) {
+                continue;
+            }
+            alpha = add(alpha, computeArrivalBound(in_l, f_xfcaller_in_l, flow_of_interest));
+        }
+
+        map__ab_key__tb.put(ab_key, alpha);
+        return alpha;
+    }
+
+    private Rational[] computeArrivalBound(Turn turn, Set<Flow> f_xfcaller, Flow flow_of_interest) throws Exception {
+        // loi == location of interference
+        Server loi = turn.getDest();
+        Set<Flow> f_xfcaller_loi = server_graph.getFlowsIntersection(loi, f_xfcaller);
+        f_xfcaller_loi.remove(flow_of_interest);
+        if (f_xfcaller_loi.isEmpty()) {
+            return ZERO_ARRIVALS;
+        }
+
+        List<Object> ab_key = Arrays.asList(turn, flow_of_interest, f_xfcaller_loi);
+        Rational[] alpha = map__ab_key__tb.get(ab_key);
+        if (alpha != null) {
+            return alpha;
+        }
+
+        Path common_subpath = server_graph.findCommonSubPath(turn, f_xfcaller_loi);
+        Server common_subpath_src = common_subpath.getSource();
+
+        Rational[] beta_lo_subpath;
+        if (configuration.arrivalBoundMethods().contains(ArrivalBoundMethod.AGGR_PMOO)) {
+            if (common_subpath.numServers() == 1) {
+                Set<Flow> f_xxfcaller = server_graph.getFlows(common_subpath_src);
+                f_xxfcaller.removeAll(f_xfcaller_loi);
+                f_xxfcaller.remove(flow_of_interest);
+                beta_lo_subpath = leftOverServiceARB(map__server__rl.get(common_subpath_src),
+                        computeArrivalBound(common_subpath_src, f_xxfcaller, flow_of_interest));
+            } else {
+                beta_lo_subpath = computePmooLeftOverService(flow_of_interest, common_subpath, f_xfcaller_loi, null);
+            }
+        } else {
+            // PBOO: the output bound of a token bucket is the same
+            // for the concatenation of the left-over service curves and per server.
+            beta_lo_subpath = INFINITE_SERVICE;
+            for (Server server : common_subpath.getServers()) {
+                beta_lo_subpath = convolve(beta_lo_subpath, leftOverServiceARB(map__server__rl.get(server),
+                        computeInterference(server, f_xfcaller_loi, flow_of_interest)));
+            }
+        }
+
+        if (isZeroService(beta_lo_subpath)) {
+            alpha = INFINITE_ARRIVALS;
+        } else {
+            alpha = output(computeArrivalBound(common_subpath_src, f_xfcaller_loi, flow_of_interest), beta_lo_subpath);
+        }
+
+        map__ab_key__tb.put(ab_key, alpha);
+        return alpha;
+    }
+
+    /**
+     * Bounds the arrivals of all flows at <code>server</code> except for <code>flows_to_serve</code> and
+     * the flow of interest, i.e., the interference to derive a left-over service curve for.
+     */
+    private Rational[] computeInterference(Server server, Set<Flow> flows_to_serve, Flow flow_of_interest) throws Exception {
+        BitSet f_xxfcaller_server_ids = server_graph.getFlowIds(server);
+        f_xxfcaller_server_ids.andNot(server_graph.getFlowIds(flows_to_serve));
+        f_xxfcaller_server_ids.andNot(server_graph.getFlowIds(Collections.singleton(flow_of_interest)));
+        if (f_xxfcaller_server_ids.isEmpty()) {
+            return ZERO_ARRIVALS;
+        }
+
+        // Continued backtracking on the foi's path requires to hand over the foi,
+        // backtracking off the path requires to hand over Flow.NULL_FLOW.
+        BitSet f_xxfcaller_server_onpath_ids = new BitSet();
+        if (flow_of_interest.getId() != -1) {
+            Path foi_path = flow_of_interest.getPath();
+            if (foi_path.getServers().contains(server) && !foi_path.isSource(server)) {
+                Turn turn_from_prev_s = server_graph.findTurn(foi_path.getPrecedingServer(server), server);
+                f_xxfcaller_server_onpath_ids = server_graph.retainFlowIds(turn_from_prev_s, (BitSet) f_xxfcaller_server_ids.clone());
+            }
+        }
+        f_xxfcaller_server_ids.andNot(f_xxfcaller_server_onpath_ids);
+        Set<Flow> f_xxfcaller_server_onpath = server_graph.getFlows(f_xxfcaller_server_onpath_ids);
+        Set<Flow> f_xxfcaller_server = server_graph.getFlows(f_xxfcaller_server_ids);
+
+        return add(computeArrivalBound(server, f_xxfcaller_server_onpath, flow_of_interest),
+                computeArrivalBound(server, f_xxfcaller_server, Flow.NULL_FLOW));
+    }
+
+    /**
+     * Counterpart of <code>PmooAnalysis.getServiceCurves(flow_of_interest, path, flows_to_serve)</code>.
+     */
+    private Rational[] computePmooLeftOverService(Flow flow_of_interest, Path path, Set<Flow> flows_to_serve,
+                                                Map<Server, Set<ArrivalCurve>> map__server__alphas) throws Exception {
+        Set<Flow> cross_flows = server_graph.getFlows(path);
+        cross_flows.removeAll(flows_to_serve);
+        cross_flows.remove(flow_of_interest);
+
+        List<Server> servers = path.getServers();
+        Map<Server, Integer> map__server__idx = new HashMap<Server, Integer>();
+        Rational[][] rls = new Rational[servers.size()][];
+        int i = 0;
+        for (Server server : servers) {
+            map__server__idx.put(server, i);
+            rls[i] = map__server__rl.get(server);
+            i++;
+        }
+
+        Map<Path, Set<Flow>> xtx_subpath_grouped = server_graph.groupFlowsPerSubPath(path, cross_flows);
+        Rational[][] tbs = new Rational[xtx_subpath_grouped.size()][];
+        int[] first_idx = new int[tbs.length];
+        int[] last_idx = new int[tbs.length];
+        int g = 0;
+        for (Entry<Path, Set<Flow>> entry : xtx_subpath_grouped.entrySet()) {
+            Server subpath_src = entry.getKey().getSource();
+            Rational[] alpha_xf_group = computeArrivalBound(subpath_src, entry.getValue(), Flow.NULL_FLOW);
+
+            if (map__server__alphas != null) {
+                Set<ArrivalCurve> alphas_src = map__server__alphas.get(subpath_src);
+                if (alphas_src == null) {
+                    alphas_src = new HashSet<ArrivalCurve>();
+                    map__server__alphas.put(subpath_src, alphas_src);
+                }
+                alphas_src.add(createArrivalCurve(alpha_xf_group));
+            }
+
+            if (isInfinite(alpha_xf_group)) {
+                return ZERO_SERVICE;
+            }
+            // Sub-paths of path are contiguous.
+            tbs[g] = alpha_xf_group;
+            first_idx[g] = map__server__idx.get(subpath_src);
+            last_idx[g] = first_idx[g] + entry.getKey().numServers() - 1;
+            g++;
+        }
+
+        return pmooLeftOverService(rls, tbs, first_idx, last_idx);
+    }
+
+    /**
+     * Closed-form counterpart of <code>PmooAnalysis.getServiceCurve(path, cross_flow_substitutes)</code>
+     * for token-bucket substitutes and rate-latency servers. It is independent of an instance's server graph
+     * and configuration, the substitutes' arrival curves are derived by the caller.
+     *
+     * @param path                   The tandem of servers the left-over service curve holds for.
+     * @param cross_flow_substitutes Flows representing a group of segregated flows, each crossing a sub-path of <code>path</code>.
+     * @return The PMOO left-over service curve or <code>null</code> if a server's service curve is not
+     * a rate-latency curve, a substitute's arrival curve is not a token bucket or its path is not a sub-path of <code>path</code>.
+     */
+    public static ServiceCurve getPmooServiceCurve(Path path, List<Flow> cross_flow_substitutes) {
+        List<Server> servers = path.getServers();
+        if (servers.isEmpty()) {
+            return null;
+        }
+        Map<Server, Integer> map__server__idx = new HashMap<Server, Integer>();
+        Rational[][] rls = new Rational[servers.size()][];
+        int i = 0;
+        for (Server server : servers) {
+            ServiceCurve service_curve = server.getServiceCurve();
+            if (service_curve.isDelayedInfiniteBurst() || service_curve.getRL_ComponentCount() != 1) {
+                return null;
+            }
+            map__server__idx.put(server, i);
+            rls[i] = new Rational[]{Rational.valueOf(service_curve.getUltAffineRate()),
+                    Rational.valueOf(service_curve.getLatency())};
+            i++;
+        }
+
+        Rational[][] tbs = new Rational[cross_flow_substitutes.size()][];
+        int[] first_idx = new int[tbs.length];
+        int[] last_idx = new int[tbs.length];
+        int f_idx = 0;
+        for (Flow f : cross_flow_substitutes) {
+            ArrivalCurve arrival_curve = f.getArrivalCurve();
+            if (arrival_curve.getTB_ComponentCount() != 1) {
+                return null;
+            }
+
+            Integer src_idx = map__server__idx.get(f.getSource());
+            if (src_idx == null) {
+                return null;
+            }
+            int idx = src_idx;
+            for (Server server : f.getPath().getServers()) {
+                if (idx >= servers.size() || servers.get(idx) != server) {
+                    return null;
+                }
+                idx++;
+            }
+
+            tbs[f_idx] = new Rational[]{Rational.valueOf(arrival_curve.getUltAffineRate()),
+                    Rational.valueOf(arrival_curve.getBurst())};
+            if (isInfinite(tbs[f_idx])) {
+                return Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+            }
+            first_idx[f_idx] = src_idx;
+            last_idx[f_idx] = idx - 1;
+            f_idx++;
+        }
+
+        return createServiceCurve(pmooLeftOverService(rls, tbs, first_idx, last_idx));
+    }
+
+    /**
+     * The left-over service curve is a rate-latency curve with the minimum left-over rate on the path
+     * and the sum of latencies plus the cross-traffic's bursts and latency terms divided by that rate.
+     * The cross-traffic's rate at each server is the prefix sum of the rates entering minus the rates
+     * that left before it, i.e., the curve is derived in O(servers + substitutes).
+     *
+     * @param rls       The servers' <code>{rate, latency}</code> in path order.
+     * @param tbs       The substitutes' finite <code>{rate, burst}</code>.
+     * @param first_idx Index of each substitute's first server.
+     * @param last_idx  Index of each substitute's last server.
+     * @return The left-over <code>{rate, latency}</code>.
+     */
+    private static Rational[] pmooLeftOverService(Rational[][] rls, Rational[][] tbs, int[] first_idx, int[] last_idx) {
+        Rational[] delta_r = new Rational[rls.length + 1];
+        Arrays.fill(delta_r, Rational.ZERO);
+        Rational sum_bursts = Rational.ZERO;
+        for (int f = 0; f < tbs.length; f++) {
+            delta_r[first_idx[f]] = delta_r[first_idx[f]].add(tbs[f][0]);
+            delta_r[last_idx[f] + 1] = delta_r[last_idx[f] + 1].sub(tbs[f][0]);
+            sum_bursts = sum_bursts.add(tbs[f][1]);
+        }
+
+        Rational R = Rational.POSITIVE_INFINITY;
+        Rational T = Rational.ZERO;
+        Rational sum_latencyterms = Rational.ZERO;
+        Rational sum_r = Rational.ZERO;
+        for (int i = 0; i < rls.length; i++) {
+            sum_r = sum_r.add(delta_r[i]);
+            if (sum_r.compareTo(rls[i][0]) >= 0) {
+                return ZERO_SERVICE;
+            }
+            R = Rational.min(R, rls[i][0].sub(sum_r));
+            T = T.add(rls[i][1]);
+            sum_latencyterms = sum_latencyterms.add(sum_r.mult(rls[i][1]));
+        }
+
+        return new Rational[]{R, T.add(sum_bursts.add(sum_latencyterms).div(R))};
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Closed-form operations on {rate, burst} and {rate, latency}
+    // --------------------------------------------------------------------------------------------------------------
+
+    private static boolean isZero(Rational[] tb) {
+        return tb[0].signum() == 0 && tb[1].signum() == 0;
+    }
+
+    private static boolean isInfinite(Rational[] tb) {
+        return tb[1].isInfinite();
+    }
+
+    private static boolean isZeroService(Rational[] rl) {
+        return rl[0].signum() <= 0 || rl[1].isInfinite();
+    }
+
+    private static Rational[] add(Rational[] tb_1, Rational[] tb_2) {
+        if (isInfinite(tb_1) || isInfinite(tb_2)) {
+            return INFINITE_ARRIVALS;
+        }
+        return new Rational[]{tb_1[0].add(tb_2[0]), tb_1[1].add(tb_2[1])};
+    }
+
+    private static Rational[] convolve(Rational[] rl_1, Rational[] rl_2) {
+        if (isZeroService(rl_1) || isZeroService(rl_2)) {
+            return ZERO_SERVICE;
+        }
+        return new Rational[]{Rational.min(rl_1[0], rl_2[0]), rl_1[1].add(rl_2[1])};
+    }
+
+    private static Rational[] leftOverServiceARB(Rational[] rl, Rational[] tb) {
+        if (isZero(tb)) {
+            return rl;
+        }
+        if (isInfinite(tb) || isZeroService(rl) || tb[0].compareTo(rl[0]) >= 0) {
+            return ZERO_SERVICE;
+        }
+        Rational rate_lo = rl[0].sub(tb[0]);
+        return new Rational[]{rate_lo, tb[1].add(rl[0].mult(rl[1])).div(rate_lo)};
+    }
+
+    private static Rational[] output(Rational[] tb, Rational[] rl) {
+        if (isZero(tb)) {
+            return ZERO_ARRIVALS;
+        }
+        if (isInfinite(tb) || isZeroService(rl) || tb[0].compareTo(rl[0]) > 0) {
+            return INFINITE_ARRIVALS;
+        }
+        return new Rational[]{tb[0], tb[1].add(tb[0].mult(rl[1]))};
+    }
+
+    private static Rational backlog(Rational[] tb, Rational[] rl) {
+        if (isZero(tb)) {
+            return Rational.ZERO;
+        }
+        if (isInfinite(tb) || isZeroService(rl) || tb[0].compareTo(rl[0]) > 0) {
+            return Rational.POSITIVE_INFINITY;
+        }
+        return tb[1].add(tb[0].mult(rl[1]));
+    }
+
+    private static Rational delayFIFO(Rational[] tb, Rational[] rl) {
+        if (isZero(tb)) {
+            return Rational.ZERO;
+        }
+        if (isInfinite(tb) || isZeroService(rl) || tb[0].compareTo(rl[0]) > 0) {
+            return Rational.POSITIVE_INFINITY;
+        }
+        return rl[1].add(tb[1].div(rl[0]));
+    }
+
+    private static Rational delayARB(Rational[] tb, Rational[] rl) {
+        if (isZero(tb)) {
+            return Rational.ZERO;
+        }
+        if (isInfinite(tb) || isZeroService(rl) || tb[0].compareTo(rl[0]) > 0) {
+            return Rational.POSITIVE_INFINITY;
+        }
+        // The arrival curve intersects the service curve at the x-coordinate of this horizontal deviation.
+        Rational numerator = tb[1].add(rl[0].mult(rl[1]));
+        if (tb[0].equals(rl[0])) {
+            return numerator.signum() == 0 ? Rational.ZERO : Rational.POSITIVE_INFINITY;
+        }
+        return numerator.div(rl[0].sub(tb[0]));
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Conversion of results
+    // --------------------------------------------------------------------------------------------------------------
+
+    private static Num createNum(Rational value) {
+        return value.toNum(Calculator.getInstance().getNumBackend());
+    }
+
+    private static ArrivalCurve createArrivalCurve(Rational[] tb) {
+        if (isZero(tb)) {
+            return Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get();
+        }
+        if (isInfinite(tb)) {
+            return Curve_ConstantPool.INFINITE_ARRIVAL_CURVE.get();
+        }
+        return Curve.getFactory().createTokenBucket(createNum(tb[0]), createNum(tb[1]));
+    }
+
+    private static ServiceCurve createServiceCurve(Rational[] rl) {
+        if (isZeroService(rl)) {
+            return Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+        }
+        return Curve.getFactory().createRateLatency(createNum(rl[0]), createNum(rl[1]));
+    }
+}
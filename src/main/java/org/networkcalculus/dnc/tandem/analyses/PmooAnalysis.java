@@ -43,6 +43,7 @@ import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
 import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
@@ -53,6 +54,9 @@ import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.profiling.Profiler;
+import org.networkcalculus.dnc.profiling.ProfilingRecord;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
 import org.networkcalculus.dnc.tandem.AbstractTandemAnalysis;
 import org.networkcalculus.num.Num;
 
@@ -82,6 +86,10 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
      * rate latency curves, and calls <code>computePartialPMOOServiceCurve()</code>
      * for each combination. The total PMOO service curve is the maximum of all
      * partial service curves.
+     * <p>
+     * If all service curves are rate-latency curves and all substitutes' arrival curves are token buckets,
+     * there is a single combination with a closed-form result that is derived by
+     * <code>AffineFastPath.getPmooServiceCurve(path, cross_flow_substitutes)</code> instead.
      *
      * @param path                   The Path traversed for which a PMOO left-over service curve will
      *                               be computed.
@@ -90,6 +98,11 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
      * @return The PMOO service curve
      */
     public static ServiceCurve getServiceCurve(Path path, List<Flow> cross_flow_substitutes) {
+        ServiceCurve beta_affine = AffineFastPath.getPmooServiceCurve(path, cross_flow_substitutes);
+        if (beta_affine != null) {
+            return beta_affine;
+        }
+
         // Create a flow-->tb_iter map
         Map<Flow, Integer> flow_tb_iter_map = new HashMap<Flow, Integer>();
         for (Flow f : cross_flow_substitutes) {
@@ -268,10 +281,28 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
     }
 
     public void performAnalysis(Flow flow_of_interest, Path path) throws Exception {
+        ProfilingRecord flow_record = openFlowRecord();
+        int phase = Profiler.begin(Phase.PMOO);
+        try {
+            deriveBounds(flow_of_interest, path);
+            retainResultDetails();
+            emitFlowBounds(flow_of_interest);
+        } finally {
+            endProfiling(Phase.PMOO, phase, flow_record);
+        }
+    }
+
+    private void deriveBounds(Flow flow_of_interest, Path path) throws Exception {
         if (configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO) {
             throw new Exception("PMOO analysis is not available for FIFO multiplexing nodes");
         }
 
+        AffineFastPath affine_fast_path = getAffineFastPath();
+        if (affine_fast_path != null) {
+            affine_fast_path.performPmooAnalysis(flow_of_interest, path, (PmooResults) result);
+            return;
+        }
+
         ((PmooResults) result).betas_e2e = getServiceCurves(flow_of_interest, path,
                 Collections.singleton(flow_of_interest));
 
@@ -283,12 +314,12 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
 
         for (ServiceCurve beta_e2e : ((PmooResults) result).betas_e2e) {
             // Single flow of interest, i.e., fifo per micro flow holds
-            delay_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().delayFIFO(flow_of_interest.getArrivalCurve(), beta_e2e);
+            delay_bound__beta_e2e = Calculator.getInstance().getBounds().delayFIFO(flow_of_interest.getArrivalCurve(), beta_e2e);
             if (delay_bound__beta_e2e.leq(result.getDelayBound())) {
                 ((PmooResults) result).setDelayBound(delay_bound__beta_e2e);
             }
 
-            backlog_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().backlog(flow_of_interest.getArrivalCurve(), beta_e2e);
+            backlog_bound__beta_e2e = Calculator.getInstance().getBounds().backlog(flow_of_interest.getArrivalCurve(), beta_e2e);
             if (backlog_bound__beta_e2e.leq(result.getBacklogBound())) {
                 ((PmooResults) result).setBacklogBound(backlog_bound__beta_e2e);
             }
@@ -563,7 +594,7 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
         Map<Path, Set<Flow>> xtx_subpath_grouped = server_graph.groupFlowsPerSubPath(path, cross_flows);
 
         if (xtx_subpath_grouped.isEmpty()) {
-            return new HashSet<ServiceCurve>(Collections.singleton(path.getServiceCurve()));
+            return new HashSet<ServiceCurve>(Collections.singleton(server_graph.getServiceCurve(path)));
         }
 
         return xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped);
@@ -590,7 +621,7 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
             substitute_flow_alias = substitute_flow_alias.concat("}");
 
             // Derive the substitute flow's arrival bound
-            Set<ArrivalCurve> alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
+            Set<ArrivalCurve> alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds(getArrivalBoundSession(),
                     entry.getKey().getSource(), entry.getValue(), Flow.NULL_FLOW);
             // entry.getKey().getSource() because entry.getKey() is the common subpath of
             // path (above variable), i.e., start of interference on path.
@@ -652,6 +683,7 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
     }
 
     public Set<ServiceCurve> getLeftOverServiceCurves() {
+        requireResultDetail(ResultDetail.SUMMARY);
         return ((PmooResults) result).betas_e2e;
     }
 }
@@ -28,6 +28,7 @@
 
 package org.networkcalculus.dnc.tandem.analyses;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -37,19 +38,23 @@ import java.util.Map;
 import java.util.Set;
 
 import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundSession;
 import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.profiling.Profiler;
+import org.networkcalculus.dnc.profiling.ProfilingRecord;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
 import org.networkcalculus.dnc.tandem.AbstractTandemAnalysis;
-import org.networkcalculus.dnc.utils.SetUtils;
 import org.networkcalculus.num.Num;
 
 public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
@@ -92,7 +97,26 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
     }
 
     public void performAnalysis(Flow flow_of_interest, Path path) throws Exception {
-        result = tandemAnalysis(server_graph, flow_of_interest, path, Collections.singleton(flow_of_interest), configuration);
+        ProfilingRecord flow_record = openFlowRecord();
+        int phase = Profiler.begin(Phase.SFA);
+        try {
+            deriveBounds(flow_of_interest, path);
+            retainResultDetails();
+            emitFlowBounds(flow_of_interest);
+        } finally {
+            endProfiling(Phase.SFA, phase, flow_record);
+        }
+    }
+
+    private void deriveBounds(Flow flow_of_interest, Path path) throws Exception {
+        AffineFastPath affine_fast_path = getAffineFastPath();
+        if (affine_fast_path != null) {
+            result = new SeparateFlowResults();
+            affine_fast_path.performSeparateFlowAnalysis(flow_of_interest, path, (SeparateFlowResults) result);
+            return;
+        }
+
+        result = tandemAnalysis(getArrivalBoundSession(), flow_of_interest, path, Collections.singleton(flow_of_interest));
 
         Num delay_bound__beta_e2e;
         Num backlog_bound__beta_e2e;
@@ -102,12 +126,12 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
 
         for (ServiceCurve beta_e2e : ((SeparateFlowResults) result).betas_e2e) {
         	// single flow of interest, i.e., FIFO per micro flow holds.
-            delay_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().delayFIFO(flow_of_interest.getArrivalCurve(), beta_e2e); 
+            delay_bound__beta_e2e = Calculator.getInstance().getBounds().delayFIFO(flow_of_interest.getArrivalCurve(), beta_e2e); 
             if (delay_bound__beta_e2e.leq(result.getDelayBound())) {
                 ((SeparateFlowResults) result).setDelayBound(delay_bound__beta_e2e);
             }
 
-            backlog_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().backlog(flow_of_interest.getArrivalCurve(), beta_e2e);
+            backlog_bound__beta_e2e = Calculator.getInstance().getBounds().backlog(flow_of_interest.getArrivalCurve(), beta_e2e);
             if (backlog_bound__beta_e2e.leq(result.getBacklogBound())) {
                 ((SeparateFlowResults) result).setBacklogBound(backlog_bound__beta_e2e);
             }
@@ -116,11 +140,18 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
     
     @Deprecated
     protected Set<ServiceCurve> getServiceCurves(Flow flow_of_interest, Path path, Set<Flow> flows_to_serve) throws Exception {
-    	return tandemAnalysis(server_graph,flow_of_interest, path, flows_to_serve, configuration).betas_e2e;
+    	return tandemAnalysis(getArrivalBoundSession(), flow_of_interest, path, flows_to_serve).betas_e2e;
     }
 
     public static SeparateFlowResults tandemAnalysis(ServerGraph server_graph, Flow flow_of_interest, Path path, Set<Flow> flows_to_serve, AnalysisConfig configuration)
             throws Exception {
+        return tandemAnalysis(new ArrivalBoundSession(server_graph, configuration), flow_of_interest, path, flows_to_serve);
+    }
+
+    public static SeparateFlowResults tandemAnalysis(ArrivalBoundSession ab_session, Flow flow_of_interest, Path path, Set<Flow> flows_to_serve)
+            throws Exception {
+        ServerGraph server_graph = ab_session.getServerGraph();
+        AnalysisConfig configuration = ab_session.getConfiguration();
     	SeparateFlowResults result = new SeparateFlowResults();
         Set<ServiceCurve> betas_lo_path = new HashSet<ServiceCurve>();
         Set<ServiceCurve> betas_lo_server;
@@ -137,11 +168,15 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
         Set<Flow> f_xxfcaller_server_onpath;
         Set<Flow> f_xxfcaller_server_src;
         
+        // The flows we compute the beta l.o. of and the flow of interest that, if present, has lowest priority.
+        BitSet f_xfcaller_foi_ids = server_graph.getFlowIds(flows_to_serve);
+        f_xfcaller_foi_ids.or(server_graph.getFlowIds(Collections.singleton(flow_of_interest)));
+        
         for (Server server : path.getServers()) {
 			// Find the set of flows that interfere, either already on or coming off the common_subpath. 
-            Set<Flow> f_xxfcaller_server = server_graph.getFlows(server);
-            f_xxfcaller_server.removeAll(flows_to_serve);	// We compute their beta l.o.
-            f_xxfcaller_server.remove(flow_of_interest);	// If present, it has lowest priority.
+            BitSet f_xxfcaller_server_ids = server_graph.getFlowIds(server);
+            f_xxfcaller_server_ids.andNot(f_xfcaller_foi_ids);
+            Set<Flow> f_xxfcaller_server = server_graph.getFlows(f_xxfcaller_server_ids);
 
             betas_lo_server = new HashSet<ServiceCurve>();
             
@@ -164,7 +199,7 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
 				Path foi_path = flow_of_interest.getPath();
 	        	if( foi_path.getServers().contains(server) && !foi_path.isSource(server) ) { 
 	        		turn_from_prev_s = server_graph.findTurn(foi_path.getPrecedingServer(server), server);
-	        		f_xxfcaller_server_onpath = SetUtils.getIntersection(f_xxfcaller_server, server_graph.getFlows(turn_from_prev_s));
+	        		f_xxfcaller_server_onpath = server_graph.getFlows(server_graph.retainFlowIds(turn_from_prev_s, f_xxfcaller_server_ids));
 	        	}
 			}
                     	
@@ -189,14 +224,14 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
         	
         	if(!f_xxfcaller_server_onpath.isEmpty()) {
         		ac_sets_to_combine.add(
-        				ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration ,server, f_xxfcaller_server_onpath, flow_of_interest));
+        				ArrivalBoundDispatch.computeArrivalBounds(ab_session, server, f_xxfcaller_server_onpath, flow_of_interest));
         	}
         	
         	// If, during this method's use in arrival bounding, we already left the foi's path,
 			// flow_of_interest was set to Flow.NULL_FLOW before. If not, do it again now, that won't harm.
         	if(!f_xxfcaller_server.isEmpty()) {
         		ac_sets_to_combine.add(
-        			ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server, f_xxfcaller_server, Flow.NULL_FLOW));
+        			ArrivalBoundDispatch.computeArrivalBounds(ab_session, server, f_xxfcaller_server, Flow.NULL_FLOW));
         	}
         	
         	if( ac_sets_to_combine.isEmpty() ) {
@@ -219,7 +254,7 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
                 }
 	             
                 // Calculate the left-over service curve for the flow of interest
-                betas_lo_server = Calculator.getInstance().getDncBackend().getBoundingCurves().leftOverService(configuration, server, alpha_xfois);
+                betas_lo_server = Calculator.getInstance().getBoundingCurves().leftOverService(configuration, server, alpha_xfois);
                 result.map__server__alphas.put(server, alpha_xfois);
             }
             ((SeparateFlowResults) result).map__server__betas_lo.put(server, betas_lo_server);
@@ -232,14 +267,17 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
     }
 
     public Set<ServiceCurve> getLeftOverServiceCurves() {
+        requireResultDetail(ResultDetail.SUMMARY);
         return ((SeparateFlowResults) result).betas_e2e;
     }
 
     public Map<Server, Set<ServiceCurve>> getServerLeftOverBetasMap() {
+        requireResultDetail(ResultDetail.FULL);
         return ((SeparateFlowResults) result).map__server__betas_lo;
     }
 
     public String getServerLeftOverBetasMapString() {
+        requireResultDetail(ResultDetail.FULL);
         return ((SeparateFlowResults) result).getServerLeftOverBetasMapString();
     }
 }
\ No newline at end of file
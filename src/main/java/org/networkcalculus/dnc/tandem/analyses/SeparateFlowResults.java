@@ -35,6 +35,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.network.server_graph.Server;
@@ -70,6 +71,17 @@ public class SeparateFlowResults extends TandemAnalysisResults {
         super.setBacklogBound(backlog_bound);
     }
     
+    @Override
+    protected void discardDetails(ResultDetail result_detail) {
+        if (result_detail != ResultDetail.FULL) {
+            map__server__betas_lo = new HashMap<Server, Set<ServiceCurve>>();
+        }
+        if (result_detail == ResultDetail.BOUNDS) {
+            betas_e2e = new HashSet<ServiceCurve>();
+        }
+        super.discardDetails(result_detail);
+    }
+
     public Set<ServiceCurve> getBetasE2E() {
     	return Collections.unmodifiableSet(betas_e2e);
     }
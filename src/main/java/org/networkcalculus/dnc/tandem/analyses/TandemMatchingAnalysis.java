@@ -40,6 +40,7 @@ import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
 import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
@@ -50,7 +51,11 @@ import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.profiling.Profiler;
+import org.networkcalculus.dnc.profiling.ProfilingRecord;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
 import org.networkcalculus.dnc.tandem.AbstractTandemAnalysis;
+import org.networkcalculus.dnc.utils.Cancellation;
 import org.networkcalculus.num.Num;
 
 public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
@@ -58,6 +63,7 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 	private TandemMatchingAnalysis() {}
 
 	public Set<ServiceCurve> getLeftOverServiceCurves() {
+		requireResultDetail( ResultDetail.SUMMARY );
 		return ((TandemMatchingResults) result).betas_e2e;
 	}
 	
@@ -85,6 +91,19 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 	}
 
 	public void performAnalysis( Flow flow_of_interest, Path path ) throws Exception
+	{
+		ProfilingRecord flow_record = openFlowRecord();
+		int phase = Profiler.begin( Phase.TMA );
+		try {
+			deriveBounds( flow_of_interest, path );
+			retainResultDetails();
+			emitFlowBounds( flow_of_interest );
+		} finally {
+			endProfiling( Phase.TMA, phase, flow_record );
+		}
+	}
+
+	private void deriveBounds( Flow flow_of_interest, Path path ) throws Exception
 	{
 		if( configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO )
 		{
@@ -108,12 +127,12 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
         ((TandemMatchingResults) result).setBacklogBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
 		
 		for( ServiceCurve beta_e2e : ((TandemMatchingResults) result).betas_e2e ) {
-			delay_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().delayFIFO( flow_of_interest.getArrivalCurve(), beta_e2e ); // Single flow of interest, i.e., fifo per micro flow holds
+			delay_bound__beta_e2e = Calculator.getInstance().getBounds().delayFIFO( flow_of_interest.getArrivalCurve(), beta_e2e ); // Single flow of interest, i.e., fifo per micro flow holds
 			if( delay_bound__beta_e2e.leq(result.getDelayBound()) ) {
 				 ((TandemMatchingResults) result).setDelayBound(delay_bound__beta_e2e);
 			}
 			
-			backlog_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().backlog( flow_of_interest.getArrivalCurve(), beta_e2e );
+			backlog_bound__beta_e2e = Calculator.getInstance().getBounds().backlog( flow_of_interest.getArrivalCurve(), beta_e2e );
 			if( backlog_bound__beta_e2e.leq(result.getBacklogBound()) ) {
 				((TandemMatchingResults) result).setBacklogBound(backlog_bound__beta_e2e);
 			}
@@ -188,6 +207,7 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 
 		Set<ServiceCurve> betas_e2e = new HashSet<ServiceCurve>();
 		for ( List<Path> combination : sub_path_combinations ) {					// Every sub_path_combination
+			Cancellation.checkpoint(configuration.cancellation());
 			Set<ServiceCurve> betas_e2e_combination = new HashSet<ServiceCurve>();	// will have a set of end-to-end left-over service curves
 			for ( Path sub_path : combination ) {									// computed as the convolution of its partial left-over service curves.
 				betas_e2e_combination = Calculator.getInstance().getMinPlus().convolve( 
@@ -212,7 +232,7 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 		Map<Pair<Turn,Path>,Set<Flow>> xtx_subpath_grouped = server_graph.groupFlowsPerInturnSubPath( path, cross_flows );
 		
 		if( xtx_subpath_grouped.isEmpty() ) {
-			return new HashSet<ServiceCurve>( Collections.singleton( path.getServiceCurve() ) );
+			return new HashSet<ServiceCurve>( Collections.singleton( server_graph.getServiceCurve( path ) ) );
 		}
 		
 		// Derive the cross-flow substitutes with their arrival bound
@@ -242,13 +262,13 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 			Path foi_path = flow_of_interest.getPath();
 			
 	 		if( foi_path.getTurns().contains( entry.getKey().getFirst() ) ) {
-	 			alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, path_src, entry.getValue(), flow_of_interest );
+	 			alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( getArrivalBoundSession(), path_src, entry.getValue(), flow_of_interest );
 	 		} else {
 	 			// We are leaving the flow_of_interest's path with this arrival bounding.
 	 			// Therefore, worst-case arbitrary multiplexing cannot be modeled with 
 				// assigning lowest prioritization to the flow of interest anymore (cf. rejoining flows)
 	 			// and we call computeArrivalBounds with Flow.NULL_FLOW instead of flow_of_interest.
-			 	alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, path_src, entry.getValue(), Flow.NULL_FLOW );
+			 	alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( getArrivalBoundSession(), path_src, entry.getValue(), Flow.NULL_FLOW );
 	 		}
 
 			// Add the new bounds to the others by creating all the permutations.
@@ -26,9 +26,11 @@
 
 package org.networkcalculus.dnc.tandem.analyses;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.network.server_graph.Server;
@@ -59,4 +61,12 @@ public class TandemMatchingResults extends TandemAnalysisResults {
     protected void setBacklogBound(Num backlog_bound) {
         super.setBacklogBound(backlog_bound);
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void discardDetails(ResultDetail result_detail) {
+        if (result_detail == ResultDetail.BOUNDS) {
+            betas_e2e = new HashSet<ServiceCurve>();
+        }
+        super.discardDetails(result_detail);
+    }
+}
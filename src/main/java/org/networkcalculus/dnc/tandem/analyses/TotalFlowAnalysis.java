@@ -28,9 +28,13 @@
 
 package org.networkcalculus.dnc.tandem.analyses;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
 
 import org.apache.commons.math3.util.Pair;
 
@@ -38,6 +42,7 @@ import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
 import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
@@ -45,10 +50,19 @@ import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.profiling.Profiler;
+import org.networkcalculus.dnc.profiling.ProfilingRecord;
+import org.networkcalculus.dnc.profiling.Profiler.Phase;
 import org.networkcalculus.dnc.tandem.AbstractTandemAnalysis;
+import org.networkcalculus.dnc.utils.ForkJoinUtils;
 import org.networkcalculus.num.Num;
 
 public class TotalFlowAnalysis extends AbstractTandemAnalysis {
+    // Server-local bounds of the entire server graph indexed by server id, see deriveNetworkBounds().
+    private Num[] network_delay_bounds;
+    private Num[] network_backlog_bounds;
+    private TotalFlowResults network_result;
+
     @SuppressWarnings("unused")
     private TotalFlowAnalysis() {
     }
@@ -70,11 +84,29 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
     }
 
     public void performAnalysis(Flow flow_of_interest, Path path) throws Exception {
+        ProfilingRecord flow_record = openFlowRecord();
+        int phase = Profiler.begin(Phase.TFA);
+        try {
+            deriveBounds(flow_of_interest, path);
+            retainResultDetails();
+            emitFlowBounds(flow_of_interest);
+        } finally {
+            endProfiling(Phase.TFA, phase, flow_record);
+        }
+    }
+
+    private void deriveBounds(Flow flow_of_interest, Path path) throws Exception {
+        if (network_result != null) {
+            sumNetworkBounds(path);
+            return;
+        }
+
         Num delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
         Num backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
 
         for (Server server : path.getServers()) {
             Pair<Num,Num> min_D_B = deriveBoundsAtServer(server);
+            emitServerBounds(server, min_D_B.getFirst(), min_D_B.getSecond());
 
             delay_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).add(delay_bound, min_D_B.getFirst());
             backlog_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).max(backlog_bound, min_D_B.getSecond());
@@ -84,11 +116,116 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
         ((TotalFlowResults) result).setBacklogBound(backlog_bound);
     }
 
+    private void sumNetworkBounds(Path path) {
+        Num delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        Num backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+
+        TotalFlowResults tfa_result = (TotalFlowResults) result;
+        for (Server server : path.getServers()) {
+            delay_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).add(delay_bound, network_delay_bounds[server.getId()]);
+            backlog_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).max(backlog_bound, network_backlog_bounds[server.getId()]);
+
+            tfa_result.map__server__alphas.put(server, network_result.map__server__alphas.get(server));
+            tfa_result.map__server__D_server.put(server, network_result.map__server__D_server.get(server));
+            tfa_result.map__server__B_server.put(server, network_result.map__server__B_server.get(server));
+        }
+
+        tfa_result.setDelayBound(delay_bound);
+        tfa_result.setBacklogBound(backlog_bound);
+    }
+
+    /**
+     * Derives the bounds of every server in the server graph exactly once.
+     * The servers are processed in topological order, the servers of a level in parallel.
+     * Subsequent calls of performAnalysis(...) sum up the tabulated server bounds
+     * along the path instead of deriving them again.
+     * <p>
+     * Replaces the arrival bounds precomputed by ArrivalBoundDispatch.
+     * Derive the bounds again after modifying the server graph or the configuration.
+     * <p>
+     * Unless the configuration sets the result detail level, the per-flow results retain
+     * the bounds only from now on, see deriveDetails(flow).
+     *
+     * @throws Exception
+     *             The server graph is not feed-forward or the bounding failed.
+     */
+    public void deriveNetworkBounds() throws Exception {
+        int server_id_max = -1;
+        for (Server server : server_graph.getServers()) {
+            server_id_max = Math.max(server_id_max, server.getId());
+        }
+        Num[] delay_bounds = new Num[server_id_max + 1];
+        Num[] backlog_bounds = new Num[server_id_max + 1];
+        TotalFlowResults results = new TotalFlowResults(
+                Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN(), new ConcurrentHashMap<Server, Set<Num>>(),
+                Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN(), new ConcurrentHashMap<Server, Set<Num>>(),
+                new ConcurrentHashMap<Server, Set<ArrivalCurve>>());
+
+        resetServerBoundsEmitted();
+
+        AffineFastPath affine_fast_path = getAffineFastPath();
+        if (affine_fast_path != null) {
+            // Closed-form and memoized, not worth parallelizing.
+            for (Server server : server_graph.getServers()) {
+                Pair<Num,Num> min_D_B = affine_fast_path.deriveBoundsAtServer(server, results);
+                delay_bounds[server.getId()] = min_D_B.getFirst();
+                backlog_bounds[server.getId()] = min_D_B.getSecond();
+                emitServerBounds(server, min_D_B.getFirst(), min_D_B.getSecond());
+            }
+        } else {
+            // The servers' arrival bounds, also derived level by level.
+            ArrivalBoundDispatch.precomputeArrivalBounds(server_graph, configuration);
+
+            for (List<Server> level : server_graph.getTopologicalLevels()) {
+                List<ForkJoinTask<Pair<Num,Num>>> level_tasks = new ArrayList<ForkJoinTask<Pair<Num,Num>>>();
+                for (Server server : level) {
+                    level_tasks.add(ForkJoinTask.adapt(() -> deriveBoundsAtServer(server, results)));
+                }
+                List<Pair<Num,Num>> level_bounds = ForkJoinUtils.invokeAll(level_tasks);
+                for (int i = 0; i < level.size(); i++) {
+                    delay_bounds[level.get(i).getId()] = level_bounds.get(i).getFirst();
+                    backlog_bounds[level.get(i).getId()] = level_bounds.get(i).getSecond();
+                    emitServerBounds(level.get(i), level_bounds.get(i).getFirst(), level_bounds.get(i).getSecond());
+                }
+            }
+        }
+
+        network_delay_bounds = delay_bounds;
+        network_backlog_bounds = backlog_bounds;
+        network_result = results;
+    }
+
+    /**
+     * @return BOUNDS once the bounds of the entire server graph were derived, see deriveNetworkBounds().
+     */
+    @Override
+    protected ResultDetail getDefaultResultDetail() {
+        return network_result != null ? ResultDetail.BOUNDS : super.getDefaultResultDetail();
+    }
+
+    /**
+     * Discards the bounds derived by deriveNetworkBounds().
+     */
+    public void clearNetworkBounds() {
+        network_delay_bounds = null;
+        network_backlog_bounds = null;
+        network_result = null;
+    }
+
     public Pair<Num,Num> deriveBoundsAtServer(Server server) throws Exception {
+        return deriveBoundsAtServer(server, (TotalFlowResults) result);
+    }
+
+    private Pair<Num,Num> deriveBoundsAtServer(Server server, TotalFlowResults result) throws Exception {
+        AffineFastPath affine_fast_path = getAffineFastPath();
+        if (affine_fast_path != null) {
+            return affine_fast_path.deriveBoundsAtServer(server, result);
+        }
+
         // Here's the difference to SFA:
         // TFA needs the arrival bound of all flows at the server, including the flow of
         // interest.
-        Set<ArrivalCurve> alphas_server = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server);
+        Set<ArrivalCurve> alphas_server = ArrivalBoundDispatch.computeArrivalBounds(getArrivalBoundSession(), server);
         // Although the TFA has a flow of interest, DO NOT call
         // computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Server
         // 							server, Set<Flow> flows_to_bound, Flow flow_of_interest).
@@ -104,7 +241,7 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
             // curve calculation
             ServiceCurve beta_server = server.getServiceCurve();
 
-            Num backlog_bound_server_alpha = Calculator.getInstance().getDncBackend().getBounds().backlog(alpha_candidate, beta_server);
+            Num backlog_bound_server_alpha = Calculator.getInstance().getBounds().backlog(alpha_candidate, beta_server);
             backlog_bounds_server.add(backlog_bound_server_alpha);
 
             if (backlog_bound_server_alpha.leq(backlog_bound_s__min)) {
@@ -122,9 +259,9 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
                     || (configuration.enforceMultiplexing() == MultiplexingEnforcement.SERVER_LOCAL
                     && server.multiplexing() == Multiplexing.FIFO)
                     || fifo_per_micro_flow) {
-                delay_bound_server_alpha = Calculator.getInstance().getDncBackend().getBounds().delayFIFO(alpha_candidate, beta_server);
+                delay_bound_server_alpha = Calculator.getInstance().getBounds().delayFIFO(alpha_candidate, beta_server);
             } else {
-                delay_bound_server_alpha = Calculator.getInstance().getDncBackend().getBounds().delayARB(alpha_candidate, beta_server);
+                delay_bound_server_alpha = Calculator.getInstance().getBounds().delayARB(alpha_candidate, beta_server);
             }
             delay_bounds_server.add(delay_bound_server_alpha);
 
@@ -132,26 +269,30 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
                 delay_bound_s__min = delay_bound_server_alpha;
             }
         }
-        ((TotalFlowResults) result).map__server__alphas.put(server, alphas_server);
-        ((TotalFlowResults) result).map__server__D_server.put(server, delay_bounds_server);
-        ((TotalFlowResults) result).map__server__B_server.put(server, backlog_bounds_server);
+        result.map__server__alphas.put(server, alphas_server);
+        result.map__server__D_server.put(server, delay_bounds_server);
+        result.map__server__B_server.put(server, backlog_bounds_server);
 
         return new Pair<Num,Num>(delay_bound_s__min, backlog_bound_s__min);
     }
 
     public Map<Server, Set<Num>> getServerDelayBoundMap() {
+        requireResultDetail(ResultDetail.SUMMARY);
         return ((TotalFlowResults) result).map__server__D_server;
     }
 
     public String getServerDelayBoundMapString() {
+        requireResultDetail(ResultDetail.SUMMARY);
         return ((TotalFlowResults) result).getServerDelayBoundMapString();
     }
 
     public Map<Server, Set<Num>> getServerBacklogBoundMap() {
+        requireResultDetail(ResultDetail.SUMMARY);
         return ((TotalFlowResults) result).map__server__B_server;
     }
 
     public String getServerBacklogBoundMapString() {
+        requireResultDetail(ResultDetail.SUMMARY);
         return ((TotalFlowResults) result).getServerBacklogBoundMapString();
     }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.networkcalculus.dnc.AnalysisConfig.ResultDetail;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.tandem.TandemAnalysisResults;
@@ -57,6 +58,15 @@ public class TotalFlowResults extends TandemAnalysisResults {
         this.map__server__B_server = map__server__B_server;
     }
 
+    @Override
+    protected void discardDetails(ResultDetail result_detail) {
+        if (result_detail == ResultDetail.BOUNDS) {
+            map__server__D_server = new HashMap<Server, Set<Num>>();
+            map__server__B_server = new HashMap<Server, Set<Num>>();
+        }
+        super.discardDetails(result_detail);
+    }
+
     public String getServerDelayBoundMapString() {
         if (map__server__D_server.isEmpty()) {
             return "{}";
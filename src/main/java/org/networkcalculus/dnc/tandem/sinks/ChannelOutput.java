@@ -0,0 +1,203 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.sinks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sequential output of the result sinks to a file.
+ * <p>
+ * The buffered variant fills one direct buffer while the other one is written by a background thread.
+ * The memory-mapped variant puts the data into mapped regions of the file that the operating system
+ * writes back asynchronously. Either way, writing overlaps with the analysis and the heap usage is
+ * independent of the amount of data written.
+ * <p>
+ * The file is complete only after close(), before that it may lack data or contain padding.
+ * Closing more than once has no effect.
+ */
+abstract class ChannelOutput implements Closeable {
+    static ChannelOutput open(Path file, boolean memory_mapped) throws IOException {
+        return memory_mapped ? new Mapped(file) : new Buffered(file);
+    }
+
+    /**
+     * @param bytes The number of bytes to put next, at most the buffer size.
+     * @return A buffer with at least the given number of bytes remaining.
+     * @throws IOException Writing the previous data failed.
+     */
+    abstract ByteBuffer reserve(int bytes) throws IOException;
+
+    @Override
+    public abstract void close() throws IOException;
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Double-buffered channel writes
+    // --------------------------------------------------------------------------------------------------------------
+    private static final class Buffered extends ChannelOutput {
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final FileChannel channel;
+        private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ChannelOutput-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private ByteBuffer buffer_written = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private Future<?> write_pending;
+        private boolean closed = false;
+
+        private Buffered(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        @Override
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (bytes > BUFFER_SIZE) {
+                throw new IllegalArgumentException("Cannot reserve " + bytes + " bytes, the buffer size is " + BUFFER_SIZE);
+            }
+            if (buffer.remaining() < bytes) {
+                swap();
+            }
+            return buffer;
+        }
+
+        private void swap() throws IOException {
+            // The other buffer can be reused once its write completed.
+            awaitWrite();
+
+            ByteBuffer buffer_full = buffer;
+            buffer_full.flip();
+            buffer = buffer_written;
+            buffer.clear();
+            buffer_written = buffer_full;
+
+            write_pending = writer.submit(() -> {
+                while (buffer_full.hasRemaining()) {
+                    channel.write(buffer_full);
+                }
+                return null;
+            });
+        }
+
+        private void awaitWrite() throws IOException {
+            if (write_pending == null) {
+                return;
+            }
+            try {
+                write_pending.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the results to be written");
+            } finally {
+                write_pending = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                swap();
+                awaitWrite();
+            } finally {
+                writer.shutdown();
+                channel.close();
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Memory-mapped file
+    // --------------------------------------------------------------------------------------------------------------
+    private static final class Mapped extends ChannelOutput {
+        private static final int REGION_SIZE = 64 << 20;
+
+        private final FileChannel channel;
+        private MappedByteBuffer region;
+        private long region_position = 0;
+        private boolean closed = false;
+
+        private Mapped(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (bytes > REGION_SIZE) {
+                throw new IllegalArgumentException("Cannot reserve " + bytes + " bytes, the region size is " + REGION_SIZE);
+            }
+            if (region == null || region.remaining() < bytes) {
+                // Mapping beyond the end of the file extends it, the padding is truncated on close.
+                long position = size();
+                region = channel.map(FileChannel.MapMode.READ_WRITE, position, REGION_SIZE);
+                region_position = position;
+            }
+            return region;
+        }
+
+        private long size() {
+            return region == null ? 0 : region_position + region.position();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                long size = size();
+                if (region != null) {
+                    region.force();
+                    // Unmapped once collected, some platforms refuse to truncate a file that is still mapped.
+                    region = null;
+                }
+                channel.truncate(size);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.sinks;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.ResultSink;
+import org.networkcalculus.num.Num;
+
+/**
+ * Writes the bounds in a binary columnar format, read by replay(...).
+ * <p>
+ * The file starts with the magic number and the format version (ints). It continues with blocks
+ * that start with their kind (byte):
+ * <ul>
+ * <li>ANALYSIS: analysis id (short), name length (int), UTF-8 name.
+ * Precedes the first block referring to the analysis.</li>
+ * <li>FLOWS, SERVERS: record count n (int), then the columns
+ * flow or server id (n ints), analysis id (n shorts), delay bound (n doubles), backlog bound (n doubles).</li>
+ * </ul>
+ * Records are collected in blocks of at most BLOCK_SIZE per kind, the heap usage is independent of the
+ * number of records. Multi-byte values are big-endian.
+ */
+public class ColumnarResultSink implements ResultSink {
+    public static final int MAGIC = 0x444E4352; // DNCR
+    public static final int VERSION = 1;
+
+    public static final byte BLOCK_ANALYSIS = 0;
+    public static final byte BLOCK_FLOWS = 1;
+    public static final byte BLOCK_SERVERS = 2;
+
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final int RECORD_BYTES = Integer.BYTES + Short.BYTES + 2 * Double.BYTES;
+
+    private final ChannelOutput output;
+    private final Map<String, Short> map__analysis__id = new HashMap<String, Short>();
+
+    private final Block flows = new Block(BLOCK_FLOWS);
+    private final Block servers = new Block(BLOCK_SERVERS);
+
+    public ColumnarResultSink(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param file          The file to write, replaced if it exists.
+     * @param memory_mapped Write to a memory-mapped file instead of buffered channel writes.
+     * @throws IOException The file cannot be opened.
+     */
+    public ColumnarResultSink(Path file, boolean memory_mapped) throws IOException {
+        output = ChannelOutput.open(file, memory_mapped);
+        output.reserve(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public synchronized void flowBounds(String analysis, Flow flow_of_interest, Num delay_bound, Num backlog_bound)
+            throws IOException {
+        flows.add(flow_of_interest.getId(), getAnalysisId(analysis), delay_bound, backlog_bound);
+    }
+
+    @Override
+    public synchronized void serverBounds(String analysis, Server server, Num delay_bound, Num backlog_bound)
+            throws IOException {
+        servers.add(server.getId(), getAnalysisId(analysis), delay_bound, backlog_bound);
+    }
+
+    private short getAnalysisId(String analysis) throws IOException {
+        Short analysis_id = map__analysis__id.get(analysis);
+        if (analysis_id != null) {
+            return analysis_id;
+        }
+
+        if (map__analysis__id.size() > Short.MAX_VALUE) {
+            throw new IOException("Too many analyses");
+        }
+        analysis_id = (short) map__analysis__id.size();
+        map__analysis__id.put(analysis, analysis_id);
+
+        byte[] name = analysis.getBytes(StandardCharsets.UTF_8);
+        output.reserve(1 + Short.BYTES + Integer.BYTES + name.length)
+                .put(BLOCK_ANALYSIS).putShort(analysis_id).putInt(name.length).put(name);
+        return analysis_id;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flows.write();
+            servers.write();
+        } finally {
+            output.close();
+        }
+    }
+
+    private class Block {
+        private final byte kind;
+
+        private final int[] ids = new int[BLOCK_SIZE];
+        private final short[] analysis_ids = new short[BLOCK_SIZE];
+        private final double[] delay_bounds = new double[BLOCK_SIZE];
+        private final double[] backlog_bounds = new double[BLOCK_SIZE];
+        private int count = 0;
+
+        private Block(byte kind) {
+            this.kind = kind;
+        }
+
+        private void add(int id, short analysis_id, Num delay_bound, Num backlog_bound) throws IOException {
+            ids[count] = id;
+            analysis_ids[count] = analysis_id;
+            delay_bounds[count] = delay_bound.doubleValue();
+            backlog_bounds[count] = backlog_bound.doubleValue();
+            count++;
+
+            if (count == BLOCK_SIZE) {
+                write();
+            }
+        }
+
+        private void write() throws IOException {
+            if (count == 0) {
+                return;
+            }
+
+            ByteBuffer buffer = output.reserve(1 + Integer.BYTES + count * RECORD_BYTES);
+            buffer.put(kind).putInt(count);
+            for (int i = 0; i < count; i++) {
+                buffer.putInt(ids[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                buffer.putShort(analysis_ids[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                buffer.putDouble(delay_bounds[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                buffer.putDouble(backlog_bounds[i]);
+            }
+            count = 0;
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Reading
+    // --------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Passes the bounds stored in the file to another sink, e.g., a CsvResultSink.
+     * Records of a kind are passed in order, the kinds may interleave differently than when written.
+     *
+     * @param file         The file written by a ColumnarResultSink.
+     * @param server_graph The analyzed server graph to look up flows and servers by id.
+     * @param sink         The sink to pass the bounds to, it is not closed.
+     * @throws Exception The file is not valid or a flow or server is not in the server graph.
+     */
+    public static void replay(Path file, ServerGraph server_graph, ResultSink sink) throws Exception {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a columnar result file: " + file);
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar result file version " + version);
+            }
+
+            List<String> analyses = new ArrayList<String>();
+            while (true) {
+                int kind = input.read();
+                if (kind < 0) {
+                    return;
+                }
+
+                switch (kind) {
+                    case BLOCK_ANALYSIS:
+                        short analysis_id = input.readShort();
+                        if (analysis_id != analyses.size()) {
+                            throw new IOException("Unexpected analysis id " + analysis_id);
+                        }
+                        byte[] name = new byte[input.readInt()];
+                        input.readFully(name);
+                        analyses.add(new String(name, StandardCharsets.UTF_8));
+                        break;
+                    case BLOCK_FLOWS:
+                    case BLOCK_SERVERS:
+                        replayBlock(input, (byte) kind, analyses, server_graph, sink);
+                        break;
+                    default:
+                        throw new IOException("Unknown block kind " + kind);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated columnar result file: " + file, e);
+        }
+    }
+
+    private static void replayBlock(DataInputStream input, byte kind, List<String> analyses, ServerGraph server_graph,
+            ResultSink sink) throws Exception {
+        int count = input.readInt();
+        int[] ids = new int[count];
+        short[] analysis_ids = new short[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = input.readInt();
+        }
+        for (int i = 0; i < count; i++) {
+            analysis_ids[i] = input.readShort();
+        }
+        Num[] delay_bounds = new Num[count];
+        for (int i = 0; i < count; i++) {
+            delay_bounds[i] = Num.getFactory(Calculator.getInstance().getNumBackend()).create(input.readDouble());
+        }
+
+        for (int i = 0; i < count; i++) {
+            Num backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).create(input.readDouble());
+            String analysis = analyses.get(analysis_ids[i]);
+            if (kind == BLOCK_FLOWS) {
+                sink.flowBounds(analysis, server_graph.getFlow(ids[i]), delay_bounds[i], backlog_bound);
+            } else {
+                sink.serverBounds(analysis, server_graph.getServer(ids[i]), delay_bounds[i], backlog_bound);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.sinks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.tandem.ResultSink;
+import org.networkcalculus.num.Num;
+
+/**
+ * Writes the bounds as CSV lines <code>kind,id,alias,analysis,delay_bound,backlog_bound</code>
+ * where kind is either flow or server. Bounds are written as doubles.
+ */
+public class CsvResultSink implements ResultSink {
+    private static final String HEADER = "kind,id,alias,analysis,delay_bound,backlog_bound\n";
+
+    private final ChannelOutput output;
+    private final StringBuilder line = new StringBuilder();
+
+    public CsvResultSink(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param file          The file to write, replaced if it exists.
+     * @param memory_mapped Write to a memory-mapped file instead of buffered channel writes.
+     * @throws IOException The file cannot be opened.
+     */
+    public CsvResultSink(Path file, boolean memory_mapped) throws IOException {
+        output = ChannelOutput.open(file, memory_mapped);
+        put(HEADER);
+    }
+
+    @Override
+    public synchronized void flowBounds(String analysis, Flow flow_of_interest, Num delay_bound, Num backlog_bound)
+            throws IOException {
+        putLine("flow", flow_of_interest.getId(), flow_of_interest.getAlias(), analysis, delay_bound, backlog_bound);
+    }
+
+    @Override
+    public synchronized void serverBounds(String analysis, Server server, Num delay_bound, Num backlog_bound)
+            throws IOException {
+        putLine("server", server.getId(), server.getAlias(), analysis, delay_bound, backlog_bound);
+    }
+
+    private void putLine(String kind, int id, String alias, String analysis, Num delay_bound, Num backlog_bound)
+            throws IOException {
+        line.setLength(0);
+        line.append(kind).append(',').append(id).append(',');
+        appendField(alias);
+        line.append(',');
+        appendField(analysis);
+        line.append(',').append(delay_bound.doubleValue()).append(',').append(backlog_bound.doubleValue()).append('\n');
+        put(line.toString());
+    }
+
+    private void appendField(String field) {
+        if (field == null) {
+            return;
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+            line.append(field);
+            return;
+        }
+        line.append('"').append(field.replace("\"", "\"\"")).append('"');
+    }
+
+    private void put(String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        output.reserve(bytes.length).put(bytes);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.utils;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Token for the cooperative cancellation of an analysis run.
+ * <p>
+ * A token is handed to the analyses via AnalysisConfig.setCancellation(Cancellation). Long-running
+ * loops of the analyses call checkpoint(Cancellation) with their configuration's token. Once
+ * cancellation was requested, the next checkpoint reached by any thread working with this token,
+ * including the fork/join workers of parallel arrival bounding, aborts the analysis with a
+ * CancellationException. Analyses with other tokens or without a token are not affected.
+ * Partial results are not cached.
+ * <p>
+ * A token cannot be reset, every run that should be cancellable on its own requires a new one.
+ */
+public final class Cancellation {
+    private volatile boolean requested = false;
+
+    public void request() {
+        requested = true;
+    }
+
+    public boolean isRequested() {
+        return requested;
+    }
+
+    /**
+     * @param cancellation The token of the running analysis, null if it cannot be cancelled.
+     * @throws CancellationException Cancellation was requested or the current thread was interrupted.
+     */
+    public static void checkpoint(Cancellation cancellation) throws CancellationException {
+        if ((cancellation != null && cancellation.requested) || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Analysis cancelled");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Convenience methods for the fork/join parallelization of analyses.
+ */
+public final class ForkJoinUtils {
+    /**
+     * Joins the task, or invokes it in the current thread, and rethrows the
+     * exception of the computation wrapped by ForkJoinTask.adapt(...).
+     *
+     * @param <T>    Type of the task's result.
+     * @param task   The task.
+     * @param invoke Execute the task in the current thread instead of waiting for it.
+     * @return The task's result.
+     * @throws Exception The exception raised by the task's computation.
+     */
+    public static <T> T join(ForkJoinTask<T> task, boolean invoke) throws Exception {
+        try {
+            return invoke ? task.invoke() : task.join();
+        } catch (RuntimeException e) {
+            // ForkJoinTask.adapt wraps checked exceptions, possibly rethrown with a new wrapper by the joining thread.
+            Throwable cause = e;
+            while (cause instanceof RuntimeException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Forks all tasks but the last one, executes the last one in the current
+     * thread and joins the others.
+     *
+     * @param <T>   Type of the tasks' results.
+     * @param tasks The tasks.
+     * @return The results in the order of the tasks.
+     * @throws Exception The first exception raised by a task's computation.
+     */
+    public static <T> List<T> invokeAll(List<ForkJoinTask<T>> tasks) throws Exception {
+        for (int i = 0; i < tasks.size() - 1; i++) {
+            tasks.get(i).fork();
+        }
+        List<T> results = new ArrayList<T>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(join(tasks.get(i), i == tasks.size() - 1));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.num.Num;
+import org.networkcalculus.num.NumBackend;
+
+/**
+ * Exact rational numbers for the DNC's own closed-form computations.
+ * <p>
+ * Numerator and denominator are kept in <code>long</code>s as long as possible.
+ * Results are not reduced after every operation. Operands are only canonicalized
+ * once an operation overflows. The operation falls back to <code>BigInteger</code>s
+ * if it still overflows, and a result that fits again is demoted to <code>long</code>s.
+ * <p>
+ * Denominator 0 encodes the positive (numerator 1) and negative (numerator -1)
+ * infinity as well as NaN (numerator 0). Instances are immutable.
+ */
+public final class Rational implements Comparable<Rational> {
+	public static final Rational ZERO = new Rational(0, 1);
+	public static final Rational ONE = new Rational(1, 1);
+	public static final Rational POSITIVE_INFINITY = new Rational(1, 0);
+	public static final Rational NEGATIVE_INFINITY = new Rational(-1, 0);
+	public static final Rational NaN = new Rational(0, 0);
+
+	private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+	private static final MathContext QUOTIENT_CONTEXT = new MathContext(40);
+	private static final long DOUBLE_EXACT_MAX = 1L << 53;
+
+	// Valid if big_num == null. The denominator is never negative.
+	private final long num;
+	private final long den;
+
+	// Only used for finite values that do not fit into longs even when canonical.
+	private final BigInteger big_num;
+	private final BigInteger big_den;
+
+	private Rational(long num, long den) {
+		this.num = num;
+		this.den = den;
+		this.big_num = null;
+		this.big_den = null;
+	}
+
+	private Rational(BigInteger big_num, BigInteger big_den) {
+		this.num = 0;
+		this.den = 1;
+		this.big_num = big_num;
+		this.big_den = big_den;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Creation
+	// --------------------------------------------------------------------------------------------------------------
+	public static Rational valueOf(long value) {
+		return new Rational(value, 1);
+	}
+
+	public static Rational valueOf(long num, long den) {
+		if (den == 0) {
+			return num == 0 ? NaN : (num > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+		}
+		if (den < 0) {
+			if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+				return valueOf(BigInteger.valueOf(num).negate(), BigInteger.valueOf(den).negate());
+			}
+			return new Rational(-num, -den);
+		}
+		return new Rational(num, den);
+	}
+
+	public static Rational valueOf(BigInteger num, BigInteger den) {
+		if (den.signum() == 0) {
+			return valueOf(num.signum(), 0);
+		}
+		if (den.signum() < 0) {
+			num = num.negate();
+			den = den.negate();
+		}
+		BigInteger gcd = num.gcd(den);
+		if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+			num = num.divide(gcd);
+			den = den.divide(gcd);
+		}
+		if (fitsLong(num) && fitsLong(den)) {
+			return new Rational(num.longValue(), den.longValue());
+		}
+		return new Rational(num, den);
+	}
+
+	public static Rational valueOf(BigDecimal value) {
+		if (value.scale() <= 0) {
+			return valueOf(value.toBigIntegerExact(), BigInteger.ONE);
+		}
+		return valueOf(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+	}
+
+	/**
+	 * Converts a double exactly, i.e., into the binary fraction actually stored in it.
+	 * For instance, 0.1 becomes 3602879701896397/36028797018963968.
+	 *
+	 * @param value
+	 *            The value to convert.
+	 * @return The rational number.
+	 */
+	public static Rational valueOf(double value) {
+		if (Double.isNaN(value)) {
+			return NaN;
+		}
+		if (Double.isInfinite(value)) {
+			return value > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY;
+		}
+		// The cast saturates, 2^63 would pass the comparison as Long.MAX_VALUE.
+		if (Math.abs(value) < 0x1p63 && value == (long) value) {
+			return valueOf((long) value);
+		}
+
+		// value == mantissa * 2^exponent
+		long bits = Double.doubleToRawLongBits(value);
+		int exponent = (int) ((bits >> 52) & 0x7ff);
+		long mantissa = bits & 0xfffffffffffffL;
+		if (exponent == 0) { // Subnormal
+			exponent = 1;
+		} else {
+			mantissa |= 1L << 52;
+		}
+		exponent -= 1075;
+
+		int trailing_zeros = Long.numberOfTrailingZeros(mantissa);
+		mantissa >>= trailing_zeros;
+		exponent += trailing_zeros;
+		if (bits < 0) {
+			mantissa = -mantissa;
+		}
+
+		// Integral values beyond the long range.
+		if (exponent >= 0) {
+			return valueOf(BigInteger.valueOf(mantissa).shiftLeft(exponent), BigInteger.ONE);
+		}
+		// The mantissa is odd, i.e., the fraction is canonical.
+		if (exponent > -63) {
+			return new Rational(mantissa, 1L << -exponent);
+		}
+		return new Rational(BigInteger.valueOf(mantissa), BigInteger.ONE.shiftLeft(-exponent));
+	}
+
+	/**
+	 * Parses "p/q" and "p / q" as well as integers and decimal numbers.
+	 *
+	 * @param value
+	 *            The string to parse.
+	 * @return The rational number.
+	 * @throws NumberFormatException
+	 *             The string does not represent a rational number.
+	 */
+	public static Rational valueOf(String value) throws NumberFormatException {
+		String value_trimmed = value.trim();
+		int slash = value_trimmed.indexOf('/');
+		if (slash >= 0) {
+			return valueOf(new BigInteger(value_trimmed.substring(0, slash).trim()),
+					new BigInteger(value_trimmed.substring(slash + 1).trim()));
+		}
+		switch (value_trimmed) {
+			case "Infinity":
+				return POSITIVE_INFINITY;
+			case "-Infinity":
+				return NEGATIVE_INFINITY;
+			case "NaN":
+				return NaN;
+			default:
+				return valueOf(new BigDecimal(value_trimmed));
+		}
+	}
+
+	/**
+	 * Values of real Num backends are converted exactly from their double value.
+	 * Rational Num backends print exact fractions that are parsed as such, their
+	 * conversion should thus be done once per value and cached by the caller.
+	 *
+	 * @param value
+	 *            The number to convert.
+	 * @return The rational number.
+	 */
+	public static Rational valueOf(Num value) {
+		double value_double = value.doubleValue();
+		if (Double.isNaN(value_double) || Double.isInfinite(value_double)) {
+			return valueOf(value_double);
+		}
+		switch (Calculator.getInstance().getNumBackend()) {
+		case REAL_DOUBLE_PRECISION:
+		case REAL_SINGLE_PRECISION:
+			return valueOf(value_double);
+		default:
+			try {
+				return valueOf(value.toString());
+			} catch (NumberFormatException e) {
+				return valueOf(value_double);
+			}
+		}
+	}
+
+	/**
+	 * Exact for rational Num backends as long as numerator and denominator can be
+	 * represented by a double without rounding.
+	 *
+	 * @param num_backend
+	 *            The backend to create the number in.
+	 * @return The number.
+	 */
+	public Num toNum(NumBackend num_backend) {
+		Num factory = Num.getFactory(num_backend);
+		if (isNaN()) {
+			return factory.createNaN();
+		}
+		if (isInfinite()) {
+			return signum() > 0 ? factory.createPositiveInfinity() : factory.createNegativeInfinity();
+		}
+
+		Rational canonical = canonical();
+		if (canonical.big_num == null) {
+			if (canonical.num == (int) canonical.num && canonical.den == (int) canonical.den) {
+				return factory.create((int) canonical.num, (int) canonical.den);
+			}
+			if (Math.abs(canonical.num) <= DOUBLE_EXACT_MAX && canonical.den <= DOUBLE_EXACT_MAX) {
+				return Num.getUtils(num_backend).div(factory.create((double) canonical.num), factory.create((double) canonical.den));
+			}
+		}
+		return factory.create(doubleValue());
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Arithmetic
+	// --------------------------------------------------------------------------------------------------------------
+	public Rational add(Rational other) {
+		if (isSpecial() || other.isSpecial()) {
+			return valueOf(doubleValue() + other.doubleValue());
+		}
+		if (big_num == null && other.big_num == null) {
+			try {
+				return addLong(this, other);
+			} catch (ArithmeticException e) {
+			}
+			try {
+				return addLong(canonical(), other.canonical());
+			} catch (ArithmeticException e) {
+			}
+		}
+		return valueOf(bigNum().multiply(other.bigDen()).add(other.bigNum().multiply(bigDen())),
+				bigDen().multiply(other.bigDen()));
+	}
+
+	private static Rational addLong(Rational r_1, Rational r_2) {
+		if (r_1.den == r_2.den) {
+			return new Rational(Math.addExact(r_1.num, r_2.num), r_1.den);
+		}
+		return new Rational(Math.addExact(Math.multiplyExact(r_1.num, r_2.den), Math.multiplyExact(r_2.num, r_1.den)),
+				Math.multiplyExact(r_1.den, r_2.den));
+	}
+
+	public Rational sub(Rational other) {
+		return add(other.negate());
+	}
+
+	public Rational mult(Rational other) {
+		if (isSpecial() || other.isSpecial()) {
+			return valueOf(doubleValue() * other.doubleValue());
+		}
+		if (big_num == null && other.big_num == null) {
+			try {
+				return new Rational(Math.multiplyExact(num, other.num), Math.multiplyExact(den, other.den));
+			} catch (ArithmeticException e) {
+			}
+			try {
+				Rational r_1 = canonical();
+				Rational r_2 = other.canonical();
+				return new Rational(Math.multiplyExact(r_1.num, r_2.num), Math.multiplyExact(r_1.den, r_2.den));
+			} catch (ArithmeticException e) {
+			}
+		}
+		return valueOf(bigNum().multiply(other.bigNum()), bigDen().multiply(other.bigDen()));
+	}
+
+	public Rational div(Rational other) {
+		if (isSpecial() || other.isSpecial() || other.signum() == 0) {
+			return valueOf(doubleValue() / other.doubleValue());
+		}
+		return mult(other.reciprocal());
+	}
+
+	public Rational negate() {
+		if (big_num != null) {
+			return valueOf(big_num.negate(), big_den); // -(2^63) fits into a long again.
+		}
+		if (num == Long.MIN_VALUE) {
+			return valueOf(BigInteger.valueOf(num).negate(), BigInteger.valueOf(den));
+		}
+		return new Rational(-num, den);
+	}
+
+	private Rational reciprocal() {
+		if (big_num != null) {
+			return valueOf(big_den, big_num);
+		}
+		return valueOf(den, num);
+	}
+
+	public static Rational min(Rational r_1, Rational r_2) {
+		return r_1.compareTo(r_2) <= 0 ? r_1 : r_2;
+	}
+
+	public static Rational max(Rational r_1, Rational r_2) {
+		return r_1.compareTo(r_2) >= 0 ? r_1 : r_2;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Comparison
+	// --------------------------------------------------------------------------------------------------------------
+	public int signum() {
+		if (big_num != null) {
+			return big_num.signum();
+		}
+		return Long.signum(num);
+	}
+
+	public boolean isNaN() {
+		return big_num == null && den == 0 && num == 0;
+	}
+
+	public boolean isInfinite() {
+		return big_num == null && den == 0 && num != 0;
+	}
+
+	private boolean isSpecial() {
+		return big_num == null && den == 0;
+	}
+
+	/**
+	 * NaN is considered greater than all other values, including the positive infinity.
+	 */
+	@Override
+	public int compareTo(Rational other) {
+		if (isSpecial() || other.isSpecial()) {
+			return Double.compare(doubleValue(), other.doubleValue());
+		}
+		if (big_num == null && other.big_num == null) {
+			if (den == other.den) {
+				return Long.compare(num, other.num);
+			}
+			try {
+				return Long.compare(Math.multiplyExact(num, other.den), Math.multiplyExact(other.num, den));
+			} catch (ArithmeticException e) {
+			}
+		}
+		return bigNum().multiply(other.bigDen()).compareTo(other.bigNum().multiply(bigDen()));
+	}
+
+	public double doubleValue() {
+		if (big_num != null) {
+			if (big_den.equals(BigInteger.ONE)) {
+				return big_num.doubleValue();
+			}
+			// Far more digits than a double holds, the conversion of the quotient rounds only once in effect.
+			return new BigDecimal(big_num).divide(new BigDecimal(big_den), QUOTIENT_CONTEXT).doubleValue();
+		}
+		if (den == 0) {
+			return num == 0 ? Double.NaN : (num > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+		}
+		return (double) num / (double) den;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Canonical form
+	// --------------------------------------------------------------------------------------------------------------
+	private Rational canonical() {
+		if (big_num != null || den == 0) {
+			return this; // BigInteger and special values are canonical already.
+		}
+		long gcd = gcd(Math.abs(num), den);
+		if (gcd <= 1) {
+			return this;
+		}
+		return new Rational(num / gcd, den / gcd);
+	}
+
+	private static long gcd(long a, long b) {
+		if (a < 0) { // Math.abs(Long.MIN_VALUE)
+			return BigInteger.valueOf(a).gcd(BigInteger.valueOf(b)).longValue();
+		}
+		while (b != 0) {
+			long tmp = a % b;
+			a = b;
+			b = tmp;
+		}
+		return a;
+	}
+
+	private BigInteger bigNum() {
+		return big_num != null ? big_num : BigInteger.valueOf(num);
+	}
+
+	private BigInteger bigDen() {
+		return big_den != null ? big_den : BigInteger.valueOf(den);
+	}
+
+	private static boolean fitsLong(BigInteger value) {
+		return value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Rational)) {
+			return false;
+		}
+		Rational other = (Rational) obj;
+		if (isNaN() || other.isNaN()) {
+			return isNaN() && other.isNaN();
+		}
+		return compareTo(other) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		Rational canonical = canonical();
+		if (canonical.big_num != null) {
+			return 31 * canonical.big_num.hashCode() + canonical.big_den.hashCode();
+		}
+		return 31 * Long.hashCode(canonical.num) + Long.hashCode(canonical.den);
+	}
+
+	@Override
+	public String toString() {
+		if (isSpecial()) {
+			return Double.toString(doubleValue());
+		}
+		Rational canonical = canonical();
+		if (canonical.bigDen().equals(BigInteger.ONE)) {
+			return canonical.bigNum().toString();
+		}
+		return canonical.bigNum().toString() + " / " + canonical.bigDen().toString();
+	}
+}
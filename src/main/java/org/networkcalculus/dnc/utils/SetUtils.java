@@ -26,10 +26,13 @@
 
 package org.networkcalculus.dnc.utils;
 
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.ToIntFunction;
 
 /**
  * A tiny collection of convenience methods useful in dealing with sets but not
@@ -65,9 +68,88 @@ public final class SetUtils {
         if (s1 == null || s2 == null)
             return new HashSet<T>();
 
-        Set<T> result = new HashSet<T>(s1);
-        result.retainAll(s2);
-        return result;
+        return getIntersection(s1, s2, new HashSet<T>());
+    }
+
+    /**
+     * Adds the intersection of set <code>s1</code> and set <code>s2</code> to
+     * the set <code>target</code>. Only the smaller set is iterated, no copy
+     * of either set is created.
+     *
+     * @param <T>    Type of the sets' entries.
+     * @param s1     A set.
+     * @param s2     Another set.
+     * @param target The set to add the intersection to.
+     * @return The set <code>target</code>.
+     */
+    public static <T> Set<T> getIntersection(Set<T> s1, Set<T> s2, Set<T> target) {
+        Set<T> smaller = s1.size() <= s2.size() ? s1 : s2;
+        Set<T> larger = smaller == s1 ? s2 : s1;
+        for (T t : smaller) {
+            if (larger.contains(t)) {
+                target.add(t);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns the entries of set <code>s</code> whose id is contained in
+     * <code>ids</code>.
+     *
+     * @param <T>         Type of the set's entries.
+     * @param s           A set.
+     * @param ids         The ids of another set's entries.
+     * @param id_function Maps an entry to its id.
+     * @return The intersection set.
+     */
+    public static <T> Set<T> getIntersection(Set<T> s, BitSet ids, ToIntFunction<T> id_function) {
+        return getIntersection(s, ids, id_function, new HashSet<T>());
+    }
+
+    /**
+     * Adds the entries of set <code>s</code> whose id is contained in
+     * <code>ids</code> to the set <code>target</code>. Entries with a negative
+     * id, e.g., dummy flows, are never contained.
+     *
+     * @param <T>         Type of the set's entries.
+     * @param s           A set.
+     * @param ids         The ids of another set's entries.
+     * @param id_function Maps an entry to its id.
+     * @param target      The set to add the intersection to.
+     * @return The set <code>target</code>.
+     */
+    public static <T> Set<T> getIntersection(Set<T> s, BitSet ids, ToIntFunction<T> id_function, Set<T> target) {
+        if (s == null || ids == null) {
+            return target;
+        }
+        for (T t : s) {
+            int id = id_function.applyAsInt(t);
+            if (id >= 0 && ids.get(id)) {
+                target.add(t);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns the ids of the entries of collection <code>c</code>. Entries
+     * with a negative id, e.g., dummy flows, are skipped.
+     *
+     * @param <T>         Type of the collection's entries.
+     * @param c           A collection.
+     * @param id_function Maps an entry to its id.
+     * @return The ids.
+     */
+    public static <T> BitSet getIds(Collection<T> c, ToIntFunction<T> id_function) {
+        BitSet ids = new BitSet();
+        for (T t : c) {
+            int id = id_function.applyAsInt(t);
+            if (id >= 0) {
+                ids.set(id);
+            }
+        }
+        return ids;
     }
 
     /**